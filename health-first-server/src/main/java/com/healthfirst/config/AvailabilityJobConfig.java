@@ -0,0 +1,28 @@
+package com.healthfirst.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AvailabilityJobConfig {
+
+    /**
+     * Bounded worker pool for asynchronous bulk availability jobs.
+     * Each job submits at most worker-threads tasks, so the queue only grows with concurrent jobs.
+     */
+    @Bean(name = "availabilityJobExecutor")
+    public ThreadPoolTaskExecutor availabilityJobExecutor(
+            @Value("${app.availability.jobs.worker-threads:4}") int workerThreads,
+            @Value("${app.availability.jobs.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("availability-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false); // unfinished chunks are requeued on restart
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.healthfirst.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AvailabilitySearchConfig {
+
+    /**
+     * Bounded pool for the per-provider queries of a multi-provider search.
+     * Every thread holds a connection while its query runs, so the pool is capped at half the connection pool
+     * to leave the rest to request threads. A full queue rejects the task and the search runs that query on
+     * the request thread instead.
+     */
+    @Bean(name = "availabilitySearchExecutor")
+    public ThreadPoolTaskExecutor availabilitySearchExecutor(
+            @Value("${app.availability.search-merge.threads:4}") int threads,
+            @Value("${app.availability.search-merge.queue-capacity:500}") int queueCapacity,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        int poolSize = Math.max(1, Math.min(threads, connectionPoolSize / 2));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("availability-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -49,6 +49,9 @@ public class SecurityConfig {
                     "/patient/check-phone",
                     "/availability/search",
                     "/availability/appointment-types",
+                    "/availability/locations",
+                    "/availability/next-available",
+                    "/availability/common-free-time",
                     "/actuator/health",
                     "/h2-console/**",
                     "/swagger-ui/**",
@@ -56,6 +59,9 @@ public class SecurityConfig {
                     "/v3/api-docs/**",
                     "/api-docs/**"
                 ).permitAll()
+
+                // Bulk export is for provider and admin integrations, not patients
+                .requestMatchers("/availability/search/export").hasAnyRole("PROVIDER", "ADMIN")
                 
                 // All other requests require authentication
                 .anyRequest().authenticated()
@@ -7,9 +7,12 @@ import com.healthfirst.dto.AppointmentListResponse;
 import com.healthfirst.entity.AppointmentSlot;
 import com.healthfirst.entity.Patient;
 import com.healthfirst.entity.Provider;
+import com.healthfirst.event.SlotBookedEvent;
 import com.healthfirst.repository.AppointmentSlotRepository;
 import com.healthfirst.repository.PatientRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
 import com.healthfirst.repository.ProviderRepository;
+import com.healthfirst.service.VirtualSlotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -18,6 +21,8 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +30,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -50,6 +56,15 @@ public class AppointmentController {
     @Autowired
     private ProviderRepository providerRepository;
 
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Autowired
+    private ProviderAvailabilityRepository providerAvailabilityRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Operation(summary = "Book an appointment", 
                description = "Book an appointment for a patient with a provider based on available slots")
     @ApiResponses(value = {
@@ -67,10 +82,18 @@ public class AppointmentController {
         try {
             logger.info("Booking appointment request: {}", request);
 
-            // Validate and fetch appointment slot
-            Optional<AppointmentSlot> optionalSlot = appointmentSlotRepository.findById(request.getSlotId());
+            if (!request.hasSlotReference()) {
+                return ResponseEntity.badRequest()
+                    .body(AppointmentBookingResponse.error("Slot ID or availability ID and start time are required", "VALIDATION_ERROR"));
+            }
+
+            // Validate and fetch appointment slot (virtual slots are resolved by grid position)
+            Optional<AppointmentSlot> optionalSlot = request.getSlotId() != null
+                ? appointmentSlotRepository.findById(request.getSlotId())
+                : virtualSlotService.resolveForBooking(request.getAvailabilityId(), request.getStartDateTime());
             if (optionalSlot.isEmpty()) {
-                logger.warn("Appointment slot not found: {}", request.getSlotId());
+                logger.warn("Appointment slot not found: {}", request.getSlotId() != null
+                    ? request.getSlotId() : request.getAvailabilityId() + "@" + request.getStartDateTime());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(AppointmentBookingResponse.error("Appointment slot not found", "SLOT_NOT_FOUND"));
             }
@@ -122,13 +145,33 @@ public class AppointmentController {
                 logger.info("Appointment requires provider confirmation: {}", request.getSlotId());
             }
 
+            // Claim a stored slot with a conditional update, so of two concurrent bookings only one counts
+            if (slot.getId() != null && appointmentSlotRepository.claimOpenSlot(slot.getId()) != 1) {
+                logger.warn("Appointment slot was booked concurrently: {}", request);
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(AppointmentBookingResponse.error("Appointment slot is not available", "SLOT_NOT_AVAILABLE"));
+            }
+
             // Book the appointment
             slot.bookSlot(patient, request.getBookingReason());
             slot.setPatientNotes(request.getPatientNotes());
             slot.setBookingConfirmed(!slot.getProviderAvailability().getRequiresConfirmation());
 
-            // Save the appointment
-            AppointmentSlot bookedSlot = appointmentSlotRepository.save(slot);
+            // Save the appointment; the unique (availability, start) key rejects a concurrent virtual booking
+            AppointmentSlot bookedSlot;
+            try {
+                bookedSlot = appointmentSlotRepository.saveAndFlush(slot);
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Appointment slot was booked concurrently: {}", request);
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(AppointmentBookingResponse.error("Appointment slot is not available", "SLOT_NOT_AVAILABLE"));
+            }
+
+            // Count the booking on its availability in the same transaction
+            providerAvailabilityRepository.adjustBookedCount(bookedSlot.getProviderAvailability().getId(), 1);
+            eventPublisher.publishEvent(new SlotBookedEvent(bookedSlot.getProvider().getId(),
+                    bookedSlot.getProviderAvailability().getId(), bookedSlot.getStartDateTime()));
 
             // Create response
             AppointmentBookingResponse.AppointmentData appointmentData = 
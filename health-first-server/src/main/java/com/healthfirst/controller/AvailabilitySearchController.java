@@ -1,8 +1,20 @@
 package com.healthfirst.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchFacets;
 import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.dto.AvailabilitySearchResult;
+import com.healthfirst.dto.CommonFreeWindow;
+import com.healthfirst.entity.Patient;
+import com.healthfirst.entity.embedded.InsuranceInfo;
 import com.healthfirst.middleware.RateLimitingService;
+import com.healthfirst.service.AvailabilitySearchCache;
+import com.healthfirst.service.LocationTrigramIndex;
+import com.healthfirst.service.ProviderOccupancyTimeline;
 import com.healthfirst.service.ProviderAvailabilityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,12 +28,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,6 +55,18 @@ public class AvailabilitySearchController {
     @Autowired
     private RateLimitingService rateLimitingService;
 
+    @Autowired
+    private AvailabilitySearchCache searchCache;
+
+    @Autowired
+    private LocationTrigramIndex locationIndex;
+
+    @Autowired
+    private ProviderOccupancyTimeline occupancyTimeline;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Operation(summary = "Search available appointment slots", 
                description = "Public endpoint for patients to search available appointment slots with comprehensive filtering options")
     @ApiResponses(value = {
@@ -58,18 +87,32 @@ public class AvailabilitySearchController {
             @RequestParam(required = false) String appointmentType,
             @Parameter(description = "Location filter") 
             @RequestParam(required = false) String location,
+            @Parameter(description = "Earliest slot start time of day (HH:mm)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime preferredStartTime,
+            @Parameter(description = "Latest slot start time of day (HH:mm)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime preferredEndTime,
+            @Parameter(description = "Timezone the preferred times are in; each provider's own when omitted")
+            @RequestParam(required = false) String timezone,
             @Parameter(description = "Minimum price filter") 
             @RequestParam(required = false) BigDecimal minPrice,
             @Parameter(description = "Maximum price filter") 
             @RequestParam(required = false) BigDecimal maxPrice,
             @Parameter(description = "Insurance provider filter") 
             @RequestParam(required = false) String insurance,
+            @Parameter(description = "Only providers accepting the signed-in patient's insurance")
+            @RequestParam(defaultValue = "false") Boolean matchMyInsurance,
+            @Parameter(description = "Search near this point, as \"latitude,longitude\"")
+            @RequestParam(required = false) String proximityLocation,
+            @Parameter(description = "Radius around proximityLocation in km")
+            @RequestParam(required = false) Integer maxDistanceKm,
             @Parameter(description = "Maximum number of results (max 100)") 
             @RequestParam(defaultValue = "50") Integer maxResults,
             @Parameter(description = "Sort by: startTime, price, distance") 
             @RequestParam(defaultValue = "startTime") String sortBy,
             @Parameter(description = "Sort ascending (true) or descending (false)") 
             @RequestParam(defaultValue = "true") Boolean ascending,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
             HttpServletRequest httpRequest) {
 
         try {
@@ -95,6 +138,13 @@ public class AvailabilitySearchController {
                 );
             }
 
+            // Validate time range
+            if (preferredStartTime != null && preferredEndTime != null && preferredStartTime.isAfter(preferredEndTime)) {
+                return ResponseEntity.badRequest().body(
+                    Map.of("success", false, "message", "Invalid time range", "error_code", "INVALID_TIME_RANGE")
+                );
+            }
+
             // Validate price range
             if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
                 return ResponseEntity.badRequest().body(
@@ -106,16 +156,25 @@ public class AvailabilitySearchController {
             AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(startDate, endDate);
             searchRequest.setSpecialization(specialization);
             searchRequest.setLocation(location);
+            searchRequest.setPreferredStartTime(preferredStartTime);
+            searchRequest.setPreferredEndTime(preferredEndTime);
+            searchRequest.setTimezone(timezone);
             searchRequest.setMinPrice(minPrice);
             searchRequest.setMaxPrice(maxPrice);
             searchRequest.setMaxResults(Math.min(maxResults, 100)); // Cap at 100
             searchRequest.setSortBy(sortBy);
             searchRequest.setAscending(ascending);
+            searchRequest.setCursor(cursor);
+            searchRequest.setProximityLocation(proximityLocation);
+            searchRequest.setMaxDistanceKm(maxDistanceKm);
 
-            // Add insurance filter (future enhancement)
+            // Add insurance filter
             if (insurance != null) {
                 searchRequest.setAcceptedInsurance(List.of(insurance));
             }
+            if (matchMyInsurance) {
+                applyPatientInsurance(searchRequest, httpRequest);
+            }
 
             // Parse appointment type
             if (appointmentType != null) {
@@ -133,8 +192,8 @@ public class AvailabilitySearchController {
             }
 
             // Perform search
-            List<AvailabilityResponse.AppointmentSlotData> availableSlots = 
-                availabilityService.searchAvailableSlots(searchRequest);
+            AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+            List<AvailabilityResponse.AppointmentSlotData> availableSlots = result.getSlots();
 
             // Build response
             Map<String, Object> response = new HashMap<>();
@@ -142,7 +201,8 @@ public class AvailabilitySearchController {
             response.put("message", "Search completed successfully");
             response.put("data", availableSlots);
             response.put("count", availableSlots.size());
-            response.put("hasMore", availableSlots.size() >= searchRequest.getMaxResults());
+            response.put("hasMore", result.isHasMore());
+            response.put("nextCursor", result.getNextCursor());
             response.put("searchCriteria", buildSearchCriteriaResponse(searchRequest));
 
             return ResponseEntity.ok(response);
@@ -172,6 +232,8 @@ public class AvailabilitySearchController {
     public ResponseEntity<?> advancedSearchAvailableSlots(
             @Valid @RequestBody AvailabilitySearchRequest searchRequest,
             BindingResult bindingResult,
+            @Parameter(description = "Only providers accepting the signed-in patient's insurance")
+            @RequestParam(defaultValue = "false") Boolean matchMyInsurance,
             HttpServletRequest httpRequest) {
 
         try {
@@ -220,9 +282,13 @@ public class AvailabilitySearchController {
                 searchRequest.setMaxResults(100);
             }
 
+            if (matchMyInsurance) {
+                applyPatientInsurance(searchRequest, httpRequest);
+            }
+
             // Perform search
-            List<AvailabilityResponse.AppointmentSlotData> availableSlots = 
-                availabilityService.searchAvailableSlots(searchRequest);
+            AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+            List<AvailabilityResponse.AppointmentSlotData> availableSlots = result.getSlots();
 
             // Build enhanced response
             Map<String, Object> response = new HashMap<>();
@@ -230,9 +296,10 @@ public class AvailabilitySearchController {
             response.put("message", "Advanced search completed successfully");
             response.put("data", availableSlots);
             response.put("count", availableSlots.size());
-            response.put("hasMore", availableSlots.size() >= searchRequest.getMaxResults());
+            response.put("hasMore", result.isHasMore());
+            response.put("nextCursor", result.getNextCursor());
             response.put("searchCriteria", buildSearchCriteriaResponse(searchRequest));
-            response.put("filters", buildAvailableFilters(availableSlots));
+            response.put("filters", buildAvailableFilters(availabilityService.searchFacets(searchRequest)));
 
             return ResponseEntity.ok(response);
 
@@ -249,6 +316,229 @@ public class AvailabilitySearchController {
         }
     }
 
+    @Operation(summary = "Export available appointment slots",
+               description = "Every open slot matching the search criteria as newline-delimited JSON (application/x-ndjson), " +
+                             "one slot per line in start time order, streamed as it is read. Page size, sort and cursor are ignored. " +
+                             "The export holds a database connection until the download completes, so only a few run at once. " +
+                             "Providers and admins only.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export streamed"),
+        @ApiResponse(responseCode = "400", description = "Bad request - invalid search parameters"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - providers and admins only"),
+        @ApiResponse(responseCode = "429", description = "Too many requests - concurrent export limit reached")
+    })
+    @PostMapping("/search/export")
+    public ResponseEntity<?> exportAvailableSlots(
+            @Valid @RequestBody AvailabilitySearchRequest searchRequest,
+            BindingResult bindingResult) {
+
+        if (bindingResult.hasErrors()) {
+            List<String> errors = bindingResult.getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.toList());
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", "Validation failed: " + String.join(", ", errors),
+                       "error_code", "VALIDATION_ERROR", "errors", errors)
+            );
+        }
+        try {
+            availabilityService.validateExport(searchRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", e.getMessage(), "error_code", "INVALID_REQUEST")
+            );
+        }
+
+        if (!availabilityService.tryStartExport()) {
+            logger.warn("Export rejected, the concurrent export limit is reached");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(
+                Map.of("success", false, "message", "Too many exports running. Please try again later.",
+                       "error_code", "EXPORT_LIMIT_EXCEEDED")
+            );
+        }
+
+        // Rows go straight to the response; nothing but the generator's buffer is held
+        ObjectWriter writer = objectMapper.writerFor(AvailabilityResponse.AppointmentSlotData.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                long exported = availabilityService.exportAvailableSlots(searchRequest, slot -> {
+                    try {
+                        writer.writeValue(generator, slot);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                logger.info("Exported {} available slot(s) for {} to {}", exported,
+                        searchRequest.getStartDate(), searchRequest.getEndDate());
+            } catch (UncheckedIOException e) {
+                // Usually the client going away mid-export
+                throw e.getCause();
+            } finally {
+                availabilityService.finishExport();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Get search cache statistics",
+               description = "Hit, miss, eviction and invalidation counts of the availability search result cache")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/search/cache-stats")
+    public ResponseEntity<?> getSearchCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", searchCache.size());
+        stats.put("hits", searchCache.getHits());
+        stats.put("misses", searchCache.getMisses());
+        stats.put("evictions", searchCache.getEvictions());
+        stats.put("invalidations", searchCache.getInvalidations());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Search cache statistics retrieved successfully");
+        response.put("data", stats);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Get occupancy timeline statistics",
+               description = "Resident providers, memory use against the budget, and hit and fallback counts of the in-memory overlap timeline")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/occupancy-stats")
+    public ResponseEntity<?> getOccupancyTimelineStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("residentProviders", occupancyTimeline.getResidentProviderCount());
+        stats.put("residentBytes", occupancyTimeline.getResidentBytes());
+        stats.put("maxBytes", occupancyTimeline.getMaxBytes());
+        stats.put("timelineHits", occupancyTimeline.getTimelineHits());
+        stats.put("databaseFallbacks", occupancyTimeline.getDatabaseFallbacks());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Occupancy timeline statistics retrieved successfully");
+        response.put("data", stats);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Get each provider's next available slot",
+               description = "Earliest open slot of each listed provider, or of every active provider of a specialization")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Next available slots retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Bad request - no or too many providers"),
+        @ApiResponse(responseCode = "429", description = "Too many requests - rate limit exceeded"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/next-available")
+    public ResponseEntity<?> getNextAvailableSlots(
+            @Parameter(description = "Provider ids, comma separated")
+            @RequestParam(required = false) List<UUID> providerIds,
+            @Parameter(description = "Every active provider of this specialization, when no ids are given")
+            @RequestParam(required = false) String specialization,
+            HttpServletRequest httpRequest) {
+
+        try {
+            String clientIp = getClientIpAddress(httpRequest);
+
+            // Check rate limiting
+            if (!rateLimitingService.isRegistrationAllowed(clientIp)) {
+                return createRateLimitResponse(clientIp);
+            }
+
+            Map<UUID, AvailabilityResponse.AppointmentSlotData> nextSlots =
+                    availabilityService.findNextAvailableSlots(providerIds, specialization);
+
+            List<Map<String, Object>> data = new ArrayList<>();
+            nextSlots.forEach((providerId, slot) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("providerId", providerId);
+                entry.put("nextSlot", slot);
+                data.add(entry);
+            });
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Next available slots retrieved successfully");
+            response.put("data", data);
+            response.put("count", data.size());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid next available request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", e.getMessage(), "error_code", "INVALID_REQUEST")
+            );
+        } catch (Exception e) {
+            logger.error("Error retrieving next available slots", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                Map.of("success", false, "message", "Failed to retrieve next available slots", "error_code", "RETRIEVAL_ERROR")
+            );
+        }
+    }
+
+    @Operation(summary = "Find common free time",
+               description = "Windows in which all of several providers have open slots, e.g. for back-to-back visits, ranked soonest or longest first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Common free windows retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Bad request - invalid parameters"),
+        @ApiResponse(responseCode = "429", description = "Too many requests - rate limit exceeded"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/common-free-time")
+    public ResponseEntity<?> findCommonFreeTime(
+            @Parameter(description = "Provider ids, comma separated (at least 2)", required = true)
+            @RequestParam List<UUID> providerIds,
+            @Parameter(description = "Start date (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Shortest window to return, in minutes")
+            @RequestParam(defaultValue = "30") int minDurationMinutes,
+            @Parameter(description = "Rank by: earliest, longest")
+            @RequestParam(defaultValue = "earliest") String rankBy,
+            @Parameter(description = "Maximum number of windows (max 100)")
+            @RequestParam(defaultValue = "20") int maxResults,
+            HttpServletRequest httpRequest) {
+
+        try {
+            String clientIp = getClientIpAddress(httpRequest);
+
+            // Check rate limiting
+            if (!rateLimitingService.isRegistrationAllowed(clientIp)) {
+                return createRateLimitResponse(clientIp);
+            }
+
+            List<CommonFreeWindow> windows = availabilityService.findCommonFreeWindows(
+                    providerIds, startDate, endDate, minDurationMinutes, rankBy, Math.min(maxResults, 100));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Common free windows retrieved successfully");
+            response.put("data", windows);
+            response.put("count", windows.size());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid common free time request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", e.getMessage(), "error_code", "INVALID_REQUEST")
+            );
+        } catch (Exception e) {
+            logger.error("Error finding common free time", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                Map.of("success", false, "message", "Failed to find common free time", "error_code", "SEARCH_ERROR")
+            );
+        }
+    }
+
     @Operation(summary = "Get available appointment types", 
                description = "Get list of available appointment types for filtering")
     @ApiResponses(value = {
@@ -280,6 +570,31 @@ public class AvailabilitySearchController {
         }
     }
 
+    @Operation(summary = "Suggest locations",
+               description = "Autocomplete for the location filter: locations with availability containing the query, those starting with it first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Locations retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid query")
+    })
+    @GetMapping("/locations")
+    public ResponseEntity<?> suggestLocations(
+            @Parameter(description = "Text the location must contain, ignoring case")
+            @RequestParam String query,
+            @Parameter(description = "Maximum number of suggestions (1-50)")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (query.isBlank() || limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", "Query must not be blank and limit must be between 1 and 50", "error_code", "VALIDATION_ERROR")
+            );
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Locations retrieved successfully");
+        response.put("data", locationIndex.suggest(query.trim(), limit));
+        return ResponseEntity.ok(response);
+    }
+
     // ========== UTILITY METHODS ==========
 
     private Map<String, Object> buildSearchCriteriaResponse(AvailabilitySearchRequest request) {
@@ -294,47 +609,51 @@ public class AvailabilitySearchController {
         criteria.put("maxResults", request.getMaxResults());
         criteria.put("sortBy", request.getSortBy());
         criteria.put("ascending", request.getAscending());
+        if (request.getProximityLocation() != null) {
+            criteria.put("proximityLocation", request.getProximityLocation());
+            criteria.put("maxDistanceKm", request.getMaxDistanceKm());
+        }
+        if (request.getAcceptedInsurance() != null) {
+            criteria.put("acceptedInsurance", request.getAcceptedInsurance());
+        }
+        if (request.getPreferredStartTime() != null || request.getPreferredEndTime() != null) {
+            criteria.put("preferredStartTime", request.getPreferredStartTime());
+            criteria.put("preferredEndTime", request.getPreferredEndTime());
+            criteria.put("timezone", request.getTimezone());
+        }
         return criteria;
     }
 
-    private Map<String, Object> buildAvailableFilters(List<AvailabilityResponse.AppointmentSlotData> slots) {
+    /**
+     * Filter by the insurance on file for the patient signed in to this (public) request
+     */
+    private void applyPatientInsurance(AvailabilitySearchRequest searchRequest, HttpServletRequest httpRequest) {
+        Object attribute = httpRequest.getAttribute("currentPatient");
+        if (!(attribute instanceof Patient patient)) {
+            throw new IllegalArgumentException("Sign in as a patient to match your insurance");
+        }
+        InsuranceInfo insurance = patient.getInsuranceInfo();
+        if (insurance == null || insurance.getProvider() == null || insurance.getProvider().isBlank()) {
+            throw new IllegalArgumentException("No insurance provider on file to match");
+        }
+        searchRequest.setAcceptedInsurance(List.of(insurance.getProvider()));
+    }
+
+    private Map<String, Object> buildAvailableFilters(AvailabilitySearchFacets facets) {
         Map<String, Object> filters = new HashMap<>();
-        
-        // Extract unique specializations
-        Set<String> specializations = slots.stream()
-            .map(slot -> "General") // This would need to be populated from provider data
-            .collect(Collectors.toSet());
-        
-        // Extract unique appointment types
-        Set<String> appointmentTypes = slots.stream()
-            .map(slot -> slot.getAppointmentType().name())
-            .collect(Collectors.toSet());
-        
-        // Extract unique locations
-        Set<String> locations = slots.stream()
-            .map(AvailabilityResponse.AppointmentSlotData::getLocation)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toSet());
-        
-        // Price range
-        OptionalDouble minPrice = slots.stream()
-            .filter(slot -> slot.getPrice() != null)
-            .mapToDouble(slot -> slot.getPrice().doubleValue())
-            .min();
-        
-        OptionalDouble maxPrice = slots.stream()
-            .filter(slot -> slot.getPrice() != null)
-            .mapToDouble(slot -> slot.getPrice().doubleValue())
-            .max();
-
-        filters.put("specializations", specializations);
-        filters.put("appointmentTypes", appointmentTypes);
-        filters.put("locations", locations);
+
+        // Counts cover every matching slot, not only the returned page
+        filters.put("totalCount", facets.getTotalCount());
+        filters.put("specializations", facets.getSpecializations());
+        filters.put("appointmentTypes", facets.getAppointmentTypes());
+        filters.put("locations", facets.getLocations());
         filters.put("priceRange", Map.of(
-            "min", minPrice.isPresent() ? minPrice.getAsDouble() : 0,
-            "max", maxPrice.isPresent() ? maxPrice.getAsDouble() : 0
+            "min", facets.getMinPrice() != null ? facets.getMinPrice() : BigDecimal.ZERO,
+            "max", facets.getMaxPrice() != null ? facets.getMaxPrice() : BigDecimal.ZERO
         ));
-        
+        filters.put("priceHistogram", facets.getPriceHistogram());
+        filters.put("unpricedCount", facets.getUnpricedCount());
+
         return filters;
     }
 
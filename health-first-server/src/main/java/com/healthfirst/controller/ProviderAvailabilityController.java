@@ -1,8 +1,12 @@
 package com.healthfirst.controller;
 
 import com.healthfirst.dto.*;
+import com.healthfirst.entity.ProviderDaySummary;
+import com.healthfirst.enums.RecurrenceScope;
 import com.healthfirst.middleware.RateLimitingService;
+import com.healthfirst.service.AvailabilityJobService;
 import com.healthfirst.service.ProviderAvailabilityService;
+import com.healthfirst.service.ProviderDaySummaryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -20,6 +24,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,13 +38,21 @@ public class ProviderAvailabilityController {
     @Autowired
     private ProviderAvailabilityService availabilityService;
 
+    @Autowired
+    private AvailabilityJobService availabilityJobService;
+
     @Autowired
     private RateLimitingService rateLimitingService;
 
+    @Autowired
+    private ProviderDaySummaryService daySummaryService;
+
     @Operation(summary = "Create provider availability", 
-               description = "Create availability slots for a provider with optional recurrence patterns. Generates appointment slots automatically.")
+               description = "Create availability slots for a provider with optional recurrence patterns. Generates appointment slots automatically. " +
+                             "With async=true the request is validated and queued as a background job instead.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Availability created successfully"),
+        @ApiResponse(responseCode = "202", description = "Availability job accepted (async mode)"),
         @ApiResponse(responseCode = "400", description = "Bad request - validation errors"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - provider authentication required"),
         @ApiResponse(responseCode = "409", description = "Conflict - overlapping availability slots"),
@@ -50,6 +63,8 @@ public class ProviderAvailabilityController {
     @PostMapping("/availability")
     public ResponseEntity<?> createAvailability(
             @Parameter(description = "Provider ID", required = true) @RequestParam UUID providerId,
+            @Parameter(description = "Run as a background job and return its id")
+            @RequestParam(defaultValue = "false") Boolean async,
             @Valid @RequestBody CreateAvailabilityRequest request,
             BindingResult bindingResult,
             HttpServletRequest httpRequest) {
@@ -76,6 +91,16 @@ public class ProviderAvailabilityController {
                 );
             }
 
+            // Large schedules can be handed to the background job pool
+            if (Boolean.TRUE.equals(async)) {
+                AvailabilityJobResponse jobResponse = availabilityJobService.submitJob(providerId, request);
+                if (jobResponse.isSuccess()) {
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobResponse);
+                }
+                logger.warn("Availability job submission failed for provider: {} - {}", providerId, jobResponse.getMessage());
+                return ResponseEntity.status(determineHttpStatusFromError(jobResponse.getErrorCode())).body(jobResponse);
+            }
+
             // Process availability creation
             AvailabilityResponse response = availabilityService.createAvailability(providerId, request);
             
@@ -96,6 +121,32 @@ public class ProviderAvailabilityController {
         }
     }
 
+    @Operation(summary = "Get availability job progress", 
+               description = "Report status, progress, counts and failed date ranges of an asynchronous availability job")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Job not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/availability/jobs/{jobId}")
+    public ResponseEntity<?> getAvailabilityJob(
+            @Parameter(description = "Provider ID", required = true) @RequestParam UUID providerId,
+            @Parameter(description = "Job ID", required = true) @PathVariable UUID jobId) {
+
+        try {
+            AvailabilityJobResponse response = availabilityJobService.getJob(providerId, jobId);
+            if (response.isSuccess()) {
+                return ResponseEntity.ok(response);
+            }
+            return ResponseEntity.status(determineHttpStatusFromError(response.getErrorCode())).body(response);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving availability job: {}", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AvailabilityJobResponse.error("Failed to retrieve availability job", "RETRIEVAL_ERROR"));
+        }
+    }
+
     @Operation(summary = "Get provider availability", 
                description = "Retrieve all availability slots for a provider within a date range")
     @ApiResponses(value = {
@@ -150,6 +201,54 @@ public class ProviderAvailabilityController {
         }
     }
 
+    @Operation(summary = "Get provider availability calendar",
+               description = "Open and booked slot counts and first and last open slot per day of a month, without the slots")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Calendar retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - authentication required"),
+        @ApiResponse(responseCode = "404", description = "Provider not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/{providerId}/availability/calendar")
+    public ResponseEntity<?> getAvailabilityCalendar(
+            @Parameter(description = "Provider ID", required = true) @PathVariable UUID providerId,
+            @Parameter(description = "Month (YYYY-MM)", required = true)
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+
+        try {
+            List<Map<String, Object>> days = new ArrayList<>();
+            for (ProviderDaySummary summary : daySummaryService.getMonth(providerId, month)) {
+                Map<String, Object> day = new LinkedHashMap<>();
+                day.put("date", summary.getSummaryDate());
+                day.put("openCount", summary.getOpenCount());
+                day.put("bookedCount", summary.getBookedCount());
+                day.put("firstOpenStart", summary.getFirstOpenStart());
+                day.put("lastOpenStart", summary.getLastOpenStart());
+                days.add(day);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Availability calendar retrieved successfully");
+            response.put("month", month.toString());
+            response.put("data", days);
+            response.put("count", days.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request for availability calendar: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                Map.of("success", false, "message", e.getMessage(), "error_code", "PROVIDER_NOT_FOUND")
+            );
+        } catch (Exception e) {
+            logger.error("Error retrieving availability calendar for provider: {}", providerId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                Map.of("success", false, "message", "Failed to retrieve availability calendar", "error_code", "RETRIEVAL_ERROR")
+            );
+        }
+    }
+
     @Operation(summary = "Update provider availability", 
                description = "Update an existing availability slot. Supports partial updates and slot regeneration.")
     @ApiResponses(value = {
@@ -219,6 +318,8 @@ public class ProviderAvailabilityController {
             @Parameter(description = "Availability slot ID", required = true) @PathVariable UUID slotId,
             @Parameter(description = "Delete all recurring instances") 
             @RequestParam(defaultValue = "false") Boolean deleteRecurring,
+            @Parameter(description = "Which instances of the recurrence series to delete (THIS, THIS_AND_FOLLOWING, ALL); overrides deleteRecurring")
+            @RequestParam(required = false) RecurrenceScope scope,
             @Parameter(description = "Reason for deletion") 
             @RequestParam(required = false) String reason) {
 
@@ -226,8 +327,10 @@ public class ProviderAvailabilityController {
             logger.info("Delete availability request for slot: {} provider: {}", slotId, providerId);
 
             // Process availability deletion
+            RecurrenceScope effectiveScope = scope != null ? scope
+                : (Boolean.TRUE.equals(deleteRecurring) ? RecurrenceScope.ALL : RecurrenceScope.THIS);
             AvailabilityResponse response = availabilityService.deleteAvailability(
-                providerId, slotId, deleteRecurring, reason);
+                providerId, slotId, effectiveScope, reason);
             
             if (response.isSuccess()) {
                 logger.info("Availability deleted successfully: {}", slotId);
@@ -291,15 +394,15 @@ public class ProviderAvailabilityController {
             }
 
             // Perform search
-            List<AvailabilityResponse.AppointmentSlotData> availableSlots = 
-                availabilityService.searchAvailableSlots(searchRequest);
+            AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Search completed successfully");
-            response.put("data", availableSlots);
-            response.put("count", availableSlots.size());
-            response.put("hasMore", availableSlots.size() >= searchRequest.getMaxResults());
+            response.put("data", result.getSlots());
+            response.put("count", result.getSlots().size());
+            response.put("hasMore", result.isHasMore());
+            response.put("nextCursor", result.getNextCursor());
 
             return ResponseEntity.ok(response);
 
@@ -336,7 +439,9 @@ public class ProviderAvailabilityController {
             @Parameter(description = "Location") 
             @RequestParam(required = false) String location,
             @Parameter(description = "Maximum number of results") 
-            @RequestParam(defaultValue = "20") Integer maxResults) {
+            @RequestParam(defaultValue = "20") Integer maxResults,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor) {
 
         try {
             logger.info("Quick search request: {} to {} specialization: {}", startDate, endDate, specialization);
@@ -353,6 +458,7 @@ public class ProviderAvailabilityController {
             searchRequest.setSpecialization(specialization);
             searchRequest.setLocation(location);
             searchRequest.setMaxResults(Math.min(maxResults, 100)); // Cap at 100
+            searchRequest.setCursor(cursor);
 
             if (appointmentType != null) {
                 try {
@@ -365,17 +471,23 @@ public class ProviderAvailabilityController {
             }
 
             // Perform search
-            List<AvailabilityResponse.AppointmentSlotData> availableSlots = 
-                availabilityService.searchAvailableSlots(searchRequest);
+            AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Search completed successfully");
-            response.put("data", availableSlots);
-            response.put("count", availableSlots.size());
+            response.put("data", result.getSlots());
+            response.put("count", result.getSlots().size());
+            response.put("hasMore", result.isHasMore());
+            response.put("nextCursor", result.getNextCursor());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid quick search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(
+                Map.of("success", false, "message", e.getMessage(), "error_code", "INVALID_REQUEST")
+            );
         } catch (Exception e) {
             logger.error("Error during quick search", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
@@ -395,7 +507,7 @@ public class ProviderAvailabilityController {
             case "OVERLAP_ERROR" -> HttpStatus.CONFLICT;
             case "BOOKED_SLOTS_ERROR" -> HttpStatus.FORBIDDEN;
             case "INVALID_REQUEST" -> HttpStatus.BAD_REQUEST;
-            case "PROVIDER_NOT_FOUND", "AVAILABILITY_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+            case "PROVIDER_NOT_FOUND", "AVAILABILITY_NOT_FOUND", "JOB_NOT_FOUND" -> HttpStatus.NOT_FOUND;
             case "RATE_LIMIT_EXCEEDED" -> HttpStatus.TOO_MANY_REQUESTS;
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
         };
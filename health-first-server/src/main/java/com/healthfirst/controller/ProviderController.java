@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -240,6 +241,48 @@ public class ProviderController {
         }
     }
 
+    @Operation(summary = "Set accepted insurance plans",
+               description = "Replace the insurance plans a provider accepts; availability search can filter on them")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Insurance plans updated successfully"),
+        @ApiResponse(responseCode = "400", description = "Bad request - invalid plan names or unknown provider"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - provider authentication required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping("/insurance-plans")
+    public ResponseEntity<Map<String, Object>> updateInsurancePlans(
+            @RequestParam UUID providerId,
+            @RequestBody List<String> plans) {
+        try {
+            Set<String> accepted = providerService.updateInsurancePlans(providerId, plans);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Insurance plans updated successfully");
+            response.put("data", accepted);
+            response.put("count", accepted.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid insurance plan update for provider: {} - {}", providerId, e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Error updating insurance plans for provider: {}", providerId, e);
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to update insurance plans");
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Get client IP address from request
      */
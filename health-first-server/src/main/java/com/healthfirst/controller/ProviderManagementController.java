@@ -1,7 +1,9 @@
 package com.healthfirst.controller;
 
 import com.healthfirst.dto.CreateAvailabilityRequest;
+import com.healthfirst.dto.AvailabilityJobResponse;
 import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.service.AvailabilityJobService;
 import com.healthfirst.service.ProviderService;
 import com.healthfirst.service.ProviderAvailabilityService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -36,6 +38,9 @@ public class ProviderManagementController {
     @Autowired
     private ProviderAvailabilityService providerAvailabilityService;
 
+    @Autowired
+    private AvailabilityJobService availabilityJobService;
+
     @Operation(summary = "Get all providers", 
                description = "Retrieve list of all active and verified providers for selection")
     @ApiResponse(responseCode = "200", description = "Providers retrieved successfully")
@@ -68,13 +73,16 @@ public class ProviderManagementController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Availability set successfully"),
         @ApiResponse(responseCode = "201", description = "Availability created successfully"),
+        @ApiResponse(responseCode = "202", description = "Availability job accepted (async mode)"),
         @ApiResponse(responseCode = "404", description = "Provider not found"),
         @ApiResponse(responseCode = "400", description = "Bad request - invalid availability request"),
+        @ApiResponse(responseCode = "409", description = "Conflict - overlapping availability"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/{providerId}/availability")
     public ResponseEntity<?> setProviderAvailability(
             @PathVariable UUID providerId,
+            @RequestParam(defaultValue = "false") Boolean async,
             @Valid @RequestBody CreateAvailabilityRequest request,
             BindingResult bindingResult) {
 
@@ -90,6 +98,24 @@ public class ProviderManagementController {
                 );
             }
 
+            // Large schedules can be handed to the background job pool; progress via GET /provider/availability/jobs/{jobId}
+            if (Boolean.TRUE.equals(async)) {
+                AvailabilityJobResponse jobResponse = availabilityJobService.submitJob(providerId, request);
+                HttpStatus status = HttpStatus.ACCEPTED;
+                if (!jobResponse.isSuccess()) {
+                    if ("JOB_SUBMIT_ERROR".equals(jobResponse.getErrorCode())) {
+                        status = HttpStatus.INTERNAL_SERVER_ERROR;
+                    } else if (jobResponse.getErrorCode() != null && jobResponse.getErrorCode().contains("NOT_FOUND")) {
+                        status = HttpStatus.NOT_FOUND;
+                    } else if ("OVERLAP_ERROR".equals(jobResponse.getErrorCode())) {
+                        status = HttpStatus.CONFLICT;
+                    } else {
+                        status = HttpStatus.BAD_REQUEST;
+                    }
+                }
+                return ResponseEntity.status(status).body(jobResponse);
+            }
+
             // Use the existing availability service to create/update availability
             AvailabilityResponse response = providerAvailabilityService.createAvailability(providerId, request);
             
@@ -104,6 +130,8 @@ public class ProviderManagementController {
                 HttpStatus status = HttpStatus.BAD_REQUEST;
                 if (response.getErrorCode() != null && response.getErrorCode().contains("NOT_FOUND")) {
                     status = HttpStatus.NOT_FOUND;
+                } else if ("OVERLAP_ERROR".equals(response.getErrorCode())) {
+                    status = HttpStatus.CONFLICT;
                 }
                 
                 return ResponseEntity.status(status).body(response);
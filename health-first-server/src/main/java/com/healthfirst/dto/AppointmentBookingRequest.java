@@ -3,12 +3,16 @@ package com.healthfirst.dto;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public class AppointmentBookingRequest {
 
-    @NotNull(message = "Slot ID is required")
-    private UUID slotId;
+    private UUID slotId; // Either slotId or availabilityId + startDateTime is required
+
+    private UUID availabilityId; // Virtual slots are addressed by availability and start time
+
+    private LocalDateTime startDateTime; // UTC start of the virtual slot
 
     @NotNull(message = "Patient ID is required")
     private UUID patientId;
@@ -42,6 +46,22 @@ public class AppointmentBookingRequest {
         this.slotId = slotId;
     }
 
+    public UUID getAvailabilityId() {
+        return availabilityId;
+    }
+
+    public void setAvailabilityId(UUID availabilityId) {
+        this.availabilityId = availabilityId;
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public void setStartDateTime(LocalDateTime startDateTime) {
+        this.startDateTime = startDateTime;
+    }
+
     public UUID getPatientId() {
         return patientId;
     }
@@ -82,10 +102,17 @@ public class AppointmentBookingRequest {
         this.requiresConfirmation = requiresConfirmation;
     }
 
+    // Helper methods
+    public boolean hasSlotReference() {
+        return slotId != null || (availabilityId != null && startDateTime != null);
+    }
+
     @Override
     public String toString() {
         return "AppointmentBookingRequest{" +
                 "slotId=" + slotId +
+                ", availabilityId=" + availabilityId +
+                ", startDateTime=" + startDateTime +
                 ", patientId=" + patientId +
                 ", providerId=" + providerId +
                 ", bookingReason='" + bookingReason + '\'' +
@@ -0,0 +1,245 @@
+package com.healthfirst.dto;
+
+import com.healthfirst.enums.AvailabilityJobStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class AvailabilityJobResponse {
+
+    private boolean success;
+    private String message;
+    private String errorCode;
+    private JobData data;
+    private List<LocalDate> conflictingDates;
+
+    // Constructors
+    public AvailabilityJobResponse() {}
+
+    public AvailabilityJobResponse(boolean success, String message, JobData data) {
+        this.success = success;
+        this.message = message;
+        this.data = data;
+    }
+
+    public AvailabilityJobResponse(boolean success, String message, String errorCode) {
+        this.success = success;
+        this.message = message;
+        this.errorCode = errorCode;
+    }
+
+    // Static factory methods
+    public static AvailabilityJobResponse success(String message, JobData data) {
+        return new AvailabilityJobResponse(true, message, data);
+    }
+
+    public static AvailabilityJobResponse error(String message, String errorCode) {
+        return new AvailabilityJobResponse(false, message, errorCode);
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public JobData getData() {
+        return data;
+    }
+
+    public void setData(JobData data) {
+        this.data = data;
+    }
+
+    public List<LocalDate> getConflictingDates() {
+        return conflictingDates;
+    }
+
+    public void setConflictingDates(List<LocalDate> conflictingDates) {
+        this.conflictingDates = conflictingDates;
+    }
+
+    // Inner class for job progress
+    public static class JobData {
+        private UUID jobId;
+        private UUID providerId;
+        private AvailabilityJobStatus status;
+        private Integer totalChunks;
+        private Integer completedChunks;
+        private Integer failedChunks;
+        private Integer progressPercent;
+        private Integer availabilityCount;
+        private Integer slotCount;
+        private List<ChunkFailure> failures;
+        private LocalDateTime createdAt;
+        private LocalDateTime completedAt;
+
+        // Getters and Setters
+        public UUID getJobId() {
+            return jobId;
+        }
+
+        public void setJobId(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        public UUID getProviderId() {
+            return providerId;
+        }
+
+        public void setProviderId(UUID providerId) {
+            this.providerId = providerId;
+        }
+
+        public AvailabilityJobStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(AvailabilityJobStatus status) {
+            this.status = status;
+        }
+
+        public Integer getTotalChunks() {
+            return totalChunks;
+        }
+
+        public void setTotalChunks(Integer totalChunks) {
+            this.totalChunks = totalChunks;
+        }
+
+        public Integer getCompletedChunks() {
+            return completedChunks;
+        }
+
+        public void setCompletedChunks(Integer completedChunks) {
+            this.completedChunks = completedChunks;
+        }
+
+        public Integer getFailedChunks() {
+            return failedChunks;
+        }
+
+        public void setFailedChunks(Integer failedChunks) {
+            this.failedChunks = failedChunks;
+        }
+
+        public Integer getProgressPercent() {
+            return progressPercent;
+        }
+
+        public void setProgressPercent(Integer progressPercent) {
+            this.progressPercent = progressPercent;
+        }
+
+        public Integer getAvailabilityCount() {
+            return availabilityCount;
+        }
+
+        public void setAvailabilityCount(Integer availabilityCount) {
+            this.availabilityCount = availabilityCount;
+        }
+
+        public Integer getSlotCount() {
+            return slotCount;
+        }
+
+        public void setSlotCount(Integer slotCount) {
+            this.slotCount = slotCount;
+        }
+
+        public List<ChunkFailure> getFailures() {
+            return failures;
+        }
+
+        public void setFailures(List<ChunkFailure> failures) {
+            this.failures = failures;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getCompletedAt() {
+            return completedAt;
+        }
+
+        public void setCompletedAt(LocalDateTime completedAt) {
+            this.completedAt = completedAt;
+        }
+    }
+
+    // Inner class for a failed date range
+    public static class ChunkFailure {
+        private Integer chunkIndex;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private String error;
+
+        public ChunkFailure() {}
+
+        public ChunkFailure(Integer chunkIndex, LocalDate startDate, LocalDate endDate, String error) {
+            this.chunkIndex = chunkIndex;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.error = error;
+        }
+
+        // Getters and Setters
+        public Integer getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public void setChunkIndex(Integer chunkIndex) {
+            this.chunkIndex = chunkIndex;
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public void setStartDate(LocalDate startDate) {
+            this.startDate = startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+
+        public void setEndDate(LocalDate endDate) {
+            this.endDate = endDate;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class AvailabilityResponse {
     private String message;
     private String errorCode;
     private AvailabilityData data;
+    private List<LocalDate> conflictingDates;
 
     // Constructors
     public AvailabilityResponse() {}
@@ -40,6 +41,15 @@ public class AvailabilityResponse {
         return new AvailabilityResponse(false, message, errorCode, null);
     }
 
+    public static AvailabilityResponse overlapError(List<LocalDate> conflictingDates) {
+        String message = conflictingDates.size() == 1
+                ? "Overlapping availability slots are not allowed"
+                : String.format("Overlapping availability slots are not allowed on %d dates", conflictingDates.size());
+        AvailabilityResponse response = new AvailabilityResponse(false, message, "OVERLAP_ERROR", null);
+        response.setConflictingDates(conflictingDates);
+        return response;
+    }
+
     // Getters and Setters
     public boolean isSuccess() {
         return success;
@@ -73,6 +83,14 @@ public class AvailabilityResponse {
         this.data = data;
     }
 
+    public List<LocalDate> getConflictingDates() {
+        return conflictingDates;
+    }
+
+    public void setConflictingDates(List<LocalDate> conflictingDates) {
+        this.conflictingDates = conflictingDates;
+    }
+
     // Inner class for availability data
     public static class AvailabilityData {
         private UUID id;
@@ -296,6 +314,8 @@ public class AvailabilityResponse {
     // Inner class for appointment slot data
     public static class AppointmentSlotData {
         private UUID id;
+        private UUID providerAvailabilityId; // Needed to book a virtual (not yet persisted) slot
+        private UUID providerId;
         private LocalDateTime startDateTime;
         private LocalDateTime endDateTime;
         private AppointmentType appointmentType;
@@ -306,6 +326,7 @@ public class AvailabilityResponse {
         private UUID patientId; // Only if booked and user has permission to see
         private String patientName; // Only if booked and user has permission to see
         private Boolean bookingConfirmed;
+        private Double distanceKm; // Only in proximity searches
 
         public AppointmentSlotData() {}
 
@@ -328,6 +349,22 @@ public class AvailabilityResponse {
             this.id = id;
         }
 
+        public UUID getProviderAvailabilityId() {
+            return providerAvailabilityId;
+        }
+
+        public void setProviderAvailabilityId(UUID providerAvailabilityId) {
+            this.providerAvailabilityId = providerAvailabilityId;
+        }
+
+        public UUID getProviderId() {
+            return providerId;
+        }
+
+        public void setProviderId(UUID providerId) {
+            this.providerId = providerId;
+        }
+
         public LocalDateTime getStartDateTime() {
             return startDateTime;
         }
@@ -407,5 +444,13 @@ public class AvailabilityResponse {
         public void setBookingConfirmed(Boolean bookingConfirmed) {
             this.bookingConfirmed = bookingConfirmed;
         }
+
+        public Double getDistanceKm() {
+            return distanceKm;
+        }
+
+        public void setDistanceKm(Double distanceKm) {
+            this.distanceKm = distanceKm;
+        }
     }
 } 
\ No newline at end of file
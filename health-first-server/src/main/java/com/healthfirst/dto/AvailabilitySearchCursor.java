@@ -0,0 +1,220 @@
+package com.healthfirst.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Keyset position in availability search results: the sort key of the last slot returned.
+ *
+ * Results are ordered by (startDateTime, id), or by (price, startDateTime, id) with unpriced slots
+ * last when sorting by price, or by (distance, startDateTime, id) when sorting by distance. The next
+ * page is everything strictly after the cursor, so a deep page costs the same as the first. Clients
+ * only see the opaque encoded form.
+ */
+public class AvailabilitySearchCursor {
+
+    private static final String VERSION = "2";
+
+    private final boolean byPrice;
+    private final boolean byDistance;
+    private final boolean ascending;
+    private final BigDecimal price;
+    private final Double distanceKm;
+    private final LocalDateTime startDateTime;
+    private final UUID id;
+
+    private AvailabilitySearchCursor(boolean byPrice, boolean byDistance, boolean ascending, BigDecimal price,
+                                     Double distanceKm, LocalDateTime startDateTime, UUID id) {
+        this.byPrice = byPrice;
+        this.byDistance = byDistance;
+        this.ascending = ascending;
+        this.price = price;
+        this.distanceKm = distanceKm;
+        this.startDateTime = startDateTime;
+        this.id = id;
+    }
+
+    /**
+     * Cursor positioned at the given slot for the request's sort
+     */
+    public static AvailabilitySearchCursor after(AvailabilitySearchRequest request, AvailabilityResponse.AppointmentSlotData slot) {
+        boolean byPrice = isPriceSort(request);
+        boolean byDistance = isDistanceSort(request);
+        return new AvailabilitySearchCursor(byPrice, byDistance, Boolean.TRUE.equals(request.getAscending()),
+                byPrice ? slot.getPrice() : null, byDistance ? slot.getDistanceKm() : null,
+                slot.getStartDateTime(), slot.getId());
+    }
+
+    /**
+     * Decode the request's cursor; null when it has none
+     */
+    public static AvailabilitySearchCursor of(AvailabilitySearchRequest request) {
+        if (request.getCursor() == null || request.getCursor().isBlank()) {
+            return null;
+        }
+
+        AvailabilitySearchCursor cursor;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(request.getCursor()), StandardCharsets.UTF_8)
+                    .split("\\|", -1);
+            if (parts.length != 7 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            cursor = new AvailabilitySearchCursor(
+                    "price".equals(parts[1]),
+                    "distance".equals(parts[1]),
+                    Boolean.parseBoolean(parts[2]),
+                    parts[3].isEmpty() ? null : new BigDecimal(parts[3]),
+                    parts[4].isEmpty() ? null : Double.valueOf(parts[4]),
+                    LocalDateTime.parse(parts[5]),
+                    UUID.fromString(parts[6]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (cursor.byPrice != isPriceSort(request) || cursor.byDistance != isDistanceSort(request)
+                || cursor.ascending != Boolean.TRUE.equals(request.getAscending())
+                || (cursor.byDistance && cursor.distanceKm == null)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String key = String.join("|", VERSION, byPrice ? "price" : byDistance ? "distance" : "startTime",
+                String.valueOf(ascending), price != null ? price.toPlainString() : "",
+                distanceKm != null ? distanceKm.toString() : "", startDateTime.toString(), id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor's position within its distance band: a start time cursor, as slots at the same distance
+     * are ordered by (startDateTime, id)
+     */
+    public AvailabilitySearchCursor withinDistanceBand() {
+        return new AvailabilitySearchCursor(false, false, ascending, null, null, startDateTime, id);
+    }
+
+    /**
+     * Whether a slot with this key sorts strictly after the cursor, i.e. belongs on a later page; for a
+     * distance cursor, assumes the slot is in the cursor's distance band
+     */
+    public boolean precedes(BigDecimal slotPrice, LocalDateTime slotStart, UUID slotId) {
+        return precedes(distanceKm, slotPrice, slotStart, slotId);
+    }
+
+    /**
+     * As {@link #precedes(BigDecimal, LocalDateTime, UUID)} for a slot the given distance away
+     */
+    public boolean precedes(Double slotDistanceKm, BigDecimal slotPrice, LocalDateTime slotStart, UUID slotId) {
+        return compare(byPrice, byDistance, ascending, distanceKm, price, startDateTime, id,
+                slotDistanceKm, slotPrice, slotStart, slotId) < 0;
+    }
+
+    /**
+     * Result order of the search: unpriced slots last when sorting by price, id as the final tie-breaker.
+     * Distance is not compared, so for a distance sort this is the order within one distance band.
+     */
+    public static <T> Comparator<T> order(AvailabilitySearchRequest request,
+                                          Function<T, BigDecimal> price,
+                                          Function<T, LocalDateTime> start,
+                                          Function<T, UUID> id) {
+        boolean byPrice = isPriceSort(request);
+        boolean ascending = Boolean.TRUE.equals(request.getAscending());
+        return (a, b) -> compare(byPrice, false, ascending, null, price.apply(a), start.apply(a), id.apply(a),
+                null, price.apply(b), start.apply(b), id.apply(b));
+    }
+
+    /**
+     * Result order of the search including distance, for callers ranking every provider's slots at once
+     */
+    public static <T> Comparator<T> order(AvailabilitySearchRequest request,
+                                          Function<T, Double> distanceKm,
+                                          Function<T, BigDecimal> price,
+                                          Function<T, LocalDateTime> start,
+                                          Function<T, UUID> id) {
+        boolean byPrice = isPriceSort(request);
+        boolean byDistance = isDistanceSort(request);
+        boolean ascending = Boolean.TRUE.equals(request.getAscending());
+        return (a, b) -> compare(byPrice, byDistance, ascending, distanceKm.apply(a), price.apply(a), start.apply(a),
+                id.apply(a), distanceKm.apply(b), price.apply(b), start.apply(b), id.apply(b));
+    }
+
+    public boolean isByPrice() {
+        return byPrice;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean isByDistance() {
+        return byDistance;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Slot id order used as the final tie-breaker: unsigned, matching how the database orders UUID columns,
+     * where {@link UUID#compareTo} is signed
+     */
+    public static int compareIds(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    public static boolean isPriceSort(AvailabilitySearchRequest request) {
+        return "price".equals(request.getSortBy());
+    }
+
+    public static boolean isDistanceSort(AvailabilitySearchRequest request) {
+        return "distance".equals(request.getSortBy());
+    }
+
+    private static int compare(boolean byPrice, boolean byDistance, boolean ascending,
+                               Double distanceA, BigDecimal priceA, LocalDateTime startA, UUID idA,
+                               Double distanceB, BigDecimal priceB, LocalDateTime startB, UUID idB) {
+        int result = 0;
+        if (byDistance) {
+            result = Double.compare(distanceA, distanceB);
+        }
+        if (result == 0 && byPrice) {
+            if (priceA == null || priceB == null) {
+                // Unpriced slots come last in either direction
+                result = priceA == null ? (priceB == null ? 0 : 1) : -1;
+                if (result != 0) {
+                    return result;
+                }
+            } else {
+                result = priceA.compareTo(priceB);
+            }
+        }
+        if (result == 0) {
+            result = startA.compareTo(startB);
+        }
+        if (result == 0) {
+            result = compareIds(idA, idB);
+        }
+        return ascending ? result : -result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.healthfirst.dto;
+
+import com.healthfirst.enums.AppointmentType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Facet counts over every open slot matching a search, not just the returned page.
+ *
+ * Slots are added one at a time or as pre-grouped counts. Specializations are counted case-insensitively,
+ * as the specialization filter matches them; prices fall into fixed-width buckets.
+ */
+public class AvailabilitySearchFacets {
+
+    private final BigDecimal priceBucketWidth;
+    private final Map<String, Long> specializations = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<AppointmentType, Long> appointmentTypes = new EnumMap<>(AppointmentType.class);
+    private final Map<String, Long> locations = new TreeMap<>();
+    private final TreeMap<Long, Long> priceBuckets = new TreeMap<>();
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private long unpricedCount;
+    private long totalCount;
+
+    public AvailabilitySearchFacets(BigDecimal priceBucketWidth) {
+        if (priceBucketWidth.signum() <= 0) {
+            throw new IllegalArgumentException("Price bucket width must be positive");
+        }
+        this.priceBucketWidth = priceBucketWidth;
+    }
+
+    /**
+     * Count slots sharing the same facet values
+     */
+    public void add(String specialization, AppointmentType appointmentType, String location, BigDecimal price, long count) {
+        if (count <= 0) {
+            return;
+        }
+        totalCount += count;
+        if (specialization != null) {
+            specializations.merge(specialization, count, Long::sum);
+        }
+        if (appointmentType != null) {
+            appointmentTypes.merge(appointmentType, count, Long::sum);
+        }
+        if (location != null) {
+            locations.merge(location, count, Long::sum);
+        }
+        if (price == null) {
+            unpricedCount += count;
+            return;
+        }
+        long bucket = price.divide(priceBucketWidth, 0, RoundingMode.FLOOR).longValueExact();
+        priceBuckets.merge(bucket, count, Long::sum);
+        minPrice = minPrice == null || price.compareTo(minPrice) < 0 ? price : minPrice;
+        maxPrice = maxPrice == null || price.compareTo(maxPrice) > 0 ? price : maxPrice;
+    }
+
+    public List<FacetValue> getSpecializations() {
+        return byCount(specializations);
+    }
+
+    public List<FacetValue> getAppointmentTypes() {
+        Map<String, Long> byName = new LinkedHashMap<>();
+        appointmentTypes.forEach((type, count) -> byName.put(type.name(), count));
+        return byCount(byName);
+    }
+
+    public List<FacetValue> getLocations() {
+        return byCount(locations);
+    }
+
+    /**
+     * Non-empty price buckets in ascending order; each covers [min, max)
+     */
+    public List<PriceBucket> getPriceHistogram() {
+        List<PriceBucket> histogram = new ArrayList<>(priceBuckets.size());
+        priceBuckets.forEach((bucket, count) -> {
+            BigDecimal min = priceBucketWidth.multiply(BigDecimal.valueOf(bucket));
+            histogram.add(new PriceBucket(min, min.add(priceBucketWidth), count));
+        });
+        return histogram;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public long getUnpricedCount() {
+        return unpricedCount;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    private static List<FacetValue> byCount(Map<String, Long> counts) {
+        List<FacetValue> values = new ArrayList<>(counts.size());
+        counts.forEach((value, count) -> values.add(new FacetValue(value, count)));
+        // Most common first; the map order breaks ties
+        values.sort(Comparator.comparingLong(FacetValue::getCount).reversed());
+        return values;
+    }
+
+    public static class FacetValue {
+        private final String value;
+        private final long count;
+
+        public FacetValue(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class PriceBucket {
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final long count;
+
+        public PriceBucket(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
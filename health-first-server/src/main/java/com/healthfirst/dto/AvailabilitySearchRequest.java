@@ -36,12 +36,13 @@ public class AvailabilitySearchRequest {
     private Integer maxResults = 50;
     private String sortBy = "startTime"; // startTime, price, distance
     private Boolean ascending = true;
+    private String cursor; // Opaque keyset position returned as nextCursor by the previous page
 
-    // Location/proximity filters (future enhancement)
-    private String proximityLocation;
+    // Location/proximity filters
+    private String proximityLocation; // "latitude,longitude"
     private Integer maxDistanceKm;
 
-    // Insurance filters (future enhancement)
+    // Insurance filter: slots of providers accepting any of these plans
     private List<String> acceptedInsurance;
 
     // Constructors
@@ -189,6 +190,14 @@ public class AvailabilitySearchRequest {
         this.ascending = ascending;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public String getProximityLocation() {
         return proximityLocation;
     }
@@ -242,6 +251,33 @@ public class AvailabilitySearchRequest {
         return minSlotDurationMinutes <= maxSlotDurationMinutes;
     }
 
+    /**
+     * Field-by-field copy, for deriving a narrower search from this one
+     */
+    public AvailabilitySearchRequest copy() {
+        AvailabilitySearchRequest copy = new AvailabilitySearchRequest(startDate, endDate);
+        copy.preferredStartTime = preferredStartTime;
+        copy.preferredEndTime = preferredEndTime;
+        copy.providerIds = providerIds;
+        copy.specialization = specialization;
+        copy.location = location;
+        copy.timezone = timezone;
+        copy.appointmentType = appointmentType;
+        copy.minSlotDurationMinutes = minSlotDurationMinutes;
+        copy.maxSlotDurationMinutes = maxSlotDurationMinutes;
+        copy.minPrice = minPrice;
+        copy.maxPrice = maxPrice;
+        copy.availableOnly = availableOnly;
+        copy.maxResults = maxResults;
+        copy.sortBy = sortBy;
+        copy.ascending = ascending;
+        copy.cursor = cursor;
+        copy.proximityLocation = proximityLocation;
+        copy.maxDistanceKm = maxDistanceKm;
+        copy.acceptedInsurance = acceptedInsurance;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "AvailabilitySearchRequest{" +
@@ -0,0 +1,46 @@
+package com.healthfirst.dto;
+
+import java.util.List;
+
+/**
+ * One page of availability search results
+ */
+public class AvailabilitySearchResult {
+
+    private final List<AvailabilityResponse.AppointmentSlotData> slots;
+    private final boolean hasMore;
+    private final String nextCursor; // null on the last page
+
+    public AvailabilitySearchResult(List<AvailabilityResponse.AppointmentSlotData> slots, boolean hasMore, String nextCursor) {
+        this.slots = slots;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Page from up to maxResults + 1 sorted rows; the extra row only signals that more exist
+     */
+    public static AvailabilitySearchResult fromRows(List<AvailabilityResponse.AppointmentSlotData> rows,
+                                                    AvailabilitySearchRequest request) {
+        int maxResults = request.getMaxResults();
+        if (rows.size() <= maxResults) {
+            return new AvailabilitySearchResult(rows, false, null);
+        }
+
+        List<AvailabilityResponse.AppointmentSlotData> page = List.copyOf(rows.subList(0, maxResults));
+        String nextCursor = AvailabilitySearchCursor.after(request, page.get(page.size() - 1)).encode();
+        return new AvailabilitySearchResult(page, true, nextCursor);
+    }
+
+    public List<AvailabilityResponse.AppointmentSlotData> getSlots() {
+        return slots;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,53 @@
+package com.healthfirst.dto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A stretch of time in which every requested provider has open slots, with the ids of each provider's open
+ * slots overlapping it so the visit can be booked. Times are UTC.
+ */
+public class CommonFreeWindow {
+
+    private final LocalDateTime startDateTime;
+    private final LocalDateTime endDateTime;
+    private final Map<UUID, List<UUID>> slotIds;
+
+    public CommonFreeWindow(LocalDateTime startDateTime, LocalDateTime endDateTime, Map<UUID, List<UUID>> slotIds) {
+        this.startDateTime = startDateTime;
+        this.endDateTime = endDateTime;
+        this.slotIds = Collections.unmodifiableMap(slotIds);
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public LocalDateTime getEndDateTime() {
+        return endDateTime;
+    }
+
+    public long getDurationMinutes() {
+        return Duration.between(startDateTime, endDateTime).toMinutes();
+    }
+
+    /**
+     * Open slot ids per provider, in start order
+     */
+    public Map<UUID, List<UUID>> getSlotIds() {
+        return slotIds;
+    }
+
+    @Override
+    public String toString() {
+        return "CommonFreeWindow{" +
+                "startDateTime=" + startDateTime +
+                ", endDateTime=" + endDateTime +
+                ", providers=" + slotIds.size() +
+                '}';
+    }
+}
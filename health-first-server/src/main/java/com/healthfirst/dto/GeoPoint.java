@@ -0,0 +1,60 @@
+package com.healthfirst.dto;
+
+/**
+ * A latitude/longitude pair in decimal degrees
+ */
+public class GeoPoint {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Parse "latitude,longitude", e.g. "40.7128,-74.0060"
+     */
+    public static GeoPoint parse(String value) {
+        String[] parts = value == null ? new String[0] : value.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Proximity location must be \"latitude,longitude\"");
+        }
+        try {
+            return new GeoPoint(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Proximity location must be \"latitude,longitude\"");
+        }
+    }
+
+    /**
+     * Great-circle distance by the haversine formula
+     */
+    public double distanceKm(double otherLatitude, double otherLongitude) {
+        double dLat = Math.toRadians(otherLatitude - latitude);
+        double dLon = Math.toRadians(otherLongitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(otherLatitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return latitude + "," + longitude;
+    }
+}
@@ -0,0 +1,108 @@
+package com.healthfirst.dto;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The preferred start time window of a search in whole minutes of the day, both ends inclusive.
+ *
+ * Without a timezone on the request the window is read on each provider's wall clock, against the local start
+ * minute stored with every slot. With one it is read on the patient's clock, which maps each local date onto a
+ * single UTC range of start times. Not thread-safe; build one per search.
+ */
+public class TimeOfDayWindow {
+
+    private final int fromMinute;
+    private final int toMinute;
+    private final ZoneId zone;
+    private final Map<LocalDate, LocalDateTime[]> utcRangeByDate = new HashMap<>();
+
+    private TimeOfDayWindow(int fromMinute, int toMinute, ZoneId zone) {
+        this.fromMinute = fromMinute;
+        this.toMinute = toMinute;
+        this.zone = zone;
+    }
+
+    /**
+     * The request's window, or null when it sets no preferred start and end time
+     */
+    public static TimeOfDayWindow of(AvailabilitySearchRequest request) {
+        LocalTime from = request.getPreferredStartTime();
+        LocalTime to = request.getPreferredEndTime();
+        if (from == null || to == null) {
+            return null;
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid time range");
+        }
+
+        ZoneId zone = null;
+        if (request.getTimezone() != null) {
+            try {
+                zone = ZoneId.of(request.getTimezone());
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Invalid timezone: " + request.getTimezone());
+            }
+        }
+        // Slots start on whole minutes
+        return new TimeOfDayWindow((from.toSecondOfDay() + 59) / 60, to.toSecondOfDay() / 60, zone);
+    }
+
+    public boolean isProviderLocal() {
+        return zone == null;
+    }
+
+    public int getFromMinute() {
+        return fromMinute;
+    }
+
+    public int getToMinute() {
+        return toMinute;
+    }
+
+    /**
+     * Whether a slot starting at the UTC time, localStartMinute on its provider's clock (null if unknown), is in
+     * the window
+     */
+    public boolean matches(LocalDateTime utcStart, Integer localStartMinute) {
+        if (zone == null) {
+            return localStartMinute != null && localStartMinute >= fromMinute && localStartMinute <= toMinute;
+        }
+        LocalDate localDate = utcStart.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDate();
+        LocalDateTime[] range = utcRange(localDate);
+        return !utcStart.isBefore(range[0]) && !utcStart.isAfter(range[1]);
+    }
+
+    /**
+     * For the patient's clock, the UTC start range of the window on every local date from fromDate to toDate
+     */
+    public List<LocalDateTime[]> utcRanges(LocalDate fromDate, LocalDate toDate) {
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            ranges.add(utcRange(date));
+        }
+        return ranges;
+    }
+
+    /**
+     * Local times in a DST gap move forward and those in an overlap take the earlier offset, as for slot grids
+     */
+    private LocalDateTime[] utcRange(LocalDate date) {
+        return utcRangeByDate.computeIfAbsent(date, day -> new LocalDateTime[] {
+                toUtc(day.atStartOfDay().plusMinutes(fromMinute)),
+                toUtc(day.atStartOfDay().plusMinutes(toMinute))
+        });
+    }
+
+    private LocalDateTime toUtc(LocalDateTime local) {
+        return local.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
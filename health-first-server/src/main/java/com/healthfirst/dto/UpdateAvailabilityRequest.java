@@ -2,6 +2,7 @@ package com.healthfirst.dto;
 
 import com.healthfirst.enums.AppointmentType;
 import com.healthfirst.enums.RecurrencePattern;
+import com.healthfirst.enums.RecurrenceScope;
 import jakarta.validation.constraints.*;
 
 import java.math.BigDecimal;
@@ -56,6 +57,7 @@ public class UpdateAvailabilityRequest {
     // Update options
     private Boolean updateRecurring = false; // Whether to update all recurring instances
     private Boolean regenerateSlots = false; // Whether to regenerate appointment slots
+    private RecurrenceScope recurrenceScope; // Which series instances to update (defaults from updateRecurring)
 
     // Constructors
     public UpdateAvailabilityRequest() {}
@@ -198,6 +200,29 @@ public class UpdateAvailabilityRequest {
     }
 
     // Validation helpers
+    public RecurrenceScope getRecurrenceScope() {
+        return recurrenceScope;
+    }
+
+    public void setRecurrenceScope(RecurrenceScope recurrenceScope) {
+        this.recurrenceScope = recurrenceScope;
+    }
+
+    public RecurrenceScope resolveRecurrenceScope() {
+        if (recurrenceScope != null) {
+            return recurrenceScope;
+        }
+        return Boolean.TRUE.equals(updateRecurring) ? RecurrenceScope.ALL : RecurrenceScope.THIS;
+    }
+
+    /**
+     * Whether the update moves the slot grid: a new date, hours, slot length, buffer or timezone
+     */
+    public boolean hasTimeChanges() {
+        return availabilityDate != null || startTime != null || endTime != null || slotDurationMinutes != null
+                || bufferTimeMinutes != null || timezone != null;
+    }
+
     public boolean isValidTimeRange() {
         if (startTime == null || endTime == null) {
             return true; // Allow partial updates
@@ -230,6 +255,7 @@ public class UpdateAvailabilityRequest {
                 ", isActive=" + isActive +
                 ", updateRecurring=" + updateRecurring +
                 ", regenerateSlots=" + regenerateSlots +
+                ", recurrenceScope=" + recurrenceScope +
                 '}';
     }
 } 
\ No newline at end of file
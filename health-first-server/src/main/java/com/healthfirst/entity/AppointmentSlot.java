@@ -7,6 +7,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -14,10 +15,13 @@ import java.util.UUID;
 @Table(name = "appointment_slot", indexes = {
     @Index(name = "idx_provider_start_time", columnList = "provider_id, start_date_time"),
     @Index(name = "idx_start_time_booked", columnList = "start_date_time, is_booked"),
+    @Index(name = "idx_local_date_start_minute", columnList = "local_date, local_start_minute"),
     @Index(name = "idx_provider_booked_active", columnList = "provider_id, is_booked, is_active"),
     @Index(name = "idx_appointment_type_slot", columnList = "appointment_type"),
     @Index(name = "idx_patient_slot", columnList = "patient_id"),
     @Index(name = "idx_availability_slot", columnList = "provider_availability_id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_slot_availability_start", columnNames = {"provider_availability_id", "start_date_time"})
 })
 public class AppointmentSlot {
 
@@ -46,6 +50,13 @@ public class AppointmentSlot {
     @Column(name = "end_date_time", nullable = false)
     private LocalDateTime endDateTime; // Stored in UTC
 
+    // Start on the provider's wall clock, set at generation so time-of-day filters are index range predicates
+    @Column(name = "local_date")
+    private LocalDate localDate;
+
+    @Column(name = "local_start_minute")
+    private Integer localStartMinute; // Minutes after local midnight
+
     @Enumerated(EnumType.STRING)
     @Column(name = "appointment_type", nullable = false)
     private AppointmentType appointmentType;
@@ -153,6 +164,22 @@ public class AppointmentSlot {
         this.endDateTime = endDateTime;
     }
 
+    public LocalDate getLocalDate() {
+        return localDate;
+    }
+
+    public void setLocalDate(LocalDate localDate) {
+        this.localDate = localDate;
+    }
+
+    public Integer getLocalStartMinute() {
+        return localStartMinute;
+    }
+
+    public void setLocalStartMinute(Integer localStartMinute) {
+        this.localStartMinute = localStartMinute;
+    }
+
     public AppointmentType getAppointmentType() {
         return appointmentType;
     }
@@ -0,0 +1,183 @@
+package com.healthfirst.entity;
+
+import com.healthfirst.enums.AvailabilityJobStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "availability_job", indexes = {
+    @Index(name = "idx_job_status", columnList = "status"),
+    @Index(name = "idx_job_provider", columnList = "provider_id")
+})
+public class AvailabilityJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "provider_id", nullable = false)
+    private UUID providerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private AvailabilityJobStatus status = AvailabilityJobStatus.PENDING;
+
+    @Lob
+    @Column(name = "request_payload", nullable = false)
+    private String requestPayload; // CreateAvailabilityRequest as JSON, re-read when the job resumes
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks = 0;
+
+    @Column(name = "completed_chunks", nullable = false)
+    private Integer completedChunks = 0;
+
+    @Column(name = "failed_chunks", nullable = false)
+    private Integer failedChunks = 0;
+
+    @Column(name = "availability_count", nullable = false)
+    private Integer availabilityCount = 0;
+
+    @Column(name = "slot_count", nullable = false)
+    private Integer slotCount = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Default constructor
+    public AvailabilityJob() {}
+
+    // Constructor
+    public AvailabilityJob(UUID providerId, String requestPayload, int totalChunks) {
+        this.providerId = providerId;
+        this.requestPayload = requestPayload;
+        this.totalChunks = totalChunks;
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(UUID providerId) {
+        this.providerId = providerId;
+    }
+
+    public AvailabilityJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AvailabilityJobStatus status) {
+        this.status = status;
+    }
+
+    public String getRequestPayload() {
+        return requestPayload;
+    }
+
+    public void setRequestPayload(String requestPayload) {
+        this.requestPayload = requestPayload;
+    }
+
+    public Integer getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(Integer totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public Integer getCompletedChunks() {
+        return completedChunks;
+    }
+
+    public void setCompletedChunks(Integer completedChunks) {
+        this.completedChunks = completedChunks;
+    }
+
+    public Integer getFailedChunks() {
+        return failedChunks;
+    }
+
+    public void setFailedChunks(Integer failedChunks) {
+        this.failedChunks = failedChunks;
+    }
+
+    public Integer getAvailabilityCount() {
+        return availabilityCount;
+    }
+
+    public void setAvailabilityCount(Integer availabilityCount) {
+        this.availabilityCount = availabilityCount;
+    }
+
+    public Integer getSlotCount() {
+        return slotCount;
+    }
+
+    public void setSlotCount(Integer slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    // Helper methods
+    public boolean allChunksProcessed() {
+        return completedChunks + failedChunks >= totalChunks;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityJob{" +
+                "id=" + id +
+                ", providerId=" + providerId +
+                ", status=" + status +
+                ", completedChunks=" + completedChunks +
+                ", failedChunks=" + failedChunks +
+                ", totalChunks=" + totalChunks +
+                '}';
+    }
+}
@@ -0,0 +1,159 @@
+package com.healthfirst.entity;
+
+import com.healthfirst.enums.AvailabilityJobStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "availability_job_chunk", indexes = {
+    @Index(name = "idx_chunk_job_status", columnList = "job_id, status, chunk_index")
+})
+public class AvailabilityJobChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "job_id", nullable = false)
+    private UUID jobId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private AvailabilityJobStatus status = AvailabilityJobStatus.PENDING;
+
+    @Column(name = "availability_count")
+    private Integer availabilityCount = 0;
+
+    @Column(name = "slot_count")
+    private Integer slotCount = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public AvailabilityJobChunk() {}
+
+    // Constructor
+    public AvailabilityJobChunk(UUID jobId, int chunkIndex, LocalDate startDate, LocalDate endDate) {
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(Integer chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public AvailabilityJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AvailabilityJobStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAvailabilityCount() {
+        return availabilityCount;
+    }
+
+    public void setAvailabilityCount(Integer availabilityCount) {
+        this.availabilityCount = availabilityCount;
+    }
+
+    public Integer getSlotCount() {
+        return slotCount;
+    }
+
+    public void setSlotCount(Integer slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityJobChunk{" +
+                "id=" + id +
+                ", jobId=" + jobId +
+                ", chunkIndex=" + chunkIndex +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -10,6 +10,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -80,6 +82,13 @@ public class Provider {
     @Column(name = "profile_image")
     private String profileImage;
 
+    // Insurance plan names as the provider entered them; matched case-insensitively
+    @JsonIgnore
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "provider_insurance_plans", joinColumns = @JoinColumn(name = "provider_id"))
+    @Column(name = "plan_name", nullable = false, length = 100)
+    private Set<String> acceptedInsurancePlans = new HashSet<>();
+
     // Authentication security fields
     @Column(name = "failed_login_attempts", nullable = false)
     private Integer failedLoginAttempts = 0;
@@ -229,6 +238,14 @@ public class Provider {
         this.profileImage = profileImage;
     }
 
+    public Set<String> getAcceptedInsurancePlans() {
+        return acceptedInsurancePlans;
+    }
+
+    public void setAcceptedInsurancePlans(Set<String> acceptedInsurancePlans) {
+        this.acceptedInsurancePlans = acceptedInsurancePlans;
+    }
+
     public Integer getFailedLoginAttempts() {
         return failedLoginAttempts;
     }
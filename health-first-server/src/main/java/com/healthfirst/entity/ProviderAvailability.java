@@ -21,7 +21,9 @@ import java.util.UUID;
     @Index(name = "idx_provider_date", columnList = "provider_id, availability_date"),
     @Index(name = "idx_provider_date_active", columnList = "provider_id, availability_date, is_active"),
     @Index(name = "idx_appointment_type", columnList = "appointment_type"),
-    @Index(name = "idx_active_availability", columnList = "is_active")
+    @Index(name = "idx_active_availability", columnList = "is_active"),
+    @Index(name = "idx_pending_materialization", columnList = "slots_materialized, bookable_from_date"),
+    @Index(name = "idx_series_date", columnList = "recurrence_series_id, availability_date")
 })
 public class ProviderAvailability {
 
@@ -77,6 +79,9 @@ public class ProviderAvailability {
     @Column(name = "recurrence_days_of_week")
     private String recurrenceDaysOfWeek; // JSON array like "[1,2,3,4,5]" for weekdays
 
+    @Column(name = "recurrence_series_id")
+    private UUID recurrenceSeriesId; // Shared by every instance expanded from one recurring request
+
     // Status and metadata
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
@@ -87,6 +92,17 @@ public class ProviderAvailability {
     @Column(name = "buffer_time_minutes")
     private Integer bufferTimeMinutes = 0;
 
+    // Rolling-horizon slot materialization
+    @Column(name = "slots_materialized")
+    private Boolean slotsMaterialized = false; // Slot rows have been written for this instance
+
+    @Column(name = "bookable_from_date")
+    private LocalDate bookableFromDate; // First date patients can book this instance (date - advanceBookingDays)
+
+    // Maintained by atomic repository updates only, so entity saves never overwrite a concurrent booking
+    @Column(name = "booked_count", nullable = false, updatable = false)
+    private Integer bookedCount = 0;
+
     // UI-Specific availability fields based on healthcare provider screens
     @Column(name = "is_blocked")
     private Boolean isBlocked = false; // Block days functionality
@@ -279,6 +295,14 @@ public class ProviderAvailability {
         this.recurrenceDaysOfWeek = recurrenceDaysOfWeek;
     }
 
+    public UUID getRecurrenceSeriesId() {
+        return recurrenceSeriesId;
+    }
+
+    public void setRecurrenceSeriesId(UUID recurrenceSeriesId) {
+        this.recurrenceSeriesId = recurrenceSeriesId;
+    }
+
     public Boolean getIsActive() {
         return isActive;
     }
@@ -455,6 +479,30 @@ public class ProviderAvailability {
         this.updatedAt = updatedAt;
     }
 
+    public Boolean getSlotsMaterialized() {
+        return slotsMaterialized;
+    }
+
+    public void setSlotsMaterialized(Boolean slotsMaterialized) {
+        this.slotsMaterialized = slotsMaterialized;
+    }
+
+    public LocalDate getBookableFromDate() {
+        return bookableFromDate;
+    }
+
+    public Integer getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(Integer bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
+    public boolean hasBookedSlots() {
+        return bookedCount != null && bookedCount > 0;
+    }
+
     public List<AppointmentSlot> getAppointmentSlots() {
         return appointmentSlots;
     }
@@ -472,6 +520,14 @@ public class ProviderAvailability {
         return recurrencePattern != null && recurrencePattern != RecurrencePattern.NONE;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void updateBookableFromDate() {
+        if (availabilityDate != null) {
+            bookableFromDate = availabilityDate.minusDays(advanceBookingDays != null ? advanceBookingDays : 0);
+        }
+    }
+
     @Override
     public String toString() {
         return "ProviderAvailability{" +
@@ -0,0 +1,147 @@
+package com.healthfirst.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Slot counts of one provider on one day of their availability, kept for calendar views.
+ * The day is the availability date, so it is on the provider's own clock; open times are UTC.
+ */
+@Entity
+@Table(name = "provider_day_summary",
+       uniqueConstraints = @UniqueConstraint(name = "uk_day_summary_provider_date", columnNames = {"provider_id", "summary_date"}))
+public class ProviderDaySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "provider_id", nullable = false)
+    private UUID providerId;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    @Column(name = "open_count", nullable = false)
+    private Integer openCount = 0;
+
+    @Column(name = "booked_count", nullable = false)
+    private Integer bookedCount = 0;
+
+    @Column(name = "first_open_start")
+    private LocalDateTime firstOpenStart;
+
+    @Column(name = "last_open_start")
+    private LocalDateTime lastOpenStart;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public ProviderDaySummary() {}
+
+    // Constructor
+    public ProviderDaySummary(UUID providerId, LocalDate summaryDate) {
+        this.providerId = providerId;
+        this.summaryDate = summaryDate;
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(UUID providerId) {
+        this.providerId = providerId;
+    }
+
+    public LocalDate getSummaryDate() {
+        return summaryDate;
+    }
+
+    public void setSummaryDate(LocalDate summaryDate) {
+        this.summaryDate = summaryDate;
+    }
+
+    public Integer getOpenCount() {
+        return openCount;
+    }
+
+    public void setOpenCount(Integer openCount) {
+        this.openCount = openCount;
+    }
+
+    public Integer getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(Integer bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
+    public LocalDateTime getFirstOpenStart() {
+        return firstOpenStart;
+    }
+
+    public void setFirstOpenStart(LocalDateTime firstOpenStart) {
+        this.firstOpenStart = firstOpenStart;
+    }
+
+    public LocalDateTime getLastOpenStart() {
+        return lastOpenStart;
+    }
+
+    public void setLastOpenStart(LocalDateTime lastOpenStart) {
+        this.lastOpenStart = lastOpenStart;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Helper methods
+    /**
+     * Count one slot of the day
+     */
+    public void addSlot(LocalDateTime startDateTime, boolean booked) {
+        if (booked) {
+            bookedCount++;
+            return;
+        }
+        openCount++;
+        if (firstOpenStart == null || startDateTime.isBefore(firstOpenStart)) {
+            firstOpenStart = startDateTime;
+        }
+        if (lastOpenStart == null || startDateTime.isAfter(lastOpenStart)) {
+            lastOpenStart = startDateTime;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderDaySummary{" +
+                "providerId=" + providerId +
+                ", summaryDate=" + summaryDate +
+                ", openCount=" + openCount +
+                ", bookedCount=" + bookedCount +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package com.healthfirst.enums;
+
+public enum AvailabilityJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    COMPLETED_WITH_ERRORS,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == COMPLETED_WITH_ERRORS || this == FAILED;
+    }
+}
@@ -0,0 +1,22 @@
+package com.healthfirst.enums;
+
+public enum RecurrenceScope {
+    THIS("This instance"),
+    THIS_AND_FOLLOWING("This and following instances"),
+    ALL("All instances in the series");
+
+    private final String displayName;
+
+    RecurrenceScope(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
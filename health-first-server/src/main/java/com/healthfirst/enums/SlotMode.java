@@ -0,0 +1,16 @@
+package com.healthfirst.enums;
+
+public enum SlotMode {
+    MATERIALIZED("Materialized"), // Every future slot is written when availability is created
+    VIRTUAL("Virtual");           // Open slots are derived from availability rules; only booked/cancelled slots are stored
+
+    private final String displayName;
+
+    SlotMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
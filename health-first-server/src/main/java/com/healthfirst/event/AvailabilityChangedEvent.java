@@ -0,0 +1,51 @@
+package com.healthfirst.event;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Published when a provider's availability windows are created, moved, deactivated or deleted.
+ * Listeners that cache availability per provider refresh the affected dates after commit.
+ */
+public class AvailabilityChangedEvent {
+
+    private final UUID providerId;
+    private final Set<LocalDate> dates; // null when the change is not limited to known dates
+
+    private AvailabilityChangedEvent(UUID providerId, Set<LocalDate> dates) {
+        this.providerId = providerId;
+        this.dates = dates;
+    }
+
+    public static AvailabilityChangedEvent forDates(UUID providerId, Collection<LocalDate> dates) {
+        return new AvailabilityChangedEvent(providerId, Collections.unmodifiableSet(new TreeSet<>(dates)));
+    }
+
+    public static AvailabilityChangedEvent forAllDates(UUID providerId) {
+        return new AvailabilityChangedEvent(providerId, null);
+    }
+
+    public UUID getProviderId() {
+        return providerId;
+    }
+
+    public Set<LocalDate> getDates() {
+        return dates;
+    }
+
+    public boolean affectsAllDates() {
+        return dates == null;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityChangedEvent{" +
+                "providerId=" + providerId +
+                ", dates=" + (dates == null ? "all" : dates.size()) +
+                '}';
+    }
+}
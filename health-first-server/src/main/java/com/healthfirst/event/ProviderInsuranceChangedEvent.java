@@ -0,0 +1,35 @@
+package com.healthfirst.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published when a provider replaces the insurance plans they accept.
+ * Listeners that match searches by insurance update after commit.
+ */
+public class ProviderInsuranceChangedEvent {
+
+    private final UUID providerId;
+    private final Set<String> plans;
+
+    public ProviderInsuranceChangedEvent(UUID providerId, Set<String> plans) {
+        this.providerId = providerId;
+        this.plans = Set.copyOf(plans);
+    }
+
+    public UUID getProviderId() {
+        return providerId;
+    }
+
+    public Set<String> getPlans() {
+        return plans;
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderInsuranceChangedEvent{" +
+                "providerId=" + providerId +
+                ", plans=" + plans +
+                '}';
+    }
+}
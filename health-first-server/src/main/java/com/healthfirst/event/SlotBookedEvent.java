@@ -0,0 +1,42 @@
+package com.healthfirst.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published when a patient books an appointment slot.
+ * Listeners that cache open slots drop the booked one after commit.
+ */
+public class SlotBookedEvent {
+
+    private final UUID providerId;
+    private final UUID providerAvailabilityId;
+    private final LocalDateTime startDateTime;
+
+    public SlotBookedEvent(UUID providerId, UUID providerAvailabilityId, LocalDateTime startDateTime) {
+        this.providerId = providerId;
+        this.providerAvailabilityId = providerAvailabilityId;
+        this.startDateTime = startDateTime;
+    }
+
+    public UUID getProviderId() {
+        return providerId;
+    }
+
+    public UUID getProviderAvailabilityId() {
+        return providerAvailabilityId;
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotBookedEvent{" +
+                "providerId=" + providerId +
+                ", providerAvailabilityId=" + providerAvailabilityId +
+                ", startDateTime=" + startDateTime +
+                '}';
+    }
+}
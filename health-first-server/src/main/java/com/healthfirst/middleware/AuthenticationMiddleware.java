@@ -40,6 +40,7 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
         
         // Skip authentication for public endpoints
         if (isPublicEndpoint(requestPath)) {
+            attachOptionalPatient(request);
             filterChain.doFilter(request, response);
             return;
         }
@@ -51,6 +52,11 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
                 
                 // Check if it's a patient token
                 if (jwtUtil.isPatientToken(token)) {
+                    if (isProviderOnlyEndpoint(requestPath)) {
+                        logger.warn("Patient token rejected for provider-only endpoint: {}", requestPath);
+                        sendForbiddenResponse(response, "Provider access required");
+                        return;
+                    }
                     handlePatientAuthentication(token, request, response);
                 }
                 // Check if it's a provider token  
@@ -90,6 +96,31 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
         return null;
     }
 
+    /**
+     * On public search endpoints, remember a signed-in patient (e.g. to match their insurance) without requiring one
+     */
+    private void attachOptionalPatient(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/v1")) {
+            path = path.substring(7);
+        }
+        if (!path.startsWith("/availability/search")) {
+            return;
+        }
+
+        try {
+            String token = extractTokenFromRequest(request);
+            if (token != null && authService.isTokenValid(token) && jwtUtil.isPatientToken(token)) {
+                authService.getPatientFromToken(token)
+                    .filter(patient -> patient.getIsActive() && !patient.isAccountLocked())
+                    .ifPresent(patient -> request.setAttribute("currentPatient", patient));
+            }
+        } catch (Exception e) {
+            // Anonymous search still works
+            logger.debug("Ignoring unusable token on public search request: {}", e.getMessage());
+        }
+    }
+
     /**
      * Check if the endpoint is public (doesn't require authentication)
      */
@@ -108,8 +139,12 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
                path.startsWith("/provider/check-") ||
                path.equals("/patient/register") ||
                path.startsWith("/patient/check-") ||
-               path.startsWith("/availability/search") ||
+               (path.startsWith("/availability/search") && !path.equals("/availability/search/cache-stats")
+                       && !path.equals("/availability/search/export")) ||
                path.equals("/availability/appointment-types") ||
+               path.equals("/availability/locations") ||
+               path.equals("/availability/next-available") ||
+               path.equals("/availability/common-free-time") ||
                path.equals("/actuator/health") ||
                path.startsWith("/h2-console") ||
                path.startsWith("/swagger-ui") ||
@@ -119,6 +154,17 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
                path.equals("/error");
     }
 
+    /**
+     * Check if the endpoint is restricted to providers and admins
+     */
+    private boolean isProviderOnlyEndpoint(String path) {
+        if (path.startsWith("/api/v1")) {
+            path = path.substring(7);
+        }
+
+        return path.equals("/availability/search/export");
+    }
+
     /**
      * Handle patient authentication
      */
@@ -214,4 +260,20 @@ public class AuthenticationMiddleware extends OncePerRequestFilter {
         
         response.getWriter().write(jsonResponse);
     }
+
+    /**
+     * Send forbidden response
+     */
+    private void sendForbiddenResponse(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        
+        String jsonResponse = String.format(
+            "{\"success\": false, \"message\": \"%s\", \"error_code\": \"FORBIDDEN\"}", 
+            message
+        );
+        
+        response.getWriter().write(jsonResponse);
+    }
 } 
\ No newline at end of file
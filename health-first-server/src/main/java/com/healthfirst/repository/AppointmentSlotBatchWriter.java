@@ -0,0 +1,224 @@
+package com.healthfirst.repository;
+
+import com.healthfirst.entity.AppointmentSlot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes generated appointment slots straight through JDBC batch inserts.
+ * Slots are consumed lazily and flushed every {@code app.availability.slot-batch-size}
+ * rows, so a long recurring schedule never has to sit in the persistence context.
+ * Ids are assigned here rather than by Hibernate.
+ */
+@Repository
+public class AppointmentSlotBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSlotBatchWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO appointment_slot (id, provider_availability_id, provider_id, start_date_time, " +
+            "end_date_time, local_date, local_start_minute, appointment_type, is_booked, is_active, price, " +
+            "location, booking_confirmed, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Both updates skip rows booked since they were read
+    private static final String UPDATE_SQL =
+            "UPDATE appointment_slot SET end_date_time = ?, local_date = ?, local_start_minute = ?, " +
+            "appointment_type = ?, price = ?, location = ?, is_active = true, updated_at = ? " +
+            "WHERE id = ? AND is_booked = false";
+
+    private static final String DEACTIVATE_SQL =
+            "UPDATE appointment_slot SET is_active = false, updated_at = ? WHERE id = ? AND is_booked = false";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.availability.slot-batch-size:500}")
+    private int batchSize = 500;
+
+    private volatile Boolean binaryUuids;
+
+    /**
+     * Insert all slots produced by the iterator, returning the number of rows written
+     */
+    public int insertAll(Iterator<AppointmentSlot> slots) {
+        List<AppointmentSlot> batch = new ArrayList<>(batchSize);
+        int written = 0;
+
+        while (slots.hasNext()) {
+            batch.add(slots.next());
+            if (batch.size() >= batchSize) {
+                written += flush(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            written += flush(batch);
+        }
+
+        logger.debug("Batch inserted {} appointment slots", written);
+        return written;
+    }
+
+    public int insertAll(Iterable<AppointmentSlot> slots) {
+        return insertAll(slots.iterator());
+    }
+
+    /**
+     * Rewrite existing unbooked slots in place (end time, local start, type, price, location) and make them
+     * active again.
+     * Each slot must carry the id of the row it replaces. Returns the number of rows changed.
+     */
+    public int updateAll(List<AppointmentSlot> slots) {
+        if (slots.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, slots, batchSize, (ps, slot) -> {
+            ps.setObject(1, slot.getEndDateTime());
+            setLocalStart(ps, 2, slot);
+            ps.setString(4, slot.getAppointmentType().name());
+            if (slot.getPrice() != null) {
+                ps.setBigDecimal(5, slot.getPrice());
+            } else {
+                ps.setNull(5, Types.DECIMAL);
+            }
+            ps.setString(6, slot.getLocation());
+            ps.setObject(7, now);
+            setUuid(ps, 8, slot.getId());
+        });
+
+        return sumUpdateCounts(counts);
+    }
+
+    /**
+     * Deactivate the given unbooked slots, returning the number of rows changed
+     */
+    public int deactivateAll(Collection<UUID> slotIds) {
+        if (slotIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        int[][] counts = jdbcTemplate.batchUpdate(DEACTIVATE_SQL, slotIds, batchSize, (ps, slotId) -> {
+            ps.setObject(1, now);
+            setUuid(ps, 2, slotId);
+        });
+
+        return sumUpdateCounts(counts);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private int flush(List<AppointmentSlot> batch) {
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AppointmentSlot slot = batch.get(i);
+                if (slot.getId() == null) {
+                    slot.setId(UUID.randomUUID());
+                }
+
+                setUuid(ps, 1, slot.getId());
+                setUuid(ps, 2, slot.getProviderAvailability().getId());
+                setUuid(ps, 3, slot.getProvider().getId());
+                ps.setObject(4, slot.getStartDateTime());
+                ps.setObject(5, slot.getEndDateTime());
+                setLocalStart(ps, 6, slot);
+                ps.setString(8, slot.getAppointmentType().name());
+                ps.setBoolean(9, Boolean.TRUE.equals(slot.getIsBooked()));
+                ps.setBoolean(10, !Boolean.FALSE.equals(slot.getIsActive()));
+                if (slot.getPrice() != null) {
+                    ps.setBigDecimal(11, slot.getPrice());
+                } else {
+                    ps.setNull(11, Types.DECIMAL);
+                }
+                ps.setString(12, slot.getLocation());
+                ps.setBoolean(13, Boolean.TRUE.equals(slot.getBookingConfirmed()));
+                ps.setObject(14, now);
+                ps.setObject(15, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+
+        return batch.size();
+    }
+
+    /**
+     * Drivers that rewrite batches report SUCCESS_NO_INFO instead of a row count; count those as one row
+     */
+    private int sumUpdateCounts(int[][] counts) {
+        int total = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Provider-local start date and minute of day into two consecutive parameters
+     */
+    private void setLocalStart(PreparedStatement ps, int index, AppointmentSlot slot) throws SQLException {
+        if (slot.getLocalDate() != null) {
+            ps.setObject(index, slot.getLocalDate());
+        } else {
+            ps.setNull(index, Types.DATE);
+        }
+        if (slot.getLocalStartMinute() != null) {
+            ps.setInt(index + 1, slot.getLocalStartMinute());
+        } else {
+            ps.setNull(index + 1, Types.INTEGER);
+        }
+    }
+
+    /**
+     * MySQL stores UUID columns as BINARY(16); H2 has a native UUID type
+     */
+    private void setUuid(PreparedStatement ps, int index, UUID value) throws SQLException {
+        if (usesBinaryUuids(ps)) {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            buffer.putLong(value.getMostSignificantBits());
+            buffer.putLong(value.getLeastSignificantBits());
+            ps.setBytes(index, buffer.array());
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    private boolean usesBinaryUuids(PreparedStatement ps) throws SQLException {
+        if (binaryUuids == null) {
+            String product = ps.getConnection().getMetaData().getDatabaseProductName();
+            binaryUuids = product != null &&
+                    (product.toLowerCase().contains("mysql") || product.toLowerCase().contains("mariadb"));
+        }
+        return binaryUuids;
+    }
+}
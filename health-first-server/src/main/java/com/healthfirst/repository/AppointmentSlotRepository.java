@@ -5,12 +5,17 @@ import com.healthfirst.enums.AppointmentType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -101,6 +106,22 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
            "ORDER BY s.startDateTime")
     List<AppointmentSlot> findSlotsByProviderAvailability(@Param("availabilityId") UUID availabilityId);
 
+    /**
+     * Find every persisted slot (including inactive ones) for a set of availabilities
+     */
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.providerAvailability.id IN :availabilityIds " +
+           "ORDER BY s.startDateTime")
+    List<AppointmentSlot> findAllSlotsByProviderAvailabilityIds(@Param("availabilityIds") List<UUID> availabilityIds);
+
+    /**
+     * Find the persisted slot of an availability starting at the given time
+     */
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.providerAvailability.id = :availabilityId " +
+           "AND s.startDateTime = :startDateTime")
+    Optional<AppointmentSlot> findByProviderAvailabilityAndStartDateTime(
+            @Param("availabilityId") UUID availabilityId,
+            @Param("startDateTime") LocalDateTime startDateTime);
+
     /**
      * Find available slots by multiple providers
      */
@@ -126,6 +147,37 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime);
 
+    /**
+     * Distinct locations of open slots starting from a time on
+     */
+    @Query("SELECT DISTINCT s.location FROM AppointmentSlot s WHERE s.location IS NOT NULL " +
+           "AND s.startDateTime >= :fromTime AND s.isBooked = false AND s.isActive = true")
+    List<String> findDistinctOpenSlotLocations(@Param("fromTime") LocalDateTime fromTime);
+
+    /**
+     * Open slots starting in [fromTime, toTime) as rows of (id, availability id, provider id, specialization,
+     * start, end, appointment type, price, location, provider-local start minute) for the search index
+     */
+    @Query("SELECT s.id, s.providerAvailability.id, p.id, p.specialization, s.startDateTime, s.endDateTime, " +
+           "s.appointmentType, s.price, s.location, s.localStartMinute FROM AppointmentSlot s JOIN s.provider p " +
+           "WHERE s.startDateTime >= :fromTime AND s.startDateTime < :toTime " +
+           "AND s.isBooked = false AND s.isActive = true")
+    List<Object[]> findOpenSlotRows(
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime);
+
+    /**
+     * Open slots of one provider starting in [fromTime, toTime), in the shape of {@link #findOpenSlotRows}
+     */
+    @Query("SELECT s.id, s.providerAvailability.id, p.id, p.specialization, s.startDateTime, s.endDateTime, " +
+           "s.appointmentType, s.price, s.location, s.localStartMinute FROM AppointmentSlot s JOIN s.provider p " +
+           "WHERE p.id = :providerId AND s.startDateTime >= :fromTime AND s.startDateTime < :toTime " +
+           "AND s.isBooked = false AND s.isActive = true")
+    List<Object[]> findOpenSlotRowsByProvider(
+            @Param("providerId") UUID providerId,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime);
+
     /**
      * Count available slots for a provider
      */
@@ -235,4 +287,97 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
             @Param("startDateTime") LocalDateTime startDateTime,
             @Param("endDateTime") LocalDateTime endDateTime,
             Pageable pageable);
-} 
\ No newline at end of file
+
+    /**
+     * Mark an open slot booked unless a concurrent booking got there first; 1 only for the booking that won
+     */
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.isBooked = true " +
+           "WHERE s.id = :slotId AND s.isBooked = false AND s.isActive = true")
+    int claimOpenSlot(@Param("slotId") UUID slotId);
+
+    /**
+     * Delete the unbooked slots of an availability
+     */
+    @Modifying
+    @Query("DELETE FROM AppointmentSlot s WHERE s.providerAvailability.id = :availabilityId " +
+           "AND s.isBooked = false")
+    int deleteUnbookedSlotsByAvailabilityId(@Param("availabilityId") UUID availabilityId);
+
+    /**
+     * Delete the unbooked slots of every series instance from a date
+     */
+    @Modifying
+    @Query("DELETE FROM AppointmentSlot s WHERE s.isBooked = false AND s.providerAvailability.id IN (" +
+           "SELECT pa.id FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate)")
+    int deleteUnbookedSeriesSlots(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Delete the unbooked slots of series instances from a date that are marked for regeneration
+     */
+    @Modifying
+    @Query("DELETE FROM AppointmentSlot s WHERE s.isBooked = false AND s.providerAvailability.id IN (" +
+           "SELECT pa.id FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate AND pa.slotsMaterialized = false)")
+    int deleteUnbookedSlotsOfPendingSeriesInstances(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Copy descriptive fields onto the unbooked slots of series instances from a date; booked slots keep
+     * the terms they were booked with
+     */
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET " +
+           "s.price = CASE WHEN :price IS NULL THEN s.price ELSE :price END, " +
+           "s.location = CASE WHEN :location IS NULL THEN s.location ELSE :location END, " +
+           "s.appointmentType = CASE WHEN :appointmentType IS NULL THEN s.appointmentType ELSE :appointmentType END, " +
+           "s.updatedAt = LOCAL DATETIME " +
+           "WHERE s.isBooked = false AND s.providerAvailability.id IN (" +
+           "SELECT pa.id FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate)")
+    int updateUnbookedSeriesSlotDetails(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("price") BigDecimal price,
+            @Param("location") String location,
+            @Param("appointmentType") AppointmentType appointmentType);
+
+    /**
+     * Slots written before the provider-local start was stored, with their availability for its timezone
+     */
+    @Query("SELECT s FROM AppointmentSlot s JOIN FETCH s.providerAvailability WHERE s.localStartMinute IS NULL")
+    List<AppointmentSlot> findWithoutLocalStart(Pageable pageable);
+
+    /**
+     * Per availability date of a provider: open count, booked count, first and last open start
+     */
+    @Query("SELECT pa.availabilityDate, " +
+           "SUM(CASE WHEN s.isBooked = false THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.isBooked = true THEN 1 ELSE 0 END), " +
+           "MIN(CASE WHEN s.isBooked = false THEN s.startDateTime END), " +
+           "MAX(CASE WHEN s.isBooked = false THEN s.startDateTime END) " +
+           "FROM AppointmentSlot s JOIN s.providerAvailability pa " +
+           "WHERE pa.provider.id = :providerId AND pa.availabilityDate IN :dates " +
+           "AND pa.isActive = true AND s.isActive = true " +
+           "GROUP BY pa.availabilityDate")
+    List<Object[]> summarizeDays(
+            @Param("providerId") UUID providerId,
+            @Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * As {@link #summarizeDays} over every availability date of the provider
+     */
+    @Query("SELECT pa.availabilityDate, " +
+           "SUM(CASE WHEN s.isBooked = false THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.isBooked = true THEN 1 ELSE 0 END), " +
+           "MIN(CASE WHEN s.isBooked = false THEN s.startDateTime END), " +
+           "MAX(CASE WHEN s.isBooked = false THEN s.startDateTime END) " +
+           "FROM AppointmentSlot s JOIN s.providerAvailability pa " +
+           "WHERE pa.provider.id = :providerId AND pa.isActive = true AND s.isActive = true " +
+           "GROUP BY pa.availabilityDate")
+    List<Object[]> summarizeAllDays(@Param("providerId") UUID providerId);
+}
@@ -0,0 +1,435 @@
+package com.healthfirst.repository;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchCursor;
+import com.healthfirst.dto.AvailabilitySearchFacets;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.dto.TimeOfDayWindow;
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.enums.AppointmentType;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import com.healthfirst.service.LocationTrigramIndex;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Open slot search as a single query composed from every field of an {@link AvailabilitySearchRequest}.
+ * Filtering, ordering and the result limit all run in the database, and rows come back as
+ * {@link AvailabilityResponse.AppointmentSlotData} without loading slot entities.
+ */
+@Repository
+public class AppointmentSlotSearchRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSlotSearchRepository.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private LocationTrigramIndex locationIndex;
+
+    // Beyond this many matching locations an IN list costs more than the LIKE it replaces
+    @Value("${app.availability.location-index.max-in-list:1000}")
+    private int maxLocationInList = 1000;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl = "";
+
+    /**
+     * MySQL Connector/J ignores the fetch size and reads the whole result into memory unless cursor fetch is
+     * enabled on the connection, which would defeat {@link #streamOpenSlots}
+     */
+    @PostConstruct
+    public void checkCursorFetch() {
+        if (datasourceUrl.startsWith("jdbc:mysql:") && !datasourceUrl.contains("useCursorFetch=true")) {
+            logger.warn("spring.datasource.url lacks useCursorFetch=true; slot exports will buffer every row in memory");
+        }
+    }
+
+    /**
+     * Up to limit open slots starting in [startDateTime, endDateTime] and after now, in the requested order
+     * and strictly after the cursor when one is given
+     */
+    public List<AvailabilityResponse.AppointmentSlotData> searchOpenSlots(AvailabilitySearchRequest request,
+                                                                          LocalDateTime startDateTime,
+                                                                          LocalDateTime endDateTime,
+                                                                          AvailabilitySearchCursor cursor,
+                                                                          int limit) {
+        return search(request, request.getProviderIds(), startDateTime, endDateTime, cursor, limit);
+    }
+
+    /**
+     * As {@link #searchOpenSlots} but for a single provider in place of the request's provider list, so a
+     * time-sorted search is one range scan of idx_provider_start_time
+     */
+    public List<AvailabilityResponse.AppointmentSlotData> searchOpenSlotsForProvider(UUID providerId,
+                                                                                     AvailabilitySearchRequest request,
+                                                                                     LocalDateTime startDateTime,
+                                                                                     LocalDateTime endDateTime,
+                                                                                     AvailabilitySearchCursor cursor,
+                                                                                     int limit) {
+        return search(request, List.of(providerId), startDateTime, endDateTime, cursor, limit);
+    }
+
+    /**
+     * Up to limit open slots of the given providers ordered by their distance, then (startDateTime, id), in one
+     * query. Providers at the same distance share a rank in the ORDER BY; a distance cursor resumes its own
+     * band after its slot and takes every slot of the bands behind it. Callers leave out providers in bands
+     * before the cursor's.
+     */
+    public List<AvailabilityResponse.AppointmentSlotData> searchOpenSlotsByDistance(AvailabilitySearchRequest request,
+                                                                                    Map<UUID, Double> distances,
+                                                                                    LocalDateTime startDateTime,
+                                                                                    LocalDateTime endDateTime,
+                                                                                    AvailabilitySearchCursor cursor,
+                                                                                    int limit) {
+        boolean ascending = Boolean.TRUE.equals(request.getAscending());
+        TreeMap<Double, List<UUID>> bands = new TreeMap<>();
+        distances.forEach((providerId, distanceKm) ->
+                bands.computeIfAbsent(distanceKm, distance -> new ArrayList<>()).add(providerId));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AppointmentSlot> slot = query.from(AppointmentSlot.class);
+        Join<AppointmentSlot, ProviderAvailability> availability = slot.join("providerAvailability");
+        Join<AppointmentSlot, Provider> provider = slot.join("provider");
+        Path<UUID> providerId = provider.get("id");
+
+        selectSlotData(query, slot, availability, provider);
+        List<Predicate> predicates = buildPredicates(cb, request, new ArrayList<>(distances.keySet()), slot, availability,
+                provider, startDateTime, endDateTime);
+        if (cursor != null && bands.containsKey(cursor.getDistanceKm())) {
+            predicates.add(cb.or(
+                    cb.not(providerId.in(bands.get(cursor.getDistanceKm()))),
+                    buildKeysetPredicate(cb, cursor.withinDistanceBand(), slot)));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        CriteriaBuilder.Case<Integer> rank = cb.selectCase();
+        int band = 0;
+        for (List<UUID> providers : bands.values()) {
+            rank = rank.when(providerId.in(providers), band++);
+        }
+        Expression<Integer> distanceRank = rank.otherwise(band);
+        Path<LocalDateTime> start = slot.get("startDateTime");
+        Path<UUID> id = slot.get("id");
+        query.orderBy(ascending
+                ? List.of(cb.asc(distanceRank), cb.asc(start), cb.asc(id))
+                : List.of(cb.desc(distanceRank), cb.desc(start), cb.desc(id)));
+
+        List<AvailabilityResponse.AppointmentSlotData> results = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(query).setMaxResults(limit).getResultList()) {
+            results.add(toSlotData(row));
+        }
+        return results;
+    }
+
+    /**
+     * Every open slot the search matches, in the requested order and without a limit, handed to the sink as it is
+     * read. Rows are scrolled forward only, fetchSize at a time, and never become managed entities, so memory stays
+     * flat however many match; on MySQL only with useCursorFetch=true in the datasource URL. Must run inside a
+     * transaction, whose connection stays checked out until the sink has taken the last row.
+     */
+    public void streamOpenSlots(AvailabilitySearchRequest request, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                int fetchSize, Consumer<AvailabilityResponse.AppointmentSlotData> sink) {
+        CriteriaQuery<Tuple> query = buildSearchQuery(request, request.getProviderIds(), startDateTime, endDateTime, null);
+        try (Stream<Tuple> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> sink.accept(toSlotData(row)));
+        }
+    }
+
+    /**
+     * The earliest open slot after now of each provider that has one, in a single query: a correlated minimum
+     * per provider, which idx_provider_start_time answers by seeking to the provider's first open slot. Rows come
+     * back by provider id; providers with two slots at that time (from different availabilities) get both.
+     */
+    public List<AvailabilityResponse.AppointmentSlotData> findEarliestOpenSlots(Collection<UUID> providerIds) {
+        LocalDateTime now = LocalDateTime.now();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AppointmentSlot> slot = query.from(AppointmentSlot.class);
+        Join<AppointmentSlot, ProviderAvailability> availability = slot.join("providerAvailability");
+        Join<AppointmentSlot, Provider> provider = slot.join("provider");
+
+        Subquery<LocalDateTime> earliest = query.subquery(LocalDateTime.class);
+        Root<AppointmentSlot> other = earliest.from(AppointmentSlot.class);
+        Path<LocalDateTime> otherStart = other.get("startDateTime");
+        earliest.select(cb.least(otherStart)).where(
+                cb.equal(other.get("provider").get("id"), provider.get("id")),
+                cb.isFalse(other.get("isBooked")),
+                cb.isTrue(other.get("isActive")),
+                cb.greaterThan(otherStart, now));
+
+        selectSlotData(query, slot, availability, provider);
+        query.where(
+                provider.get("id").in(providerIds),
+                cb.isFalse(slot.get("isBooked")),
+                cb.isTrue(slot.get("isActive")),
+                cb.equal(slot.get("startDateTime"), earliest));
+        query.orderBy(cb.asc(provider.get("id")), cb.asc(slot.get("id")));
+
+        List<AvailabilityResponse.AppointmentSlotData> results = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            results.add(toSlotData(row));
+        }
+        return results;
+    }
+
+    /**
+     * Count every open slot the search matches into the facets, ignoring the cursor, sort and limit. One grouped
+     * query returns a row per distinct (specialization, type, location, price), not per slot.
+     */
+    public void aggregateFacets(AvailabilitySearchRequest request, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                AvailabilitySearchFacets facets) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AppointmentSlot> slot = query.from(AppointmentSlot.class);
+        Join<AppointmentSlot, ProviderAvailability> availability = slot.join("providerAvailability");
+        Join<AppointmentSlot, Provider> provider = slot.join("provider");
+
+        Path<String> specialization = provider.get("specialization");
+        Path<AppointmentType> appointmentType = slot.get("appointmentType");
+        Path<String> location = slot.get("location");
+        Path<BigDecimal> price = slot.get("price");
+        query.multiselect(specialization.alias("specialization"), appointmentType.alias("appointmentType"),
+                location.alias("location"), price.alias("price"), cb.count(slot).alias("slots"));
+        query.where(buildPredicates(cb, request, request.getProviderIds(), slot, availability, provider,
+                startDateTime, endDateTime).toArray(new Predicate[0]));
+        query.groupBy(specialization, appointmentType, location, price);
+
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            facets.add(row.get("specialization", String.class), row.get("appointmentType", AppointmentType.class),
+                    row.get("location", String.class), row.get("price", BigDecimal.class), row.get("slots", Long.class));
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private List<AvailabilityResponse.AppointmentSlotData> search(AvailabilitySearchRequest request, List<UUID> providerIds,
+                                                                  LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                                                  AvailabilitySearchCursor cursor, int limit) {
+        List<Tuple> rows = entityManager.createQuery(buildSearchQuery(request, providerIds, startDateTime, endDateTime, cursor))
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<AvailabilityResponse.AppointmentSlotData> results = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            results.add(toSlotData(row));
+        }
+        return results;
+    }
+
+    private CriteriaQuery<Tuple> buildSearchQuery(AvailabilitySearchRequest request, List<UUID> providerIds,
+                                                  LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                                  AvailabilitySearchCursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AppointmentSlot> slot = query.from(AppointmentSlot.class);
+        Join<AppointmentSlot, ProviderAvailability> availability = slot.join("providerAvailability");
+        Join<AppointmentSlot, Provider> provider = slot.join("provider");
+
+        selectSlotData(query, slot, availability, provider);
+        List<Predicate> predicates = buildPredicates(cb, request, providerIds, slot, availability, provider,
+                startDateTime, endDateTime);
+        if (cursor != null) {
+            predicates.add(buildKeysetPredicate(cb, cursor, slot));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(buildOrder(cb, request, slot));
+        return query;
+    }
+
+    /**
+     * The columns {@link #toSlotData} reads
+     */
+    private void selectSlotData(CriteriaQuery<Tuple> query, Root<AppointmentSlot> slot,
+                                Join<AppointmentSlot, ProviderAvailability> availability,
+                                Join<AppointmentSlot, Provider> provider) {
+        query.multiselect(
+                slot.get("id").alias("id"),
+                availability.get("id").alias("availabilityId"),
+                provider.get("id").alias("providerId"),
+                slot.get("startDateTime").alias("startDateTime"),
+                slot.get("endDateTime").alias("endDateTime"),
+                slot.get("appointmentType").alias("appointmentType"),
+                slot.get("price").alias("price"),
+                slot.get("location").alias("location"));
+    }
+
+    private List<Predicate> buildPredicates(CriteriaBuilder cb, AvailabilitySearchRequest request, List<UUID> providerIds,
+                                            Root<AppointmentSlot> slot,
+                                            Join<AppointmentSlot, ProviderAvailability> availability,
+                                            Join<AppointmentSlot, Provider> provider,
+                                            LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        List<Predicate> predicates = new ArrayList<>();
+        Path<LocalDateTime> start = slot.get("startDateTime");
+
+        predicates.add(cb.isFalse(slot.get("isBooked")));
+        predicates.add(cb.isTrue(slot.get("isActive")));
+        predicates.add(cb.between(start, startDateTime, endDateTime));
+        predicates.add(cb.greaterThan(start, LocalDateTime.now()));
+
+        if (providerIds != null && !providerIds.isEmpty()) {
+            predicates.add(provider.get("id").in(providerIds));
+        }
+        if (request.getSpecialization() != null) {
+            predicates.add(cb.equal(cb.lower(provider.get("specialization")),
+                    request.getSpecialization().toLowerCase(Locale.ROOT)));
+        }
+        if (request.getAppointmentType() != null) {
+            predicates.add(cb.equal(slot.get("appointmentType"), request.getAppointmentType()));
+        }
+        if (request.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(slot.get("price"), request.getMinPrice()));
+        }
+        if (request.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(slot.get("price"), request.getMaxPrice()));
+        }
+        if (request.getLocation() != null) {
+            // Slots without a location are not excluded, as before
+            Path<String> location = slot.get("location");
+            Optional<Set<String>> matching = locationIndex.resolve(request.getLocation());
+            if (matching.isPresent() && matching.get().size() <= maxLocationInList) {
+                // Exact matches on the indexed locations can use an index where the leading wildcard cannot
+                predicates.add(matching.get().isEmpty()
+                        ? cb.isNull(location)
+                        : cb.or(cb.isNull(location), location.in(matching.get())));
+            } else {
+                predicates.add(cb.or(cb.isNull(location),
+                        cb.like(cb.lower(location), "%" + escapeLike(request.getLocation().toLowerCase(Locale.ROOT)) + "%", '\\')));
+            }
+        }
+        TimeOfDayWindow timeWindow = TimeOfDayWindow.of(request);
+        if (timeWindow != null) {
+            predicates.add(buildTimeOfDayPredicate(cb, timeWindow, slot, startDateTime, endDateTime));
+        }
+        if (request.getMinSlotDurationMinutes() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(availability.get("slotDurationMinutes"), request.getMinSlotDurationMinutes()));
+        }
+        if (request.getMaxSlotDurationMinutes() != null) {
+            predicates.add(cb.lessThanOrEqualTo(availability.get("slotDurationMinutes"), request.getMaxSlotDurationMinutes()));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Preferred start times as index ranges. On the provider's clock a range of idx_local_date_start_minute: every
+     * slot starting in the UTC range has a local date within a day of it. On the patient's clock one UTC start
+     * range per local date.
+     */
+    private Predicate buildTimeOfDayPredicate(CriteriaBuilder cb, TimeOfDayWindow timeWindow, Root<AppointmentSlot> slot,
+                                              LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        LocalDate fromDate = startDateTime.toLocalDate().minusDays(1);
+        LocalDate toDate = endDateTime.toLocalDate().plusDays(1);
+        if (timeWindow.isProviderLocal()) {
+            return cb.and(
+                    cb.between(slot.get("localDate"), fromDate, toDate),
+                    cb.between(slot.get("localStartMinute"), timeWindow.getFromMinute(), timeWindow.getToMinute()));
+        }
+
+        Path<LocalDateTime> start = slot.get("startDateTime");
+        List<Predicate> ranges = new ArrayList<>();
+        for (LocalDateTime[] range : timeWindow.utcRanges(fromDate, toDate)) {
+            ranges.add(cb.between(start, range[0], range[1]));
+        }
+        return cb.or(ranges.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Rows strictly after the cursor in result order. For time sorts the extra range on startDateTime lets the
+     * start time index skip straight to the cursor; the remaining terms only break ties.
+     */
+    private Predicate buildKeysetPredicate(CriteriaBuilder cb, AvailabilitySearchCursor cursor, Root<AppointmentSlot> slot) {
+        Path<LocalDateTime> start = slot.get("startDateTime");
+        Path<UUID> id = slot.get("id");
+        boolean ascending = cursor.isAscending();
+
+        Predicate afterStartAndId = cb.or(
+                ascending ? cb.greaterThan(start, cursor.getStartDateTime()) : cb.lessThan(start, cursor.getStartDateTime()),
+                cb.and(cb.equal(start, cursor.getStartDateTime()),
+                        ascending ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId())));
+        if (!cursor.isByPrice()) {
+            Predicate startBound = ascending
+                    ? cb.greaterThanOrEqualTo(start, cursor.getStartDateTime())
+                    : cb.lessThanOrEqualTo(start, cursor.getStartDateTime());
+            return cb.and(startBound, afterStartAndId);
+        }
+
+        Path<BigDecimal> price = slot.get("price");
+        if (cursor.getPrice() == null) {
+            // Unpriced slots sort last, so only unpriced slots can follow an unpriced cursor
+            return cb.and(cb.isNull(price), afterStartAndId);
+        }
+        return cb.or(
+                cb.isNull(price),
+                ascending ? cb.greaterThan(price, cursor.getPrice()) : cb.lessThan(price, cursor.getPrice()),
+                cb.and(cb.equal(price, cursor.getPrice()), afterStartAndId));
+    }
+
+    /**
+     * Requested sort with id as the final tie-breaker; slots without a price sort last either way
+     */
+    private List<Order> buildOrder(CriteriaBuilder cb, AvailabilitySearchRequest request, Root<AppointmentSlot> slot) {
+        boolean ascending = Boolean.TRUE.equals(request.getAscending());
+        List<Order> order = new ArrayList<>();
+        if ("price".equals(request.getSortBy())) {
+            Expression<Integer> missingPrice = cb.<Integer>selectCase()
+                    .when(cb.isNull(slot.get("price")), 1)
+                    .otherwise(0);
+            order.add(cb.asc(missingPrice));
+            order.add(ascending ? cb.asc(slot.get("price")) : cb.desc(slot.get("price")));
+        }
+        order.add(ascending ? cb.asc(slot.get("startDateTime")) : cb.desc(slot.get("startDateTime")));
+        order.add(ascending ? cb.asc(slot.get("id")) : cb.desc(slot.get("id")));
+        return order;
+    }
+
+    private AvailabilityResponse.AppointmentSlotData toSlotData(Tuple row) {
+        AvailabilityResponse.AppointmentSlotData data = new AvailabilityResponse.AppointmentSlotData(
+                row.get("id", UUID.class),
+                row.get("startDateTime", LocalDateTime.class),
+                row.get("endDateTime", LocalDateTime.class),
+                row.get("appointmentType", AppointmentType.class),
+                false,
+                true);
+        data.setPrice(row.get("price", BigDecimal.class));
+        data.setLocation(row.get("location", String.class));
+        data.setBookingConfirmed(false);
+        data.setProviderAvailabilityId(row.get("availabilityId", UUID.class));
+        data.setProviderId(row.get("providerId", UUID.class));
+        return data;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,48 @@
+package com.healthfirst.repository;
+
+import com.healthfirst.entity.AvailabilityJobChunk;
+import com.healthfirst.enums.AvailabilityJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AvailabilityJobChunkRepository extends JpaRepository<AvailabilityJobChunk, UUID> {
+
+    /**
+     * Find all chunks of a job in date order
+     */
+    List<AvailabilityJobChunk> findByJobIdOrderByChunkIndex(UUID jobId);
+
+    /**
+     * Find the next chunk of a job still waiting for a worker
+     */
+    Optional<AvailabilityJobChunk> findFirstByJobIdAndStatusOrderByChunkIndex(UUID jobId, AvailabilityJobStatus status);
+
+    /**
+     * Count the chunks of a job in a given state
+     */
+    long countByJobIdAndStatus(UUID jobId, AvailabilityJobStatus status);
+
+    /**
+     * Claim a pending chunk; returns 0 if another worker got there first
+     */
+    @Modifying
+    @Query("UPDATE AvailabilityJobChunk c SET c.status = com.healthfirst.enums.AvailabilityJobStatus.RUNNING " +
+           "WHERE c.id = :chunkId AND c.status = com.healthfirst.enums.AvailabilityJobStatus.PENDING")
+    int claim(@Param("chunkId") UUID chunkId);
+
+    /**
+     * Put chunks left running by a stopped instance back in the queue
+     */
+    @Modifying
+    @Query("UPDATE AvailabilityJobChunk c SET c.status = com.healthfirst.enums.AvailabilityJobStatus.PENDING " +
+           "WHERE c.status = com.healthfirst.enums.AvailabilityJobStatus.RUNNING")
+    int requeueInterruptedChunks();
+}
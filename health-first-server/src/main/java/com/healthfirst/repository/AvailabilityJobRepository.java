@@ -0,0 +1,48 @@
+package com.healthfirst.repository;
+
+import com.healthfirst.entity.AvailabilityJob;
+import com.healthfirst.enums.AvailabilityJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AvailabilityJobRepository extends JpaRepository<AvailabilityJob, UUID> {
+
+    /**
+     * Find jobs in any of the given states (used to resume unfinished jobs)
+     */
+    List<AvailabilityJob> findByStatusIn(Collection<AvailabilityJobStatus> statuses);
+
+    /**
+     * Move a pending job to running
+     */
+    @Modifying
+    @Query("UPDATE AvailabilityJob j SET j.status = com.healthfirst.enums.AvailabilityJobStatus.RUNNING " +
+           "WHERE j.id = :jobId AND j.status = com.healthfirst.enums.AvailabilityJobStatus.PENDING")
+    int markRunning(@Param("jobId") UUID jobId);
+
+    /**
+     * Record a completed chunk; counters are incremented in the statement so parallel workers never lose updates
+     */
+    @Modifying
+    @Query("UPDATE AvailabilityJob j SET j.completedChunks = j.completedChunks + 1, " +
+           "j.availabilityCount = j.availabilityCount + :availabilityCount, " +
+           "j.slotCount = j.slotCount + :slotCount WHERE j.id = :jobId")
+    int recordChunkCompleted(@Param("jobId") UUID jobId,
+                             @Param("availabilityCount") int availabilityCount,
+                             @Param("slotCount") int slotCount);
+
+    /**
+     * Record a failed chunk
+     */
+    @Modifying
+    @Query("UPDATE AvailabilityJob j SET j.failedChunks = j.failedChunks + 1 WHERE j.id = :jobId")
+    int recordChunkFailed(@Param("jobId") UUID jobId);
+}
@@ -2,16 +2,24 @@ package com.healthfirst.repository;
 
 import com.healthfirst.entity.ProviderAvailability;
 import com.healthfirst.enums.AppointmentType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProviderAvailabilityRepository extends JpaRepository<ProviderAvailability, UUID> {
@@ -48,6 +56,17 @@ public interface ProviderAvailabilityRepository extends JpaRepository<ProviderAv
             @Param("startTime") LocalTime startTime,
             @Param("endTime") LocalTime endTime);
 
+    /**
+     * Date, start and end time of a provider's active windows in a date range (for the occupancy timeline)
+     */
+    @Query("SELECT pa.availabilityDate, pa.startTime, pa.endTime FROM ProviderAvailability pa " +
+           "WHERE pa.provider.id = :providerId AND pa.isActive = true " +
+           "AND pa.availabilityDate BETWEEN :fromDate AND :toDate")
+    List<Object[]> findActiveWindows(
+            @Param("providerId") UUID providerId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
+
     /**
      * Find availability by provider and appointment type
      */
@@ -71,6 +90,30 @@ public interface ProviderAvailabilityRepository extends JpaRepository<ProviderAv
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
+    /**
+     * Find all active availability within a date range (any provider)
+     */
+    @Query("SELECT pa FROM ProviderAvailability pa " +
+           "WHERE pa.availabilityDate BETWEEN :startDate AND :endDate " +
+           "AND pa.isActive = true " +
+           "ORDER BY pa.availabilityDate, pa.startTime")
+    List<ProviderAvailability> findActiveByDateRange(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Scroll active availability within a date range (any provider) in the given order, with the provider
+     * fetched. Must be consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT pa FROM ProviderAvailability pa JOIN FETCH pa.provider " +
+           "WHERE pa.availabilityDate BETWEEN :startDate AND :endDate " +
+           "AND pa.isActive = true")
+    Stream<ProviderAvailability> streamActiveByDateRange(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Sort sort);
+
     /**
      * Find availability by appointment type and date range for search
      */
@@ -127,6 +170,35 @@ public interface ProviderAvailabilityRepository extends JpaRepository<ProviderAv
             @Param("location") String location,
             @Param("fromDate") LocalDate fromDate);
 
+    /**
+     * Distinct locations of active availability from a date on
+     */
+    @Query("SELECT DISTINCT pa.location FROM ProviderAvailability pa " +
+           "WHERE pa.location IS NOT NULL AND pa.isActive = true AND pa.availabilityDate >= :fromDate")
+    List<String> findDistinctActiveLocations(@Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Distinct locations of a provider's active availability from a date on
+     */
+    @Query("SELECT DISTINCT pa.location FROM ProviderAvailability pa WHERE pa.provider.id = :providerId " +
+           "AND pa.location IS NOT NULL AND pa.isActive = true AND pa.availabilityDate >= :fromDate")
+    List<String> findDistinctActiveLocationsByProviderId(
+            @Param("providerId") UUID providerId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Find every active availability of a provider
+     */
+    @Query("SELECT pa FROM ProviderAvailability pa WHERE pa.provider.id = :providerId AND pa.isActive = true " +
+           "ORDER BY pa.availabilityDate, pa.startTime")
+    List<ProviderAvailability> findActiveByProviderId(@Param("providerId") UUID providerId);
+
+    /**
+     * Ids of the providers with any active availability
+     */
+    @Query("SELECT DISTINCT pa.provider.id FROM ProviderAvailability pa WHERE pa.isActive = true")
+    List<UUID> findProviderIdsWithActiveAvailability();
+
     /**
      * Check if provider exists and is active
      */
@@ -146,4 +218,152 @@ public interface ProviderAvailabilityRepository extends JpaRepository<ProviderAv
             @Param("timezone") String timezone,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
-} 
\ No newline at end of file
+
+    /**
+     * Find active future instances whose slots are not written yet and that become bookable by the horizon date,
+     * ordered after the given (bookableFromDate, id) position so instances left pending are paged past
+     */
+    @Query("SELECT pa FROM ProviderAvailability pa WHERE pa.slotsMaterialized = false " +
+           "AND pa.isActive = true AND pa.availabilityDate >= :today " +
+           "AND pa.bookableFromDate <= :horizonDate " +
+           "AND (pa.bookableFromDate > :afterDate OR (pa.bookableFromDate = :afterDate AND pa.id > :afterId)) " +
+           "ORDER BY pa.bookableFromDate, pa.id")
+    List<ProviderAvailability> findPendingSlotMaterialization(
+            @Param("today") LocalDate today,
+            @Param("horizonDate") LocalDate horizonDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
+
+    // ========== RECURRENCE SERIES ==========
+
+    /**
+     * First date of a recurrence series
+     */
+    @Query("SELECT MIN(pa.availabilityDate) FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId")
+    LocalDate findSeriesStartDate(@Param("seriesId") UUID seriesId);
+
+    /**
+     * Find active series instances from a date whose slots still have to be written
+     */
+    @Query("SELECT pa FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate AND pa.slotsMaterialized = false AND pa.isActive = true " +
+           "ORDER BY pa.availabilityDate")
+    List<ProviderAvailability> findSeriesInstancesAwaitingSlots(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Delete a single instance, but only once it owns no slots (booked slots keep it alive)
+     */
+    @Modifying
+    @Query("DELETE FROM ProviderAvailability pa WHERE pa.id = :availabilityId " +
+           "AND NOT EXISTS (SELECT s.id FROM AppointmentSlot s WHERE s.providerAvailability.id = pa.id)")
+    int deleteIfNoSlots(@Param("availabilityId") UUID availabilityId);
+
+    /**
+     * Delete series instances from a date that own no slots
+     */
+    @Modifying
+    @Query("DELETE FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate " +
+           "AND NOT EXISTS (SELECT s.id FROM AppointmentSlot s WHERE s.providerAvailability.id = pa.id)")
+    int deleteSeriesInstancesWithoutSlots(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Close the remaining series instances from a date for booking
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProviderAvailability pa SET pa.isActive = false, pa.updatedAt = LOCAL DATETIME " +
+           "WHERE pa.recurrenceSeriesId = :seriesId AND pa.availabilityDate >= :fromDate")
+    int deactivateSeriesInstances(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Apply descriptive fields to series instances from a date; a null parameter keeps the stored value
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProviderAvailability pa SET " +
+           "pa.price = CASE WHEN :price IS NULL THEN pa.price ELSE :price END, " +
+           "pa.location = CASE WHEN :location IS NULL THEN pa.location ELSE :location END, " +
+           "pa.description = CASE WHEN :description IS NULL THEN pa.description ELSE :description END, " +
+           "pa.appointmentType = CASE WHEN :appointmentType IS NULL THEN pa.appointmentType ELSE :appointmentType END, " +
+           "pa.isActive = CASE WHEN :isActive IS NULL THEN pa.isActive ELSE :isActive END, " +
+           "pa.maxConsecutiveSlots = CASE WHEN :maxConsecutiveSlots IS NULL THEN pa.maxConsecutiveSlots ELSE :maxConsecutiveSlots END, " +
+           "pa.updatedAt = LOCAL DATETIME " +
+           "WHERE pa.recurrenceSeriesId = :seriesId AND pa.availabilityDate >= :fromDate")
+    int updateSeriesDetails(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("price") BigDecimal price,
+            @Param("location") String location,
+            @Param("description") String description,
+            @Param("appointmentType") AppointmentType appointmentType,
+            @Param("isActive") Boolean isActive,
+            @Param("maxConsecutiveSlots") Integer maxConsecutiveSlots);
+
+    /**
+     * Apply time settings to series instances from a date that hold no booked slot, and mark them for
+     * slot regeneration; a null parameter keeps the stored value
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProviderAvailability pa SET " +
+           "pa.startTime = CASE WHEN :startTime IS NULL THEN pa.startTime ELSE :startTime END, " +
+           "pa.endTime = CASE WHEN :endTime IS NULL THEN pa.endTime ELSE :endTime END, " +
+           "pa.slotDurationMinutes = CASE WHEN :slotDurationMinutes IS NULL THEN pa.slotDurationMinutes ELSE :slotDurationMinutes END, " +
+           "pa.bufferTimeMinutes = CASE WHEN :bufferTimeMinutes IS NULL THEN pa.bufferTimeMinutes ELSE :bufferTimeMinutes END, " +
+           "pa.timezone = CASE WHEN :timezone IS NULL THEN pa.timezone ELSE :timezone END, " +
+           "pa.slotsMaterialized = false, pa.updatedAt = LOCAL DATETIME " +
+           "WHERE pa.recurrenceSeriesId = :seriesId AND pa.availabilityDate >= :fromDate " +
+           "AND NOT EXISTS (SELECT s.id FROM AppointmentSlot s " +
+           "WHERE s.providerAvailability.id = pa.id AND s.isBooked = true)")
+    int updateUnbookedSeriesTimes(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("startTime") LocalTime startTime,
+            @Param("endTime") LocalTime endTime,
+            @Param("slotDurationMinutes") Integer slotDurationMinutes,
+            @Param("bufferTimeMinutes") Integer bufferTimeMinutes,
+            @Param("timezone") String timezone);
+
+    /**
+     * Count series instances from a date that hold at least one booked slot
+     */
+    @Query("SELECT COUNT(pa) FROM ProviderAvailability pa WHERE pa.recurrenceSeriesId = :seriesId " +
+           "AND pa.availabilityDate >= :fromDate " +
+           "AND EXISTS (SELECT s.id FROM AppointmentSlot s " +
+           "WHERE s.providerAvailability.id = pa.id AND s.isBooked = true)")
+    long countSeriesInstancesWithBookedSlots(
+            @Param("seriesId") UUID seriesId,
+            @Param("fromDate") LocalDate fromDate);
+
+    // ========== BOOKED COUNT ==========
+
+    /**
+     * Atomically add to the booked slot counter; never lets it drop below zero
+     */
+    @Modifying
+    @Query("UPDATE ProviderAvailability pa SET pa.bookedCount = pa.bookedCount + :delta " +
+           "WHERE pa.id = :availabilityId AND pa.bookedCount + :delta >= 0")
+    int adjustBookedCount(@Param("availabilityId") UUID availabilityId, @Param("delta") int delta);
+
+    /**
+     * Find instances from a date whose counter disagrees with their booked slot rows
+     */
+    @Query("SELECT pa.id FROM ProviderAvailability pa WHERE pa.availabilityDate >= :fromDate " +
+           "AND pa.bookedCount <> (SELECT COUNT(s) FROM AppointmentSlot s " +
+           "WHERE s.providerAvailability.id = pa.id AND s.isBooked = true)")
+    List<UUID> findIdsWithDriftedBookedCount(@Param("fromDate") LocalDate fromDate, Pageable pageable);
+
+    /**
+     * Recount the booked slots of the given instances
+     */
+    @Modifying
+    @Query("UPDATE ProviderAvailability pa SET pa.bookedCount = (SELECT COUNT(s) FROM AppointmentSlot s " +
+           "WHERE s.providerAvailability.id = pa.id AND s.isBooked = true) " +
+           "WHERE pa.id IN :availabilityIds")
+    int recountBookedSlots(@Param("availabilityIds") List<UUID> availabilityIds);
+}
@@ -0,0 +1,71 @@
+package com.healthfirst.repository;
+
+import com.healthfirst.entity.ProviderDaySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProviderDaySummaryRepository extends JpaRepository<ProviderDaySummary, UUID> {
+
+    /**
+     * Find a provider's day summaries in a date range, in date order
+     */
+    List<ProviderDaySummary> findByProviderIdAndSummaryDateBetweenOrderBySummaryDate(
+            UUID providerId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Delete a provider's summaries of the given days
+     */
+    @Modifying
+    @Query("DELETE FROM ProviderDaySummary d WHERE d.providerId = :providerId AND d.summaryDate IN :dates")
+    int deleteByProviderIdAndDates(
+            @Param("providerId") UUID providerId,
+            @Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * Move one slot of a provider's day from open to booked in place, re-reading the open span from the day's
+     * stored open slots. Returns 0 when the day has no summary.
+     */
+    @Modifying
+    @Query("UPDATE ProviderDaySummary d SET d.openCount = d.openCount - 1, d.bookedCount = d.bookedCount + 1, " +
+           "d.firstOpenStart = (SELECT MIN(s.startDateTime) FROM AppointmentSlot s JOIN s.providerAvailability pa " +
+           "WHERE pa.provider.id = d.providerId AND pa.availabilityDate = d.summaryDate AND pa.isActive = true " +
+           "AND s.isActive = true AND s.isBooked = false), " +
+           "d.lastOpenStart = (SELECT MAX(s.startDateTime) FROM AppointmentSlot s JOIN s.providerAvailability pa " +
+           "WHERE pa.provider.id = d.providerId AND pa.availabilityDate = d.summaryDate AND pa.isActive = true " +
+           "AND s.isActive = true AND s.isBooked = false), " +
+           "d.updatedAt = LOCAL DATETIME " +
+           "WHERE d.providerId = :providerId AND d.summaryDate = :summaryDate AND d.openCount > 0")
+    int countBooking(
+            @Param("providerId") UUID providerId,
+            @Param("summaryDate") LocalDate summaryDate);
+
+    /**
+     * As {@link #countBooking} with the open span given, for days whose open slots are derived rather than stored
+     */
+    @Modifying
+    @Query("UPDATE ProviderDaySummary d SET d.openCount = d.openCount - 1, d.bookedCount = d.bookedCount + 1, " +
+           "d.firstOpenStart = :firstOpenStart, d.lastOpenStart = :lastOpenStart, d.updatedAt = LOCAL DATETIME " +
+           "WHERE d.providerId = :providerId AND d.summaryDate = :summaryDate AND d.openCount > 0")
+    int countDerivedBooking(
+            @Param("providerId") UUID providerId,
+            @Param("summaryDate") LocalDate summaryDate,
+            @Param("firstOpenStart") LocalDateTime firstOpenStart,
+            @Param("lastOpenStart") LocalDateTime lastOpenStart);
+
+    /**
+     * Delete every summary of a provider
+     */
+    @Modifying
+    @Query("DELETE FROM ProviderDaySummary d WHERE d.providerId = :providerId")
+    int deleteByProviderId(@Param("providerId") UUID providerId);
+}
@@ -65,6 +65,26 @@ public interface ProviderRepository extends JpaRepository<Provider, UUID> {
     @Query("SELECT p FROM Provider p WHERE p.verificationStatus = :status AND p.isActive = true")
     List<Provider> findVerifiedActiveProviders(@Param("status") VerificationStatus status);
 
+    /**
+     * Active providers whose clinic address has coordinates, for the proximity index
+     */
+    @Query("SELECT p FROM Provider p WHERE p.isActive = true " +
+           "AND p.clinicAddress.latitude IS NOT NULL AND p.clinicAddress.longitude IS NOT NULL")
+    List<Provider> findActiveWithCoordinates();
+
+    /**
+     * (provider id, plan name) for every insurance plan accepted by an active provider
+     */
+    @Query("SELECT p.id, plan FROM Provider p JOIN p.acceptedInsurancePlans plan WHERE p.isActive = true")
+    List<Object[]> findActiveInsurancePlans();
+
+    /**
+     * Ids of the active providers of a specialization, ignoring case, in directory order
+     */
+    @Query("SELECT p.id FROM Provider p WHERE p.isActive = true AND LOWER(p.specialization) = LOWER(:specialization) " +
+           "ORDER BY p.lastName, p.firstName, p.id")
+    List<UUID> findActiveIdsBySpecialization(@Param("specialization") String specialization);
+
     /**
      * Count providers by verification status
      */
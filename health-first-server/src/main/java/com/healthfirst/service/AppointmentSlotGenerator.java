@@ -0,0 +1,69 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands a provider availability window into its grid of appointment slots (UTC, with the provider-local
+ * start date and minute of day alongside)
+ */
+@Component
+public class AppointmentSlotGenerator {
+
+    @Autowired
+    private SlotGridEngine gridEngine;
+
+    /**
+     * Build the (unsaved) slots covered by the availability
+     */
+    public List<AppointmentSlot> generate(ProviderAvailability availability) {
+        SlotGridEngine.Template template = template(availability);
+        SlotGridEngine.SlotGrid grid = gridEngine.generate(template, availability.getAvailabilityDate());
+        SlotGridEngine.ZoneTimeline timeline = gridEngine.timeline(template.getTimezone(),
+                availability.getAvailabilityDate().getYear());
+        List<AppointmentSlot> slots = new ArrayList<>(grid.size());
+
+        for (int i = 0; i < grid.size(); i++) {
+            AppointmentSlot slot = new AppointmentSlot(availability, availability.getProvider(),
+                    SlotGridEngine.SlotGrid.toUtcDateTime(grid.startMinute(i)),
+                    SlotGridEngine.SlotGrid.toUtcDateTime(grid.endMinute(i)),
+                    availability.getAppointmentType());
+
+            long localStart = timeline.toLocalEpochMinute(grid.startMinute(i));
+            slot.setLocalDate(SlotGridEngine.SlotGrid.toLocalDate(localStart));
+            slot.setLocalStartMinute(SlotGridEngine.SlotGrid.toMinuteOfDay(localStart));
+            slot.setPrice(availability.getPrice());
+            slot.setLocation(availability.getLocation());
+
+            slots.add(slot);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Set the provider-local start date and minute of day of a slot from its availability's timezone
+     */
+    public void localizeStart(AppointmentSlot slot) {
+        LocalDateTime start = slot.getStartDateTime();
+        long localStart = gridEngine.timeline(slot.getProviderAvailability().getTimezone(), start.getYear())
+                .toLocalEpochMinute(start.toEpochSecond(ZoneOffset.UTC) / 60);
+        slot.setLocalDate(SlotGridEngine.SlotGrid.toLocalDate(localStart));
+        slot.setLocalStartMinute(SlotGridEngine.SlotGrid.toMinuteOfDay(localStart));
+    }
+
+    /**
+     * Date-independent slot template of the availability, shared by every instance of a series
+     */
+    public SlotGridEngine.Template template(ProviderAvailability availability) {
+        return new SlotGridEngine.Template(availability.getStartTime(), availability.getEndTime(),
+                availability.getSlotDurationMinutes(), availability.getBufferTimeMinutes(), availability.getTimezone());
+    }
+}
@@ -0,0 +1,364 @@
+package com.healthfirst.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthfirst.dto.AvailabilityJobResponse;
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.CreateAvailabilityRequest;
+import com.healthfirst.entity.AvailabilityJob;
+import com.healthfirst.entity.AvailabilityJobChunk;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.enums.AvailabilityJobStatus;
+import com.healthfirst.enums.RecurrencePattern;
+import com.healthfirst.repository.AvailabilityJobChunkRepository;
+import com.healthfirst.repository.AvailabilityJobRepository;
+import com.healthfirst.repository.ProviderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs large availability creation requests in the background.
+ *
+ * A job's recurrence dates are split into date-range chunks that are persisted with the job.
+ * Up to {@code app.availability.jobs.worker-threads} workers claim pending chunks one at a time;
+ * each chunk creates its instances and slots in its own transaction, so progress survives a
+ * restart and interrupted chunks are simply requeued. Assumes a single application instance.
+ */
+@Service
+public class AvailabilityJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityJobService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private AvailabilityJobRepository jobRepository;
+
+    @Autowired
+    private AvailabilityJobChunkRepository chunkRepository;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private ProviderAvailabilityService availabilityService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("availabilityJobExecutor")
+    private TaskExecutor jobExecutor;
+
+    @Value("${app.availability.jobs.chunk-days:30}")
+    private int chunkDays = 30;
+
+    @Value("${app.availability.jobs.worker-threads:4}")
+    private int workerThreads = 4;
+
+    // Workers currently running per job, so the resume sweep never doubles up on a job
+    private final Map<UUID, AtomicInteger> activeWorkers = new ConcurrentHashMap<>();
+
+    /**
+     * Validate the request, persist the job with its chunks and hand it to the worker pool
+     */
+    public AvailabilityJobResponse submitJob(UUID providerId, CreateAvailabilityRequest request) {
+        try {
+            logger.info("Submitting availability job for provider: {} starting: {}", providerId, request.getAvailabilityDate());
+
+            Optional<AvailabilityResponse> rejection = availabilityService.precheckCreate(providerId, request);
+            if (rejection.isPresent()) {
+                AvailabilityJobResponse error = AvailabilityJobResponse.error(rejection.get().getMessage(), rejection.get().getErrorCode());
+                error.setConflictingDates(rejection.get().getConflictingDates());
+                return error;
+            }
+
+            List<LocalDate> dates = availabilityService.expandRecurrenceDates(request);
+            String payload = objectMapper.writeValueAsString(request);
+
+            AvailabilityJob job = transactionTemplate().execute(status -> {
+                AvailabilityJob saved = jobRepository.save(new AvailabilityJob(providerId, payload, 0));
+                List<AvailabilityJobChunk> chunks = buildChunks(saved.getId(), dates);
+                saved.setTotalChunks(chunks.size());
+                chunkRepository.saveAll(chunks);
+                return jobRepository.save(saved);
+            });
+
+            logger.info("Availability job {} accepted with {} date(s) in {} chunk(s)", job.getId(), dates.size(), job.getTotalChunks());
+            dispatch(job.getId(), job.getTotalChunks());
+
+            return AvailabilityJobResponse.success("Availability job accepted", convertToJobData(job, Collections.emptyList()));
+
+        } catch (Exception e) {
+            logger.error("Error submitting availability job for provider: {}", providerId, e);
+            return AvailabilityJobResponse.error("Failed to submit availability job. Please try again later.", "JOB_SUBMIT_ERROR");
+        }
+    }
+
+    /**
+     * Current progress of a job, including the date ranges that failed
+     */
+    public AvailabilityJobResponse getJob(UUID providerId, UUID jobId) {
+        Optional<AvailabilityJob> job = jobRepository.findById(jobId)
+                .filter(found -> found.getProviderId().equals(providerId));
+        if (job.isEmpty()) {
+            return AvailabilityJobResponse.error("Availability job not found: " + jobId, "JOB_NOT_FOUND");
+        }
+
+        List<AvailabilityJobChunk> chunks = chunkRepository.findByJobIdOrderByChunkIndex(jobId);
+        return AvailabilityJobResponse.success("Availability job retrieved successfully", convertToJobData(job.get(), chunks));
+    }
+
+    /**
+     * Requeue chunks interrupted by a shutdown and restart their jobs
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        Integer requeued = transactionTemplate().execute(status -> chunkRepository.requeueInterruptedChunks());
+        if (requeued != null && requeued > 0) {
+            logger.info("Requeued {} interrupted availability job chunk(s)", requeued);
+        }
+        resumeUnfinishedJobs();
+    }
+
+    /**
+     * Pick up unfinished jobs that have no workers, e.g. after the pool rejected them
+     */
+    @Scheduled(fixedDelayString = "${app.availability.jobs.resume-interval-ms:60000}",
+               initialDelayString = "${app.availability.jobs.resume-interval-ms:60000}")
+    public void resumeUnfinishedJobs() {
+        try {
+            List<AvailabilityJob> unfinished = jobRepository.findByStatusIn(
+                    List.of(AvailabilityJobStatus.PENDING, AvailabilityJobStatus.RUNNING));
+
+            for (AvailabilityJob job : unfinished) {
+                if (!activeWorkers.containsKey(job.getId())) {
+                    long pending = chunkRepository.countByJobIdAndStatus(job.getId(), AvailabilityJobStatus.PENDING);
+                    logger.info("Resuming availability job {} with {} pending chunk(s)", job.getId(), pending);
+                    dispatch(job.getId(), (int) pending);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error resuming availability jobs", e);
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    /**
+     * Split the dates into consecutive ranges of chunk-days days, skipping empty ranges
+     */
+    private List<AvailabilityJobChunk> buildChunks(UUID jobId, List<LocalDate> dates) {
+        List<AvailabilityJobChunk> chunks = new ArrayList<>();
+        if (dates.isEmpty()) {
+            return chunks;
+        }
+
+        List<LocalDate> sorted = dates.stream().sorted().collect(Collectors.toList());
+        LocalDate rangeStart = sorted.get(0);
+        LocalDate first = null;
+        LocalDate last = null;
+
+        for (LocalDate date : sorted) {
+            if (!date.isBefore(rangeStart.plusDays(chunkDays))) {
+                chunks.add(new AvailabilityJobChunk(jobId, chunks.size(), first, last));
+                while (!date.isBefore(rangeStart.plusDays(chunkDays))) {
+                    rangeStart = rangeStart.plusDays(chunkDays);
+                }
+                first = null;
+            }
+            if (first == null) {
+                first = date;
+            }
+            last = date;
+        }
+        chunks.add(new AvailabilityJobChunk(jobId, chunks.size(), first, last));
+
+        return chunks;
+    }
+
+    private void dispatch(UUID jobId, int pendingChunks) {
+        int workers = Math.min(workerThreads, pendingChunks);
+        if (workers == 0) {
+            finishJobIfDone(jobId);
+            return;
+        }
+
+        AtomicInteger running = new AtomicInteger(workers);
+        if (activeWorkers.putIfAbsent(jobId, running) != null) {
+            return;
+        }
+
+        for (int i = 0; i < workers; i++) {
+            try {
+                jobExecutor.execute(() -> runWorker(jobId));
+            } catch (TaskRejectedException e) {
+                logger.warn("Worker pool is full, availability job {} will be resumed later", jobId);
+                releaseWorker(jobId);
+            }
+        }
+    }
+
+    private void runWorker(UUID jobId) {
+        try {
+            CreateAvailabilityRequest request = readRequest(jobId);
+
+            Optional<AvailabilityJobChunk> chunk;
+            while ((chunk = claimNextChunk(jobId)).isPresent()) {
+                processChunk(chunk.get(), request);
+            }
+
+            finishJobIfDone(jobId);
+        } catch (Exception e) {
+            logger.error("Availability job {} worker stopped unexpectedly", jobId, e);
+        } finally {
+            releaseWorker(jobId);
+        }
+    }
+
+    private void releaseWorker(UUID jobId) {
+        AtomicInteger running = activeWorkers.get(jobId);
+        if (running != null && running.decrementAndGet() <= 0) {
+            activeWorkers.remove(jobId);
+        }
+    }
+
+    private CreateAvailabilityRequest readRequest(UUID jobId) throws Exception {
+        AvailabilityJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("Availability job not found: " + jobId));
+        return objectMapper.readerFor(CreateAvailabilityRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(job.getRequestPayload());
+    }
+
+    /**
+     * Claim the next pending chunk; each lookup runs in its own transaction so a lost race sees fresh state
+     */
+    private Optional<AvailabilityJobChunk> claimNextChunk(UUID jobId) {
+        while (true) {
+            Optional<AvailabilityJobChunk> next = chunkRepository
+                    .findFirstByJobIdAndStatusOrderByChunkIndex(jobId, AvailabilityJobStatus.PENDING);
+            if (next.isEmpty()) {
+                return next;
+            }
+
+            Boolean claimed = transactionTemplate().execute(status -> {
+                if (chunkRepository.claim(next.get().getId()) != 1) {
+                    return false;
+                }
+                jobRepository.markRunning(jobId);
+                return true;
+            });
+            if (Boolean.TRUE.equals(claimed)) {
+                return next;
+            }
+        }
+    }
+
+    private void processChunk(AvailabilityJobChunk chunk, CreateAvailabilityRequest request) {
+        try {
+            transactionTemplate().executeWithoutResult(status -> {
+                AvailabilityJob job = jobRepository.findById(chunk.getJobId())
+                        .orElseThrow(() -> new IllegalStateException("Availability job not found: " + chunk.getJobId()));
+                Provider provider = providerRepository.findById(job.getProviderId())
+                        .orElseThrow(() -> new IllegalStateException("Provider not found: " + job.getProviderId()));
+
+                List<LocalDate> dates = availabilityService.expandRecurrenceDates(request).stream()
+                        .filter(date -> !date.isBefore(chunk.getStartDate()) && !date.isAfter(chunk.getEndDate()))
+                        .collect(Collectors.toList());
+                // Every chunk of a job belongs to the same recurrence series, keyed by the job id
+                UUID seriesId = request.getRecurrencePattern() != RecurrencePattern.NONE ? job.getId() : null;
+                int slotCount = availabilityService.createInstancesOnDates(provider, request, dates, seriesId);
+
+                chunk.setStatus(AvailabilityJobStatus.COMPLETED);
+                chunk.setAvailabilityCount(dates.size());
+                chunk.setSlotCount(slotCount);
+                chunkRepository.save(chunk);
+                jobRepository.recordChunkCompleted(chunk.getJobId(), dates.size(), slotCount);
+            });
+
+            logger.info("Availability job {} chunk {} ({} to {}) completed", chunk.getJobId(), chunk.getChunkIndex(),
+                    chunk.getStartDate(), chunk.getEndDate());
+
+        } catch (Exception e) {
+            logger.error("Availability job {} chunk {} ({} to {}) failed", chunk.getJobId(), chunk.getChunkIndex(),
+                    chunk.getStartDate(), chunk.getEndDate(), e);
+
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            transactionTemplate().executeWithoutResult(status -> {
+                chunk.setStatus(AvailabilityJobStatus.FAILED);
+                chunk.setErrorMessage(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                chunkRepository.save(chunk);
+                jobRepository.recordChunkFailed(chunk.getJobId());
+            });
+        }
+    }
+
+    private void finishJobIfDone(UUID jobId) {
+        transactionTemplate().executeWithoutResult(status -> jobRepository.findById(jobId).ifPresent(job -> {
+            if (job.getStatus().isFinished() || !job.allChunksProcessed()) {
+                return;
+            }
+
+            if (job.getFailedChunks() == 0) {
+                job.setStatus(AvailabilityJobStatus.COMPLETED);
+            } else if (job.getCompletedChunks() == 0) {
+                job.setStatus(AvailabilityJobStatus.FAILED);
+            } else {
+                job.setStatus(AvailabilityJobStatus.COMPLETED_WITH_ERRORS);
+            }
+            job.setCompletedAt(LocalDateTime.now());
+            jobRepository.save(job);
+
+            logger.info("Availability job {} finished with status {}: {} instance(s), {} slot(s)",
+                    jobId, job.getStatus(), job.getAvailabilityCount(), job.getSlotCount());
+        }));
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private AvailabilityJobResponse.JobData convertToJobData(AvailabilityJob job, List<AvailabilityJobChunk> chunks) {
+        AvailabilityJobResponse.JobData data = new AvailabilityJobResponse.JobData();
+        data.setJobId(job.getId());
+        data.setProviderId(job.getProviderId());
+        data.setStatus(job.getStatus());
+        data.setTotalChunks(job.getTotalChunks());
+        data.setCompletedChunks(job.getCompletedChunks());
+        data.setFailedChunks(job.getFailedChunks());
+        data.setProgressPercent(job.getTotalChunks() == 0 ? 100
+                : (job.getCompletedChunks() + job.getFailedChunks()) * 100 / job.getTotalChunks());
+        data.setAvailabilityCount(job.getAvailabilityCount());
+        data.setSlotCount(job.getSlotCount());
+        data.setCreatedAt(job.getCreatedAt());
+        data.setCompletedAt(job.getCompletedAt());
+        data.setFailures(chunks.stream()
+                .filter(chunk -> chunk.getStatus() == AvailabilityJobStatus.FAILED)
+                .map(chunk -> new AvailabilityJobResponse.ChunkFailure(
+                        chunk.getChunkIndex(), chunk.getStartDate(), chunk.getEndDate(), chunk.getErrorMessage()))
+                .collect(Collectors.toList()));
+        return data;
+    }
+}
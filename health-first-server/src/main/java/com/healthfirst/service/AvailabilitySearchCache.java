@@ -0,0 +1,268 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilitySearchFacets;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.dto.AvailabilitySearchResult;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of availability search results and facets, keyed by the normalized search request.
+ *
+ * Entries expire after {@code ttl-ms} and the least recently used entry is evicted beyond
+ * {@code max-entries}. After a booking or an availability change commits, only entries whose provider
+ * filter and date range can include the changed (provider, date) are dropped; an insurance change drops the
+ * provider's entries for every date. A search that overlaps an invalidation is not cached, so a result read
+ * before a commit cannot outlive it. Assumes a single application instance.
+ */
+@Component
+public class AvailabilitySearchCache {
+
+    @Value("${app.availability.search-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.search-cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    @Value("${app.availability.search-cache.ttl-ms:30000}")
+    private long ttlMs = 30_000;
+
+    // Access ordered for LRU eviction; guarded by this
+    private final LinkedHashMap<String, CachedSearch> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation so a search that raced one is not stored; guarded by this
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Cached result for the request, or null
+     */
+    public AvailabilitySearchResult get(AvailabilitySearchRequest request) {
+        return (AvailabilitySearchResult) lookup(resultKey(request));
+    }
+
+    /**
+     * Cached facets of the request's whole matching set, or null
+     */
+    public AvailabilitySearchFacets getFacets(AvailabilitySearchRequest request) {
+        return (AvailabilitySearchFacets) lookup(facetKey(request));
+    }
+
+    /**
+     * Token to take before running a search and pass to {@link #put}
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Store a result computed after {@link #generation()} returned the given token, unless an
+     * invalidation has happened since
+     */
+    public void put(AvailabilitySearchRequest request, long searchGeneration, AvailabilitySearchResult result) {
+        store(resultKey(request), request, searchGeneration, result);
+    }
+
+    /**
+     * As {@link #put} for facets; shared by every page and sort order of the same search
+     */
+    public void putFacets(AvailabilitySearchRequest request, long searchGeneration, AvailabilitySearchFacets facets) {
+        store(facetKey(request), request, searchGeneration, facets);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (event.affectsAllDates()) {
+            invalidate(event.getProviderId(), null);
+        } else {
+            // Availability dates are in the provider's timezone; searches are by UTC date
+            Set<LocalDate> dates = new HashSet<>();
+            for (LocalDate date : event.getDates()) {
+                dates.add(date.minusDays(1));
+                dates.add(date);
+                dates.add(date.plusDays(1));
+            }
+            invalidate(event.getProviderId(), dates);
+        }
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotBooked(SlotBookedEvent event) {
+        invalidate(event.getProviderId(), Set.of(event.getStartDateTime().toLocalDate()));
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInsuranceChanged(ProviderInsuranceChangedEvent event) {
+        invalidate(event.getProviderId(), null);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private Object lookup(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        synchronized (this) {
+            CachedSearch cached = entries.get(key);
+            if (cached != null && cached.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                cached = null;
+            }
+            if (cached == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.value;
+        }
+    }
+
+    private void store(String key, AvailabilitySearchRequest request, long searchGeneration, Object value) {
+        if (!enabled || maxEntries <= 0) {
+            return;
+        }
+
+        CachedSearch cached = new CachedSearch(request, value, System.currentTimeMillis() + ttlMs);
+        synchronized (this) {
+            if (searchGeneration != generation) {
+                return;
+            }
+            entries.put(key, cached);
+            Iterator<CachedSearch> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drop entries that can contain a slot of the provider on one of the UTC dates (any date when null)
+     */
+    private synchronized void invalidate(UUID providerId, Set<LocalDate> dates) {
+        generation++;
+        Iterator<CachedSearch> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().covers(providerId, dates)) {
+                iterator.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    static String resultKey(AvailabilitySearchRequest request) {
+        return String.join("|", "page", filterKey(request),
+                String.valueOf(request.getMaxResults()),
+                String.valueOf(request.getSortBy()),
+                String.valueOf(request.getAscending()),
+                request.getCursor() == null ? "" : request.getCursor());
+    }
+
+    static String facetKey(AvailabilitySearchRequest request) {
+        return "facets|" + filterKey(request);
+    }
+
+    /**
+     * Every filter that can change the matching set; differences the search ignores (letter case of the
+     * text filters, order of lists, scale of prices) are normalized away
+     */
+    private static String filterKey(AvailabilitySearchRequest request) {
+        return String.join("|",
+                String.valueOf(request.getStartDate()),
+                String.valueOf(request.getEndDate()),
+                String.valueOf(request.getPreferredStartTime()),
+                String.valueOf(request.getPreferredEndTime()),
+                request.getProviderIds() == null ? "" : request.getProviderIds().stream()
+                        .map(UUID::toString).sorted().distinct().collect(Collectors.joining(",")),
+                normalize(request.getSpecialization()),
+                normalize(request.getLocation()),
+                String.valueOf(request.getTimezone()),
+                String.valueOf(request.getAppointmentType()),
+                String.valueOf(request.getMinSlotDurationMinutes()),
+                String.valueOf(request.getMaxSlotDurationMinutes()),
+                request.getMinPrice() == null ? "" : request.getMinPrice().stripTrailingZeros().toPlainString(),
+                request.getMaxPrice() == null ? "" : request.getMaxPrice().stripTrailingZeros().toPlainString(),
+                String.valueOf(request.getAvailableOnly()),
+                String.valueOf(request.getProximityLocation()),
+                String.valueOf(request.getMaxDistanceKm()),
+                request.getAcceptedInsurance() == null ? "" : request.getAcceptedInsurance().stream()
+                        .map(InsurancePlanIndex::normalize).sorted().distinct().collect(Collectors.joining(",")));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class CachedSearch {
+        private final Set<UUID> providerIds; // null when the search is not limited to providers
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final Object value; // a result page or facets
+        private final long expiresAt;
+
+        CachedSearch(AvailabilitySearchRequest request, Object value, long expiresAt) {
+            this.providerIds = request.getProviderIds() == null || request.getProviderIds().isEmpty()
+                    ? null
+                    : new HashSet<>(request.getProviderIds());
+            this.fromDate = request.getStartDate();
+            this.toDate = request.getEndDate();
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean covers(UUID providerId, Set<LocalDate> dates) {
+            if (providerIds != null && !providerIds.contains(providerId)) {
+                return false;
+            }
+            if (dates == null) {
+                return true;
+            }
+            for (LocalDate date : dates) {
+                if (!date.isBefore(fromDate) && !date.isAfter(toDate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
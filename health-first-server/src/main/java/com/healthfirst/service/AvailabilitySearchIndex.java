@@ -0,0 +1,718 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchCursor;
+import com.healthfirst.dto.AvailabilitySearchFacets;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.dto.TimeOfDayWindow;
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Read-optimized in-memory index of future open appointment slots for patient search.
+ *
+ * Open slots up to {@code horizon-days} ahead are kept per UTC start date and grouped under
+ * (specialization, appointment type, price bucket), so a search only visits the groups its filters can
+ * match and never touches the database. The index is rebuilt periodically, refreshed per provider after
+ * committed availability changes and drops slots as they are booked. Until the first build completes,
+ * when a search reaches past the horizon or touches a day whose refresh failed, callers fall back to the
+ * database. Assumes a single application instance.
+ */
+@Component
+public class AvailabilitySearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilitySearchIndex.class);
+
+    private static final long NO_PRICE_BUCKET = Long.MIN_VALUE;
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Autowired
+    private LocationTrigramIndex locationIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.search-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.search-index.horizon-days:90}")
+    private int horizonDays = 90;
+
+    @Value("${app.availability.search-index.price-bucket:50}")
+    private BigDecimal priceBucketWidth = BigDecimal.valueOf(50);
+
+    @Value("${app.availability.search-index.max-slots:2000000}")
+    private int maxSlots = 2_000_000;
+
+    // Searches read under the read lock; refreshes and rebuilds swap data under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<LocalDate, Map<GroupKey, List<Entry>>> days = new TreeMap<>();
+    private LocalDateTime coveredUntil; // null until the first build completes
+    private int slotCount;
+    // Days whose refresh failed or may have applied out of order; searched in the database until the next rebuild
+    private TreeSet<LocalDate> staleDays = new TreeSet<>();
+    // Sequence of the latest refresh applied per provider, so an older load never overwrites a newer one
+    private final Map<UUID, Long> appliedSequence = new HashMap<>();
+
+    // Refreshes recorded while a rebuild is loading, replayed onto the new snapshot; guarded by this
+    private List<Refresh> missedByRebuild;
+    private long refreshSequence; // guarded by this
+
+    private final AtomicLong indexHits = new AtomicLong();
+    private final AtomicLong databaseFallbacks = new AtomicLong();
+
+    /**
+     * Up to limit matching open slots after the cursor, in the database search order; empty when the index
+     * cannot answer
+     */
+    public Optional<List<AvailabilityResponse.AppointmentSlotData>> search(AvailabilitySearchRequest request,
+                                                                         AvailabilitySearchCursor cursor, int limit) {
+        return search(request, null, cursor, limit);
+    }
+
+    /**
+     * As {@link #search(AvailabilitySearchRequest, AvailabilitySearchCursor, int)}, ranking a distance sort by
+     * the given provider distances in the same pass
+     */
+    public Optional<List<AvailabilityResponse.AppointmentSlotData>> search(AvailabilitySearchRequest request,
+                                                                         Map<UUID, Double> distances,
+                                                                         AvailabilitySearchCursor cursor, int limit) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        LocalDateTime endDateTime = request.getEndDate().atTime(23, 59, 59);
+        boolean byDistance = distances != null && AvailabilitySearchCursor.isDistanceSort(request);
+        boolean byPrice = AvailabilitySearchCursor.isPriceSort(request);
+        boolean byTime = !byPrice && !byDistance;
+        boolean ascending = Boolean.TRUE.equals(request.getAscending());
+        Function<Entry, Double> distance = entry -> byDistance ? distances.get(entry.providerId) : null;
+        Comparator<Entry> comparator = AvailabilitySearchCursor.order(request,
+                distance, entry -> entry.price, entry -> entry.startDateTime, entry -> entry.id);
+
+        // Price and distance sorts see every match in range; the heap keeps only the page
+        TopKCollector<Entry> matches = new TopKCollector<>(limit, comparator);
+        lock.readLock().lock();
+        try {
+            if (coveredUntil == null || !endDateTime.isBefore(coveredUntil)
+                    || !staleDays.subSet(request.getStartDate(), true, request.getEndDate(), true).isEmpty()) {
+                databaseFallbacks.incrementAndGet();
+                return Optional.empty();
+            }
+
+            LocalDate fromDate = request.getStartDate();
+            LocalDate toDate = request.getEndDate();
+            if (cursor != null && byTime) {
+                // A time-sorted page resumes on the cursor's day
+                LocalDate cursorDate = cursor.getStartDateTime().toLocalDate();
+                if (ascending && cursorDate.isAfter(fromDate)) {
+                    fromDate = cursorDate;
+                } else if (!ascending && cursorDate.isBefore(toDate)) {
+                    toDate = cursorDate;
+                }
+            }
+            if (fromDate.isAfter(toDate)) {
+                indexHits.incrementAndGet();
+                return Optional.of(Collections.emptyList());
+            }
+
+            NavigableMap<LocalDate, Map<GroupKey, List<Entry>>> range = days.subMap(fromDate, true, toDate, true);
+            if (byTime && !ascending) {
+                range = range.descendingMap();
+            }
+            // Days are visited in time order, so a time sort is complete once a full day fills the limit
+            forEachMatch(range, request, entry -> {
+                if (cursor == null || cursor.precedes(distance.apply(entry), entry.price, entry.startDateTime, entry.id)) {
+                    matches.offer(entry);
+                }
+            }, () -> byTime && matches.isFull());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        indexHits.incrementAndGet();
+        return Optional.of(matches.toList().stream()
+                .map(Entry::toSlotData)
+                .toList());
+    }
+
+    /**
+     * Add every matching open slot to the facets; false when the index cannot answer
+     */
+    public boolean collectFacets(AvailabilitySearchRequest request, AvailabilitySearchFacets facets) {
+        if (!enabled) {
+            return false;
+        }
+
+        LocalDateTime endDateTime = request.getEndDate().atTime(23, 59, 59);
+        lock.readLock().lock();
+        try {
+            if (coveredUntil == null || !endDateTime.isBefore(coveredUntil)
+                    || !staleDays.subSet(request.getStartDate(), true, request.getEndDate(), true).isEmpty()) {
+                databaseFallbacks.incrementAndGet();
+                return false;
+            }
+            forEachMatch(days.subMap(request.getStartDate(), true, request.getEndDate(), true), request,
+                    entry -> facets.add(entry.specialization, entry.appointmentType, entry.location, entry.price, 1),
+                    () -> false);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        indexHits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Earliest open slot of each of the providers with one in the index; empty when the index cannot answer.
+     * A provider missing from the result has no open slot within the horizon but may have one beyond it.
+     */
+    public Optional<Map<UUID, AvailabilityResponse.AppointmentSlotData>> findEarliest(Collection<UUID> providerIds) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Comparator<Entry> earlier = Comparator.comparing((Entry entry) -> entry.startDateTime)
+                .thenComparing(entry -> entry.id, AvailabilitySearchCursor::compareIds);
+        Set<UUID> remaining = new HashSet<>(providerIds);
+        Map<UUID, Entry> earliest = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            if (coveredUntil == null || !staleDays.tailSet(now.toLocalDate(), true).isEmpty()) {
+                databaseFallbacks.incrementAndGet();
+                return Optional.empty();
+            }
+
+            // Days are in time order, so the first day holding a provider's slots holds its earliest
+            for (Map<GroupKey, List<Entry>> groups : days.tailMap(now.toLocalDate(), true).values()) {
+                if (remaining.isEmpty()) {
+                    break;
+                }
+                Map<UUID, Entry> firstOfDay = new HashMap<>();
+                for (List<Entry> entries : groups.values()) {
+                    for (Entry entry : entries) {
+                        if (remaining.contains(entry.providerId) && entry.startDateTime.isAfter(now)) {
+                            firstOfDay.merge(entry.providerId, entry, BinaryOperator.minBy(earlier));
+                        }
+                    }
+                }
+                earliest.putAll(firstOfDay);
+                remaining.removeAll(firstOfDay.keySet());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        indexHits.incrementAndGet();
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> slots = new LinkedHashMap<>();
+        earliest.forEach((providerId, entry) -> slots.put(providerId, entry.toSlotData()));
+        return Optional.of(slots);
+    }
+
+    /**
+     * Full rebuild over the horizon; the first run warms the index
+     */
+    @Scheduled(fixedDelayString = "${app.availability.search-index.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.availability.search-index.initial-delay-ms:0}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            missedByRebuild = new ArrayList<>();
+        }
+
+        try {
+            LocalDateTime from = LocalDateTime.now();
+            LocalDateTime until = from.toLocalDate().plusDays(horizonDays + 1L).atStartOfDay();
+            List<Entry> loaded = load(null, from, until);
+            if (loaded.size() > maxSlots) {
+                logger.warn("Search index would hold {} open slots, more than the {} allowed; searches stay on the database",
+                        loaded.size(), maxSlots);
+                return;
+            }
+
+            TreeMap<LocalDate, Map<GroupKey, List<Entry>>> rebuilt = new TreeMap<>();
+            loaded.forEach(entry -> add(rebuilt, entry));
+
+            List<Refresh> missed;
+            synchronized (this) {
+                lock.writeLock().lock();
+                try {
+                    days = rebuilt;
+                    slotCount = loaded.size();
+                    coveredUntil = until;
+                    staleDays = new TreeSet<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                missed = missedByRebuild;
+                missedByRebuild = null;
+            }
+
+            // Changes committed while loading may be missing from the snapshot; reloaded outside the monitor
+            for (Refresh refresh : missed) {
+                record(refresh);
+            }
+
+            logger.info("Search index rebuilt: {} open slot(s) until {}", loaded.size(), until);
+
+        } catch (Exception e) {
+            logger.error("Search index rebuild failed; searches use the previous snapshot or the database", e);
+        } finally {
+            synchronized (this) {
+                missedByRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Reload the provider's slots around the changed dates once the change is committed
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE - 1) // ahead of the search cache, so nothing re-caches the old index state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Refresh> refreshes = new ArrayList<>();
+        if (event.affectsAllDates()) {
+            refreshes.add(new Refresh(event.getProviderId(), now, now.toLocalDate().plusDays(horizonDays + 1L).atStartOfDay(), null));
+        } else {
+            // Availability dates are in the provider's timezone, so reload a day on both sides in UTC
+            for (LocalDate date : event.getDates()) {
+                LocalDateTime from = date.minusDays(1).atStartOfDay();
+                LocalDateTime to = date.plusDays(2).atStartOfDay();
+                Refresh last = refreshes.isEmpty() ? null : refreshes.get(refreshes.size() - 1);
+                if (last != null && !from.isAfter(last.to)) {
+                    refreshes.set(refreshes.size() - 1, new Refresh(last.providerId, last.from, to, null));
+                } else if (to.isAfter(now)) {
+                    refreshes.add(new Refresh(event.getProviderId(), from, to, null));
+                }
+            }
+        }
+
+        for (Refresh refresh : refreshes) {
+            record(refresh);
+        }
+    }
+
+    /**
+     * Drop a slot once its booking is committed
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE - 1) // ahead of the search cache, so nothing re-caches the old index state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotBooked(SlotBookedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        record(new Refresh(event.getProviderId(), event.getStartDateTime(), event.getStartDateTime(),
+                event.getProviderAvailabilityId()));
+    }
+
+    public boolean isWarm() {
+        lock.readLock().lock();
+        try {
+            return coveredUntil != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getIndexedSlotCount() {
+        lock.readLock().lock();
+        try {
+            return slotCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getIndexHits() {
+        return indexHits.get();
+    }
+
+    public long getDatabaseFallbacks() {
+        return databaseFallbacks.get();
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    /**
+     * Apply a refresh now and remember it for a rebuild in progress
+     */
+    private void record(Refresh refresh) {
+        long sequence;
+        synchronized (this) {
+            sequence = ++refreshSequence;
+            if (missedByRebuild != null) {
+                missedByRebuild.add(refresh);
+            }
+        }
+        try {
+            apply(refresh, sequence);
+        } catch (Exception e) {
+            // Runs after the change committed, so it must not reach the caller
+            logger.warn("Failed to refresh search index for provider: {}, searching {} to {} in the database until the next rebuild",
+                    refresh.providerId, refresh.from.toLocalDate(), refresh.to.toLocalDate(), e);
+            lock.writeLock().lock();
+            try {
+                markStale(refresh);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Refresh refresh, long sequence) {
+        if (!isWarm()) {
+            return;
+        }
+
+        if (refresh.bookedAvailabilityId != null) {
+            lock.writeLock().lock();
+            try {
+                appliedSequence.merge(refresh.providerId, sequence, Math::max);
+                removeIf(refresh.from.toLocalDate(), entry -> entry.availabilityId.equals(refresh.bookedAvailabilityId)
+                        && entry.startDateTime.equals(refresh.from));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        // Read without holding the monitor or the write lock, so refreshes of different providers load concurrently
+        List<Entry> loaded = load(refresh.providerId, refresh.from, refresh.to);
+        lock.writeLock().lock();
+        try {
+            Long applied = appliedSequence.get(refresh.providerId);
+            if (applied != null && applied > sequence) {
+                // A later change of the provider is already in, and this load may predate it
+                markStale(refresh);
+                return;
+            }
+            appliedSequence.put(refresh.providerId, sequence);
+
+            for (LocalDate date = refresh.from.toLocalDate(); !date.isAfter(refresh.to.toLocalDate()); date = date.plusDays(1)) {
+                removeIf(date, entry -> entry.providerId.equals(refresh.providerId)
+                        && !entry.startDateTime.isBefore(refresh.from) && entry.startDateTime.isBefore(refresh.to));
+            }
+            for (Entry entry : loaded) {
+                if (entry.startDateTime.isBefore(coveredUntil)) {
+                    add(days, entry);
+                    slotCount++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Send searches touching the refresh's days to the database; caller holds the write lock
+     */
+    private void markStale(Refresh refresh) {
+        for (LocalDate date = refresh.from.toLocalDate(); !date.isAfter(refresh.to.toLocalDate()); date = date.plusDays(1)) {
+            staleDays.add(date);
+        }
+    }
+
+    private void removeIf(LocalDate date, Predicate<Entry> condition) {
+        Map<GroupKey, List<Entry>> groups = days.get(date);
+        if (groups == null) {
+            return;
+        }
+        Iterator<List<Entry>> lists = groups.values().iterator();
+        while (lists.hasNext()) {
+            List<Entry> entries = lists.next();
+            int before = entries.size();
+            entries.removeIf(condition);
+            slotCount -= before - entries.size();
+            if (entries.isEmpty()) {
+                lists.remove();
+            }
+        }
+        if (groups.isEmpty()) {
+            days.remove(date);
+        }
+    }
+
+    private void add(TreeMap<LocalDate, Map<GroupKey, List<Entry>>> target, Entry entry) {
+        GroupKey key = new GroupKey(normalize(entry.specialization), entry.appointmentType, priceBucket(entry.price));
+        target.computeIfAbsent(entry.startDateTime.toLocalDate(), date -> new HashMap<>())
+                .computeIfAbsent(key, k -> new ArrayList<>())
+                .add(entry);
+    }
+
+    /**
+     * Open slots starting in [from, to), for one provider or all, read in a fresh transaction
+     */
+    private List<Entry> load(UUID providerId, LocalDateTime from, LocalDateTime to) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnly.setReadOnly(true);
+        List<Entry> loaded = readOnly.execute(status -> virtualSlotService.isVirtualMode()
+                ? loadVirtual(providerId, from, to)
+                : loadMaterialized(providerId, from, to));
+        return loaded != null ? loaded : Collections.emptyList();
+    }
+
+    private List<Entry> loadMaterialized(UUID providerId, LocalDateTime from, LocalDateTime to) {
+        List<Object[]> rows = providerId == null
+                ? slotRepository.findOpenSlotRows(from, to)
+                : slotRepository.findOpenSlotRowsByProvider(providerId, from, to);
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new Entry((UUID) row[0], (UUID) row[1], (UUID) row[2], (String) row[3],
+                    (LocalDateTime) row[4], (LocalDateTime) row[5], (AppointmentType) row[6],
+                    (BigDecimal) row[7], (String) row[8], (Integer) row[9]));
+        }
+        return entries;
+    }
+
+    private List<Entry> loadVirtual(UUID providerId, LocalDateTime from, LocalDateTime to) {
+        LocalDate fromDate = from.toLocalDate().minusDays(1);
+        LocalDate toDate = to.toLocalDate().plusDays(1);
+        List<ProviderAvailability> availabilities = providerId == null
+                ? availabilityRepository.findActiveByDateRange(fromDate, toDate)
+                : availabilityRepository.findByProviderIdsAndDateRange(List.of(providerId), fromDate, toDate);
+
+        List<Entry> entries = new ArrayList<>();
+        for (AppointmentSlot slot : virtualSlotService.deriveOpenSlots(availabilities, from, to)) {
+            if (slot.getStartDateTime().isBefore(to)) {
+                entries.add(new Entry(slot.getId(), slot.getProviderAvailability().getId(), slot.getProvider().getId(),
+                        slot.getProvider().getSpecialization(), slot.getStartDateTime(), slot.getEndDateTime(),
+                        slot.getAppointmentType(), slot.getPrice(), slot.getLocation(), slot.getLocalStartMinute()));
+            }
+        }
+        return entries;
+    }
+
+    private long priceBucket(BigDecimal price) {
+        return price == null ? NO_PRICE_BUCKET : price.divide(priceBucketWidth, 0, RoundingMode.FLOOR).longValue();
+    }
+
+    /**
+     * Visit every future entry of the range matching the request, a day at a time in the range's order;
+     * stops after a day once done returns true. Caller holds the read lock.
+     */
+    private void forEachMatch(NavigableMap<LocalDate, Map<GroupKey, List<Entry>>> range, AvailabilitySearchRequest request,
+                              Consumer<Entry> sink, BooleanSupplier done) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDateTime = request.getStartDate().atStartOfDay();
+        LocalDateTime endDateTime = request.getEndDate().atTime(23, 59, 59);
+        String specialization = normalize(request.getSpecialization());
+        boolean priceFiltered = request.getMinPrice() != null || request.getMaxPrice() != null;
+        long minBucket = request.getMinPrice() != null ? priceBucket(request.getMinPrice()) : Long.MIN_VALUE + 1;
+        long maxBucket = request.getMaxPrice() != null ? priceBucket(request.getMaxPrice()) : Long.MAX_VALUE;
+        // Resolve the location substring once rather than lowercasing and scanning every entry's location
+        Set<String> locations = request.getLocation() != null
+                ? locationIndex.resolve(request.getLocation()).orElse(null)
+                : null;
+        Set<UUID> providerIds = request.getProviderIds() != null && !request.getProviderIds().isEmpty()
+                ? new HashSet<>(request.getProviderIds())
+                : null;
+        TimeOfDayWindow timeWindow = TimeOfDayWindow.of(request);
+
+        for (Map<GroupKey, List<Entry>> groups : range.values()) {
+            for (Map.Entry<GroupKey, List<Entry>> group : groups.entrySet()) {
+                if (!group.getKey().matches(specialization, request.getAppointmentType(), priceFiltered, minBucket, maxBucket)) {
+                    continue;
+                }
+                for (Entry entry : group.getValue()) {
+                    if (entry.startDateTime.isAfter(now) && !entry.startDateTime.isBefore(startDateTime)
+                            && !entry.startDateTime.isAfter(endDateTime) && entry.matches(request, providerIds, locations, timeWindow)) {
+                        sink.accept(entry);
+                    }
+                }
+            }
+            if (done.getAsBoolean()) {
+                return;
+            }
+        }
+    }
+
+    private static String normalize(String specialization) {
+        return specialization == null ? null : specialization.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reload of one provider's slots starting in [from, to), or removal of a single booked slot
+     */
+    private static final class Refresh {
+        private final UUID providerId;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final UUID bookedAvailabilityId;
+
+        Refresh(UUID providerId, LocalDateTime from, LocalDateTime to, UUID bookedAvailabilityId) {
+            this.providerId = providerId;
+            this.from = from;
+            this.to = to;
+            this.bookedAvailabilityId = bookedAvailabilityId;
+        }
+    }
+
+    private static final class GroupKey {
+        private final String specialization; // lower case
+        private final AppointmentType appointmentType;
+        private final long priceBucket;
+
+        GroupKey(String specialization, AppointmentType appointmentType, long priceBucket) {
+            this.specialization = specialization;
+            this.appointmentType = appointmentType;
+            this.priceBucket = priceBucket;
+        }
+
+        /**
+         * Whether slots of this group can satisfy the request's specialization, type and price filters
+         */
+        boolean matches(String wantedSpecialization, AppointmentType wantedType, boolean priceFiltered,
+                        long minBucket, long maxBucket) {
+            if (wantedSpecialization != null && !wantedSpecialization.equals(specialization)) {
+                return false;
+            }
+            if (wantedType != null && wantedType != appointmentType) {
+                return false;
+            }
+            // Slots without a price never match a price filter, as in the database query
+            return !priceFiltered || (priceBucket != NO_PRICE_BUCKET && priceBucket >= minBucket && priceBucket <= maxBucket);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GroupKey other)) return false;
+            return priceBucket == other.priceBucket
+                    && Objects.equals(specialization, other.specialization)
+                    && appointmentType == other.appointmentType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(specialization, appointmentType, priceBucket);
+        }
+    }
+
+    /**
+     * The searchable fields of one open slot
+     */
+    private static final class Entry {
+        private final UUID id;
+        private final UUID availabilityId;
+        private final UUID providerId;
+        private final String specialization;
+        private final LocalDateTime startDateTime;
+        private final LocalDateTime endDateTime;
+        private final AppointmentType appointmentType;
+        private final BigDecimal price;
+        private final String location;
+        private final Integer localStartMinute;
+
+        Entry(UUID id, UUID availabilityId, UUID providerId, String specialization, LocalDateTime startDateTime,
+              LocalDateTime endDateTime, AppointmentType appointmentType, BigDecimal price, String location,
+              Integer localStartMinute) {
+            this.id = id;
+            this.availabilityId = availabilityId;
+            this.providerId = providerId;
+            this.specialization = specialization;
+            this.startDateTime = startDateTime;
+            this.endDateTime = endDateTime;
+            this.appointmentType = appointmentType;
+            this.price = price;
+            this.location = location;
+            this.localStartMinute = localStartMinute;
+        }
+
+        /**
+         * Exact per-slot filters; group-level filters are already applied. Provider ids are the request's, null
+         * when unfiltered; locations, when not null, are those the location filter resolved to; the time window
+         * is the request's, null when unfiltered.
+         */
+        boolean matches(AvailabilitySearchRequest request, Set<UUID> providerIds, Set<String> locations,
+                        TimeOfDayWindow timeWindow) {
+            if (providerIds != null && !providerIds.contains(providerId)) {
+                return false;
+            }
+            if (request.getMinPrice() != null && price.compareTo(request.getMinPrice()) < 0) {
+                return false;
+            }
+            if (request.getMaxPrice() != null && price.compareTo(request.getMaxPrice()) > 0) {
+                return false;
+            }
+            if (timeWindow != null && !timeWindow.matches(startDateTime, localStartMinute)) {
+                return false;
+            }
+            if (request.getLocation() != null && location != null
+                    && !(locations != null
+                        ? locations.contains(location)
+                        : location.toLowerCase().contains(request.getLocation().toLowerCase()))) {
+                return false;
+            }
+            long durationMinutes = Duration.between(startDateTime, endDateTime).toMinutes();
+            if (request.getMinSlotDurationMinutes() != null && durationMinutes < request.getMinSlotDurationMinutes()) {
+                return false;
+            }
+            if (request.getMaxSlotDurationMinutes() != null && durationMinutes > request.getMaxSlotDurationMinutes()) {
+                return false;
+            }
+            return true;
+        }
+
+        AvailabilityResponse.AppointmentSlotData toSlotData() {
+            AvailabilityResponse.AppointmentSlotData data = new AvailabilityResponse.AppointmentSlotData(
+                    id, startDateTime, endDateTime, appointmentType, false, true);
+            data.setPrice(price);
+            data.setLocation(location);
+            data.setBookingConfirmed(false);
+            data.setProviderAvailabilityId(availabilityId);
+            data.setProviderId(providerId);
+            return data;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.healthfirst.service;
+
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verifies the {@code booked_count} counters on provider availability against the slot table.
+ *
+ * The counters are maintained by atomic increments on booking, so drift only comes from writes
+ * that bypass the booking path. Only current and future instances are checked since those are
+ * the ones the update/delete guards read. Each chunk is recounted in its own transaction.
+ */
+@Service
+public class BookedCountReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookedCountReconciliationService.class);
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.booked-count.reconcile-enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.booked-count.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /**
+     * Nightly verification run
+     */
+    @Scheduled(cron = "${app.availability.booked-count.reconcile-cron:0 15 3 * * *}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            reconcile(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Booked count reconciliation failed; it will be retried on the next run", e);
+        }
+    }
+
+    /**
+     * Recount every drifted instance dated on or after the given date, returning how many were corrected
+     */
+    public int reconcile(LocalDate fromDate) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int corrected = 0;
+        List<UUID> drifted;
+
+        do {
+            drifted = transactionTemplate.execute(status -> {
+                List<UUID> ids = availabilityRepository.findIdsWithDriftedBookedCount(fromDate, PageRequest.of(0, chunkSize));
+                if (!ids.isEmpty()) {
+                    logger.warn("Correcting booked count drift on {} availability instance(s): {}", ids.size(), ids);
+                    availabilityRepository.recountBookedSlots(ids);
+                }
+                return ids;
+            });
+            corrected += drifted.size();
+        } while (drifted.size() == chunkSize);
+
+        if (corrected > 0) {
+            logger.info("Booked count reconciliation corrected {} availability instance(s)", corrected);
+        } else {
+            logger.debug("Booked count reconciliation found no drift");
+        }
+        return corrected;
+    }
+}
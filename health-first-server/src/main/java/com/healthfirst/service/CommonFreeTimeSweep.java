@@ -0,0 +1,127 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.CommonFreeWindow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Finds the windows in which several providers are all free, from their open slots.
+ *
+ * Each provider's slots are sorted and merged into free intervals, touching slots joining into one. A sweep over
+ * the start and end points of every interval, ends before starts at the same instant, counts how many providers
+ * are free; a window runs from the point that count reaches every provider to the point it drops again. O(n log n)
+ * in the number of slots.
+ */
+public final class CommonFreeTimeSweep {
+
+    private CommonFreeTimeSweep() {
+    }
+
+    /**
+     * Feed every common window of at least minDuration to the sink, in time order. Slots of providers not listed
+     * are ignored; a provider without slots leaves no common windows.
+     */
+    public static void findWindows(Collection<UUID> providerIds, Collection<AvailabilityResponse.AppointmentSlotData> slots,
+                                   Duration minDuration, Consumer<CommonFreeWindow> sink) {
+        Map<UUID, List<AvailabilityResponse.AppointmentSlotData>> slotsByProvider = new LinkedHashMap<>();
+        providerIds.forEach(providerId -> slotsByProvider.put(providerId, new ArrayList<>()));
+        for (AvailabilityResponse.AppointmentSlotData slot : slots) {
+            List<AvailabilityResponse.AppointmentSlotData> own = slotsByProvider.get(slot.getProviderId());
+            if (own != null) {
+                own.add(slot);
+            }
+        }
+
+        List<Point> points = new ArrayList<>();
+        for (Map.Entry<UUID, List<AvailabilityResponse.AppointmentSlotData>> provider : slotsByProvider.entrySet()) {
+            if (provider.getValue().isEmpty()) {
+                return;
+            }
+            for (Interval interval : merge(provider.getKey(), provider.getValue())) {
+                points.add(new Point(interval.start, false, interval));
+                points.add(new Point(interval.end, true, interval));
+            }
+        }
+        points.sort(Comparator.comparing((Point point) -> point.time).thenComparing(point -> !point.end));
+
+        int providerCount = slotsByProvider.size();
+        Map<UUID, Interval> free = new HashMap<>();
+        LocalDateTime windowStart = null;
+        for (Point point : points) {
+            if (!point.end) {
+                free.put(point.interval.providerId, point.interval);
+                if (free.size() == providerCount) {
+                    windowStart = point.time;
+                }
+                continue;
+            }
+            if (free.size() == providerCount && !Duration.between(windowStart, point.time).minus(minDuration).isNegative()) {
+                sink.accept(toWindow(windowStart, point.time, slotsByProvider.keySet(), free));
+            }
+            free.remove(point.interval.providerId);
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private static List<Interval> merge(UUID providerId, List<AvailabilityResponse.AppointmentSlotData> slots) {
+        slots.sort(Comparator.comparing(AvailabilityResponse.AppointmentSlotData::getStartDateTime));
+        List<Interval> intervals = new ArrayList<>();
+        Interval current = null;
+        for (AvailabilityResponse.AppointmentSlotData slot : slots) {
+            if (current == null || slot.getStartDateTime().isAfter(current.end)) {
+                current = new Interval(providerId, slot.getStartDateTime());
+                intervals.add(current);
+            }
+            if (slot.getEndDateTime().isAfter(current.end)) {
+                current.end = slot.getEndDateTime();
+            }
+            current.slots.add(slot);
+        }
+        return intervals;
+    }
+
+    private static CommonFreeWindow toWindow(LocalDateTime start, LocalDateTime end, Collection<UUID> providerIds,
+                                             Map<UUID, Interval> free) {
+        Map<UUID, List<UUID>> slotIds = new LinkedHashMap<>();
+        for (UUID providerId : providerIds) {
+            List<UUID> overlapping = new ArrayList<>();
+            for (AvailabilityResponse.AppointmentSlotData slot : free.get(providerId).slots) {
+                if (slot.getStartDateTime().isBefore(end) && slot.getEndDateTime().isAfter(start)) {
+                    overlapping.add(slot.getId());
+                }
+            }
+            slotIds.put(providerId, overlapping);
+        }
+        return new CommonFreeWindow(start, end, slotIds);
+    }
+
+    private static final class Interval {
+        private final UUID providerId;
+        private final LocalDateTime start;
+        private LocalDateTime end;
+        private final List<AvailabilityResponse.AppointmentSlotData> slots = new ArrayList<>();
+
+        Interval(UUID providerId, LocalDateTime start) {
+            this.providerId = providerId;
+            this.start = start;
+            this.end = start;
+        }
+    }
+
+    private static final class Point {
+        private final LocalDateTime time;
+        private final boolean end;
+        private final Interval interval;
+
+        Point(LocalDateTime time, boolean end, Interval interval) {
+            this.time = time;
+            this.end = end;
+            this.interval = interval;
+        }
+    }
+}
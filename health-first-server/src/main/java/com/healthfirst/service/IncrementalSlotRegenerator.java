@@ -0,0 +1,160 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.repository.AppointmentSlotBatchWriter;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Brings the persisted slots of an availability in line with its current settings.
+ * The new slot grid is diffed against the existing rows by time range: matching rows are kept,
+ * changed rows are rewritten in place, rows outside the grid are deactivated and only the
+ * missing slots are inserted. Booked slots are never modified, and grid slots overlapping a
+ * booking are skipped.
+ */
+@Component
+public class IncrementalSlotRegenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalSlotRegenerator.class);
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentSlotGenerator slotGenerator;
+
+    @Autowired
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    /**
+     * Reconcile the availability's slots with its current grid and write only the differences
+     */
+    public SlotDiff regenerate(ProviderAvailability availability) {
+        List<AppointmentSlot> existing = slotRepository.findAllSlotsByProviderAvailabilityIds(List.of(availability.getId()));
+        SlotDiff diff = diff(existing, slotGenerator.generate(availability));
+
+        slotBatchWriter.deactivateAll(diff.getToDeactivate());
+        slotBatchWriter.updateAll(diff.getToUpdate());
+        slotBatchWriter.insertAll(diff.getToInsert());
+
+        logger.info("Regenerated slots for availability {}: {}", availability.getId(), diff);
+        return diff;
+    }
+
+    /**
+     * Compare existing slot rows (active or not) with the target grid
+     */
+    public SlotDiff diff(List<AppointmentSlot> existing, List<AppointmentSlot> target) {
+        List<AppointmentSlot> booked = new ArrayList<>();
+        Map<LocalDateTime, AppointmentSlot> unbookedByStart = new HashMap<>();
+        for (AppointmentSlot slot : existing) {
+            if (Boolean.TRUE.equals(slot.getIsBooked())) {
+                booked.add(slot);
+            } else {
+                unbookedByStart.put(slot.getStartDateTime(), slot);
+            }
+        }
+
+        SlotDiff diff = new SlotDiff(booked.size());
+        for (AppointmentSlot slot : target) {
+            if (overlapsAny(slot, booked)) {
+                continue;
+            }
+
+            // Rows are unique per start time, so a slot starting at the same time reuses that row
+            AppointmentSlot current = unbookedByStart.remove(slot.getStartDateTime());
+            if (current == null) {
+                diff.toInsert.add(slot);
+            } else if (Boolean.TRUE.equals(current.getIsActive()) && sameTerms(current, slot)) {
+                diff.kept++;
+            } else {
+                slot.setId(current.getId());
+                diff.toUpdate.add(slot);
+            }
+        }
+
+        for (AppointmentSlot leftover : unbookedByStart.values()) {
+            if (Boolean.TRUE.equals(leftover.getIsActive())) {
+                diff.toDeactivate.add(leftover.getId());
+            }
+        }
+        return diff;
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private boolean overlapsAny(AppointmentSlot slot, List<AppointmentSlot> booked) {
+        for (AppointmentSlot bookedSlot : booked) {
+            if (bookedSlot.getStartDateTime().isBefore(slot.getEndDateTime())
+                    && bookedSlot.getEndDateTime().isAfter(slot.getStartDateTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean sameTerms(AppointmentSlot current, AppointmentSlot slot) {
+        return current.getEndDateTime().equals(slot.getEndDateTime())
+                && current.getAppointmentType() == slot.getAppointmentType()
+                && samePrice(current.getPrice(), slot.getPrice())
+                && Objects.equals(current.getLocation(), slot.getLocation());
+    }
+
+    private boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Writes needed to move from the existing rows to the target grid
+     */
+    public static class SlotDiff {
+        private final List<AppointmentSlot> toInsert = new ArrayList<>();
+        private final List<AppointmentSlot> toUpdate = new ArrayList<>();
+        private final List<UUID> toDeactivate = new ArrayList<>();
+        private final int bookedUntouched;
+        private int kept;
+
+        SlotDiff(int bookedUntouched) {
+            this.bookedUntouched = bookedUntouched;
+        }
+
+        public List<AppointmentSlot> getToInsert() {
+            return toInsert;
+        }
+
+        public List<AppointmentSlot> getToUpdate() {
+            return toUpdate;
+        }
+
+        public List<UUID> getToDeactivate() {
+            return toDeactivate;
+        }
+
+        public int getKept() {
+            return kept;
+        }
+
+        public int getBookedUntouched() {
+            return bookedUntouched;
+        }
+
+        @Override
+        public String toString() {
+            return "SlotDiff{" +
+                    "inserted=" + toInsert.size() +
+                    ", updated=" + toUpdate.size() +
+                    ", deactivated=" + toDeactivate.size() +
+                    ", kept=" + kept +
+                    ", bookedUntouched=" + bookedUntouched +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
+import com.healthfirst.repository.ProviderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Bitmap index of which active providers accept which insurance plans.
+ *
+ * Plan names are normalized (case and spacing) and numbered, providers get small ordinals, and each plan keeps a
+ * bitmap of the ordinals of the providers accepting it. An insurance filter is then an OR over the wanted plans'
+ * bitmaps, ANDed with the bitmap of any other provider-level candidates, before any slot is read. Rebuilt on a
+ * schedule; a provider's own changes apply as they commit. Assumes a single application instance.
+ */
+@Component
+public class InsurancePlanIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsurancePlanIndex.class);
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Replaced wholesale on every change, so readers never lock; null until the first build completes
+    private volatile Snapshot snapshot;
+
+    /**
+     * Providers accepting at least one of the plans, limited to the candidates unless null
+     */
+    public Set<UUID> findAcceptingProviders(Collection<String> plans, Collection<UUID> candidates) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+            if (current == null) {
+                throw new IllegalStateException("Insurance plan index is unavailable");
+            }
+        }
+
+        BitSet accepting = new BitSet();
+        for (String plan : plans) {
+            Integer planId = current.planIds.get(normalize(plan));
+            if (planId != null) {
+                accepting.or(current.planProviders.get(planId));
+            }
+        }
+        if (candidates != null && !accepting.isEmpty()) {
+            BitSet wanted = new BitSet();
+            for (UUID candidate : candidates) {
+                Integer ordinal = current.ordinals.get(candidate);
+                if (ordinal != null) {
+                    wanted.set(ordinal);
+                }
+            }
+            accepting.and(wanted);
+        }
+
+        Set<UUID> providers = new LinkedHashSet<>();
+        for (int ordinal = accepting.nextSetBit(0); ordinal >= 0; ordinal = accepting.nextSetBit(ordinal + 1)) {
+            providers.add(current.providers.get(ordinal));
+        }
+        return providers;
+    }
+
+    public int getPlanCount() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.planIds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.availability.insurance-index.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.availability.insurance-index.initial-delay-ms:0}")
+    public synchronized void rebuild() {
+        try {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.setReadOnly(true);
+            List<Object[]> rows = template.execute(status -> providerRepository.findActiveInsurancePlans());
+
+            Snapshot built = new Snapshot();
+            for (Object[] row : rows) {
+                built.accept((UUID) row[0], (String) row[1]);
+            }
+            snapshot = built;
+            logger.info("Insurance plan index rebuilt: {} plan(s), {} provider(s)",
+                    built.planIds.size(), built.providers.size());
+        } catch (Exception e) {
+            logger.error("Insurance plan index rebuild failed; keeping the previous index", e);
+        }
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE - 1) // ahead of the search cache, like the search index
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onInsuranceChanged(ProviderInsuranceChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+
+        Snapshot updated = current.copy();
+        Integer ordinal = updated.ordinals.get(event.getProviderId());
+        if (ordinal != null) {
+            for (BitSet providers : updated.planProviders) {
+                providers.clear(ordinal);
+            }
+        }
+        for (String plan : event.getPlans()) {
+            updated.accept(event.getProviderId(), plan);
+        }
+        snapshot = updated;
+    }
+
+    /**
+     * Lower case with runs of whitespace collapsed, so "Blue Cross" and " blue  cross" are one plan
+     */
+    public static String normalize(String plan) {
+        return plan == null ? "" : plan.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private static final class Snapshot {
+        private final Map<String, Integer> planIds = new HashMap<>();
+        private final List<BitSet> planProviders = new ArrayList<>();
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        private final List<UUID> providers = new ArrayList<>();
+
+        void accept(UUID providerId, String plan) {
+            String normalized = normalize(plan);
+            if (normalized.isEmpty()) {
+                return;
+            }
+            Integer ordinal = ordinals.get(providerId);
+            if (ordinal == null) {
+                ordinal = providers.size();
+                ordinals.put(providerId, ordinal);
+                providers.add(providerId);
+            }
+            Integer planId = planIds.get(normalized);
+            if (planId == null) {
+                planId = planProviders.size();
+                planIds.put(normalized, planId);
+                planProviders.add(new BitSet());
+            }
+            planProviders.get(planId).set(ordinal);
+        }
+
+        Snapshot copy() {
+            Snapshot copy = new Snapshot();
+            copy.planIds.putAll(planIds);
+            for (BitSet providers : planProviders) {
+                copy.planProviders.add((BitSet) providers.clone());
+            }
+            copy.ordinals.putAll(ordinals);
+            copy.providers.addAll(providers);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Trigram index over the distinct locations of current availability and open slots.
+ *
+ * The location filter is a case-insensitive substring match. Instead of testing every slot, the substring is
+ * resolved once against the few distinct location strings: the posting lists of its trigrams are intersected
+ * and the survivors verified, and searches then keep slots whose location is in that set. Substrings shorter
+ * than a trigram scan the distinct locations. The same structure serves location autocomplete.
+ *
+ * Locations are only ever added between rebuilds, so a resolved set may name a location that no longer has
+ * slots but never misses one that does. When picking up a change fails the index is dropped until the next
+ * rebuild, and location filters scan instead. Assumes a single application instance.
+ */
+@Component
+public class LocationTrigramIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationTrigramIndex.class);
+
+    private static final int GRAM = 3;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.location-index.enabled:true}")
+    private boolean enabled = true;
+
+    // Replaced wholesale on every change, so readers never lock; null until the first build completes
+    private volatile Snapshot snapshot;
+
+    /**
+     * Every indexed location containing the text, ignoring case; empty when the index is not built
+     */
+    public Optional<Set<String>> resolve(String text) {
+        Snapshot current = snapshot;
+        if (!enabled || current == null) {
+            return Optional.empty();
+        }
+
+        Set<String> matches = new HashSet<>();
+        current.forEachMatch(normalize(text), id -> matches.add(current.locations[id]));
+        return Optional.of(matches);
+    }
+
+    /**
+     * Up to limit indexed locations containing the text, those starting with it first
+     */
+    public List<String> suggest(String text, int limit) {
+        Snapshot current = snapshot;
+        if (!enabled || current == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        String needle = normalize(text);
+        List<Integer> ids = new ArrayList<>();
+        current.forEachMatch(needle, ids::add);
+        ids.sort(Comparator.<Integer>comparingInt(id -> current.lowerCase[id].startsWith(needle) ? 0 : 1)
+                .thenComparingInt(id -> current.locations[id].length())
+                .thenComparing(id -> current.locations[id]));
+
+        List<String> suggestions = new ArrayList<>(Math.min(limit, ids.size()));
+        for (int i = 0; i < ids.size() && i < limit; i++) {
+            suggestions.add(current.locations[ids.get(i)]);
+        }
+        return suggestions;
+    }
+
+    public boolean isWarm() {
+        return snapshot != null;
+    }
+
+    public int getLocationCount() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.locations.length;
+    }
+
+    @Scheduled(fixedDelayString = "${app.availability.location-index.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.availability.location-index.initial-delay-ms:0}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            LocalDate fromDate = LocalDate.now().minusDays(1);
+            Set<String> locations = new HashSet<>(readOnly().execute(status -> {
+                List<String> loaded = new ArrayList<>(availabilityRepository.findDistinctActiveLocations(fromDate));
+                loaded.addAll(slotRepository.findDistinctOpenSlotLocations(fromDate.atStartOfDay()));
+                return loaded;
+            }));
+            snapshot = new Snapshot(locations);
+            logger.info("Location index rebuilt: {} distinct location(s)", locations.size());
+        } catch (Exception e) {
+            logger.error("Location index rebuild failed; keeping the previous index", e);
+        }
+    }
+
+    /**
+     * Pick up locations the provider's changed availability introduced
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE - 1) // ahead of the search cache, like the search index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (!enabled || snapshot == null) {
+            return;
+        }
+
+        // Read without holding the monitor; runs after the change committed, so a failure must not reach the caller
+        List<String> providerLocations;
+        try {
+            LocalDate fromDate = LocalDate.now().minusDays(1);
+            providerLocations = readOnly().execute(status ->
+                    availabilityRepository.findDistinctActiveLocationsByProviderId(event.getProviderId(), fromDate));
+        } catch (Exception e) {
+            logger.warn("Failed to pick up locations of provider: {}, location filters scan until the next rebuild",
+                    event.getProviderId(), e);
+            synchronized (this) {
+                snapshot = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            Set<String> known = new HashSet<>(Arrays.asList(current.locations));
+            if (known.containsAll(providerLocations)) {
+                return;
+            }
+            known.addAll(providerLocations);
+            snapshot = new Snapshot(known);
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        private final String[] locations;
+        private final String[] lowerCase;
+        private final Map<String, BitSet> postings = new HashMap<>();
+
+        Snapshot(Collection<String> distinct) {
+            locations = distinct.toArray(new String[0]);
+            Arrays.sort(locations);
+            lowerCase = new String[locations.length];
+            for (int id = 0; id < locations.length; id++) {
+                lowerCase[id] = normalize(locations[id]);
+                for (int i = 0; i + GRAM <= lowerCase[id].length(); i++) {
+                    postings.computeIfAbsent(lowerCase[id].substring(i, i + GRAM), gram -> new BitSet()).set(id);
+                }
+            }
+        }
+
+        void forEachMatch(String needle, IntConsumer sink) {
+            if (needle.length() < GRAM) {
+                for (int id = 0; id < lowerCase.length; id++) {
+                    if (lowerCase[id].contains(needle)) {
+                        sink.accept(id);
+                    }
+                }
+                return;
+            }
+
+            // Every trigram of the needle must occur; the intersection still needs the full check
+            BitSet candidates = null;
+            for (int i = 0; i + GRAM <= needle.length(); i++) {
+                BitSet posting = postings.get(needle.substring(i, i + GRAM));
+                if (posting == null) {
+                    return;
+                }
+                if (candidates == null) {
+                    candidates = (BitSet) posting.clone();
+                } else {
+                    candidates.and(posting);
+                }
+                if (candidates.isEmpty()) {
+                    return;
+                }
+            }
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (lowerCase[id].contains(needle)) {
+                    sink.accept(id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchCursor;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.repository.AppointmentSlotSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Open slot search for an explicit list of providers as one query per provider, merged.
+ *
+ * A single query with a provider IN-list has to collect every matching row of every provider and sort
+ * them before the limit applies. Per provider, the same query is a range scan of idx_provider_start_time
+ * that stops at the limit. The queries run concurrently on the bounded search pool, each in its own short
+ * read-only transaction, and their already ordered results are k-way merged until the limit is reached.
+ * Callers must not hold a transaction while searching, or every search would pin one connection more than
+ * its queries need. When the pool rejects a query it runs on the calling thread instead, one after another.
+ * Each transaction times out with the search, which also cancels its statement; cancelling the future alone
+ * would leave the query running.
+ */
+@Component
+public class MultiProviderSlotSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiProviderSlotSearch.class);
+
+    @Autowired
+    private AppointmentSlotSearchRepository slotSearchRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("availabilitySearchExecutor")
+    private TaskExecutor searchExecutor;
+
+    @Value("${app.availability.search-merge.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.search-merge.max-providers:64}")
+    private int maxProviders = 64;
+
+    @Value("${app.availability.search-merge.timeout-ms:10000}")
+    private long timeoutMs = 10000;
+
+    /**
+     * Whether the request names enough providers for a merge to beat the single query, and not so many
+     * that it would flood the pool
+     */
+    public boolean supports(AvailabilitySearchRequest request) {
+        if (!enabled || request.getProviderIds() == null) {
+            return false;
+        }
+        int providers = new HashSet<>(request.getProviderIds()).size();
+        return providers > 1 && providers <= maxProviders;
+    }
+
+    /**
+     * Up to limit open slots of the request's providers in result order, strictly after the cursor when one is given
+     */
+    public List<AvailabilityResponse.AppointmentSlotData> search(AvailabilitySearchRequest request,
+                                                                 LocalDateTime startDateTime,
+                                                                 LocalDateTime endDateTime,
+                                                                 AvailabilitySearchCursor cursor,
+                                                                 int limit) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+
+        List<CompletableFuture<List<AvailabilityResponse.AppointmentSlotData>>> queries = new ArrayList<>();
+        for (UUID providerId : new LinkedHashSet<>(request.getProviderIds())) {
+            Supplier<List<AvailabilityResponse.AppointmentSlotData>> query = () -> readOnly.execute(status ->
+                    slotSearchRepository.searchOpenSlotsForProvider(providerId, request, startDateTime, endDateTime,
+                            cursor, limit));
+            queries.add(submit(query));
+        }
+
+        List<List<AvailabilityResponse.AppointmentSlotData>> streams = new ArrayList<>(queries.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            for (CompletableFuture<List<AvailabilityResponse.AppointmentSlotData>> query : queries) {
+                streams.add(query.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queries.forEach(query -> query.cancel(true));
+            throw new IllegalStateException("Interrupted while searching provider slots", e);
+        } catch (TimeoutException e) {
+            queries.forEach(query -> query.cancel(true));
+            logger.warn("Provider slot queries for {} providers did not finish within {} ms", queries.size(), timeoutMs);
+            throw new IllegalStateException("Timed out searching provider slots", e);
+        } catch (ExecutionException e) {
+            queries.forEach(query -> query.cancel(true));
+            throw new IllegalStateException("Failed to search provider slots", e.getCause());
+        }
+
+        return merge(streams, AvailabilitySearchCursor.order(request, AvailabilityResponse.AppointmentSlotData::getPrice,
+                AvailabilityResponse.AppointmentSlotData::getStartDateTime, AvailabilityResponse.AppointmentSlotData::getId), limit);
+    }
+
+    /**
+     * Run the query on the search pool, or on this thread when the pool is saturated
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, searchExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Search pool saturated, running provider query on the request thread");
+            CompletableFuture<T> inline = new CompletableFuture<>();
+            try {
+                inline.complete(query.get());
+            } catch (RuntimeException failure) {
+                inline.completeExceptionally(failure);
+            }
+            return inline;
+        }
+    }
+
+    /**
+     * K-way merge of lists each already in the given order, stopping after limit items
+     */
+    static <T> List<T> merge(List<List<T>> streams, Comparator<T> order, int limit) {
+        // Each head is {stream, position}, ordered by the item it points at
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, streams.size()),
+                (a, b) -> order.compare(streams.get(a[0]).get(a[1]), streams.get(b[0]).get(b[1])));
+        for (int i = 0; i < streams.size(); i++) {
+            if (!streams.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+
+        List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> stream = streams.get(head[0]);
+            merged.add(stream.get(head[1]));
+            if (++head[1] < stream.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+}
@@ -6,19 +6,39 @@ import com.healthfirst.entity.Provider;
 import com.healthfirst.entity.ProviderAvailability;
 import com.healthfirst.enums.AppointmentType;
 import com.healthfirst.enums.RecurrencePattern;
+import com.healthfirst.enums.RecurrenceScope;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.AppointmentSlotBatchWriter;
 import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.AppointmentSlotSearchRepository;
 import com.healthfirst.repository.ProviderAvailabilityRepository;
 import com.healthfirst.repository.ProviderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -32,9 +52,96 @@ public class ProviderAvailabilityService {
     @Autowired
     private AppointmentSlotRepository slotRepository;
 
+    @Autowired
+    private AppointmentSlotSearchRepository slotSearchRepository;
+
+    @Autowired
+    private MultiProviderSlotSearch multiProviderSearch;
+
     @Autowired
     private ProviderRepository providerRepository;
 
+    @Autowired
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @Autowired
+    private AppointmentSlotGenerator slotGenerator;
+
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Autowired
+    private SlotMaterializationService slotMaterializationService;
+
+    @Autowired
+    private IncrementalSlotRegenerator slotRegenerator;
+
+    @Autowired
+    private ProviderOccupancyTimeline occupancyTimeline;
+
+    @Autowired
+    private RecurringOverlapValidator overlapValidator;
+
+    @Autowired
+    private AvailabilitySearchIndex searchIndex;
+
+    @Autowired
+    private AvailabilitySearchCache searchCache;
+
+    @Autowired
+    private LocationTrigramIndex locationIndex;
+
+    @Autowired
+    private ProviderGeoIndex geoIndex;
+
+    @Autowired
+    private InsurancePlanIndex insuranceIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.availability.facets.price-bucket-width:50}")
+    private BigDecimal facetPriceBucketWidth = BigDecimal.valueOf(50);
+
+    @Value("${app.availability.proximity.default-radius-km:25}")
+    private int defaultRadiusKm = 25;
+
+    @Value("${app.availability.proximity.max-radius-km:500}")
+    private int maxRadiusKm = 500;
+
+    @Value("${app.availability.next-available.max-providers:200}")
+    private int maxNextAvailableProviders = 200;
+
+    @Value("${app.availability.next-available.virtual-horizon-days:180}")
+    private int nextAvailableHorizonDays = 180;
+
+    @Value("${app.availability.next-available.virtual-scan-days:14}")
+    private int nextAvailableScanDays = 14;
+
+    @Value("${app.availability.export.max-days:366}")
+    private int maxExportDays = 366;
+
+    @Value("${app.availability.export.max-concurrent:2}")
+    private int maxConcurrentExports = 2;
+
+    // Each running export holds a pooled connection until its download completes
+    private final AtomicInteger runningExports = new AtomicInteger();
+
+    @Value("${app.availability.export.fetch-size:500}")
+    private int exportFetchSize = 500;
+
+    @Value("${app.availability.common-free-time.max-providers:10}")
+    private int maxCommonFreeTimeProviders = 10;
+
+    @Value("${app.availability.common-free-time.max-days:31}")
+    private int maxCommonFreeTimeDays = 31;
+
     /**
      * Create availability slots for a provider
      */
@@ -52,26 +159,31 @@ public class ProviderAvailabilityService {
                 return AvailabilityResponse.error("Validation failed: " + String.join(", ", validationErrors), "VALIDATION_ERROR");
             }
 
-            // Check for overlapping availability
-            if (hasOverlappingAvailability(providerId, request.getAvailabilityDate(), request.getStartTime(), request.getEndTime())) {
-                logger.warn("Overlapping availability detected for provider: {} on date: {}", providerId, request.getAvailabilityDate());
-                return AvailabilityResponse.error("Overlapping availability slots are not allowed", "OVERLAP_ERROR");
+            // Check every date of the request for overlapping availability
+            Optional<AvailabilityResponse> overlap = checkOverlappingAvailability(providerId, request);
+            if (overlap.isPresent()) {
+                logger.warn("Overlapping availability detected for provider: {} on date(s): {}", providerId, overlap.get().getConflictingDates());
+                return overlap.get();
             }
 
             // Create availability instances based on recurrence
             List<ProviderAvailability> availabilities = createAvailabilityInstances(provider, request);
 
-            // Save all availability instances
+            // Only instances inside the booking window get slots now; the nightly materializer writes the rest
+            List<ProviderAvailability> toMaterialize = selectInstancesToMaterialize(availabilities);
+
+            // Save all availability instances; flush so the batch slot insert can reference them
             List<ProviderAvailability> savedAvailabilities = availabilityRepository.saveAll(availabilities);
+            availabilityRepository.flush();
+            publishChange(providerId, availabilities.stream().map(ProviderAvailability::getAvailabilityDate).collect(Collectors.toList()));
 
-            // Generate appointment slots for each availability
-            for (ProviderAvailability availability : savedAvailabilities) {
-                generateAppointmentSlots(availability);
-            }
+            // Generate appointment slots for the windowed instances in one batched pass
+            int slotCount = toMaterialize.isEmpty() ? 0 : generateAppointmentSlots(toMaterialize);
 
             // Return response with first availability instance
             AvailabilityResponse.AvailabilityData responseData = convertToAvailabilityData(savedAvailabilities.get(0));
-            logger.info("Successfully created {} availability instance(s) for provider: {}", savedAvailabilities.size(), providerId);
+            logger.info("Successfully created {} availability instance(s) with {} slot(s) for provider: {}",
+                    savedAvailabilities.size(), slotCount, providerId);
             
             return AvailabilityResponse.success("Availability created successfully", responseData);
 
@@ -81,6 +193,55 @@ public class ProviderAvailabilityService {
         }
     }
 
+    /**
+     * Run the create-time checks (provider, business rules, overlap) without persisting anything.
+     * Returns the error response if the request would be rejected.
+     */
+    @Transactional(readOnly = true)
+    public Optional<AvailabilityResponse> precheckCreate(UUID providerId, CreateAvailabilityRequest request) {
+        Optional<Provider> provider = providerRepository.findById(providerId);
+        if (provider.isEmpty()) {
+            return Optional.of(AvailabilityResponse.error("Provider not found: " + providerId, "PROVIDER_NOT_FOUND"));
+        }
+        if (!provider.get().getIsActive()) {
+            return Optional.of(AvailabilityResponse.error("Provider is not active: " + providerId, "INVALID_REQUEST"));
+        }
+
+        List<String> validationErrors = validateCreateRequest(request, providerId);
+        if (!validationErrors.isEmpty()) {
+            return Optional.of(AvailabilityResponse.error("Validation failed: " + String.join(", ", validationErrors), "VALIDATION_ERROR"));
+        }
+
+        return checkOverlappingAvailability(providerId, request);
+    }
+
+    /**
+     * All dates the request's recurrence expands to (just the availability date when not recurring)
+     */
+    public List<LocalDate> expandRecurrenceDates(CreateAvailabilityRequest request) {
+        if (request.getRecurrencePattern() == RecurrencePattern.NONE) {
+            return List.of(request.getAvailabilityDate());
+        }
+        return generateRecurrenceDates(request);
+    }
+
+    /**
+     * Persist the request's instances on the given dates and write slots for those inside the booking window.
+     * Returns the number of slots written.
+     */
+    public int createInstancesOnDates(Provider provider, CreateAvailabilityRequest request, List<LocalDate> dates, UUID seriesId) {
+        List<ProviderAvailability> availabilities = dates.stream()
+                .map(date -> createAvailabilityInstance(provider, request, date, seriesId))
+                .collect(Collectors.toList());
+        List<ProviderAvailability> toMaterialize = selectInstancesToMaterialize(availabilities);
+
+        availabilityRepository.saveAll(availabilities);
+        availabilityRepository.flush();
+        publishChange(provider.getId(), dates);
+
+        return toMaterialize.isEmpty() ? 0 : generateAppointmentSlots(toMaterialize);
+    }
+
     /**
      * Get provider availability within date range
      */
@@ -96,6 +257,13 @@ public class ProviderAvailabilityService {
             List<ProviderAvailability> availabilities = availabilityRepository
                     .findByProviderIdAndDateRangeAndIsActive(providerId, startDate, endDate);
 
+            if (Boolean.TRUE.equals(includeSlots) && virtualSlotService.isVirtualMode()) {
+                Map<UUID, List<AppointmentSlot>> derivedSlots = virtualSlotService.deriveSlots(availabilities);
+                return availabilities.stream()
+                        .map(availability -> convertToAvailabilityData(availability, derivedSlots.get(availability.getId())))
+                        .collect(Collectors.toList());
+            }
+
             return availabilities.stream()
                     .map(availability -> convertToAvailabilityData(availability, includeSlots))
                     .collect(Collectors.toList());
@@ -121,9 +289,19 @@ public class ProviderAvailabilityService {
                 throw new IllegalArgumentException("Availability does not belong to provider: " + providerId);
             }
 
-            // Check if there are booked slots that would be affected
-            if (hasBookedSlots(availabilityId) && (request.getStartTime() != null || request.getEndTime() != null || request.getSlotDurationMinutes() != null)) {
-                return AvailabilityResponse.error("Cannot modify time settings when there are booked appointments", "BOOKED_SLOTS_ERROR");
+            // Series updates run as bulk statements over every instance in scope
+            RecurrenceScope scope = request.resolveRecurrenceScope();
+            if (scope != RecurrenceScope.THIS && availability.getRecurrenceSeriesId() != null) {
+                List<String> validationErrors = validateUpdateRequest(request, availability);
+                if (request.getAvailabilityDate() != null) {
+                    // The bulk statements keep every instance on its own date
+                    validationErrors.add("Availability date can only be changed for a single instance");
+                }
+                if (!validationErrors.isEmpty()) {
+                    logger.warn("Validation errors for update availability series: {}", validationErrors);
+                    return AvailabilityResponse.error("Validation failed: " + String.join(", ", validationErrors), "VALIDATION_ERROR");
+                }
+                return updateSeries(availability, request, scope);
             }
 
             // Validate business rules for update
@@ -134,13 +312,15 @@ public class ProviderAvailabilityService {
             }
 
             // Apply updates
+            LocalDate previousDate = availability.getAvailabilityDate();
             updateAvailabilityEntity(availability, request);
 
             // Save the updated availability
             ProviderAvailability savedAvailability = availabilityRepository.save(availability);
+            publishChange(providerId, List.of(previousDate, savedAvailability.getAvailabilityDate()));
 
-            // Regenerate slots if requested and no conflicts
-            if (Boolean.TRUE.equals(request.getRegenerateSlots()) && !hasBookedSlots(availabilityId)) {
+            // Regenerate slots when requested or when the time settings changed; booked slots are kept
+            if (Boolean.TRUE.equals(request.getRegenerateSlots()) || request.hasTimeChanges()) {
                 regenerateAppointmentSlots(savedAvailability);
             }
 
@@ -162,6 +342,13 @@ public class ProviderAvailabilityService {
      * Delete availability and associated slots
      */
     public AvailabilityResponse deleteAvailability(UUID providerId, UUID availabilityId, boolean deleteRecurring, String reason) {
+        return deleteAvailability(providerId, availabilityId, deleteRecurring ? RecurrenceScope.ALL : RecurrenceScope.THIS, reason);
+    }
+
+    /**
+     * Delete availability and associated slots for the given part of its recurrence series
+     */
+    public AvailabilityResponse deleteAvailability(UUID providerId, UUID availabilityId, RecurrenceScope scope, String reason) {
         try {
             logger.info("Deleting availability: {} for provider: {}", availabilityId, providerId);
 
@@ -173,19 +360,24 @@ public class ProviderAvailabilityService {
                 throw new IllegalArgumentException("Availability does not belong to provider: " + providerId);
             }
 
+            // Delete the series instances in scope; instances holding bookings are kept
+            if (scope != RecurrenceScope.THIS && availability.getRecurrenceSeriesId() != null) {
+                return deleteSeries(availability, scope);
+            }
+
             // Check if there are booked slots
-            if (hasBookedSlots(availabilityId)) {
+            if (availability.hasBookedSlots()) {
                 return AvailabilityResponse.error("Cannot delete availability with booked appointments", "BOOKED_SLOTS_ERROR");
             }
 
-            // Delete recurring instances if requested
-            if (deleteRecurring && availability.isRecurring()) {
-                deleteRecurringAvailability(availability);
-            } else {
-                // Delete just this instance
-                deleteAvailabilityInstance(availability);
+            // Delete just this instance
+            if (!deleteAvailabilityInstance(availability)) {
+                // A slot was booked between the check and the delete
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return AvailabilityResponse.error("Cannot delete availability with booked appointments", "BOOKED_SLOTS_ERROR");
             }
 
+            publishChange(providerId, List.of(availability.getAvailabilityDate()));
             logger.info("Successfully deleted availability: {}", availabilityId);
             return AvailabilityResponse.success("Availability deleted successfully", null);
 
@@ -199,9 +391,12 @@ public class ProviderAvailabilityService {
     }
 
     /**
-     * Search available slots for patients
+     * Search available slots for patients, one keyset page at a time. Runs outside a transaction so a
+     * multi-provider search holds no connection while its per-provider queries run; every other read opens
+     * its own.
      */
-    public List<AvailabilityResponse.AppointmentSlotData> searchAvailableSlots(AvailabilitySearchRequest searchRequest) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AvailabilitySearchResult searchAvailableSlots(AvailabilitySearchRequest searchRequest) {
         try {
             logger.info("Searching available slots with criteria: {}", searchRequest);
 
@@ -209,50 +404,462 @@ public class ProviderAvailabilityService {
             if (!searchRequest.isValidDateRange()) {
                 throw new IllegalArgumentException("Invalid date range");
             }
-
-            // Convert dates to UTC datetime range
-            LocalDateTime startDateTime = searchRequest.getStartDate().atStartOfDay();
-            LocalDateTime endDateTime = searchRequest.getEndDate().atTime(23, 59, 59);
-
-            List<AppointmentSlot> availableSlots = new ArrayList<>();
-
-            // Search by different criteria
-            if (searchRequest.getProviderIds() != null && !searchRequest.getProviderIds().isEmpty()) {
-                // Search specific providers
-                availableSlots = slotRepository.findAvailableSlotsByProvidersAndTimeRange(
-                        searchRequest.getProviderIds(), startDateTime, endDateTime);
-            } else if (searchRequest.getAppointmentType() != null) {
-                // Search by appointment type
-                availableSlots = slotRepository.findAvailableSlotsByTypeAndTimeRange(
-                        searchRequest.getAppointmentType(), startDateTime, endDateTime);
-            } else if (searchRequest.getMinPrice() != null && searchRequest.getMaxPrice() != null) {
-                // Search by price range
-                availableSlots = slotRepository.findAvailableSlotsByPriceRange(
-                        searchRequest.getMinPrice(), searchRequest.getMaxPrice(), startDateTime, endDateTime);
-            } else {
-                // General search - we'll implement this with provider filtering
-                availableSlots = searchByGeneralCriteria(searchRequest, startDateTime, endDateTime);
+            if (AvailabilitySearchCursor.isDistanceSort(searchRequest) && searchRequest.getProximityLocation() == null) {
+                throw new IllegalArgumentException("Sorting by distance requires a proximity location");
             }
+            AvailabilitySearchCursor cursor = AvailabilitySearchCursor.of(searchRequest);
 
-            // Apply additional filters
-            availableSlots = applySearchFilters(availableSlots, searchRequest);
-
-            // Sort and limit results
-            availableSlots = sortAndLimitResults(availableSlots, searchRequest);
+            // Repeated searches are answered from the result cache until a matching change commits
+            AvailabilitySearchResult cached = searchCache.get(searchRequest);
+            if (cached != null) {
+                return cached;
+            }
+            long cacheGeneration = searchCache.generation();
 
-            // Convert to response DTOs
-            return availableSlots.stream()
-                    .map(this::convertToSlotData)
-                    .collect(Collectors.toList());
+            AvailabilitySearchResult result = findAvailableSlots(searchRequest, cursor);
+            searchCache.put(searchRequest, cacheGeneration, result);
+            return result;
 
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error searching available slots", e);
             throw new RuntimeException("Failed to search available slots", e);
         }
     }
 
+    /**
+     * Facet counts over every slot the search matches, independent of its page, sort and cursor
+     */
+    public AvailabilitySearchFacets searchFacets(AvailabilitySearchRequest searchRequest) {
+        try {
+            if (!searchRequest.isValidDateRange()) {
+                throw new IllegalArgumentException("Invalid date range");
+            }
+
+            AvailabilitySearchFacets cached = searchCache.getFacets(searchRequest);
+            if (cached != null) {
+                return cached;
+            }
+            long cacheGeneration = searchCache.generation();
+
+            AvailabilitySearchFacets facets = new AvailabilitySearchFacets(facetPriceBucketWidth);
+            // Provider-level filters count the slots of the qualifying providers only
+            AvailabilitySearchRequest facetRequest = searchRequest;
+            if (hasProviderLevelFilters(searchRequest)) {
+                List<UUID> providers = findQualifyingProviders(searchRequest);
+                facetRequest = providers.isEmpty() ? null : forProviders(searchRequest, providers);
+            }
+            if (facetRequest != null && !searchIndex.collectFacets(facetRequest, facets)) {
+                LocalDateTime startDateTime = facetRequest.getStartDate().atStartOfDay();
+                LocalDateTime endDateTime = facetRequest.getEndDate().atTime(23, 59, 59);
+                if (virtualSlotService.isVirtualMode()) {
+                    scanVirtualSlots(facetRequest, startDateTime, endDateTime,
+                            startDateTime.toLocalDate().minusDays(1), endDateTime.toLocalDate().plusDays(1), true,
+                            slot -> facets.add(slot.getProvider().getSpecialization(), slot.getAppointmentType(),
+                                    slot.getLocation(), slot.getPrice(), 1),
+                            nextDate -> false);
+                } else {
+                    slotSearchRepository.aggregateFacets(facetRequest, startDateTime, endDateTime, facets);
+                }
+            }
+
+            searchCache.putFacets(searchRequest, cacheGeneration, facets);
+            return facets;
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error computing search facets", e);
+            throw new RuntimeException("Failed to compute search facets", e);
+        }
+    }
+
+    /**
+     * Earliest open slot of each of the providers, or of every active provider of the specialization when no
+     * ids are given. Every provider is a key, in the given (or directory) order, with null when it has no open
+     * slot. The search index answers for the providers it holds; the rest take one grouped query, or in virtual
+     * mode a scan of their availability windows. A specialization is looked up in chunks of the provider limit,
+     * however many providers it has.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, AvailabilityResponse.AppointmentSlotData> findNextAvailableSlots(List<UUID> providerIds,
+                                                                                    String specialization) {
+        List<UUID> providers;
+        if (providerIds != null && !providerIds.isEmpty()) {
+            providers = providerIds.stream().distinct().toList();
+            if (providers.size() > maxNextAvailableProviders) {
+                throw new IllegalArgumentException("At most " + maxNextAvailableProviders + " providers can be looked up at once");
+            }
+        } else if (specialization != null && !specialization.isBlank()) {
+            providers = providerRepository.findActiveIdsBySpecialization(specialization.trim());
+        } else {
+            throw new IllegalArgumentException("Provider ids or a specialization are required");
+        }
+
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> next = new LinkedHashMap<>();
+        providers.forEach(providerId -> next.put(providerId, null));
+        for (int from = 0; from < providers.size(); from += maxNextAvailableProviders) {
+            findNextAvailableChunk(providers.subList(from, Math.min(from + maxNextAvailableProviders, providers.size())), next);
+        }
+        return next;
+    }
+
+    /**
+     * Reject an export request before any of its response is written
+     */
+    public void validateExport(AvailabilitySearchRequest searchRequest) {
+        if (!searchRequest.isValidDateRange()) {
+            throw new IllegalArgumentException("Invalid date range");
+        }
+        if (ChronoUnit.DAYS.between(searchRequest.getStartDate(), searchRequest.getEndDate()) >= maxExportDays) {
+            throw new IllegalArgumentException("An export covers at most " + maxExportDays + " days");
+        }
+        // Rejects an inverted time range or an unknown timezone
+        TimeOfDayWindow.of(searchRequest);
+    }
+
+    /**
+     * Claim one of the concurrent export permits; false when the most exports allowed are already streaming.
+     * A claimed permit must be returned with {@link #finishExport()}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean tryStartExport() {
+        if (runningExports.incrementAndGet() > maxConcurrentExports) {
+            runningExports.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void finishExport() {
+        runningExports.decrementAndGet();
+    }
+
+    /**
+     * Feed every open slot the search matches to the sink by start time, ignoring its page size, sort and cursor,
+     * and return how many there were. Stored slots are scrolled from the database a fetch at a time; virtual ones
+     * are derived a day of windows at a time. Either way memory does not grow with the size of the export, but
+     * the export holds one pooled connection until the sink has taken the last slot, so a slow client keeps it
+     * checked out for the whole download.
+     */
+    @Transactional(readOnly = true)
+    public long exportAvailableSlots(AvailabilitySearchRequest searchRequest,
+                                     Consumer<AvailabilityResponse.AppointmentSlotData> sink) {
+        validateExport(searchRequest);
+        AvailabilitySearchRequest exportRequest = searchRequest.copy();
+        exportRequest.setSortBy("startTime");
+        exportRequest.setAscending(true);
+        exportRequest.setCursor(null);
+
+        Map<UUID, Double> distances = new HashMap<>();
+        if (hasProviderLevelFilters(exportRequest)) {
+            List<UUID> providers;
+            if (exportRequest.getProximityLocation() != null) {
+                List<ProviderGeoIndex.NearbyProvider> nearby = findNearbyProviders(exportRequest);
+                nearby.forEach(provider -> distances.put(provider.getProviderId(), provider.getDistanceKm()));
+                providers = nearby.stream().map(ProviderGeoIndex.NearbyProvider::getProviderId).toList();
+            } else {
+                providers = findQualifyingProviders(exportRequest);
+            }
+            if (providers.isEmpty()) {
+                return 0;
+            }
+            exportRequest = forProviders(exportRequest, providers);
+        }
+
+        long[] exported = {0};
+        Consumer<AvailabilityResponse.AppointmentSlotData> counted = slot -> {
+            if (!distances.isEmpty()) {
+                slot.setDistanceKm(distances.get(slot.getProviderId()));
+            }
+            sink.accept(slot);
+            exported[0]++;
+        };
+
+        LocalDateTime startDateTime = exportRequest.getStartDate().atStartOfDay();
+        LocalDateTime endDateTime = exportRequest.getEndDate().atTime(23, 59, 59);
+        if (virtualSlotService.isVirtualMode()) {
+            scanVirtualSlots(exportRequest, startDateTime, endDateTime,
+                    startDateTime.toLocalDate().minusDays(1), endDateTime.toLocalDate().plusDays(1), true,
+                    slot -> counted.accept(convertToSlotData(slot)),
+                    nextDate -> false);
+        } else {
+            slotSearchRepository.streamOpenSlots(exportRequest, startDateTime, endDateTime, exportFetchSize, counted);
+        }
+        return exported[0];
+    }
+
+    /**
+     * Windows of at least minDurationMinutes in which every one of the providers has open slots back to back,
+     * ranked soonest first ("earliest") or longest first ("longest"). Their open slots in the range are read in
+     * one query (one scan of their windows in virtual mode) and intersected by {@link CommonFreeTimeSweep}.
+     */
+    @Transactional(readOnly = true)
+    public List<CommonFreeWindow> findCommonFreeWindows(List<UUID> providerIds, LocalDate startDate, LocalDate endDate,
+                                                        int minDurationMinutes, String rankBy, int maxResults) {
+        List<UUID> providers = providerIds == null ? List.of() : providerIds.stream().distinct().toList();
+        if (providers.size() < 2 || providers.size() > maxCommonFreeTimeProviders) {
+            throw new IllegalArgumentException("Between 2 and " + maxCommonFreeTimeProviders + " providers are required");
+        }
+        if (startDate.isAfter(endDate) || ChronoUnit.DAYS.between(startDate, endDate) >= maxCommonFreeTimeDays) {
+            throw new IllegalArgumentException("Date range must run forward and cover at most " + maxCommonFreeTimeDays + " days");
+        }
+        if (minDurationMinutes < 1 || maxResults < 1) {
+            throw new IllegalArgumentException("Minimum duration and maximum results must be positive");
+        }
+        Comparator<CommonFreeWindow> soonest = Comparator.comparing(CommonFreeWindow::getStartDateTime);
+        Comparator<CommonFreeWindow> ranking = switch (rankBy == null ? "earliest" : rankBy) {
+            case "earliest" -> soonest;
+            case "longest" -> Comparator.comparingLong(CommonFreeWindow::getDurationMinutes).reversed().thenComparing(soonest);
+            default -> throw new IllegalArgumentException("Rank by must be earliest or longest");
+        };
+
+        AvailabilitySearchRequest request = new AvailabilitySearchRequest(startDate, endDate);
+        request.setProviderIds(new ArrayList<>(providers));
+        request.setSortBy("startTime");
+        request.setAscending(true);
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+
+        List<AvailabilityResponse.AppointmentSlotData> slots = new ArrayList<>();
+        if (virtualSlotService.isVirtualMode()) {
+            scanVirtualSlots(request, startDateTime, endDateTime, startDate.minusDays(1), endDate.plusDays(1), true,
+                    slot -> slots.add(convertToSlotData(slot)), nextDate -> false);
+        } else {
+            slotSearchRepository.streamOpenSlots(request, startDateTime, endDateTime, exportFetchSize, slots::add);
+        }
+
+        TopKCollector<CommonFreeWindow> ranked = new TopKCollector<>(maxResults, ranking);
+        CommonFreeTimeSweep.findWindows(providers, slots, Duration.ofMinutes(minDurationMinutes), ranked::offer);
+        return ranked.toList();
+    }
+
     // ========== PRIVATE HELPER METHODS ==========
 
+    private AvailabilitySearchResult findAvailableSlots(AvailabilitySearchRequest searchRequest, AvailabilitySearchCursor cursor) {
+        // One row beyond the page tells whether another page exists
+        int limit = searchRequest.getMaxResults() + 1;
+        List<AvailabilityResponse.AppointmentSlotData> rows;
+        if (searchRequest.getProximityLocation() != null) {
+            rows = findNearbySlotRows(searchRequest, cursor, limit);
+        } else if (hasProviderLevelFilters(searchRequest)) {
+            List<UUID> providers = findQualifyingProviders(searchRequest);
+            rows = providers.isEmpty() ? List.of() : findSlotRows(forProviders(searchRequest, providers), cursor, limit);
+        } else {
+            rows = findSlotRows(searchRequest, cursor, limit);
+        }
+        return AvailabilitySearchResult.fromRows(rows, searchRequest);
+    }
+
+    private boolean hasProviderLevelFilters(AvailabilitySearchRequest searchRequest) {
+        return searchRequest.getProximityLocation() != null
+                || (searchRequest.getAcceptedInsurance() != null && !searchRequest.getAcceptedInsurance().isEmpty());
+    }
+
+    /**
+     * Providers passing the request's provider-level filters: within its radius, accepting one of its insurance
+     * plans and among its named providers, as far as each is set
+     */
+    private List<UUID> findQualifyingProviders(AvailabilitySearchRequest searchRequest) {
+        if (searchRequest.getProximityLocation() != null) {
+            return findNearbyProviders(searchRequest).stream().map(ProviderGeoIndex.NearbyProvider::getProviderId).toList();
+        }
+        boolean named = searchRequest.getProviderIds() != null && !searchRequest.getProviderIds().isEmpty();
+        return new ArrayList<>(insuranceIndex.findAcceptingProviders(searchRequest.getAcceptedInsurance(),
+                named ? searchRequest.getProviderIds() : null));
+    }
+
+    /**
+     * Fill in the earliest open slot of each of a bounded chunk of providers
+     */
+    private void findNextAvailableChunk(List<UUID> providers, Map<UUID, AvailabilityResponse.AppointmentSlotData> next) {
+        Set<UUID> missing = new LinkedHashSet<>(providers);
+        searchIndex.findEarliest(providers).ifPresent(found -> {
+            next.putAll(found);
+            missing.removeAll(found.keySet());
+        });
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        if (virtualSlotService.isVirtualMode()) {
+            findNextVirtualSlots(missing, next);
+        } else {
+            // Ordered by id, so the first row of a provider breaks a tie at its earliest time
+            for (AvailabilityResponse.AppointmentSlotData slot : slotSearchRepository.findEarliestOpenSlots(missing)) {
+                next.putIfAbsent(slot.getProviderId(), slot);
+            }
+        }
+    }
+
+    /**
+     * Derive the earliest open slot of each provider from its availability windows, a few days of windows at a
+     * time. A window dated D starts no earlier than D-1 00:00 UTC, so a slot found before the next batch's first
+     * date minus one day cannot be beaten by a later batch.
+     */
+    private void findNextVirtualSlots(Set<UUID> providers, Map<UUID, AvailabilityResponse.AppointmentSlotData> next) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate lastDate = now.toLocalDate().plusDays(nextAvailableHorizonDays);
+        Comparator<AppointmentSlot> earlier = Comparator.comparing(AppointmentSlot::getStartDateTime)
+                .thenComparing(AppointmentSlot::getId, AvailabilitySearchCursor::compareIds);
+        Set<UUID> remaining = new HashSet<>(providers);
+        Map<UUID, AppointmentSlot> candidates = new HashMap<>();
+
+        LocalDate fromDate = now.toLocalDate().minusDays(1);
+        while (!remaining.isEmpty() && !fromDate.isAfter(lastDate)) {
+            LocalDate toDate = fromDate.plusDays(nextAvailableScanDays - 1L);
+            if (toDate.isAfter(lastDate)) {
+                toDate = lastDate;
+            }
+            List<ProviderAvailability> windows = availabilityRepository.findByProviderIdsAndDateRange(
+                    new ArrayList<>(remaining), fromDate, toDate);
+            for (AppointmentSlot slot : virtualSlotService.deriveOpenSlots(windows, now, toDate.plusDays(2).atStartOfDay())) {
+                if (slot.getStartDateTime().isAfter(now)) {
+                    candidates.merge(slot.getProvider().getId(), slot, BinaryOperator.minBy(earlier));
+                }
+            }
+
+            LocalDateTime settledBefore = toDate.atStartOfDay();
+            boolean last = !toDate.isBefore(lastDate);
+            for (Iterator<Map.Entry<UUID, AppointmentSlot>> iterator = candidates.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<UUID, AppointmentSlot> candidate = iterator.next();
+                if (last || candidate.getValue().getStartDateTime().isBefore(settledBefore)) {
+                    next.put(candidate.getKey(), convertToSlotData(candidate.getValue()));
+                    remaining.remove(candidate.getKey());
+                    iterator.remove();
+                }
+            }
+            fromDate = toDate.plusDays(1);
+        }
+    }
+
+    /**
+     * Restrict the search to the providers within its radius. A distance sort orders slots by their provider's
+     * distance, nearest first (farthest when descending), then by start time.
+     */
+    private List<AvailabilityResponse.AppointmentSlotData> findNearbySlotRows(AvailabilitySearchRequest searchRequest,
+                                                                            AvailabilitySearchCursor cursor, int limit) {
+        List<ProviderGeoIndex.NearbyProvider> nearby = findNearbyProviders(searchRequest);
+        if (nearby.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Double> distances = new HashMap<>();
+        nearby.forEach(provider -> distances.put(provider.getProviderId(), provider.getDistanceKm()));
+
+        List<AvailabilityResponse.AppointmentSlotData> rows = AvailabilitySearchCursor.isDistanceSort(searchRequest)
+                ? findSlotRowsByDistance(searchRequest, nearby, cursor, limit)
+                : findSlotRows(forProviders(searchRequest,
+                        nearby.stream().map(ProviderGeoIndex.NearbyProvider::getProviderId).toList()), cursor, limit);
+        rows.forEach(row -> row.setDistanceKm(distances.get(row.getProviderId())));
+        return rows;
+    }
+
+    /**
+     * One distance-ordered page over every nearby provider at once: a single pass of the search index, a single
+     * ranked query, or in virtual mode a single scan ranked in memory. Providers nearer (farther when descending)
+     * than the cursor were on earlier pages and are left out.
+     */
+    private List<AvailabilityResponse.AppointmentSlotData> findSlotRowsByDistance(AvailabilitySearchRequest searchRequest,
+                                                                                List<ProviderGeoIndex.NearbyProvider> nearby,
+                                                                                AvailabilitySearchCursor cursor, int limit) {
+        boolean ascending = Boolean.TRUE.equals(searchRequest.getAscending());
+        Map<UUID, Double> distances = new LinkedHashMap<>();
+        for (ProviderGeoIndex.NearbyProvider provider : nearby) {
+            int position = cursor == null ? 0 : Double.compare(provider.getDistanceKm(), cursor.getDistanceKm());
+            if (ascending ? position >= 0 : position <= 0) {
+                distances.put(provider.getProviderId(), provider.getDistanceKm());
+            }
+        }
+        if (distances.isEmpty()) {
+            return List.of();
+        }
+        AvailabilitySearchRequest narrowed = forProviders(searchRequest, distances.keySet());
+
+        Optional<List<AvailabilityResponse.AppointmentSlotData>> indexed = searchIndex.search(narrowed, distances, cursor, limit);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+
+        LocalDateTime startDateTime = narrowed.getStartDate().atStartOfDay();
+        LocalDateTime endDateTime = narrowed.getEndDate().atTime(23, 59, 59);
+        boolean virtualMode = virtualSlotService.isVirtualMode();
+        return readOnlyTransaction().execute(status -> virtualMode
+                ? searchVirtualSlots(narrowed, distances, cursor, startDateTime, endDateTime, limit)
+                : slotSearchRepository.searchOpenSlotsByDistance(narrowed, distances, startDateTime, endDateTime,
+                        cursor, limit));
+    }
+
+    /**
+     * Providers within the request's radius of its proximity location, nearest first, limited to the request's
+     * providers if it names any and to those accepting one of its insurance plans if it has any
+     */
+    private List<ProviderGeoIndex.NearbyProvider> findNearbyProviders(AvailabilitySearchRequest searchRequest) {
+        GeoPoint point = GeoPoint.parse(searchRequest.getProximityLocation());
+        int radiusKm = searchRequest.getMaxDistanceKm() != null ? searchRequest.getMaxDistanceKm() : defaultRadiusKm;
+        if (radiusKm < 1 || radiusKm > maxRadiusKm) {
+            throw new IllegalArgumentException("Maximum distance must be between 1 and " + maxRadiusKm + " km");
+        }
+
+        List<ProviderGeoIndex.NearbyProvider> nearby = geoIndex.findWithin(point, radiusKm);
+        if (searchRequest.getProviderIds() != null && !searchRequest.getProviderIds().isEmpty()) {
+            Set<UUID> named = new HashSet<>(searchRequest.getProviderIds());
+            nearby = nearby.stream().filter(provider -> named.contains(provider.getProviderId())).toList();
+        }
+        if (searchRequest.getAcceptedInsurance() != null && !searchRequest.getAcceptedInsurance().isEmpty()
+                && !nearby.isEmpty()) {
+            Set<UUID> accepting = insuranceIndex.findAcceptingProviders(searchRequest.getAcceptedInsurance(),
+                    nearby.stream().map(ProviderGeoIndex.NearbyProvider::getProviderId).toList());
+            nearby = nearby.stream().filter(provider -> accepting.contains(provider.getProviderId())).toList();
+        }
+        return nearby;
+    }
+
+    /**
+     * The request limited to the given providers, without the provider-level filters they were chosen by
+     */
+    private AvailabilitySearchRequest forProviders(AvailabilitySearchRequest searchRequest, Collection<UUID> providers) {
+        AvailabilitySearchRequest narrowed = searchRequest.copy();
+        narrowed.setProviderIds(new ArrayList<>(providers));
+        narrowed.setProximityLocation(null);
+        narrowed.setMaxDistanceKm(null);
+        narrowed.setAcceptedInsurance(null);
+        narrowed.setCursor(null);
+        return narrowed;
+    }
+
+    private List<AvailabilityResponse.AppointmentSlotData> findSlotRows(AvailabilitySearchRequest searchRequest,
+                                                                      AvailabilitySearchCursor cursor, int limit) {
+        // Answer from the in-memory index when it is warm and covers the range
+        Optional<List<AvailabilityResponse.AppointmentSlotData>> indexed = searchIndex.search(searchRequest, cursor, limit);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+
+        // Convert dates to UTC datetime range
+        LocalDateTime startDateTime = searchRequest.getStartDate().atStartOfDay();
+        LocalDateTime endDateTime = searchRequest.getEndDate().atTime(23, 59, 59);
+
+        boolean virtualMode = virtualSlotService.isVirtualMode();
+        if (!virtualMode && multiProviderSearch.supports(searchRequest)) {
+            // Several named providers: one indexed query each, merged, each in its own transaction
+            return multiProviderSearch.search(searchRequest, startDateTime, endDateTime, cursor, limit);
+        }
+
+        return readOnlyTransaction().execute(status -> virtualMode
+                // Derive open slots from the matching availability rules, keeping only the first page
+                ? searchVirtualSlots(searchRequest, null, cursor, startDateTime, endDateTime, limit)
+                // One query with every filter, the sort and the limit pushed down
+                : slotSearchRepository.searchOpenSlots(searchRequest, startDateTime, endDateTime, cursor, limit));
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
     private Provider validateProvider(UUID providerId) {
         Provider provider = providerRepository.findById(providerId)
                 .orElseThrow(() -> new IllegalArgumentException("Provider not found: " + providerId));
@@ -314,30 +921,70 @@ public class ProviderAvailabilityService {
             }
         }
 
+        // Booked slots stay on their day, so they would fall outside a moved window
+        if (request.getAvailabilityDate() != null && !request.getAvailabilityDate().equals(existing.getAvailabilityDate())
+                && existing.hasBookedSlots()) {
+            errors.add("Cannot move availability with booked appointments to another date");
+        }
+
         return errors;
     }
 
+    /**
+     * Overlap error listing every conflicting date; recurring requests are checked in one batch
+     */
+    private Optional<AvailabilityResponse> checkOverlappingAvailability(UUID providerId, CreateAvailabilityRequest request) {
+        List<LocalDate> conflicts;
+        if (request.getRecurrencePattern() == RecurrencePattern.NONE) {
+            conflicts = hasOverlappingAvailability(providerId, request.getAvailabilityDate(), request.getStartTime(), request.getEndTime())
+                    ? List.of(request.getAvailabilityDate())
+                    : Collections.emptyList();
+        } else {
+            conflicts = overlapValidator.findConflictingDates(
+                    providerId, expandRecurrenceDates(request), request.getStartTime(), request.getEndTime());
+        }
+
+        return conflicts.isEmpty() ? Optional.empty() : Optional.of(AvailabilityResponse.overlapError(conflicts));
+    }
+
     private boolean hasOverlappingAvailability(UUID providerId, LocalDate date, LocalTime startTime, LocalTime endTime) {
-        List<ProviderAvailability> overlapping = availabilityRepository.findOverlappingSlots(
-                providerId, date, startTime, endTime);
-        return !overlapping.isEmpty();
+        return occupancyTimeline.hasOverlap(providerId, date, startTime, endTime);
+    }
+
+    /**
+     * Let availability caches refresh the changed dates once the transaction commits
+     */
+    private void publishChange(UUID providerId, Collection<LocalDate> dates) {
+        eventPublisher.publishEvent(AvailabilityChangedEvent.forDates(providerId, dates));
     }
 
     private List<ProviderAvailability> createAvailabilityInstances(Provider provider, CreateAvailabilityRequest request) {
-        List<ProviderAvailability> availabilities = new ArrayList<>();
+        UUID seriesId = request.getRecurrencePattern() != RecurrencePattern.NONE ? UUID.randomUUID() : null;
+        return expandRecurrenceDates(request).stream()
+                .map(date -> createAvailabilityInstance(provider, request, date, seriesId))
+                .collect(Collectors.toList());
+    }
 
-        if (request.getRecurrencePattern() == RecurrencePattern.NONE) {
-            // Single instance
-            availabilities.add(createAvailabilityInstance(provider, request, request.getAvailabilityDate()));
-        } else {
-            // Generate recurring instances
-            availabilities.addAll(generateRecurringInstances(provider, request));
+    /**
+     * Flag the instances whose slots belong in the booking window (none in virtual mode)
+     */
+    private List<ProviderAvailability> selectInstancesToMaterialize(List<ProviderAvailability> availabilities) {
+        List<ProviderAvailability> toMaterialize = new ArrayList<>();
+        if (virtualSlotService.isVirtualMode()) {
+            return toMaterialize;
         }
 
-        return availabilities;
+        LocalDate today = LocalDate.now();
+        for (ProviderAvailability availability : availabilities) {
+            if (slotMaterializationService.isWithinHorizon(availability, today)) {
+                availability.setSlotsMaterialized(true);
+                toMaterialize.add(availability);
+            }
+        }
+        return toMaterialize;
     }
 
-    private ProviderAvailability createAvailabilityInstance(Provider provider, CreateAvailabilityRequest request, LocalDate date) {
+    private ProviderAvailability createAvailabilityInstance(Provider provider, CreateAvailabilityRequest request, LocalDate date, UUID seriesId) {
         ProviderAvailability availability = new ProviderAvailability(
                 provider, date, request.getStartTime(), request.getEndTime(),
                 request.getSlotDurationMinutes(), request.getAppointmentType(), request.getTimezone());
@@ -347,6 +994,7 @@ public class ProviderAvailabilityService {
         availability.setDescription(request.getDescription());
         availability.setRecurrencePattern(request.getRecurrencePattern());
         availability.setRecurrenceEndDate(request.getRecurrenceEndDate());
+        availability.setRecurrenceSeriesId(seriesId);
         availability.setMaxConsecutiveSlots(request.getMaxConsecutiveSlots());
         availability.setBufferTimeMinutes(request.getBufferTimeMinutes());
 
@@ -377,20 +1025,20 @@ public class ProviderAvailabilityService {
         return availability;
     }
 
-    private List<ProviderAvailability> generateRecurringInstances(Provider provider, CreateAvailabilityRequest request) {
-        List<ProviderAvailability> instances = new ArrayList<>();
+    private List<LocalDate> generateRecurrenceDates(CreateAvailabilityRequest request) {
+        List<LocalDate> dates = new ArrayList<>();
         LocalDate currentDate = request.getAvailabilityDate();
         LocalDate endDate = request.getRecurrenceEndDate() != null ? 
                 request.getRecurrenceEndDate() : currentDate.plusMonths(6); // Default 6 months
 
         while (!currentDate.isAfter(endDate)) {
             if (shouldCreateInstanceOnDate(currentDate, request)) {
-                instances.add(createAvailabilityInstance(provider, request, currentDate));
+                dates.add(currentDate);
             }
             currentDate = getNextRecurrenceDate(currentDate, request.getRecurrencePattern());
         }
 
-        return instances;
+        return dates;
     }
 
     private boolean shouldCreateInstanceOnDate(LocalDate date, CreateAvailabilityRequest request) {
@@ -414,44 +1062,17 @@ public class ProviderAvailabilityService {
         };
     }
 
-    private void generateAppointmentSlots(ProviderAvailability availability) {
-        List<AppointmentSlot> slots = new ArrayList<>();
-        
-        // Convert to provider's timezone for slot generation
-        ZoneId timezone = ZoneId.of(availability.getTimezone());
-        LocalDateTime startDateTime = LocalDateTime.of(availability.getAvailabilityDate(), availability.getStartTime());
-        LocalDateTime endDateTime = LocalDateTime.of(availability.getAvailabilityDate(), availability.getEndTime());
-        
-        // Convert to UTC for storage
-        ZonedDateTime startZoned = startDateTime.atZone(timezone);
-        ZonedDateTime endZoned = endDateTime.atZone(timezone);
-        LocalDateTime currentUtc = startZoned.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        LocalDateTime endUtc = endZoned.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-
-        while (currentUtc.plus(availability.getSlotDurationMinutes(), ChronoUnit.MINUTES).isBefore(endUtc) ||
-               currentUtc.plus(availability.getSlotDurationMinutes(), ChronoUnit.MINUTES).equals(endUtc)) {
-            
-            LocalDateTime slotEndUtc = currentUtc.plus(availability.getSlotDurationMinutes(), ChronoUnit.MINUTES);
-            
-            AppointmentSlot slot = new AppointmentSlot(
-                    availability, availability.getProvider(), currentUtc, slotEndUtc, availability.getAppointmentType());
-            
-            slot.setPrice(availability.getPrice());
-            slot.setLocation(availability.getLocation());
-            
-            slots.add(slot);
-            
-            // Move to next slot (plus buffer time)
-            currentUtc = slotEndUtc.plus(availability.getBufferTimeMinutes(), ChronoUnit.MINUTES);
-        }
-
-        slotRepository.saveAll(slots);
-        logger.info("Generated {} appointment slots for availability: {}", slots.size(), availability.getId());
-    }
-
-    private boolean hasBookedSlots(UUID availabilityId) {
-        List<AppointmentSlot> slots = slotRepository.findSlotsByProviderAvailability(availabilityId);
-        return slots.stream().anyMatch(AppointmentSlot::getIsBooked);
+    /**
+     * Stream the slots of every availability instance through the batch writer
+     */
+    private int generateAppointmentSlots(List<ProviderAvailability> availabilities) {
+        Iterator<AppointmentSlot> slots = availabilities.stream()
+                .flatMap(availability -> slotGenerator.generate(availability).stream())
+                .iterator();
+
+        int written = slotBatchWriter.insertAll(slots);
+        logger.info("Generated {} appointment slots for {} availability instance(s)", written, availabilities.size());
+        return written;
     }
 
     private void updateAvailabilityEntity(ProviderAvailability availability, UpdateAvailabilityRequest request) {
@@ -494,52 +1115,230 @@ public class ProviderAvailabilityService {
     }
 
     private void regenerateAppointmentSlots(ProviderAvailability availability) {
-        // Delete existing slots
-        List<AppointmentSlot> existingSlots = slotRepository.findSlotsByProviderAvailability(availability.getId());
-        slotRepository.deleteAll(existingSlots);
-        
-        // Generate new slots
-        generateAppointmentSlots(availability);
-    }
-
-    private void deleteRecurringAvailability(ProviderAvailability availability) {
-        // Implementation would find and delete all recurring instances
-        // For now, just delete this instance
-        deleteAvailabilityInstance(availability);
-    }
-
-    private void deleteAvailabilityInstance(ProviderAvailability availability) {
-        // Delete associated slots first
-        List<AppointmentSlot> slots = slotRepository.findSlotsByProviderAvailability(availability.getId());
-        slotRepository.deleteAll(slots);
-        
-        // Delete availability
-        availabilityRepository.delete(availability);
-    }
-
-    private List<AppointmentSlot> searchByGeneralCriteria(AvailabilitySearchRequest request, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        // Implementation for general search criteria
-        // This is a simplified version - in practice, you'd want more sophisticated filtering
-        return slotRepository.findAvailableSlotsByProvidersAndTimeRange(
-                Collections.emptyList(), startDateTime, endDateTime).stream()
-                .limit(request.getMaxResults())
-                .collect(Collectors.toList());
+        // Diff the new grid against the existing rows, or leave the slots to the materializer outside the window
+        if (!virtualSlotService.isVirtualMode() && slotMaterializationService.isWithinHorizon(availability, LocalDate.now())) {
+            slotRegenerator.regenerate(availability);
+            availability.setSlotsMaterialized(true);
+        } else {
+            slotRepository.deleteUnbookedSlotsByAvailabilityId(availability.getId());
+            availability.setSlotsMaterialized(false);
+        }
     }
 
-    private List<AppointmentSlot> applySearchFilters(List<AppointmentSlot> slots, AvailabilitySearchRequest request) {
-        return slots.stream()
-                .filter(slot -> applySlotFilters(slot, request))
-                .collect(Collectors.toList());
+    /**
+     * Delete the unbooked slots, then the instance if nothing else references it.
+     * Returns false when a booked slot kept the instance.
+     */
+    private boolean deleteAvailabilityInstance(ProviderAvailability availability) {
+        slotRepository.deleteUnbookedSlotsByAvailabilityId(availability.getId());
+        return availabilityRepository.deleteIfNoSlots(availability.getId()) > 0;
     }
 
-    private boolean applySlotFilters(AppointmentSlot slot, AvailabilitySearchRequest request) {
-        // Apply time filter
-        if (request.getPreferredStartTime() != null && request.getPreferredEndTime() != null) {
-            LocalTime slotTime = slot.getStartDateTime().toLocalTime();
-            if (slotTime.isBefore(request.getPreferredStartTime()) || slotTime.isAfter(request.getPreferredEndTime())) {
-                return false;
+    /**
+     * First date a series operation applies to: the instance itself, or the start of its series
+     */
+    private LocalDate resolveSeriesFromDate(ProviderAvailability availability, RecurrenceScope scope) {
+        if (scope == RecurrenceScope.THIS_AND_FOLLOWING) {
+            return availability.getAvailabilityDate();
+        }
+        return availabilityRepository.findSeriesStartDate(availability.getRecurrenceSeriesId());
+    }
+
+    /**
+     * Remove every unbooked slot in scope, delete the instances left without slots and close the
+     * ones that still hold bookings
+     */
+    private AvailabilityResponse deleteSeries(ProviderAvailability availability, RecurrenceScope scope) {
+        UUID seriesId = availability.getRecurrenceSeriesId();
+        LocalDate fromDate = resolveSeriesFromDate(availability, scope);
+
+        int slotsDeleted = slotRepository.deleteUnbookedSeriesSlots(seriesId, fromDate);
+        int deleted = availabilityRepository.deleteSeriesInstancesWithoutSlots(seriesId, fromDate);
+        int kept = availabilityRepository.deactivateSeriesInstances(seriesId, fromDate);
+        eventPublisher.publishEvent(AvailabilityChangedEvent.forAllDates(availability.getProvider().getId()));
+
+        logger.info("Deleted {} instance(s) and {} slot(s) of series {} from {}; kept {} instance(s) with bookings",
+                deleted, slotsDeleted, seriesId, fromDate, kept);
+
+        String message = kept == 0
+                ? String.format("Deleted %d availability instance(s)", deleted)
+                : String.format("Deleted %d availability instance(s); %d instance(s) with booked appointments were kept and closed for booking",
+                        deleted, kept);
+        return AvailabilityResponse.success(message, null);
+    }
+
+    /**
+     * Apply an update to every series instance in scope. Descriptive fields change everywhere (booked
+     * slots keep their terms); time settings only change on instances without bookings.
+     */
+    private AvailabilityResponse updateSeries(ProviderAvailability availability, UpdateAvailabilityRequest request, RecurrenceScope scope) {
+        UUID seriesId = availability.getRecurrenceSeriesId();
+        LocalDate fromDate = resolveSeriesFromDate(availability, scope);
+
+        int updated = availabilityRepository.updateSeriesDetails(seriesId, fromDate,
+                request.getPrice(), request.getLocation(), request.getDescription(),
+                request.getAppointmentType(), request.getIsActive(), request.getMaxConsecutiveSlots());
+        slotRepository.updateUnbookedSeriesSlotDetails(seriesId, fromDate,
+                request.getPrice(), request.getLocation(), request.getAppointmentType());
+
+        // Published for descriptive changes too: cached search results carry price, location and type
+        eventPublisher.publishEvent(AvailabilityChangedEvent.forAllDates(availability.getProvider().getId()));
+
+        long kept = 0;
+        if (request.hasTimeChanges()) {
+            availabilityRepository.updateUnbookedSeriesTimes(seriesId, fromDate,
+                    request.getStartTime(), request.getEndTime(), request.getSlotDurationMinutes(),
+                    request.getBufferTimeMinutes(), request.getTimezone());
+            slotRepository.deleteUnbookedSlotsOfPendingSeriesInstances(seriesId, fromDate);
+            rematerializeSeriesSlots(seriesId, fromDate);
+            kept = availabilityRepository.countSeriesInstancesWithBookedSlots(seriesId, fromDate);
+        }
+
+        ProviderAvailability refreshed = availabilityRepository.findById(availability.getId()).orElse(availability);
+        logger.info("Updated {} instance(s) of series {} from {}; {} instance(s) with bookings kept their times",
+                updated, seriesId, fromDate, kept);
+
+        String message = kept == 0
+                ? String.format("Updated %d availability instance(s)", updated)
+                : String.format("Updated %d availability instance(s); time changes skipped %d instance(s) with booked appointments",
+                        updated, kept);
+        return AvailabilityResponse.success(message, convertToAvailabilityData(refreshed));
+    }
+
+    /**
+     * Write slots for the series instances whose times changed, limited to the booking window
+     */
+    private void rematerializeSeriesSlots(UUID seriesId, LocalDate fromDate) {
+        List<ProviderAvailability> pending = availabilityRepository.findSeriesInstancesAwaitingSlots(seriesId, fromDate);
+        List<ProviderAvailability> toMaterialize = selectInstancesToMaterialize(pending);
+        if (!toMaterialize.isEmpty()) {
+            generateAppointmentSlots(toMaterialize);
+        }
+    }
+
+    /**
+     * First page of derived open slots; distances, when given, rank a distance sort by provider distance
+     */
+    private List<AvailabilityResponse.AppointmentSlotData> searchVirtualSlots(AvailabilitySearchRequest request,
+                                                                           Map<UUID, Double> distances,
+                                                                           AvailabilitySearchCursor cursor,
+                                                                           LocalDateTime startDateTime,
+                                                                           LocalDateTime endDateTime,
+                                                                           int limit) {
+        boolean byDistance = distances != null && AvailabilitySearchCursor.isDistanceSort(request);
+        Function<UUID, Double> distance = providerId -> byDistance ? distances.get(providerId) : null;
+        TopKCollector<AvailabilityResponse.AppointmentSlotData> page = new TopKCollector<>(limit,
+                AvailabilitySearchCursor.order(request, slot -> distance.apply(slot.getProviderId()),
+                        AvailabilityResponse.AppointmentSlotData::getPrice,
+                        AvailabilityResponse.AppointmentSlotData::getStartDateTime, AvailabilityResponse.AppointmentSlotData::getId));
+
+        // Availability dates are in the provider's timezone, so widen by a day on both sides
+        LocalDate fromDate = startDateTime.toLocalDate().minusDays(1);
+        LocalDate toDate = endDateTime.toLocalDate().plusDays(1);
+
+        // Time sorts read days in result order and stop once no later day can displace the page
+        boolean byTime = !AvailabilitySearchCursor.isPriceSort(request) && !byDistance;
+        boolean ascending = !byTime || Boolean.TRUE.equals(request.getAscending());
+        if (byTime && cursor != null) {
+            LocalDate cursorDate = cursor.getStartDateTime().toLocalDate();
+            if (ascending && cursorDate.minusDays(1).isAfter(fromDate)) {
+                fromDate = cursorDate.minusDays(1);
+            } else if (!ascending && cursorDate.plusDays(1).isBefore(toDate)) {
+                toDate = cursorDate.plusDays(1);
+            }
+        }
+
+        scanVirtualSlots(request, startDateTime, endDateTime, fromDate, toDate, ascending,
+                slot -> {
+                    if (cursor == null || cursor.precedes(distance.apply(slot.getProvider().getId()), slot.getPrice(),
+                            slot.getStartDateTime(), slot.getId())) {
+                        page.offer(convertToSlotData(slot));
+                    }
+                },
+                nextDate -> byTime && page.isFull() && isPageComplete(page.last(), nextDate, ascending));
+        return page.toList();
+    }
+
+    /**
+     * Feed every derived open slot that passes the request's filters to the sink. Without a selective filter to
+     * query by, every active window is scrolled a day at a time in date order instead of loading the range, and
+     * the scan ends before a day for which complete returns true. The persistence context is cleared after each
+     * scrolled day so memory stays flat over long ranges; callers must be read-only and must not keep the slots
+     * passed to the sink.
+     */
+    private void scanVirtualSlots(AvailabilitySearchRequest request, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                  LocalDate fromDate, LocalDate toDate, boolean ascending,
+                                  Consumer<AppointmentSlot> sink, Predicate<LocalDate> complete) {
+        Set<String> locations = request.getLocation() != null
+                ? locationIndex.resolve(request.getLocation()).orElse(null)
+                : null;
+        TimeOfDayWindow timeWindow = TimeOfDayWindow.of(request);
+        if (request.getProviderIds() != null && !request.getProviderIds().isEmpty()) {
+            deriveMatchingSlots(availabilityRepository.findByProviderIdsAndDateRange(request.getProviderIds(), fromDate, toDate),
+                    request, locations, timeWindow, startDateTime, endDateTime, sink);
+            return;
+        } else if (request.getAppointmentType() != null) {
+            deriveMatchingSlots(availabilityRepository.findByAppointmentTypeAndDateRange(request.getAppointmentType(), fromDate, toDate),
+                    request, locations, timeWindow, startDateTime, endDateTime, sink);
+            return;
+        } else if (request.getMinPrice() != null && request.getMaxPrice() != null) {
+            deriveMatchingSlots(availabilityRepository.findByPriceRangeAndDateRange(
+                    request.getMinPrice(), request.getMaxPrice(), fromDate, toDate),
+                    request, locations, timeWindow, startDateTime, endDateTime, sink);
+            return;
+        }
+
+        Sort order = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "availabilityDate", "startTime");
+        try (Stream<ProviderAvailability> windows = availabilityRepository.streamActiveByDateRange(fromDate, toDate, order)) {
+            List<ProviderAvailability> day = new ArrayList<>();
+            Iterator<ProviderAvailability> iterator = windows.iterator();
+            while (iterator.hasNext()) {
+                ProviderAvailability window = iterator.next();
+                if (!day.isEmpty() && !window.getAvailabilityDate().equals(day.get(0).getAvailabilityDate())) {
+                    deriveMatchingSlots(day, request, locations, timeWindow, startDateTime, endDateTime, sink);
+                    day = new ArrayList<>();
+                    // Drop the finished day's windows, providers and booked rows; the scroll itself stays open
+                    entityManager.clear();
+                    if (complete.test(window.getAvailabilityDate())) {
+                        return;
+                    }
+                }
+                day.add(window);
+            }
+            deriveMatchingSlots(day, request, locations, timeWindow, startDateTime, endDateTime, sink);
+        }
+    }
+
+    private void deriveMatchingSlots(List<ProviderAvailability> availabilities, AvailabilitySearchRequest request,
+                                     Set<String> locations, TimeOfDayWindow timeWindow, LocalDateTime startDateTime,
+                                     LocalDateTime endDateTime, Consumer<AppointmentSlot> sink) {
+        for (AppointmentSlot slot : virtualSlotService.deriveOpenSlots(availabilities, startDateTime, endDateTime)) {
+            if (applySlotFilters(slot, request, locations, timeWindow)) {
+                sink.accept(slot);
             }
         }
+    }
+
+    /**
+     * Whether windows dated nextDate or later (earlier, when descending) can only yield slots after the last one kept.
+     * A window dated D in any timezone starts within [D-1 00:00, D+2 00:00) UTC.
+     */
+    private boolean isPageComplete(AvailabilityResponse.AppointmentSlotData last, LocalDate nextDate, boolean ascending) {
+        return ascending
+                ? last.getStartDateTime().isBefore(nextDate.minusDays(1).atStartOfDay())
+                : !last.getStartDateTime().isBefore(nextDate.plusDays(2).atStartOfDay());
+    }
+
+    /**
+     * Locations, when not null, are the indexed locations the location filter resolved to; the time window, when
+     * not null, is the request's
+     */
+    private boolean applySlotFilters(AppointmentSlot slot, AvailabilitySearchRequest request, Set<String> locations,
+                                     TimeOfDayWindow timeWindow) {
+        // Apply time filter, on the provider's clock unless the request gives a timezone
+        if (timeWindow != null && !timeWindow.matches(slot.getStartDateTime(), slot.getLocalStartMinute())) {
+            return false;
+        }
 
         // Apply specialization filter
         if (request.getSpecialization() != null) {
@@ -551,31 +1350,30 @@ public class ProviderAvailabilityService {
 
         // Apply location filter
         if (request.getLocation() != null && slot.getLocation() != null) {
-            if (!slot.getLocation().toLowerCase().contains(request.getLocation().toLowerCase())) {
+            boolean matches = locations != null
+                    ? locations.contains(slot.getLocation())
+                    : slot.getLocation().toLowerCase().contains(request.getLocation().toLowerCase());
+            if (!matches) {
                 return false;
             }
         }
 
-        return true;
-    }
-
-    private List<AppointmentSlot> sortAndLimitResults(List<AppointmentSlot> slots, AvailabilitySearchRequest request) {
-        // Sort by specified criteria
-        Comparator<AppointmentSlot> comparator = getSlotComparator(request.getSortBy(), request.getAscending());
-        
-        return slots.stream()
-                .sorted(comparator)
-                .limit(request.getMaxResults())
-                .collect(Collectors.toList());
-    }
+        // Apply price and slot duration filters
+        if (request.getMinPrice() != null && (slot.getPrice() == null || slot.getPrice().compareTo(request.getMinPrice()) < 0)) {
+            return false;
+        }
+        if (request.getMaxPrice() != null && (slot.getPrice() == null || slot.getPrice().compareTo(request.getMaxPrice()) > 0)) {
+            return false;
+        }
+        long durationMinutes = Duration.between(slot.getStartDateTime(), slot.getEndDateTime()).toMinutes();
+        if (request.getMinSlotDurationMinutes() != null && durationMinutes < request.getMinSlotDurationMinutes()) {
+            return false;
+        }
+        if (request.getMaxSlotDurationMinutes() != null && durationMinutes > request.getMaxSlotDurationMinutes()) {
+            return false;
+        }
 
-    private Comparator<AppointmentSlot> getSlotComparator(String sortBy, Boolean ascending) {
-        Comparator<AppointmentSlot> comparator = switch (sortBy) {
-            case "price" -> Comparator.comparing(AppointmentSlot::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
-            default -> Comparator.comparing(AppointmentSlot::getStartDateTime);
-        };
-        
-        return Boolean.TRUE.equals(ascending) ? comparator : comparator.reversed();
+        return true;
     }
 
     private AvailabilityResponse.AvailabilityData convertToAvailabilityData(ProviderAvailability availability) {
@@ -583,6 +1381,11 @@ public class ProviderAvailabilityService {
     }
 
     private AvailabilityResponse.AvailabilityData convertToAvailabilityData(ProviderAvailability availability, Boolean includeSlots) {
+        return convertToAvailabilityData(availability,
+                Boolean.TRUE.equals(includeSlots) ? availability.getAppointmentSlots() : null);
+    }
+
+    private AvailabilityResponse.AvailabilityData convertToAvailabilityData(ProviderAvailability availability, List<AppointmentSlot> slots) {
         AvailabilityResponse.AvailabilityData data = new AvailabilityResponse.AvailabilityData(
                 availability.getId(),
                 availability.getProvider().getId(),
@@ -622,8 +1425,8 @@ public class ProviderAvailabilityService {
         }
 
         // Include appointment slots if requested
-        if (Boolean.TRUE.equals(includeSlots)) {
-            List<AvailabilityResponse.AppointmentSlotData> slotData = availability.getAppointmentSlots().stream()
+        if (slots != null) {
+            List<AvailabilityResponse.AppointmentSlotData> slotData = slots.stream()
                     .map(this::convertToSlotData)
                     .collect(Collectors.toList());
             data.setAppointmentSlots(slotData);
@@ -645,6 +1448,12 @@ public class ProviderAvailabilityService {
         data.setPrice(slot.getPrice());
         data.setLocation(slot.getLocation());
         data.setBookingConfirmed(slot.getBookingConfirmed());
+        if (slot.getProviderAvailability() != null) {
+            data.setProviderAvailabilityId(slot.getProviderAvailability().getId());
+        }
+        if (slot.getProvider() != null) {
+            data.setProviderId(slot.getProvider().getId());
+        }
 
         // Only include patient info for booked slots and if user has permission
         if (slot.getIsBooked() && slot.getPatient() != null) {
@@ -0,0 +1,199 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.entity.ProviderDaySummary;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import com.healthfirst.repository.ProviderDaySummaryRepository;
+import com.healthfirst.repository.ProviderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Maintains the {@code provider_day_summary} read model behind the month calendar.
+ *
+ * A day is recounted from its slots (derived ones in virtual mode) whenever availability on it changes, just
+ * before the change commits and in its transaction. A booking only moves one slot from open to booked with a
+ * single atomic update of the day's row, so concurrent bookings never rewrite the row from a stale count; the
+ * same update re-reads the first and last open start. Summaries of existing availability are built once at
+ * startup while the table is empty.
+ */
+@Service
+@Transactional
+public class ProviderDaySummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderDaySummaryService.class);
+
+    @Autowired
+    private ProviderDaySummaryRepository daySummaryRepository;
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.day-summary.backfill-enabled:true}")
+    private boolean backfillEnabled = true;
+
+    /**
+     * Day summaries of a provider in a month; days without availability are absent
+     */
+    @Transactional(readOnly = true)
+    public List<ProviderDaySummary> getMonth(UUID providerId, YearMonth month) {
+        if (!providerRepository.existsById(providerId)) {
+            throw new IllegalArgumentException("Provider not found: " + providerId);
+        }
+        return daySummaryRepository.findByProviderIdAndSummaryDateBetweenOrderBySummaryDate(
+                providerId, month.atDay(1), month.atEndOfMonth());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        if (event.affectsAllDates()) {
+            refreshAll(event.getProviderId());
+        } else {
+            refresh(event.getProviderId(), event.getDates());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSlotBooked(SlotBookedEvent event) {
+        availabilityRepository.findById(event.getProviderAvailabilityId())
+                .ifPresent(availability -> countBooking(event.getProviderId(), availability.getAvailabilityDate()));
+    }
+
+    /**
+     * Recount the given days of a provider
+     */
+    public void refresh(UUID providerId, Collection<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+        List<LocalDate> days = new ArrayList<>(dates);
+        daySummaryRepository.deleteByProviderIdAndDates(providerId, days);
+        daySummaryRepository.saveAll(summarize(providerId, days));
+    }
+
+    /**
+     * Recount every day of a provider, dropping days left without availability
+     */
+    public void refreshAll(UUID providerId) {
+        daySummaryRepository.deleteByProviderId(providerId);
+        daySummaryRepository.saveAll(summarize(providerId, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillEnabled) {
+            return;
+        }
+
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            if (Boolean.FALSE.equals(transactionTemplate.execute(status -> daySummaryRepository.count() == 0))) {
+                return;
+            }
+            List<UUID> providerIds = transactionTemplate.execute(status ->
+                    availabilityRepository.findProviderIdsWithActiveAvailability());
+            // A provider per transaction
+            for (UUID providerId : providerIds) {
+                transactionTemplate.executeWithoutResult(status -> refreshAll(providerId));
+            }
+            if (!providerIds.isEmpty()) {
+                logger.info("Built day summaries for {} provider(s)", providerIds.size());
+            }
+        } catch (Exception e) {
+            logger.error("Day summary backfill failed; it will be retried on the next start", e);
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private void countBooking(UUID providerId, LocalDate date) {
+        if (!virtualSlotService.isVirtualMode()) {
+            daySummaryRepository.countBooking(providerId, date);
+            return;
+        }
+
+        // Open slots are not stored in virtual mode, so the span comes from the day's derived grid
+        ProviderDaySummary derived = summarize(providerId, List.of(date)).stream().findFirst().orElse(null);
+        daySummaryRepository.countDerivedBooking(providerId, date,
+                derived != null ? derived.getFirstOpenStart() : null,
+                derived != null ? derived.getLastOpenStart() : null);
+    }
+
+    /**
+     * Summaries of the given days of a provider, or of all its days when dates is null
+     */
+    private Collection<ProviderDaySummary> summarize(UUID providerId, List<LocalDate> dates) {
+        Map<LocalDate, ProviderDaySummary> days = new TreeMap<>();
+
+        if (virtualSlotService.isVirtualMode()) {
+            List<ProviderAvailability> windows = dates == null
+                    ? availabilityRepository.findActiveByProviderId(providerId)
+                    : findActiveWindows(providerId, dates);
+            Map<UUID, LocalDate> dateByAvailability = new HashMap<>();
+            windows.forEach(window -> dateByAvailability.put(window.getId(), window.getAvailabilityDate()));
+
+            virtualSlotService.deriveSlots(windows).forEach((availabilityId, slots) -> {
+                LocalDate date = dateByAvailability.get(availabilityId);
+                for (AppointmentSlot slot : slots) {
+                    if (Boolean.TRUE.equals(slot.getIsActive())) {
+                        days.computeIfAbsent(date, day -> new ProviderDaySummary(providerId, day))
+                                .addSlot(slot.getStartDateTime(), Boolean.TRUE.equals(slot.getIsBooked()));
+                    }
+                }
+            });
+            return days.values();
+        }
+
+        List<Object[]> rows = dates == null
+                ? slotRepository.summarizeAllDays(providerId)
+                : slotRepository.summarizeDays(providerId, dates);
+        for (Object[] row : rows) {
+            ProviderDaySummary summary = new ProviderDaySummary(providerId, (LocalDate) row[0]);
+            summary.setOpenCount(((Number) row[1]).intValue());
+            summary.setBookedCount(((Number) row[2]).intValue());
+            summary.setFirstOpenStart((LocalDateTime) row[3]);
+            summary.setLastOpenStart((LocalDateTime) row[4]);
+            days.put(summary.getSummaryDate(), summary);
+        }
+        return days.values();
+    }
+
+    private List<ProviderAvailability> findActiveWindows(UUID providerId, List<LocalDate> dates) {
+        Set<LocalDate> wanted = new HashSet<>(dates);
+        return availabilityRepository.findByProviderIdAndDateRangeAndIsActive(
+                        providerId, Collections.min(dates), Collections.max(dates)).stream()
+                .filter(window -> wanted.contains(window.getAvailabilityDate()))
+                .toList();
+    }
+}
@@ -0,0 +1,198 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.GeoPoint;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.embedded.ClinicAddress;
+import com.healthfirst.repository.ProviderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Uniform latitude/longitude grid over the clinic coordinates of active providers.
+ *
+ * A radius query visits only the cells overlapping the circle's bounding box and refines the providers in them
+ * by exact haversine distance, so proximity search never scans every provider. Rebuilt on a schedule; a
+ * provider registered or deactivated since the last build is picked up by the next one.
+ */
+@Component
+public class ProviderGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderGeoIndex.class);
+
+    private static final double KM_PER_DEGREE_LATITUDE = 111.195;
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.proximity.cell-size-degrees:0.25}")
+    private double cellSizeDegrees = 0.25;
+
+    // Replaced wholesale on every rebuild; null until the first build completes
+    private volatile Grid grid;
+
+    /**
+     * Active providers within radiusKm of the point, nearest first (ties by provider id)
+     */
+    public List<NearbyProvider> findWithin(GeoPoint point, double radiusKm) {
+        Grid current = grid;
+        if (current == null) {
+            rebuild();
+            current = grid;
+            if (current == null) {
+                throw new IllegalStateException("Provider location index is unavailable");
+            }
+        }
+
+        List<NearbyProvider> nearby = new ArrayList<>();
+        current.forEachCandidate(point, radiusKm, location -> {
+            double distanceKm = point.distanceKm(location.latitude, location.longitude);
+            if (distanceKm <= radiusKm) {
+                // To the metre, so providers sharing a clinic share a distance
+                nearby.add(new NearbyProvider(location.providerId, Math.round(distanceKm * 1000) / 1000.0));
+            }
+        });
+        nearby.sort(Comparator.comparingDouble(NearbyProvider::getDistanceKm)
+                .thenComparing(NearbyProvider::getProviderId));
+        return nearby;
+    }
+
+    public int getIndexedProviderCount() {
+        Grid current = grid;
+        return current == null ? 0 : current.size;
+    }
+
+    @Scheduled(fixedDelayString = "${app.availability.proximity.rebuild-interval-ms:300000}",
+               initialDelayString = "${app.availability.proximity.initial-delay-ms:0}")
+    public synchronized void rebuild() {
+        try {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.setReadOnly(true);
+            List<ProviderLocation> locations = template.execute(status -> {
+                List<ProviderLocation> loaded = new ArrayList<>();
+                for (Provider provider : providerRepository.findActiveWithCoordinates()) {
+                    ClinicAddress address = provider.getClinicAddress();
+                    loaded.add(new ProviderLocation(provider.getId(), address.getLatitude(), address.getLongitude()));
+                }
+                return loaded;
+            });
+            grid = new Grid(cellSizeDegrees, locations);
+            logger.info("Provider location index rebuilt: {} provider(s)", locations.size());
+        } catch (Exception e) {
+            logger.error("Provider location index rebuild failed; keeping the previous index", e);
+        }
+    }
+
+    public static class NearbyProvider {
+        private final UUID providerId;
+        private final double distanceKm;
+
+        public NearbyProvider(UUID providerId, double distanceKm) {
+            this.providerId = providerId;
+            this.distanceKm = distanceKm;
+        }
+
+        public UUID getProviderId() {
+            return providerId;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private static final class ProviderLocation {
+        private final UUID providerId;
+        private final double latitude;
+        private final double longitude;
+
+        ProviderLocation(UUID providerId, double latitude, double longitude) {
+            this.providerId = providerId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private static final class Grid {
+        private final double cellSize;
+        private final int rows;
+        private final int columns;
+        private final Map<Long, List<ProviderLocation>> cells = new HashMap<>();
+        private final int size;
+
+        Grid(double cellSize, List<ProviderLocation> locations) {
+            this.cellSize = cellSize;
+            this.rows = (int) Math.ceil(180 / cellSize) + 1;
+            this.columns = (int) Math.ceil(360 / cellSize);
+            for (ProviderLocation location : locations) {
+                cells.computeIfAbsent(key(row(location.latitude), column(location.longitude)), k -> new ArrayList<>())
+                        .add(location);
+            }
+            this.size = locations.size();
+        }
+
+        /**
+         * Every location in a cell overlapping the bounding box of the circle
+         */
+        void forEachCandidate(GeoPoint point, double radiusKm, Consumer<ProviderLocation> sink) {
+            double latitudeSpan = radiusKm / KM_PER_DEGREE_LATITUDE;
+            int minRow = Math.max(0, row(point.getLatitude() - latitudeSpan));
+            int maxRow = Math.min(rows - 1, row(point.getLatitude() + latitudeSpan));
+
+            // Degrees of longitude shrink towards the poles; the widest span is at the circle's extreme latitude
+            double extremeLatitude = Math.min(90, Math.abs(point.getLatitude()) + latitudeSpan);
+            double cosine = Math.cos(Math.toRadians(extremeLatitude));
+            int minColumn;
+            int maxColumn;
+            if (cosine < 1e-6 || latitudeSpan / cosine >= 180) {
+                minColumn = 0;
+                maxColumn = columns - 1;
+            } else {
+                double longitudeSpan = latitudeSpan / cosine;
+                minColumn = (int) Math.floor((point.getLongitude() - longitudeSpan + 180) / cellSize);
+                maxColumn = (int) Math.floor((point.getLongitude() + longitudeSpan + 180) / cellSize);
+                if (maxColumn - minColumn + 1 >= columns) {
+                    minColumn = 0;
+                    maxColumn = columns - 1;
+                }
+            }
+
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    // Wraps across the antimeridian
+                    List<ProviderLocation> cell = cells.get(key(row, Math.floorMod(column, columns)));
+                    if (cell != null) {
+                        cell.forEach(sink);
+                    }
+                }
+            }
+        }
+
+        private int row(double latitude) {
+            return (int) Math.floor((latitude + 90) / cellSize);
+        }
+
+        private int column(double longitude) {
+            return Math.floorMod((int) Math.floor((longitude + 180) / cellSize), columns);
+        }
+
+        private long key(int row, int column) {
+            return (long) row * columns + column;
+        }
+    }
+}
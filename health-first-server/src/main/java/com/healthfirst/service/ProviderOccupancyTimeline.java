@@ -0,0 +1,355 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory occupancy of each provider's active availability windows, one bitmap per day.
+ *
+ * A day is 288 five-minute buckets packed into five longs; a bucket is set when any window touches it.
+ * An overlap check is a masked AND over the buckets the candidate touches: no common bit means no
+ * overlap, a common bucket the candidate fully covers means overlap, and only partially covered edge
+ * buckets fall back to comparing the day's exact windows. A provider's future days are loaded on first
+ * use, in the caller's transaction, and refreshed after every committed change; providers beyond the
+ * memory budget, past dates, a failed load and a disabled timeline use the database query. Assumes a
+ * single application instance.
+ */
+@Component
+public class ProviderOccupancyTimeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderOccupancyTimeline.class);
+
+    static final int BUCKET_SECONDS = 5 * 60;
+    private static final int BUCKETS_PER_DAY = 24 * 60 * 60 / BUCKET_SECONDS;
+    private static final int WORDS_PER_DAY = (BUCKETS_PER_DAY + 63) / 64;
+    private static final LocalDate END_OF_TIME = LocalDate.of(9999, 12, 31);
+
+    // Rough heap cost: timeline object and map, then per day its map node, key, bitmap and window array
+    private static final long TIMELINE_BYTES = 96;
+    private static final long DAY_BYTES = 48 + 16 + (16 + 8 * WORDS_PER_DAY) + 16 + 16;
+    private static final long WINDOW_BYTES = 8;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Value("${app.availability.occupancy.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.occupancy.max-bytes:67108864}")
+    private long maxBytes = 64L * 1024 * 1024;
+
+    // Access ordered, so the least recently checked provider is evicted first
+    private final LinkedHashMap<UUID, Timeline> timelines = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    // Bumped on every change so a load that raced a commit is not cached
+    private long changeVersion;
+
+    private final AtomicLong timelineHits = new AtomicLong();
+    private final AtomicLong databaseFallbacks = new AtomicLong();
+
+    /**
+     * Whether an active window of the provider on the date overlaps [startTime, endTime)
+     */
+    public boolean hasOverlap(UUID providerId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        Timeline timeline = enabled ? residentTimeline(providerId, date) : null;
+        if (timeline != null && !date.isBefore(timeline.loadedFrom)) {
+            timelineHits.incrementAndGet();
+            return timeline.overlaps(date.toEpochDay(), startTime.toSecondOfDay(), endTime.toSecondOfDay());
+        }
+
+        databaseFallbacks.incrementAndGet();
+        return !availabilityRepository.findOverlappingSlots(providerId, date, startTime, endTime).isEmpty();
+    }
+
+    /**
+     * Refresh the changed days of a resident provider once the change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        Timeline timeline;
+        synchronized (this) {
+            changeVersion++;
+            timeline = timelines.get(event.getProviderId());
+            if (timeline != null && event.affectsAllDates()) {
+                evict(event.getProviderId());
+                return;
+            }
+        }
+        if (timeline == null) {
+            return;
+        }
+
+        try {
+            List<LocalDate> dates = event.getDates().stream()
+                    .filter(date -> !date.isBefore(timeline.loadedFrom))
+                    .sorted()
+                    .toList();
+            if (dates.isEmpty()) {
+                return;
+            }
+
+            // Read under the timeline lock, so reloads of one provider apply in commit order
+            long delta = 0;
+            synchronized (timeline) {
+                Map<Long, List<int[]>> windows = groupByDay(availabilityRepository.findActiveWindows(
+                        event.getProviderId(), dates.get(0), dates.get(dates.size() - 1)));
+                for (LocalDate date : dates) {
+                    long epochDay = date.toEpochDay();
+                    delta += timeline.replaceDay(epochDay, windows.getOrDefault(epochDay, Collections.emptyList()));
+                }
+            }
+            adjustResidentBytes(timeline, delta);
+
+        } catch (Exception e) {
+            logger.warn("Failed to refresh occupancy timeline of provider: {}, evicting it", event.getProviderId(), e);
+            synchronized (this) {
+                evict(event.getProviderId());
+            }
+        }
+    }
+
+    public synchronized int getResidentProviderCount() {
+        return timelines.size();
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getTimelineHits() {
+        return timelineHits.get();
+    }
+
+    public long getDatabaseFallbacks() {
+        return databaseFallbacks.get();
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    /**
+     * The provider's timeline, loading it when absent; null when it does not fit in the memory budget
+     */
+    private Timeline residentTimeline(UUID providerId, LocalDate date) {
+        synchronized (this) {
+            Timeline timeline = timelines.get(providerId);
+            if (timeline != null) {
+                return timeline;
+            }
+        }
+
+        LocalDate loadFrom = LocalDate.now().minusDays(1);
+        if (date.isBefore(loadFrom)) {
+            return null;
+        }
+
+        long versionBeforeLoad;
+        synchronized (this) {
+            versionBeforeLoad = changeVersion;
+        }
+
+        // Read in the caller's transaction, so a check never holds a second connection; under read committed
+        // the statement sees every change committed before the version read above
+        List<Object[]> rows;
+        try {
+            rows = availabilityRepository.findActiveWindows(providerId, loadFrom, END_OF_TIME);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load occupancy timeline of provider: {}, checking the database", providerId, e);
+            return null;
+        }
+
+        Timeline loaded = new Timeline(loadFrom);
+        groupByDay(rows).forEach(loaded::replaceDay);
+
+        synchronized (this) {
+            Timeline raced = timelines.get(providerId);
+            if (raced != null) {
+                return raced;
+            }
+            if (changeVersion != versionBeforeLoad) {
+                return null;
+            }
+            if (loaded.bytes > maxBytes) {
+                logger.debug("Occupancy timeline of provider {} ({} bytes) exceeds the budget", providerId, loaded.bytes);
+                return null;
+            }
+
+            timelines.put(providerId, loaded);
+            residentBytes += loaded.bytes;
+            Iterator<Map.Entry<UUID, Timeline>> eldest = timelines.entrySet().iterator();
+            while (residentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<UUID, Timeline> entry = eldest.next();
+                if (entry.getValue() != loaded) {
+                    residentBytes -= entry.getValue().bytes;
+                    eldest.remove();
+                }
+            }
+
+            logger.debug("Loaded occupancy timeline of provider {}: {} day(s), {} resident provider(s), {} bytes",
+                    providerId, loaded.days.size(), timelines.size(), residentBytes);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The load may have read the caller's own uncommitted windows
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        evictIfResident(providerId, loaded);
+                    }
+                }
+            });
+        }
+        return loaded;
+    }
+
+    private synchronized void evictIfResident(UUID providerId, Timeline timeline) {
+        if (timelines.get(providerId) == timeline) {
+            evict(providerId);
+        }
+    }
+
+    private void evict(UUID providerId) {
+        Timeline removed = timelines.remove(providerId);
+        if (removed != null) {
+            residentBytes -= removed.bytes;
+        }
+    }
+
+    private synchronized void adjustResidentBytes(Timeline timeline, long delta) {
+        // Only count changes of a timeline that is still resident
+        if (timelines.containsValue(timeline)) {
+            residentBytes += delta;
+        }
+    }
+
+    /**
+     * Rows of (date, start time, end time) as [startSecond, endSecond] windows per epoch day
+     */
+    private Map<Long, List<int[]>> groupByDay(List<Object[]> rows) {
+        Map<Long, List<int[]>> byDay = new HashMap<>();
+        for (Object[] row : rows) {
+            byDay.computeIfAbsent(((LocalDate) row[0]).toEpochDay(), day -> new ArrayList<>())
+                    .add(new int[] {((LocalTime) row[1]).toSecondOfDay(), ((LocalTime) row[2]).toSecondOfDay()});
+        }
+        return byDay;
+    }
+
+    /**
+     * Occupied buckets and exact windows of one provider's days from loadedFrom on
+     */
+    private static final class Timeline {
+        private final LocalDate loadedFrom;
+        private final Map<Long, Day> days = new HashMap<>();
+        private long bytes = TIMELINE_BYTES;
+
+        Timeline(LocalDate loadedFrom) {
+            this.loadedFrom = loadedFrom;
+        }
+
+        synchronized boolean overlaps(long epochDay, int startSecond, int endSecond) {
+            Day day = days.get(epochDay);
+            return day != null && day.overlaps(startSecond, endSecond);
+        }
+
+        /**
+         * Swap in the day's windows and return the change in estimated bytes
+         */
+        long replaceDay(long epochDay, List<int[]> windows) {
+            Day previous = windows.isEmpty() ? days.remove(epochDay) : days.put(epochDay, new Day(windows));
+            long delta = (windows.isEmpty() ? 0 : DAY_BYTES + WINDOW_BYTES * windows.size())
+                    - (previous == null ? 0 : DAY_BYTES + WINDOW_BYTES * previous.windowCount());
+            bytes += delta;
+            return delta;
+        }
+    }
+
+    private static final class Day {
+        private final long[] buckets = new long[WORDS_PER_DAY];
+        private final int[] windows; // start and end second of day, pairwise
+
+        Day(List<int[]> dayWindows) {
+            windows = new int[dayWindows.size() * 2];
+            for (int i = 0; i < dayWindows.size(); i++) {
+                int start = dayWindows.get(i)[0];
+                int end = dayWindows.get(i)[1];
+                windows[2 * i] = start;
+                windows[2 * i + 1] = end;
+                if (end > start) {
+                    setBuckets(buckets, start / BUCKET_SECONDS, (end + BUCKET_SECONDS - 1) / BUCKET_SECONDS);
+                }
+            }
+        }
+
+        int windowCount() {
+            return windows.length / 2;
+        }
+
+        boolean overlaps(int start, int end) {
+            if (end <= start) {
+                return false;
+            }
+
+            int firstTouched = start / BUCKET_SECONDS;
+            int lastTouched = (end + BUCKET_SECONDS - 1) / BUCKET_SECONDS;
+            if (!intersects(buckets, firstTouched, lastTouched)) {
+                return false;
+            }
+
+            int firstCovered = (start + BUCKET_SECONDS - 1) / BUCKET_SECONDS;
+            int lastCovered = end / BUCKET_SECONDS;
+            if (firstCovered < lastCovered && intersects(buckets, firstCovered, lastCovered)) {
+                return true;
+            }
+
+            // Only partially covered edge buckets are shared, compare the exact windows
+            for (int i = 0; i < windows.length; i += 2) {
+                if (windows[i] < end && windows[i + 1] > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void setBuckets(long[] bits, int from, int to) {
+            for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                bits[word] |= rangeMask(word, from, to);
+            }
+        }
+
+        private static boolean intersects(long[] bits, int from, int to) {
+            for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                if ((bits[word] & rangeMask(word, from, to)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Bits of buckets [from, to) that fall in the given word
+         */
+        private static long rangeMask(int word, int from, int to) {
+            int low = Math.max(from - (word << 6), 0);
+            int high = Math.min(to - (word << 6), 64);
+            long upper = high == 64 ? -1L : (1L << high) - 1;
+            return upper & (-1L << low);
+        }
+    }
+}
@@ -3,17 +3,17 @@ package com.healthfirst.service;
 import com.healthfirst.dto.ProviderRegistrationRequest;
 import com.healthfirst.dto.ProviderRegistrationResponse;
 import com.healthfirst.entity.Provider;
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
 import com.healthfirst.repository.ProviderRepository;
 import com.healthfirst.util.PasswordUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +34,11 @@ public class ProviderService {
     @Autowired
     private PasswordUtil passwordUtil;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final int MAX_INSURANCE_PLANS = 50;
+
     /**
      * Register a new provider
      */
@@ -160,6 +165,10 @@ public class ProviderService {
                     addressData.put("city", provider.getClinicAddress().getCity());
                     addressData.put("state", provider.getClinicAddress().getState());
                     addressData.put("zip", provider.getClinicAddress().getZip());
+                    if (provider.getClinicAddress().hasCoordinates()) {
+                        addressData.put("latitude", provider.getClinicAddress().getLatitude());
+                        addressData.put("longitude", provider.getClinicAddress().getLongitude());
+                    }
                     
                     // Add formatted address for UI display
                     String formattedAddress = String.format("%s, %s, %s %s",
@@ -177,6 +186,39 @@ public class ProviderService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Replace the insurance plans a provider accepts; duplicates differing only in case or spacing are dropped
+     */
+    public Set<String> updateInsurancePlans(UUID providerId, List<String> plans) {
+        Provider provider = providerRepository.findById(providerId)
+                .orElseThrow(() -> new IllegalArgumentException("Provider not found: " + providerId));
+
+        Map<String, String> byNormalizedName = new LinkedHashMap<>();
+        for (String plan : plans) {
+            String name = validationService.sanitizeInput(plan);
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Insurance plan names must not be blank");
+            }
+            name = name.trim().replaceAll("\\s+", " ");
+            if (name.length() > 100) {
+                throw new IllegalArgumentException("Insurance plan names must not exceed 100 characters");
+            }
+            byNormalizedName.putIfAbsent(InsurancePlanIndex.normalize(name), name);
+        }
+        if (byNormalizedName.size() > MAX_INSURANCE_PLANS) {
+            throw new IllegalArgumentException("A provider can accept at most " + MAX_INSURANCE_PLANS + " insurance plans");
+        }
+
+        Set<String> accepted = new LinkedHashSet<>(byNormalizedName.values());
+        provider.getAcceptedInsurancePlans().clear();
+        provider.getAcceptedInsurancePlans().addAll(accepted);
+        providerRepository.save(provider);
+
+        eventPublisher.publishEvent(new ProviderInsuranceChangedEvent(providerId, accepted));
+        logger.info("Updated insurance plans for provider: {} ({} plan(s))", providerId, accepted.size());
+        return accepted;
+    }
+
     private void sanitizeRequest(ProviderRegistrationRequest request) {
         request.setFirstName(validationService.sanitizeInput(request.getFirstName()));
         request.setLastName(validationService.sanitizeInput(request.getLastName()));
@@ -0,0 +1,132 @@
+package com.healthfirst.service;
+
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Checks every date of a recurring availability request against the provider's existing windows at once.
+ *
+ * The provider's active windows across the whole recurrence range are read in one query and put in
+ * an interval tree over local wall-clock seconds, so each generated instance costs a tree lookup
+ * rather than a query.
+ */
+@Component
+public class RecurringOverlapValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringOverlapValidator.class);
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    /**
+     * Dates on which [startTime, endTime) overlaps an active window of the provider, in date order
+     */
+    public List<LocalDate> findConflictingDates(UUID providerId, Collection<LocalDate> dates, LocalTime startTime, LocalTime endTime) {
+        if (dates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<LocalDate> sorted = dates.stream().distinct().sorted().toList();
+        List<Object[]> windows = availabilityRepository.findActiveWindows(
+                providerId, sorted.get(0), sorted.get(sorted.size() - 1));
+        IntervalTree tree = IntervalTree.of(windows);
+
+        List<LocalDate> conflicts = new ArrayList<>();
+        for (LocalDate date : sorted) {
+            long dayStart = date.toEpochDay() * SECONDS_PER_DAY;
+            if (tree.overlaps(dayStart + startTime.toSecondOfDay(), dayStart + endTime.toSecondOfDay())) {
+                conflicts.add(date);
+            }
+        }
+
+        logger.debug("Checked {} date(s) of provider {} against {} existing window(s): {} conflict(s)",
+                sorted.size(), providerId, windows.size(), conflicts.size());
+        return conflicts;
+    }
+
+    /**
+     * Static interval tree: intervals sorted by start form an implicit balanced tree, each node
+     * holding the largest end in its subtree so whole branches that end too early are skipped
+     */
+    static final class IntervalTree {
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnds;
+
+        private IntervalTree(long[] starts, long[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[starts.length];
+            if (starts.length > 0) {
+                buildMaxEnds(0, starts.length - 1);
+            }
+        }
+
+        /**
+         * Tree over rows of (date, start time, end time)
+         */
+        static IntervalTree of(List<Object[]> windows) {
+            long[][] intervals = new long[windows.size()][];
+            for (int i = 0; i < windows.size(); i++) {
+                Object[] row = windows.get(i);
+                long dayStart = ((LocalDate) row[0]).toEpochDay() * SECONDS_PER_DAY;
+                intervals[i] = new long[] {
+                        dayStart + ((LocalTime) row[1]).toSecondOfDay(),
+                        dayStart + ((LocalTime) row[2]).toSecondOfDay()
+                };
+            }
+            Arrays.sort(intervals, Comparator.comparingLong(interval -> interval[0]));
+
+            long[] starts = new long[intervals.length];
+            long[] ends = new long[intervals.length];
+            for (int i = 0; i < intervals.length; i++) {
+                starts[i] = intervals[i][0];
+                ends[i] = intervals[i][1];
+            }
+            return new IntervalTree(starts, ends);
+        }
+
+        /**
+         * Whether any interval satisfies start < end and end > start of the query, like the overlap query
+         */
+        boolean overlaps(long start, long end) {
+            return starts.length > 0 && overlaps(0, starts.length - 1, start, end);
+        }
+
+        private boolean overlaps(int low, int high, long start, long end) {
+            if (low > high) {
+                return false;
+            }
+            int mid = (low + high) >>> 1;
+            if (maxEnds[mid] <= start) {
+                return false;
+            }
+            if (starts[mid] < end && ends[mid] > start) {
+                return true;
+            }
+            if (overlaps(low, mid - 1, start, end)) {
+                return true;
+            }
+            // Everything right of mid starts at or after starts[mid]
+            return starts[mid] < end && overlaps(mid + 1, high, start, end);
+        }
+
+        private long buildMaxEnds(int low, int high) {
+            if (low > high) {
+                return Long.MIN_VALUE;
+            }
+            int mid = (low + high) >>> 1;
+            maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(low, mid - 1), buildMaxEnds(mid + 1, high)));
+            return maxEnds[mid];
+        }
+    }
+}
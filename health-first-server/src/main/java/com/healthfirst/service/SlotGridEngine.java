@@ -0,0 +1,343 @@
+package com.healthfirst.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes appointment slot grids as UTC epoch minutes without allocating date-time objects per slot.
+ *
+ * Each zone's offset transitions are read from its {@link ZoneRules} once and kept as sorted arrays,
+ * and the elapsed-minute offsets of a (window length, duration, buffer) grid are memoized, so
+ * stamping a template onto a date is two offset lookups and an array add.
+ *
+ * Window boundaries follow {@link java.time.ZonedDateTime#of}: a local time inside a DST gap is
+ * moved forward by the length of the gap, and a local time inside a DST overlap takes the earlier
+ * (pre-transition) offset. Slots are then laid out in elapsed time between the resolved boundaries,
+ * so a window spanning a transition holds as many slots as actually fit. Times are minute precision.
+ */
+@Component
+public class SlotGridEngine {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_CACHED_GRIDS = 4096;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final Map<String, ZoneTimeline> timelines = new ConcurrentHashMap<>();
+    // Access ordered and bounded, so the least recently used grid is dropped instead of the whole cache
+    private final Map<Long, int[]> gridOffsets = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            return size() > MAX_CACHED_GRIDS;
+        }
+    });
+
+    /**
+     * Slot start minutes for one date of the template
+     */
+    public SlotGrid generate(Template template, LocalDate date) {
+        int[] starts = stamp(template, timeline(template.getTimezone(), date.getYear()), date);
+        return new SlotGrid(starts, template.getDurationMinutes(), new int[] {0, starts.length});
+    }
+
+    /**
+     * Slot start minutes for every date of the template, packed into one array in date order
+     */
+    public SlotGrid generate(Template template, Collection<LocalDate> dates) {
+        List<int[]> perDate = new ArrayList<>(dates.size());
+        int[] dateOffsets = new int[dates.size() + 1];
+        int total = 0;
+        int index = 0;
+
+        for (LocalDate date : dates) {
+            int[] starts = stamp(template, timeline(template.getTimezone(), date.getYear()), date);
+            perDate.add(starts);
+            total += starts.length;
+            dateOffsets[++index] = total;
+        }
+
+        int[] packed = new int[total];
+        for (int i = 0; i < perDate.size(); i++) {
+            System.arraycopy(perDate.get(i), 0, packed, dateOffsets[i], perDate.get(i).length);
+        }
+        return new SlotGrid(packed, template.getDurationMinutes(), dateOffsets);
+    }
+
+    /**
+     * Offset timeline of the zone covering at least the given year; unknown zones fail like {@link ZoneId#of}
+     */
+    public ZoneTimeline timeline(String timezone, int year) {
+        ZoneTimeline timeline = timelines.get(timezone);
+        if (timeline == null || !timeline.covers(year)) {
+            timeline = timelines.compute(timezone, (zone, current) -> current != null && current.covers(year)
+                    ? current
+                    : ZoneTimeline.build(ZoneId.of(zone).getRules(),
+                            current != null ? Math.min(current.fromYear, year - 1) : year - 1,
+                            current != null ? Math.max(current.toYear, year + 2) : year + 2));
+        }
+        return timeline;
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private int[] stamp(Template template, ZoneTimeline timeline, LocalDate date) {
+        long localDayStart = date.toEpochDay() * MINUTES_PER_DAY;
+        long startUtc = timeline.toEpochMinute(localDayStart + template.getStartMinuteOfDay());
+        long endUtc = timeline.toEpochMinute(localDayStart + template.getEndMinuteOfDay());
+
+        int[] offsets = offsets(endUtc - startUtc, template.getDurationMinutes(), template.getBufferMinutes());
+        int[] starts = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            starts[i] = Math.toIntExact(startUtc + offsets[i]);
+        }
+        return starts;
+    }
+
+    /**
+     * Memoized elapsed-minute slot starts for a window; most dates of a zone share one or two window lengths
+     */
+    private int[] offsets(long windowMinutes, int durationMinutes, int bufferMinutes) {
+        if (durationMinutes <= 0 || windowMinutes < durationMinutes) {
+            return NO_SLOTS;
+        }
+
+        long key = (windowMinutes << 32) | ((long) durationMinutes << 16) | bufferMinutes;
+        int[] cached = gridOffsets.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stride = durationMinutes + bufferMinutes;
+        int[] offsets = new int[(int) ((windowMinutes - durationMinutes) / stride) + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i * stride;
+        }
+
+        gridOffsets.put(key, offsets);
+        return offsets;
+    }
+
+    /**
+     * Minute-precision slot template of an availability window, independent of its date
+     */
+    public static final class Template {
+        private final int startMinuteOfDay;
+        private final int endMinuteOfDay;
+        private final int durationMinutes;
+        private final int bufferMinutes;
+        private final String timezone;
+
+        public Template(LocalTime startTime, LocalTime endTime, int durationMinutes, int bufferMinutes, String timezone) {
+            if (durationMinutes > 0xFFFF || bufferMinutes < 0 || bufferMinutes > 0xFFFF) {
+                throw new IllegalArgumentException("Slot duration and buffer must be between 0 and 65535 minutes");
+            }
+            this.startMinuteOfDay = startTime.toSecondOfDay() / 60;
+            this.endMinuteOfDay = endTime.toSecondOfDay() / 60;
+            this.durationMinutes = durationMinutes;
+            this.bufferMinutes = bufferMinutes;
+            this.timezone = timezone;
+        }
+
+        public int getStartMinuteOfDay() {
+            return startMinuteOfDay;
+        }
+
+        public int getEndMinuteOfDay() {
+            return endMinuteOfDay;
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        public int getBufferMinutes() {
+            return bufferMinutes;
+        }
+
+        public String getTimezone() {
+            return timezone;
+        }
+    }
+
+    /**
+     * Slot starts as UTC epoch minutes; slots of date i are at [dateOffsets[i], dateOffsets[i + 1])
+     */
+    public static final class SlotGrid {
+        private final int[] startMinutes;
+        private final int durationMinutes;
+        private final int[] dateOffsets;
+
+        SlotGrid(int[] startMinutes, int durationMinutes, int[] dateOffsets) {
+            this.startMinutes = startMinutes;
+            this.durationMinutes = durationMinutes;
+            this.dateOffsets = dateOffsets;
+        }
+
+        public int size() {
+            return startMinutes.length;
+        }
+
+        public int startMinute(int index) {
+            return startMinutes[index];
+        }
+
+        public int endMinute(int index) {
+            return startMinutes[index] + durationMinutes;
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        public int dateCount() {
+            return dateOffsets.length - 1;
+        }
+
+        public int firstIndexOfDate(int dateIndex) {
+            return dateOffsets[dateIndex];
+        }
+
+        public int endIndexOfDate(int dateIndex) {
+            return dateOffsets[dateIndex + 1];
+        }
+
+        public int[] toStartMinuteArray() {
+            return Arrays.copyOf(startMinutes, startMinutes.length);
+        }
+
+        public static LocalDateTime toUtcDateTime(int epochMinute) {
+            return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+        }
+
+        public static LocalDate toLocalDate(long localEpochMinute) {
+            return LocalDate.ofEpochDay(Math.floorDiv(localEpochMinute, MINUTES_PER_DAY));
+        }
+
+        public static int toMinuteOfDay(long localEpochMinute) {
+            return (int) Math.floorMod(localEpochMinute, MINUTES_PER_DAY);
+        }
+    }
+
+    /**
+     * A zone's offset transitions between two years, indexed by local wall-clock minute
+     */
+    public static final class ZoneTimeline {
+
+        /** How a local wall-clock time maps onto the timeline */
+        public enum LocalTimeKind { NORMAL, GAP, OVERLAP }
+
+        private final int fromYear;
+        private final int toYear;
+        private final int initialOffsetMinutes;
+        // Per transition: its UTC minute, first local minute of the gap/overlap, first local minute after it,
+        // offsets around it
+        private final long[] transitionAt;
+        private final long[] ambiguousFrom;
+        private final long[] settledFrom;
+        private final int[] offsetBefore;
+        private final int[] offsetAfter;
+
+        private ZoneTimeline(int fromYear, int toYear, int initialOffsetMinutes, long[] transitionAt,
+                             long[] ambiguousFrom, long[] settledFrom, int[] offsetBefore, int[] offsetAfter) {
+            this.fromYear = fromYear;
+            this.toYear = toYear;
+            this.initialOffsetMinutes = initialOffsetMinutes;
+            this.transitionAt = transitionAt;
+            this.ambiguousFrom = ambiguousFrom;
+            this.settledFrom = settledFrom;
+            this.offsetBefore = offsetBefore;
+            this.offsetAfter = offsetAfter;
+        }
+
+        static ZoneTimeline build(ZoneRules rules, int fromYear, int toYear) {
+            Instant from = LocalDate.of(fromYear, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).minusSeconds(86400);
+            Instant to = LocalDate.of(toYear, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).plusSeconds(86400);
+            int initialOffset = rules.getOffset(from).getTotalSeconds() / 60;
+
+            List<ZoneOffsetTransition> transitions = new ArrayList<>();
+            if (!rules.isFixedOffset()) {
+                ZoneOffsetTransition transition = rules.nextTransition(from);
+                while (transition != null && transition.getInstant().isBefore(to)) {
+                    transitions.add(transition);
+                    transition = rules.nextTransition(transition.getInstant());
+                }
+            }
+
+            int count = transitions.size();
+            long[] transitionAt = new long[count];
+            long[] ambiguousFrom = new long[count];
+            long[] settledFrom = new long[count];
+            int[] offsetBefore = new int[count];
+            int[] offsetAfter = new int[count];
+            for (int i = 0; i < count; i++) {
+                ZoneOffsetTransition transition = transitions.get(i);
+                long epochMinute = Math.floorDiv(transition.toEpochSecond(), 60);
+                transitionAt[i] = epochMinute;
+                offsetBefore[i] = transition.getOffsetBefore().getTotalSeconds() / 60;
+                offsetAfter[i] = transition.getOffsetAfter().getTotalSeconds() / 60;
+                ambiguousFrom[i] = epochMinute + Math.min(offsetBefore[i], offsetAfter[i]);
+                settledFrom[i] = epochMinute + Math.max(offsetBefore[i], offsetAfter[i]);
+            }
+
+            return new ZoneTimeline(fromYear, toYear, initialOffset, transitionAt, ambiguousFrom, settledFrom,
+                    offsetBefore, offsetAfter);
+        }
+
+        boolean covers(int year) {
+            return year >= fromYear && year < toYear;
+        }
+
+        /**
+         * UTC epoch minute of a local epoch minute; gaps shift forward, overlaps take the earlier offset
+         */
+        public long toEpochMinute(long localEpochMinute) {
+            return localEpochMinute - offsetMinutesAt(localEpochMinute);
+        }
+
+        /**
+         * Local epoch minute of a UTC epoch minute; unlike the reverse this is never ambiguous
+         */
+        public long toLocalEpochMinute(long utcEpochMinute) {
+            int index = Arrays.binarySearch(transitionAt, utcEpochMinute);
+            index = index >= 0 ? index : -index - 2;
+            return utcEpochMinute + (index < 0 ? initialOffsetMinutes : offsetAfter[index]);
+        }
+
+        public LocalTimeKind classify(long localEpochMinute) {
+            int index = lastSettledBefore(localEpochMinute) + 1;
+            if (index < settledFrom.length && localEpochMinute >= ambiguousFrom[index]) {
+                return offsetAfter[index] > offsetBefore[index] ? LocalTimeKind.GAP : LocalTimeKind.OVERLAP;
+            }
+            return LocalTimeKind.NORMAL;
+        }
+
+        /**
+         * Offset in force up to the first transition whose gap/overlap the local time has fully passed;
+         * inside a gap or overlap that is the pre-transition offset, which implements both policies
+         */
+        private int offsetMinutesAt(long localEpochMinute) {
+            int index = lastSettledBefore(localEpochMinute);
+            return index < 0 ? initialOffsetMinutes : offsetAfter[index];
+        }
+
+        private int lastSettledBefore(long localEpochMinute) {
+            int index = Arrays.binarySearch(settledFrom, localEpochMinute);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.util.List;
+
+/**
+ * Fills in the provider-local start date and minute of slots stored before those columns existed.
+ *
+ * Time-of-day search filters read only the local columns, so such slots would never match one. Slots generated
+ * since carry the columns already; this runs once at startup, a chunk per transaction, until none are left.
+ */
+@Service
+public class SlotLocalTimeBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotLocalTimeBackfillService.class);
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentSlotGenerator slotGenerator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.availability.local-time-backfill.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.local-time-backfill.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            backfill();
+        } catch (Exception e) {
+            logger.error("Slot local time backfill failed; it will be retried on the next start", e);
+        }
+    }
+
+    /**
+     * Localize every slot without a local start, returning how many were updated
+     */
+    public int backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int filled = 0;
+        List<AppointmentSlot> chunk;
+
+        do {
+            chunk = transactionTemplate.execute(status -> {
+                List<AppointmentSlot> slots = slotRepository.findWithoutLocalStart(PageRequest.of(0, chunkSize));
+                for (AppointmentSlot slot : slots) {
+                    try {
+                        slotGenerator.localizeStart(slot);
+                    } catch (DateTimeException e) {
+                        // Never reselect the slot; an unknown zone leaves its local start on UTC
+                        logger.warn("Unknown timezone on availability {}; using UTC for slot {}",
+                                slot.getProviderAvailability().getId(), slot.getId());
+                        slot.setLocalDate(slot.getStartDateTime().toLocalDate());
+                        slot.setLocalStartMinute(slot.getStartDateTime().toLocalTime().toSecondOfDay() / 60);
+                    }
+                }
+                return slots;
+            });
+            filled += chunk.size();
+        } while (chunk.size() == chunkSize);
+
+        if (filled > 0) {
+            logger.info("Stored the provider-local start of {} existing appointment slot(s)", filled);
+        }
+        return filled;
+    }
+}
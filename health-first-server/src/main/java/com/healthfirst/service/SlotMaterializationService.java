@@ -0,0 +1,197 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.AppointmentSlotBatchWriter;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps appointment slots written only for a rolling booking window.
+ *
+ * An availability instance is materialized once it is within {@code advanceBookingDays} plus
+ * {@code app.availability.materializer.margin-days} of today. Instances further out keep just
+ * their availability row until the nightly run reaches them. Each chunk commits on its own,
+ * so an interrupted run simply resumes from the instances still flagged as pending. A run pages
+ * forward past instances that fail, so one bad instance never holds back the ones after it.
+ */
+@Service
+public class SlotMaterializationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotMaterializationService.class);
+
+    // Position before every pending instance, where each run starts paging
+    private static final LocalDate FIRST_BOOKABLE_DATE = LocalDate.of(1, 1, 1);
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentSlotGenerator slotGenerator;
+
+    @Autowired
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.availability.materializer.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.availability.materializer.margin-days:7}")
+    private int marginDays = 7;
+
+    @Value("${app.availability.materializer.chunk-size:200}")
+    private int chunkSize = 200;
+
+    /**
+     * Whether the instance's slots belong in the materialized window as of today
+     */
+    public boolean isWithinHorizon(ProviderAvailability availability, LocalDate today) {
+        int advanceDays = availability.getAdvanceBookingDays() != null ? availability.getAdvanceBookingDays() : 0;
+        return !availability.getAvailabilityDate().minusDays(advanceDays).isAfter(today.plusDays(marginDays));
+    }
+
+    /**
+     * Nightly extension of the materialized window
+     */
+    @Scheduled(cron = "${app.availability.materializer.cron:0 30 2 * * *}")
+    public void extendHorizon() {
+        if (!enabled || virtualSlotService.isVirtualMode()) {
+            return;
+        }
+
+        try {
+            materializePending(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Slot materialization run failed; pending instances will be retried on the next run", e);
+        }
+    }
+
+    /**
+     * Write slots for every pending instance inside the window, one committed chunk at a time.
+     * An instance that fails is logged and left pending for the next run, and the rest carry on.
+     * Returns the number of availability instances materialized.
+     */
+    public int materializePending(LocalDate today) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDate horizonDate = today.plusDays(marginDays);
+        LocalDate afterDate = FIRST_BOOKABLE_DATE;
+        UUID afterId = FIRST_ID;
+        int instances = 0;
+        int skipped = 0;
+        int chunks = 0;
+
+        while (true) {
+            LocalDate chunkAfterDate = afterDate;
+            UUID chunkAfterId = afterId;
+            List<ProviderAvailability> chunk;
+            try {
+                chunk = transactionTemplate.execute(status -> materialize(
+                        findPending(today, horizonDate, chunkAfterDate, chunkAfterId)));
+                instances += chunk.size();
+            } catch (Exception e) {
+                // The chunk rolled back as a whole; redo it one instance per transaction to isolate the failure
+                logger.warn("Slot materialization chunk failed, retrying its instances one at a time", e);
+                chunk = transactionTemplate.execute(status ->
+                        findPending(today, horizonDate, chunkAfterDate, chunkAfterId));
+                int materialized = materializeEach(transactionTemplate, chunk);
+                instances += materialized;
+                skipped += chunk.size() - materialized;
+            }
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+
+            chunks++;
+            ProviderAvailability last = chunk.get(chunk.size() - 1);
+            afterDate = last.getBookableFromDate();
+            afterId = last.getId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        logger.info("Materialized slots for {} availability instance(s) in {} chunk(s) up to {}, skipped {}",
+                instances, chunks, horizonDate, skipped);
+        return instances;
+    }
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    private List<ProviderAvailability> findPending(LocalDate today, LocalDate horizonDate,
+                                                   LocalDate afterDate, UUID afterId) {
+        return availabilityRepository.findPendingSlotMaterialization(
+                today, horizonDate, afterDate, afterId, PageRequest.of(0, chunkSize));
+    }
+
+    private int materializeEach(TransactionTemplate transactionTemplate, List<ProviderAvailability> chunk) {
+        int materialized = 0;
+        for (ProviderAvailability candidate : chunk) {
+            UUID availabilityId = candidate.getId();
+            try {
+                Boolean written = transactionTemplate.execute(status -> availabilityRepository.findById(availabilityId)
+                        .filter(availability -> !Boolean.TRUE.equals(availability.getSlotsMaterialized())
+                                && Boolean.TRUE.equals(availability.getIsActive()))
+                        .map(availability -> !materialize(List.of(availability)).isEmpty())
+                        .orElse(false));
+                if (Boolean.TRUE.equals(written)) {
+                    materialized++;
+                }
+            } catch (Exception e) {
+                logger.error("Skipping slot materialization of availability: {}, it stays pending for the next run",
+                        availabilityId, e);
+            }
+        }
+        return materialized;
+    }
+
+    private List<ProviderAvailability> materialize(List<ProviderAvailability> pending) {
+        if (pending.isEmpty()) {
+            return pending;
+        }
+
+        Iterator<AppointmentSlot> slots = pending.stream()
+                .flatMap(availability -> slotGenerator.generate(availability).stream())
+                .iterator();
+        int written = slotBatchWriter.insertAll(slots);
+
+        // Flag the chunk in the same transaction as its slot rows
+        pending.forEach(availability -> availability.setSlotsMaterialized(true));
+        availabilityRepository.saveAll(pending);
+
+        // Newly written slots become searchable once the chunk commits
+        Map<UUID, List<LocalDate>> datesByProvider = pending.stream().collect(Collectors.groupingBy(
+                availability -> availability.getProvider().getId(),
+                Collectors.mapping(ProviderAvailability::getAvailabilityDate, Collectors.toList())));
+        datesByProvider.forEach((providerId, dates) ->
+                eventPublisher.publishEvent(AvailabilityChangedEvent.forDates(providerId, dates)));
+
+        logger.debug("Materialized {} slot(s) for {} availability instance(s)", written, pending.size());
+        return pending;
+    }
+}
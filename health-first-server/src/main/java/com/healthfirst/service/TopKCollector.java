@@ -0,0 +1,68 @@
+package com.healthfirst.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first k items offered under an order without holding the rest.
+ *
+ * Backed by a heap with the worst kept item on top, so an offer is O(log k) and memory stays at k
+ * however many items stream past. Not thread-safe.
+ */
+public class TopKCollector<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    public TopKCollector(int k, Comparator<? super T> order) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), order.reversed());
+    }
+
+    /**
+     * Keep the item if it belongs in the first k; returns whether it was kept
+     */
+    public boolean offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+            return true;
+        }
+        if (k == 0 || order.compare(item, heap.peek()) >= 0) {
+            return false;
+        }
+        heap.poll();
+        heap.add(item);
+        return true;
+    }
+
+    public boolean isFull() {
+        return heap.size() >= k;
+    }
+
+    /**
+     * The last item kept in order, i.e. the one the next better offer would displace; null when empty
+     */
+    public T last() {
+        return heap.peek();
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * The kept items, first to last
+     */
+    public List<T> toList() {
+        List<T> items = new ArrayList<>(heap);
+        items.sort(order);
+        return items;
+    }
+}
@@ -0,0 +1,141 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.enums.SlotMode;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Derives appointment slots on the fly from availability rules.
+ *
+ * In {@link SlotMode#VIRTUAL} mode open slots are never written up front; a slot row is only
+ * persisted once it is booked (and stays around after a cancellation). Derived slots are
+ * transient {@link AppointmentSlot} instances carrying a deterministic id, overlaid with
+ * whatever rows already exist for the same availability and start time.
+ */
+@Service
+@Transactional(readOnly = true)
+public class VirtualSlotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualSlotService.class);
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentSlotGenerator slotGenerator;
+
+    @Value("${app.availability.slot-mode:MATERIALIZED}")
+    private SlotMode slotMode = SlotMode.MATERIALIZED;
+
+    public boolean isVirtualMode() {
+        return slotMode == SlotMode.VIRTUAL;
+    }
+
+    public SlotMode getSlotMode() {
+        return slotMode;
+    }
+
+    /**
+     * Stable id for a derived slot, so the same grid position always maps to the same id
+     */
+    public static UUID virtualSlotId(UUID availabilityId, LocalDateTime startDateTime) {
+        String key = availabilityId + "|" + startDateTime;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Full slot grid (open, booked and cancelled) for the availabilities, keyed by availability id
+     */
+    public Map<UUID, List<AppointmentSlot>> deriveSlots(List<ProviderAvailability> availabilities) {
+        Map<UUID, List<AppointmentSlot>> result = new LinkedHashMap<>();
+        if (availabilities.isEmpty()) {
+            return result;
+        }
+
+        // One query for every persisted row behind these availabilities
+        List<UUID> availabilityIds = availabilities.stream()
+                .map(ProviderAvailability::getId)
+                .collect(Collectors.toList());
+        Map<UUID, Map<LocalDateTime, AppointmentSlot>> persisted = new HashMap<>();
+        for (AppointmentSlot slot : slotRepository.findAllSlotsByProviderAvailabilityIds(availabilityIds)) {
+            persisted.computeIfAbsent(slot.getProviderAvailability().getId(), k -> new HashMap<>())
+                    .put(slot.getStartDateTime(), slot);
+        }
+
+        for (ProviderAvailability availability : availabilities) {
+            Map<LocalDateTime, AppointmentSlot> stored = persisted.getOrDefault(availability.getId(), Collections.emptyMap());
+            List<AppointmentSlot> slots = new ArrayList<>();
+
+            for (AppointmentSlot derived : slotGenerator.generate(availability)) {
+                AppointmentSlot existing = stored.get(derived.getStartDateTime());
+                if (existing != null) {
+                    slots.add(existing);
+                } else {
+                    derived.setId(virtualSlotId(availability.getId(), derived.getStartDateTime()));
+                    slots.add(derived);
+                }
+            }
+
+            result.put(availability.getId(), slots);
+        }
+
+        return result;
+    }
+
+    /**
+     * Open slots derived from the availabilities whose start falls within the UTC range
+     */
+    public List<AppointmentSlot> deriveOpenSlots(List<ProviderAvailability> availabilities,
+                                                 LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return deriveSlots(availabilities).values().stream()
+                .flatMap(List::stream)
+                .filter(AppointmentSlot::isAvailable)
+                .filter(slot -> !slot.getStartDateTime().isBefore(startDateTime)
+                        && !slot.getStartDateTime().isAfter(endDateTime))
+                .sorted(Comparator.comparing(AppointmentSlot::getStartDateTime))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resolve the slot a patient wants to book by its grid position.
+     * Returns the persisted row if one exists, otherwise (virtual mode only) a new unsaved slot
+     * when the start time lies on the availability's slot grid.
+     */
+    public Optional<AppointmentSlot> resolveForBooking(UUID availabilityId, LocalDateTime startDateTime) {
+        Optional<AppointmentSlot> persisted = slotRepository
+                .findByProviderAvailabilityAndStartDateTime(availabilityId, startDateTime);
+        if (persisted.isPresent() || !isVirtualMode()) {
+            return persisted;
+        }
+
+        Optional<ProviderAvailability> availability = availabilityRepository.findById(availabilityId)
+                .filter(ProviderAvailability::getIsActive);
+        if (availability.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<AppointmentSlot> derived = slotGenerator.generate(availability.get()).stream()
+                .filter(slot -> slot.getStartDateTime().equals(startDateTime))
+                .findFirst();
+        if (derived.isEmpty()) {
+            logger.warn("Requested start {} is not on the slot grid of availability {}", startDateTime, availabilityId);
+        }
+        return derived;
+    }
+}
@@ -0,0 +1,135 @@
+package com.healthfirst.benchmark;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.entity.embedded.ClinicAddress;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.repository.AppointmentSlotBatchWriter;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import com.healthfirst.repository.ProviderRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the per-entity saveAll path against the JDBC batch writer when
+ * writing the slots of 1, 30 and 180 availability instances.
+ * Run with: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class SlotGenerationWriteBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotGenerationWriteBenchmark.class);
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int SLOTS_PER_INSTANCE = 16; // 09:00-17:00 in 30 minute slots
+
+    @Autowired
+    private ProviderRepository providerRepository;
+
+    @Autowired
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest(name = "{0} availability instance(s)")
+    @ValueSource(ints = {1, 30, 180})
+    void compareSlotWritePaths(int instances) {
+        double entityMillis = measure(instances, slots -> {
+            slotRepository.saveAll(slots);
+            slotRepository.flush();
+        });
+        double batchMillis = measure(instances, slots -> slotBatchWriter.insertAll(slots));
+
+        logger.info("[slot-write] instances={} slots={} saveAll={}ms batchWriter={}ms speedup={}x",
+                instances, instances * SLOTS_PER_INSTANCE, String.format("%.2f", entityMillis),
+                String.format("%.2f", batchMillis), String.format("%.1f", entityMillis / batchMillis));
+    }
+
+    /**
+     * Average wall time of one write pass; every round runs in its own rolled back transaction
+     */
+    private double measure(int instances, Consumer<List<AppointmentSlot>> writer) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long totalNanos = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long elapsed = transactionTemplate.execute(status -> {
+                List<AppointmentSlot> slots = buildSlots(instances);
+
+                long start = System.nanoTime();
+                writer.accept(slots);
+                long duration = System.nanoTime() - start;
+
+                assertEquals(instances * SLOTS_PER_INSTANCE, slotRepository.count());
+                status.setRollbackOnly();
+                return duration;
+            });
+
+            if (round >= WARMUP_ROUNDS) {
+                totalNanos += elapsed;
+            }
+        }
+
+        return totalNanos / (MEASURED_ROUNDS * 1_000_000.0);
+    }
+
+    private List<AppointmentSlot> buildSlots(int instances) {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        Provider provider = new Provider("Bench", "Provider", "bench" + suffix + "@clinic.com",
+                "+1" + Math.abs(suffix.hashCode() % 1_000_000_000L), "hash", "Cardiology",
+                "LIC" + suffix, 10, new ClinicAddress("1 Main St", "Springfield", "IL", "62701"));
+        providerRepository.save(provider);
+
+        List<ProviderAvailability> availabilities = new ArrayList<>();
+        LocalDate date = LocalDate.now().plusDays(1);
+        for (int i = 0; i < instances; i++) {
+            availabilities.add(new ProviderAvailability(provider, date.plusDays(i), LocalTime.of(9, 0),
+                    LocalTime.of(17, 0), 30, AppointmentType.CONSULTATION, "UTC"));
+        }
+        availabilityRepository.saveAllAndFlush(availabilities);
+
+        List<AppointmentSlot> slots = new ArrayList<>(instances * SLOTS_PER_INSTANCE);
+        for (ProviderAvailability availability : availabilities) {
+            LocalDateTime start = availability.getAvailabilityDate().atTime(availability.getStartTime());
+            for (int i = 0; i < SLOTS_PER_INSTANCE; i++) {
+                AppointmentSlot slot = new AppointmentSlot(availability, provider,
+                        start.plusMinutes(30L * i), start.plusMinutes(30L * (i + 1)), AppointmentType.CONSULTATION);
+                slot.setPrice(new BigDecimal("100.00"));
+                slot.setLocation("Main Clinic");
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+}
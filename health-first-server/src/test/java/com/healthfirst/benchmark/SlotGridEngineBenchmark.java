@@ -0,0 +1,100 @@
+package com.healthfirst.benchmark;
+
+import com.healthfirst.service.SlotGridEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH comparison of the ZonedDateTime slot loop against the SlotGridEngine for
+ * a 09:00-17:00, 30 minute template stamped onto 1, 30 and 180 consecutive dates.
+ * Run with: mvn test -Pbenchmark -Dtest=SlotGridEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Tag("benchmark")
+public class SlotGridEngineBenchmark {
+
+    private static final LocalTime START = LocalTime.of(9, 0);
+    private static final LocalTime END = LocalTime.of(17, 0);
+    private static final int DURATION = 30;
+    private static final int BUFFER = 0;
+
+    @Param({"UTC", "America/New_York"})
+    public String timezone;
+
+    @Param({"1", "30", "180"})
+    public int dateCount;
+
+    private List<LocalDate> dates;
+    private SlotGridEngine engine;
+    private SlotGridEngine.Template template;
+
+    @Setup
+    public void setUp() {
+        dates = LocalDate.of(2026, 1, 1).datesUntil(LocalDate.of(2026, 1, 1).plusDays(dateCount))
+                .collect(Collectors.toList());
+        engine = new SlotGridEngine();
+        template = new SlotGridEngine.Template(START, END, DURATION, BUFFER, timezone);
+    }
+
+    @Benchmark
+    public List<LocalDateTime> zonedDateTimeLoop() {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDate date : dates) {
+            ZoneId zone = ZoneId.of(timezone);
+            ZonedDateTime startZoned = LocalDateTime.of(date, START).atZone(zone);
+            ZonedDateTime endZoned = LocalDateTime.of(date, END).atZone(zone);
+            LocalDateTime currentUtc = startZoned.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+            LocalDateTime endUtc = endZoned.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+
+            while (!currentUtc.plus(DURATION, ChronoUnit.MINUTES).isAfter(endUtc)) {
+                starts.add(currentUtc);
+                currentUtc = currentUtc.plus(DURATION, ChronoUnit.MINUTES).plus(BUFFER, ChronoUnit.MINUTES);
+            }
+        }
+        return starts;
+    }
+
+    @Benchmark
+    public SlotGridEngine.SlotGrid slotGridEngine() {
+        return engine.generate(template, dates);
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SlotGridEngineBenchmark.class.getName() + "\\.")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,267 @@
+package com.healthfirst.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthfirst.dto.*;
+import com.healthfirst.entity.*;
+import com.healthfirst.enums.*;
+import com.healthfirst.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AvailabilityJobServiceTest {
+
+    @Mock
+    private AvailabilityJobRepository jobRepository;
+
+    @Mock
+    private AvailabilityJobChunkRepository chunkRepository;
+
+    @Mock
+    private ProviderRepository providerRepository;
+
+    @Mock
+    private ProviderAvailabilityService availabilityService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TaskExecutor jobExecutor = new SameThreadExecutor();
+
+    @InjectMocks
+    private AvailabilityJobService jobService;
+
+    private Provider testProvider;
+    private CreateAvailabilityRequest testRequest;
+    private AvailabilityJob storedJob;
+    private final List<AvailabilityJobChunk> storedChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        testProvider = new Provider();
+        testProvider.setId(UUID.randomUUID());
+        testProvider.setIsActive(true);
+
+        testRequest = new CreateAvailabilityRequest(
+                LocalDate.now().plusDays(1),
+                LocalTime.of(9, 0),
+                LocalTime.of(17, 0),
+                30,
+                AppointmentType.CONSULTATION,
+                "UTC"
+        );
+        testRequest.setRecurrencePattern(RecurrencePattern.DAILY);
+        testRequest.setRecurrenceEndDate(LocalDate.now().plusDays(70));
+
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(availabilityService.precheckCreate(any(), any())).thenReturn(Optional.empty());
+        when(availabilityService.expandRecurrenceDates(any())).thenReturn(
+                LocalDate.now().plusDays(1).datesUntil(LocalDate.now().plusDays(71)).collect(Collectors.toList()));
+
+        stubInMemoryJobStore();
+    }
+
+    @Test
+    void testSubmitJob_SplitsByDateRangeAndCompletes() {
+        // Arrange
+        when(availabilityService.createInstancesOnDates(eq(testProvider), any(), anyList(), any()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(2)).size() * 16);
+
+        // Act
+        AvailabilityJobResponse response = jobService.submitJob(testProvider.getId(), testRequest);
+
+        // Assert - 70 days in 30 day chunks
+        assertTrue(response.isSuccess());
+        assertEquals(3, storedChunks.size());
+        assertEquals(List.of(30, 30, 10), storedChunks.stream()
+                .map(chunk -> (int) chunk.getStartDate().datesUntil(chunk.getEndDate().plusDays(1)).count())
+                .collect(Collectors.toList()));
+        verify(availabilityService, times(3)).createInstancesOnDates(eq(testProvider), any(), anyList(), eq(storedJob.getId()));
+
+        assertEquals(AvailabilityJobStatus.COMPLETED, storedJob.getStatus());
+        assertEquals(70, storedJob.getAvailabilityCount());
+        assertEquals(70 * 16, storedJob.getSlotCount());
+        assertNotNull(storedJob.getCompletedAt());
+    }
+
+    @Test
+    void testSubmitJob_FailedChunkReportedInProgress() {
+        // Arrange - the second date range fails
+        LocalDate failingDate = LocalDate.now().plusDays(31);
+        when(availabilityService.createInstancesOnDates(eq(testProvider), any(), anyList(), any())).thenAnswer(invocation -> {
+            List<LocalDate> dates = invocation.getArgument(2);
+            if (dates.contains(failingDate)) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return dates.size() * 16;
+        });
+
+        // Act
+        AvailabilityJobResponse submitted = jobService.submitJob(testProvider.getId(), testRequest);
+        AvailabilityJobResponse progress = jobService.getJob(testProvider.getId(), submitted.getData().getJobId());
+
+        // Assert
+        assertTrue(progress.isSuccess());
+        AvailabilityJobResponse.JobData data = progress.getData();
+        assertEquals(AvailabilityJobStatus.COMPLETED_WITH_ERRORS, data.getStatus());
+        assertEquals(2, data.getCompletedChunks());
+        assertEquals(1, data.getFailedChunks());
+        assertEquals(100, data.getProgressPercent());
+        assertEquals(1, data.getFailures().size());
+        assertEquals("Database unavailable", data.getFailures().get(0).getError());
+        assertEquals(1, data.getFailures().get(0).getChunkIndex());
+    }
+
+    @Test
+    void testSubmitJob_PrecheckRejected() {
+        // Arrange
+        when(availabilityService.precheckCreate(any(), any())).thenReturn(Optional.of(
+                AvailabilityResponse.error("Overlapping availability slots are not allowed", "OVERLAP_ERROR")));
+
+        // Act
+        AvailabilityJobResponse response = jobService.submitJob(testProvider.getId(), testRequest);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertEquals("OVERLAP_ERROR", response.getErrorCode());
+        verify(jobRepository, never()).save(any());
+        verifyNoInteractions(jobExecutor);
+    }
+
+    @Test
+    void testResumeUnfinishedJobs_ProcessesPendingChunks() {
+        // Arrange - a job persisted before a restart with all chunks still pending
+        storedJob = new AvailabilityJob(testProvider.getId(), writeRequest(), 2);
+        storedJob.setId(UUID.randomUUID());
+        storedChunks.add(new AvailabilityJobChunk(storedJob.getId(), 0, LocalDate.now().plusDays(1), LocalDate.now().plusDays(30)));
+        storedChunks.add(new AvailabilityJobChunk(storedJob.getId(), 1, LocalDate.now().plusDays(31), LocalDate.now().plusDays(60)));
+        storedChunks.forEach(chunk -> chunk.setId(UUID.randomUUID()));
+        when(jobRepository.findByStatusIn(anyCollection())).thenReturn(List.of(storedJob));
+
+        // Act
+        jobService.resumeUnfinishedJobs();
+
+        // Assert
+        verify(availabilityService, times(2)).createInstancesOnDates(eq(testProvider), any(), anyList(), any());
+        assertEquals(AvailabilityJobStatus.COMPLETED, storedJob.getStatus());
+    }
+
+    @Test
+    void testGetJob_OtherProvider() {
+        // Arrange
+        storedJob = new AvailabilityJob(UUID.randomUUID(), "{}", 1);
+        storedJob.setId(UUID.randomUUID());
+
+        // Act
+        AvailabilityJobResponse response = jobService.getJob(testProvider.getId(), storedJob.getId());
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertEquals("JOB_NOT_FOUND", response.getErrorCode());
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private String writeRequest() {
+        try {
+            return objectMapper.writeValueAsString(testRequest);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Back the job and chunk repositories with the fields above, mirroring the update statements
+     */
+    private void stubInMemoryJobStore() {
+        when(jobRepository.save(any(AvailabilityJob.class))).thenAnswer(invocation -> {
+            AvailabilityJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(UUID.randomUUID());
+            }
+            storedJob = job;
+            return job;
+        });
+        when(jobRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(storedJob).filter(job -> job.getId().equals(invocation.getArgument(0))));
+        when(jobRepository.recordChunkCompleted(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            storedJob.setCompletedChunks(storedJob.getCompletedChunks() + 1);
+            storedJob.setAvailabilityCount(storedJob.getAvailabilityCount() + (int) invocation.getArgument(1));
+            storedJob.setSlotCount(storedJob.getSlotCount() + (int) invocation.getArgument(2));
+            return 1;
+        });
+        when(jobRepository.recordChunkFailed(any())).thenAnswer(invocation -> {
+            storedJob.setFailedChunks(storedJob.getFailedChunks() + 1);
+            return 1;
+        });
+        when(jobRepository.markRunning(any())).thenAnswer(invocation -> {
+            storedJob.setStatus(AvailabilityJobStatus.RUNNING);
+            return 1;
+        });
+
+        when(chunkRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<AvailabilityJobChunk> chunks = invocation.getArgument(0);
+            chunks.forEach(chunk -> chunk.setId(UUID.randomUUID()));
+            storedChunks.addAll(chunks);
+            return chunks;
+        });
+        when(chunkRepository.findByJobIdOrderByChunkIndex(any())).thenAnswer(invocation -> storedChunks);
+        when(chunkRepository.countByJobIdAndStatus(any(), any())).thenAnswer(invocation -> storedChunks.stream()
+                .filter(chunk -> chunk.getStatus() == invocation.getArgument(1))
+                .count());
+        when(chunkRepository.findFirstByJobIdAndStatusOrderByChunkIndex(any(), any())).thenAnswer(invocation -> storedChunks.stream()
+                .filter(chunk -> chunk.getStatus() == invocation.getArgument(1))
+                .findFirst()
+                .map(chunk -> copyOf(chunk)));
+        when(chunkRepository.claim(any())).thenAnswer(invocation -> storedChunks.stream()
+                .filter(chunk -> chunk.getId().equals(invocation.getArgument(0))
+                        && chunk.getStatus() == AvailabilityJobStatus.PENDING)
+                .peek(chunk -> chunk.setStatus(AvailabilityJobStatus.RUNNING))
+                .count() > 0 ? 1 : 0);
+        when(chunkRepository.save(any(AvailabilityJobChunk.class))).thenAnswer(invocation -> {
+            AvailabilityJobChunk saved = invocation.getArgument(0);
+            storedChunks.replaceAll(chunk -> chunk.getId().equals(saved.getId()) ? saved : chunk);
+            return saved;
+        });
+    }
+
+    private AvailabilityJobChunk copyOf(AvailabilityJobChunk chunk) {
+        AvailabilityJobChunk copy = new AvailabilityJobChunk(
+                chunk.getJobId(), chunk.getChunkIndex(), chunk.getStartDate(), chunk.getEndDate());
+        copy.setId(chunk.getId());
+        copy.setStatus(chunk.getStatus());
+        return copy;
+    }
+
+    private static class SameThreadExecutor implements TaskExecutor {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.dto.AvailabilitySearchResult;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilitySearchCacheTest {
+
+    private AvailabilitySearchCache searchCache;
+    private UUID cardiologist;
+    private UUID dermatologist;
+    private LocalDate day;
+    private final AvailabilitySearchResult result = new AvailabilitySearchResult(List.of(), false, null);
+
+    @BeforeEach
+    void setUp() {
+        searchCache = new AvailabilitySearchCache();
+        cardiologist = UUID.randomUUID();
+        dermatologist = UUID.randomUUID();
+        day = LocalDate.now().plusDays(5);
+    }
+
+    @Test
+    void testGet_NormalizedRequestsShareAnEntry() {
+        // Arrange
+        AvailabilitySearchRequest stored = request(day, day.plusDays(2), cardiologist, dermatologist);
+        stored.setSpecialization("Cardiology");
+        stored.setMaxPrice(new BigDecimal("100"));
+        AvailabilitySearchRequest sameSearch = request(day, day.plusDays(2), dermatologist, cardiologist);
+        sameSearch.setSpecialization("cardiology");
+        sameSearch.setMaxPrice(new BigDecimal("100.00"));
+        AvailabilitySearchRequest otherSort = request(day, day.plusDays(2), cardiologist, dermatologist);
+        otherSort.setSortBy("price");
+
+        // Act
+        searchCache.put(stored, searchCache.generation(), result);
+
+        // Assert
+        assertSame(result, searchCache.get(sameSearch));
+        assertNull(searchCache.get(otherSort));
+        assertEquals(1, searchCache.getHits());
+        assertEquals(1, searchCache.getMisses());
+    }
+
+    @Test
+    void testInvalidation_OnlyDropsMatchingProviderAndDates() {
+        // Arrange
+        AvailabilitySearchRequest cardiologyThisWeek = request(day, day.plusDays(2), cardiologist);
+        AvailabilitySearchRequest dermatologyThisWeek = request(day, day.plusDays(2), dermatologist);
+        AvailabilitySearchRequest anyoneNextMonth = request(day.plusDays(30), day.plusDays(32));
+        AvailabilitySearchRequest anyoneThisWeek = request(day, day.plusDays(2));
+        for (AvailabilitySearchRequest request : List.of(cardiologyThisWeek, dermatologyThisWeek, anyoneNextMonth, anyoneThisWeek)) {
+            searchCache.put(request, searchCache.generation(), result);
+        }
+
+        // Act
+        searchCache.onSlotBooked(new SlotBookedEvent(cardiologist, UUID.randomUUID(), day.plusDays(1).atTime(9, 0)));
+
+        // Assert
+        assertNull(searchCache.get(cardiologyThisWeek));
+        assertNull(searchCache.get(anyoneThisWeek));
+        assertNotNull(searchCache.get(dermatologyThisWeek));
+        assertNotNull(searchCache.get(anyoneNextMonth));
+        assertEquals(2, searchCache.getInvalidations());
+    }
+
+    @Test
+    void testInvalidation_AvailabilityDatesReachAnAdjacentUtcDay() {
+        // Arrange
+        AvailabilitySearchRequest request = request(day, day, cardiologist);
+        searchCache.put(request, searchCache.generation(), result);
+
+        // Act - a window dated the day before can still start on this UTC date
+        searchCache.onAvailabilityChanged(AvailabilityChangedEvent.forDates(cardiologist, List.of(day.minusDays(1))));
+
+        // Assert
+        assertNull(searchCache.get(request));
+    }
+
+    @Test
+    void testInvalidation_InsuranceChangeDropsTheProvidersSearchesOnEveryDate() {
+        // Arrange
+        AvailabilitySearchRequest blueCrossNextMonth = request(day.plusDays(30), day.plusDays(32));
+        blueCrossNextMonth.setAcceptedInsurance(List.of("Blue Cross"));
+        AvailabilitySearchRequest dermatologyThisWeek = request(day, day.plusDays(2), dermatologist);
+        searchCache.put(blueCrossNextMonth, searchCache.generation(), result);
+        searchCache.put(dermatologyThisWeek, searchCache.generation(), result);
+
+        // Act
+        searchCache.onInsuranceChanged(new ProviderInsuranceChangedEvent(cardiologist, Set.of("Blue Cross")));
+
+        // Assert
+        assertNull(searchCache.get(blueCrossNextMonth));
+        assertNotNull(searchCache.get(dermatologyThisWeek));
+    }
+
+    @Test
+    void testGet_InsurancePlansIgnoreCaseAndSpacing() {
+        // Arrange
+        AvailabilitySearchRequest stored = request(day, day.plusDays(2));
+        stored.setAcceptedInsurance(List.of("Blue Cross", "Aetna"));
+        AvailabilitySearchRequest sameSearch = request(day, day.plusDays(2));
+        sameSearch.setAcceptedInsurance(List.of("aetna", " blue  cross"));
+
+        // Act
+        searchCache.put(stored, searchCache.generation(), result);
+
+        // Assert
+        assertSame(result, searchCache.get(sameSearch));
+    }
+
+    @Test
+    void testPut_SkipsResultsThatRacedAnInvalidation() {
+        // Arrange
+        AvailabilitySearchRequest request = request(day, day.plusDays(2));
+        long generation = searchCache.generation();
+
+        // Act - a change commits while the search is running
+        searchCache.onAvailabilityChanged(AvailabilityChangedEvent.forAllDates(dermatologist));
+        searchCache.put(request, generation, result);
+
+        // Assert
+        assertNull(searchCache.get(request));
+        assertEquals(0, searchCache.size());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedAndExpiredEntries() {
+        // Arrange
+        ReflectionTestUtils.setField(searchCache, "maxEntries", 2);
+        AvailabilitySearchRequest first = request(day, day);
+        AvailabilitySearchRequest second = request(day, day.plusDays(1));
+        AvailabilitySearchRequest third = request(day, day.plusDays(2));
+        searchCache.put(first, searchCache.generation(), result);
+        searchCache.put(second, searchCache.generation(), result);
+        searchCache.get(first);
+
+        // Act & Assert - the least recently used entry goes first
+        searchCache.put(third, searchCache.generation(), result);
+        assertNull(searchCache.get(second));
+        assertNotNull(searchCache.get(first));
+
+        // Act & Assert - an expired entry is dropped on access
+        ReflectionTestUtils.setField(searchCache, "ttlMs", -1L);
+        AvailabilitySearchRequest expiring = request(day.plusDays(3), day.plusDays(3));
+        searchCache.put(expiring, searchCache.generation(), result);
+        assertNull(searchCache.get(expiring));
+        assertEquals(3, searchCache.getEvictions());
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private AvailabilitySearchRequest request(LocalDate from, LocalDate to, UUID... providerIds) {
+        AvailabilitySearchRequest request = new AvailabilitySearchRequest(from, to);
+        if (providerIds.length > 0) {
+            request.setProviderIds(new ArrayList<>(Arrays.asList(providerIds)));
+        }
+        return request;
+    }
+}
@@ -0,0 +1,389 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchCursor;
+import com.healthfirst.dto.AvailabilitySearchFacets;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilitySearchIndexTest {
+
+    @Mock
+    private AppointmentSlotRepository slotRepository;
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Mock
+    private VirtualSlotService virtualSlotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private LocationTrigramIndex locationIndex;
+
+    @InjectMocks
+    private AvailabilitySearchIndex searchIndex;
+
+    private UUID cardiologist;
+    private UUID dermatologist;
+    private UUID availabilityId;
+    private LocalDate day;
+    private final List<Object[]> storedSlots = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cardiologist = UUID.randomUUID();
+        dermatologist = UUID.randomUUID();
+        availabilityId = UUID.randomUUID();
+        day = LocalDate.now().plusDays(3);
+        storedSlots.add(slot(cardiologist, "Cardiology", day.atTime(9, 0), AppointmentType.CONSULTATION, "120.00", "Main Clinic"));
+        storedSlots.add(slot(cardiologist, "Cardiology", day.atTime(10, 0), AppointmentType.FOLLOW_UP, "80.00", "Main Clinic"));
+        storedSlots.add(slot(dermatologist, "Dermatology", day.atTime(8, 0), AppointmentType.CONSULTATION, "60.00", "North Office"));
+        storedSlots.add(slot(dermatologist, "Dermatology", day.plusDays(1).atTime(8, 0), AppointmentType.CONSULTATION, null, null));
+
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(slotRepository.findOpenSlotRows(any(), any())).thenAnswer(invocation ->
+                rowsBetween(null, invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().when(slotRepository.findOpenSlotRowsByProvider(any(), any(), any())).thenAnswer(invocation ->
+                rowsBetween(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+    }
+
+    @Test
+    void testSearch_FallsBackUntilWarm() {
+        // Act & Assert
+        assertTrue(search(request(day, day)).isEmpty());
+        assertFalse(searchIndex.isWarm());
+        assertEquals(1, searchIndex.getDatabaseFallbacks());
+    }
+
+    @Test
+    void testSearch_FiltersByGroupAndSlotFields() {
+        // Arrange
+        searchIndex.rebuild();
+
+        AvailabilitySearchRequest bySpecialization = request(day, day.plusDays(1));
+        bySpecialization.setSpecialization("cardiology");
+
+        AvailabilitySearchRequest byPrice = request(day, day.plusDays(1));
+        byPrice.setMinPrice(new BigDecimal("70.00"));
+        byPrice.setMaxPrice(new BigDecimal("100.00"));
+
+        AvailabilitySearchRequest byTypeAndLocation = request(day, day.plusDays(1));
+        byTypeAndLocation.setAppointmentType(AppointmentType.CONSULTATION);
+        byTypeAndLocation.setLocation("north");
+
+        // Act & Assert
+        assertTrue(searchIndex.isWarm());
+        assertEquals(4, searchIndex.getIndexedSlotCount());
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0)), starts(search(bySpecialization).orElseThrow()));
+        assertEquals(List.of(day.atTime(10, 0)), starts(search(byPrice).orElseThrow()));
+        // A slot without a location is not excluded by the location filter
+        assertEquals(List.of(day.atTime(8, 0), day.plusDays(1).atTime(8, 0)),
+                starts(search(byTypeAndLocation).orElseThrow()));
+        verify(slotRepository, times(1)).findOpenSlotRows(any(), any());
+    }
+
+    @Test
+    void testSearch_UsesResolvedLocations() {
+        // Arrange - the location index resolves the substring to exact locations
+        searchIndex.rebuild();
+        AvailabilitySearchRequest byLocation = request(day, day);
+        byLocation.setLocation("clinic");
+        when(locationIndex.resolve("clinic")).thenReturn(Optional.of(Set.of("Main Clinic")));
+
+        // Act & Assert
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0)), starts(search(byLocation).orElseThrow()));
+        verify(locationIndex, times(1)).resolve("clinic");
+    }
+
+    @Test
+    void testSearch_TimeOfDayOnTheProvidersClockUnlessATimezoneIsGiven() {
+        // Arrange - a New York provider's 11:30 EDT slot starts at 15:30 UTC
+        storedSlots.add(slot(UUID.randomUUID(), "Pediatrics", day.atTime(15, 30), 11 * 60 + 30,
+                AppointmentType.CONSULTATION, "90.00", "Uptown"));
+        searchIndex.rebuild();
+
+        AvailabilitySearchRequest lateMorning = request(day, day);
+        lateMorning.setPreferredStartTime(LocalTime.of(11, 0));
+        lateMorning.setPreferredEndTime(LocalTime.of(12, 0));
+
+        // 13:30-14:30 in Kolkata is 08:00-09:00 UTC
+        AvailabilitySearchRequest kolkataAfternoon = request(day, day);
+        kolkataAfternoon.setPreferredStartTime(LocalTime.of(13, 30));
+        kolkataAfternoon.setPreferredEndTime(LocalTime.of(14, 30));
+        kolkataAfternoon.setTimezone("Asia/Kolkata");
+
+        // Act & Assert
+        assertEquals(List.of(day.atTime(15, 30)), starts(search(lateMorning).orElseThrow()));
+        assertEquals(List.of(day.atTime(8, 0), day.atTime(9, 0)), starts(search(kolkataAfternoon).orElseThrow()));
+    }
+
+    @Test
+    void testSearch_SortsAndLimits() {
+        // Arrange
+        searchIndex.rebuild();
+
+        AvailabilitySearchRequest cheapestFirst = request(day, day.plusDays(1));
+        cheapestFirst.setSortBy("price");
+        cheapestFirst.setMaxResults(2);
+
+        AvailabilitySearchRequest latestFirst = request(day, day.plusDays(1));
+        latestFirst.setAscending(false);
+        latestFirst.setMaxResults(1);
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> cheapest = search(cheapestFirst).orElseThrow();
+        List<AvailabilityResponse.AppointmentSlotData> latest = search(latestFirst).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(new BigDecimal("60.00"), new BigDecimal("80.00")),
+                cheapest.stream().map(AvailabilityResponse.AppointmentSlotData::getPrice).toList());
+        assertEquals(List.of(day.plusDays(1).atTime(8, 0)), starts(latest));
+        assertEquals(availabilityId, latest.get(0).getProviderAvailabilityId());
+    }
+
+    @Test
+    void testFindEarliest_FirstOpenSlotOfEachProvider() {
+        // Arrange
+        searchIndex.rebuild();
+        UUID withoutSlots = UUID.randomUUID();
+
+        // Act
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> earliest =
+                searchIndex.findEarliest(List.of(cardiologist, dermatologist, withoutSlots)).orElseThrow();
+
+        // Assert
+        assertEquals(Set.of(cardiologist, dermatologist), earliest.keySet());
+        assertEquals(day.atTime(9, 0), earliest.get(cardiologist).getStartDateTime());
+        assertEquals(day.atTime(8, 0), earliest.get(dermatologist).getStartDateTime());
+        assertEquals(dermatologist, earliest.get(dermatologist).getProviderId());
+    }
+
+    @Test
+    void testFindEarliest_BreaksTiesByUnsignedIdLikeTheDatabase() {
+        // Arrange - signed UUID order would put the 8000... id first
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        UUID low = UUID.fromString("7fffffff-0000-0000-0000-000000000000");
+        UUID internist = UUID.randomUUID();
+        Object[] highSlot = slot(internist, "Internal Medicine", day.atTime(7, 0), AppointmentType.CONSULTATION, null, null);
+        Object[] lowSlot = slot(internist, "Internal Medicine", day.atTime(7, 0), AppointmentType.CONSULTATION, null, null);
+        highSlot[0] = high;
+        lowSlot[0] = low;
+        storedSlots.add(highSlot);
+        storedSlots.add(lowSlot);
+        searchIndex.rebuild();
+
+        // Act
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> earliest =
+                searchIndex.findEarliest(List.of(internist)).orElseThrow();
+
+        // Assert
+        assertEquals(low, earliest.get(internist).getId());
+    }
+
+    @Test
+    void testFindEarliest_FallsBackUntilWarm() {
+        // Act & Assert
+        assertTrue(searchIndex.findEarliest(List.of(cardiologist)).isEmpty());
+        assertEquals(1, searchIndex.getDatabaseFallbacks());
+    }
+
+    @Test
+    void testSearch_BeyondHorizonFallsBack() {
+        // Arrange
+        searchIndex.rebuild();
+
+        // Act & Assert
+        assertTrue(search(request(day, LocalDate.now().plusDays(200))).isEmpty());
+    }
+
+    @Test
+    void testOnSlotBooked_DropsTheSlot() {
+        // Arrange
+        searchIndex.rebuild();
+
+        // Act
+        searchIndex.onSlotBooked(new SlotBookedEvent(cardiologist, availabilityId, day.atTime(9, 0)));
+
+        // Assert
+        assertEquals(List.of(day.atTime(8, 0), day.atTime(10, 0), day.plusDays(1).atTime(8, 0)),
+                starts(search(request(day, day.plusDays(1))).orElseThrow()));
+        assertEquals(3, searchIndex.getIndexedSlotCount());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_ReloadsOnlyThatProvider() {
+        // Arrange
+        searchIndex.rebuild();
+        storedSlots.removeIf(row -> row[2].equals(cardiologist) && row[4].equals(day.atTime(10, 0)));
+        storedSlots.add(slot(cardiologist, "Cardiology", day.atTime(15, 0), AppointmentType.CONSULTATION, "120.00", "Main Clinic"));
+
+        // Act
+        searchIndex.onAvailabilityChanged(AvailabilityChangedEvent.forDates(cardiologist, List.of(day)));
+
+        // Assert
+        assertEquals(List.of(day.atTime(8, 0), day.atTime(9, 0), day.atTime(15, 0), day.plusDays(1).atTime(8, 0)),
+                starts(search(request(day, day.plusDays(1))).orElseThrow()));
+        verify(slotRepository).findOpenSlotRowsByProvider(eq(cardiologist), eq(day.minusDays(1).atStartOfDay()),
+                eq(day.plusDays(2).atStartOfDay()));
+        verify(slotRepository, never()).findOpenSlotRowsByProvider(eq(dermatologist), any(), any());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_FailedReloadSendsOnlyItsDaysToTheDatabase() {
+        // Arrange
+        searchIndex.rebuild();
+        LocalDate later = day.plusDays(10);
+        when(slotRepository.findOpenSlotRowsByProvider(eq(cardiologist), any(), any()))
+                .thenThrow(new IllegalStateException("Connection reset"));
+
+        // Act - does not throw into the committed caller
+        searchIndex.onAvailabilityChanged(AvailabilityChangedEvent.forDates(cardiologist, List.of(day)));
+
+        // Assert - the changed days fall back, the rest of the index still answers
+        assertTrue(searchIndex.isWarm());
+        assertEquals(4, searchIndex.getIndexedSlotCount());
+        assertTrue(search(request(day, day.plusDays(1))).isEmpty());
+        assertTrue(search(request(later, later.plusDays(1))).isPresent());
+    }
+
+    @Test
+    void testSearch_PagesWithCursor() {
+        // Arrange - two slots share a start time, so the id breaks the tie
+        storedSlots.add(slot(dermatologist, "Dermatology", day.atTime(9, 0), AppointmentType.CONSULTATION, "90.00", null));
+        searchIndex.rebuild();
+        AvailabilitySearchRequest request = request(day, day.plusDays(1));
+        request.setMaxResults(2);
+
+        // Act - page through with limit + 1 like the service does
+        List<LocalDateTime> seen = new ArrayList<>();
+        AvailabilitySearchCursor cursor = null;
+        int pages = 0;
+        while (true) {
+            List<AvailabilityResponse.AppointmentSlotData> rows = searchIndex.search(request, cursor, 3).orElseThrow();
+            pages++;
+            List<AvailabilityResponse.AppointmentSlotData> page = rows.subList(0, Math.min(2, rows.size()));
+            seen.addAll(starts(page));
+            if (rows.size() <= 2) {
+                break;
+            }
+            request.setCursor(AvailabilitySearchCursor.after(request, page.get(1)).encode());
+            cursor = AvailabilitySearchCursor.of(request);
+        }
+
+        // Assert - every slot exactly once, in order
+        assertEquals(3, pages);
+        assertEquals(List.of(day.atTime(8, 0), day.atTime(9, 0), day.atTime(9, 0), day.atTime(10, 0),
+                day.plusDays(1).atTime(8, 0)), seen);
+    }
+
+    @Test
+    void testSearch_DistanceSortRanksEveryProviderInOnePass() {
+        // Arrange - the dermatologist is nearer, so both of their days come before the cardiologist's earlier slots
+        searchIndex.rebuild();
+        AvailabilitySearchRequest request = request(day, day.plusDays(1));
+        request.setSortBy("distance");
+        Map<UUID, Double> distances = Map.of(dermatologist, 1.0, cardiologist, 5.0);
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> firstPage = searchIndex.search(request, distances, null, 3).orElseThrow();
+        AvailabilityResponse.AppointmentSlotData last = firstPage.get(1);
+        last.setDistanceKm(distances.get(last.getProviderId()));
+        request.setCursor(AvailabilitySearchCursor.after(request, last).encode());
+        List<AvailabilityResponse.AppointmentSlotData> secondPage =
+                searchIndex.search(request, distances, AvailabilitySearchCursor.of(request), 3).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(day.atTime(8, 0), day.plusDays(1).atTime(8, 0), day.atTime(9, 0)), starts(firstPage));
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0)), starts(secondPage));
+    }
+
+    @Test
+    void testCollectFacets_CountsTheWholeMatchingSet() {
+        // Arrange
+        searchIndex.rebuild();
+        AvailabilitySearchRequest request = request(day, day.plusDays(1));
+        request.setMaxResults(1);
+        AvailabilitySearchFacets facets = new AvailabilitySearchFacets(new BigDecimal("50"));
+
+        // Act
+        boolean answered = searchIndex.collectFacets(request, facets);
+
+        // Assert
+        assertTrue(answered);
+        assertEquals(4, facets.getTotalCount());
+        assertEquals(List.of("Cardiology", "Dermatology"),
+                facets.getSpecializations().stream().map(AvailabilitySearchFacets.FacetValue::getValue).toList());
+        assertEquals(3, facets.getAppointmentTypes().get(0).getCount());
+        assertEquals(List.of(new BigDecimal("50"), new BigDecimal("100")),
+                facets.getPriceHistogram().stream().map(AvailabilitySearchFacets.PriceBucket::getMin).toList());
+        assertEquals(1, facets.getUnpricedCount());
+        assertEquals(new BigDecimal("60.00"), facets.getMinPrice());
+    }
+
+    @Test
+    void testCollectFacets_FallsBackUntilWarm() {
+        // Act & Assert
+        assertFalse(searchIndex.collectFacets(request(day, day), new AvailabilitySearchFacets(BigDecimal.TEN)));
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private Optional<List<AvailabilityResponse.AppointmentSlotData>> search(AvailabilitySearchRequest request) {
+        return searchIndex.search(request, null, request.getMaxResults());
+    }
+
+    private AvailabilitySearchRequest request(LocalDate from, LocalDate to) {
+        return new AvailabilitySearchRequest(from, to);
+    }
+
+    /**
+     * A slot of a provider on UTC
+     */
+    private Object[] slot(UUID providerId, String specialization, LocalDateTime start, AppointmentType type,
+                          String price, String location) {
+        return slot(providerId, specialization, start, start.toLocalTime().toSecondOfDay() / 60, type, price, location);
+    }
+
+    private Object[] slot(UUID providerId, String specialization, LocalDateTime start, int localStartMinute,
+                          AppointmentType type, String price, String location) {
+        return new Object[] {UUID.randomUUID(), availabilityId, providerId, specialization, start, start.plusMinutes(30),
+                type, price != null ? new BigDecimal(price) : null, location, localStartMinute};
+    }
+
+    private List<Object[]> rowsBetween(UUID providerId, LocalDateTime from, LocalDateTime to) {
+        return storedSlots.stream()
+                .filter(row -> providerId == null || row[2].equals(providerId))
+                .filter(row -> !((LocalDateTime) row[4]).isBefore(from) && ((LocalDateTime) row[4]).isBefore(to))
+                .toList();
+    }
+
+    private List<LocalDateTime> starts(List<AvailabilityResponse.AppointmentSlotData> slots) {
+        return slots.stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.healthfirst.service;
+
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookedCountReconciliationServiceTest {
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BookedCountReconciliationService reconciliationService;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void testReconcile_NoDrift() {
+        // Arrange
+        when(availabilityRepository.findIdsWithDriftedBookedCount(eq(today), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        int corrected = reconciliationService.reconcile(today);
+
+        // Assert
+        assertEquals(0, corrected);
+        verify(availabilityRepository, never()).recountBookedSlots(anyList());
+    }
+
+    @Test
+    void testReconcile_RecountsDriftedInstancesChunkByChunk() {
+        // Arrange - chunk size 2 with three drifted instances
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 2);
+        List<UUID> firstChunk = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> secondChunk = List.of(UUID.randomUUID());
+        when(availabilityRepository.findIdsWithDriftedBookedCount(eq(today), any(Pageable.class)))
+                .thenReturn(firstChunk, secondChunk);
+
+        // Act
+        int corrected = reconciliationService.reconcile(today);
+
+        // Assert
+        assertEquals(3, corrected);
+        verify(availabilityRepository).recountBookedSlots(firstChunk);
+        verify(availabilityRepository).recountBookedSlots(secondChunk);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testScheduledReconcile_Disabled() {
+        // Arrange
+        ReflectionTestUtils.setField(reconciliationService, "enabled", false);
+
+        // Act
+        reconciliationService.scheduledReconcile();
+
+        // Assert
+        verifyNoInteractions(availabilityRepository);
+    }
+}
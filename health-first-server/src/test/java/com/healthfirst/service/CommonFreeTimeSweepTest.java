@@ -0,0 +1,88 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.CommonFreeWindow;
+import com.healthfirst.enums.AppointmentType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommonFreeTimeSweepTest {
+
+    private final LocalDate day = LocalDate.of(2026, 3, 2);
+    private final UUID cardiologist = UUID.randomUUID();
+    private final UUID radiologist = UUID.randomUUID();
+    private final List<AvailabilityResponse.AppointmentSlotData> slots = new ArrayList<>();
+
+    @Test
+    void testFindWindows_IntersectsMergedSlotsOfEveryProvider() {
+        // Arrange - 09:00-12:00 back to back, against 10:00-11:00 and 11:15-11:45 with a gap
+        for (int hour = 9; hour < 12; hour++) {
+            slot(cardiologist, hour, 0, 30);
+            slot(cardiologist, hour, 30, 30);
+        }
+        slot(radiologist, 10, 0, 30);
+        slot(radiologist, 10, 30, 30);
+        slot(radiologist, 11, 15, 30);
+
+        // Act
+        List<CommonFreeWindow> windows = find(Duration.ofMinutes(30), cardiologist, radiologist);
+
+        // Assert
+        assertEquals(2, windows.size());
+        assertEquals(day.atTime(10, 0), windows.get(0).getStartDateTime());
+        assertEquals(day.atTime(11, 0), windows.get(0).getEndDateTime());
+        assertEquals(60, windows.get(0).getDurationMinutes());
+        assertEquals(2, windows.get(0).getSlotIds().get(cardiologist).size());
+        assertEquals(day.atTime(11, 15), windows.get(1).getStartDateTime());
+        assertEquals(2, windows.get(1).getSlotIds().get(cardiologist).size());
+        assertEquals(1, windows.get(1).getSlotIds().get(radiologist).size());
+    }
+
+    @Test
+    void testFindWindows_DropsShortWindowsAndTouchingIntervals() {
+        // Arrange - one provider ends at 10:00 exactly as the other starts; a 15-minute overlap at 11:00
+        slot(cardiologist, 9, 0, 60);
+        slot(cardiologist, 11, 0, 30);
+        slot(radiologist, 10, 0, 30);
+        slot(radiologist, 10, 45, 30);
+
+        // Act & Assert
+        assertTrue(find(Duration.ofMinutes(30), cardiologist, radiologist).isEmpty());
+        assertEquals(day.atTime(11, 0), find(Duration.ofMinutes(15), cardiologist, radiologist).get(0).getStartDateTime());
+    }
+
+    @Test
+    void testFindWindows_ProviderWithoutSlotsLeavesNone() {
+        // Arrange
+        slot(cardiologist, 9, 0, 30);
+        slot(radiologist, 9, 0, 30);
+
+        // Act & Assert
+        assertTrue(find(Duration.ofMinutes(30), cardiologist, radiologist, UUID.randomUUID()).isEmpty());
+        assertEquals(1, find(Duration.ofMinutes(30), cardiologist, radiologist).size());
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private List<CommonFreeWindow> find(Duration minDuration, UUID... providers) {
+        List<CommonFreeWindow> windows = new ArrayList<>();
+        CommonFreeTimeSweep.findWindows(List.of(providers), slots, minDuration, windows::add);
+        return windows;
+    }
+
+    private void slot(UUID providerId, int hour, int minute, int minutes) {
+        LocalDateTime start = day.atTime(hour, minute);
+        AvailabilityResponse.AppointmentSlotData slot = new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                start, start.plusMinutes(minutes), AppointmentType.CONSULTATION, false, true);
+        slot.setProviderId(providerId);
+        slots.add(slot);
+    }
+}
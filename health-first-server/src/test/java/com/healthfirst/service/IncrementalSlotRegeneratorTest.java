@@ -0,0 +1,164 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.repository.AppointmentSlotBatchWriter;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalSlotRegeneratorTest {
+
+    @Mock
+    private AppointmentSlotRepository slotRepository;
+
+    @Spy
+    private AppointmentSlotGenerator slotGenerator = new AppointmentSlotGenerator();
+
+    @Mock
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @InjectMocks
+    private IncrementalSlotRegenerator slotRegenerator;
+
+    private ProviderAvailability availability;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(slotGenerator, "gridEngine", new SlotGridEngine());
+        Provider provider = new Provider();
+        provider.setId(UUID.randomUUID());
+
+        date = LocalDate.now().plusDays(3);
+        availability = new ProviderAvailability(provider, date, LocalTime.of(9, 0), LocalTime.of(12, 0),
+                30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        availability.setPrice(new BigDecimal("100.00"));
+        availability.setLocation("Main Clinic");
+    }
+
+    @Test
+    void testDiff_UnchangedGridWritesNothing() {
+        // Arrange
+        List<AppointmentSlot> existing = persisted(slotGenerator.generate(availability));
+
+        // Act
+        IncrementalSlotRegenerator.SlotDiff diff = slotRegenerator.diff(existing, slotGenerator.generate(availability));
+
+        // Assert
+        assertEquals(6, diff.getKept());
+        assertTrue(diff.getToInsert().isEmpty());
+        assertTrue(diff.getToUpdate().isEmpty());
+        assertTrue(diff.getToDeactivate().isEmpty());
+    }
+
+    @Test
+    void testDiff_ShorterHoursKeepBookedSlotOutsideWindow() {
+        // Arrange - 11:00 is booked, then the day is cut back to 09:00-10:30
+        List<AppointmentSlot> existing = persisted(slotGenerator.generate(availability));
+        AppointmentSlot booked = slotAt(existing, 11, 0);
+        booked.setIsBooked(true);
+        availability.setEndTime(LocalTime.of(10, 30));
+
+        // Act
+        IncrementalSlotRegenerator.SlotDiff diff = slotRegenerator.diff(existing, slotGenerator.generate(availability));
+
+        // Assert - 09:00, 09:30, 10:00 kept; 10:30 and 11:30 retired; the booking survives
+        assertEquals(3, diff.getKept());
+        assertEquals(1, diff.getBookedUntouched());
+        assertEquals(Set.of(slotAt(existing, 10, 30).getId(), slotAt(existing, 11, 30).getId()),
+                new HashSet<>(diff.getToDeactivate()));
+        assertFalse(diff.getToDeactivate().contains(booked.getId()));
+        assertTrue(diff.getToInsert().isEmpty());
+    }
+
+    @Test
+    void testDiff_LongerSlotsReuseRowsAndSkipBookedOverlap() {
+        // Arrange - 09:30 is booked, then slots grow to 45 minutes
+        List<AppointmentSlot> existing = persisted(slotGenerator.generate(availability));
+        AppointmentSlot booked = slotAt(existing, 9, 30);
+        booked.setIsBooked(true);
+        availability.setSlotDurationMinutes(45);
+
+        // Act
+        IncrementalSlotRegenerator.SlotDiff diff = slotRegenerator.diff(existing, slotGenerator.generate(availability));
+
+        // Assert - new grid 09:00, 09:45, 10:30, 11:15; the first two overlap the booking
+        assertEquals(List.of(LocalTime.of(10, 30)), startTimes(diff.getToUpdate()));
+        assertEquals(slotAt(existing, 10, 30).getId(), diff.getToUpdate().get(0).getId());
+        assertEquals(List.of(LocalTime.of(11, 15)), startTimes(diff.getToInsert()));
+        assertEquals(4, diff.getToDeactivate().size()); // 09:00, 10:00, 11:00, 11:30
+        assertFalse(diff.getToDeactivate().contains(booked.getId()));
+    }
+
+    @Test
+    void testDiff_InactiveRowReactivated() {
+        // Arrange
+        List<AppointmentSlot> existing = persisted(slotGenerator.generate(availability));
+        AppointmentSlot inactive = slotAt(existing, 9, 0);
+        inactive.setIsActive(false);
+
+        // Act
+        IncrementalSlotRegenerator.SlotDiff diff = slotRegenerator.diff(existing, slotGenerator.generate(availability));
+
+        // Assert
+        assertEquals(1, diff.getToUpdate().size());
+        assertEquals(inactive.getId(), diff.getToUpdate().get(0).getId());
+        assertEquals(5, diff.getKept());
+    }
+
+    @Test
+    void testRegenerate_PriceChangeRewritesInPlace() {
+        // Arrange
+        List<AppointmentSlot> existing = persisted(slotGenerator.generate(availability));
+        when(slotRepository.findAllSlotsByProviderAvailabilityIds(List.of(availability.getId()))).thenReturn(existing);
+        availability.setPrice(new BigDecimal("120.00"));
+
+        // Act
+        IncrementalSlotRegenerator.SlotDiff diff = slotRegenerator.regenerate(availability);
+
+        // Assert
+        assertEquals(6, diff.getToUpdate().size());
+        verify(slotBatchWriter).updateAll(argThat(slots -> slots.size() == 6 && slots.stream()
+                .allMatch(slot -> new BigDecimal("120.00").equals(slot.getPrice()) && slot.getId() != null)));
+        verify(slotBatchWriter).deactivateAll(Collections.emptyList());
+        verify(slotBatchWriter).insertAll(Collections.<AppointmentSlot>emptyList());
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private List<AppointmentSlot> persisted(List<AppointmentSlot> slots) {
+        slots.forEach(slot -> slot.setId(UUID.randomUUID()));
+        return slots;
+    }
+
+    private AppointmentSlot slotAt(List<AppointmentSlot> slots, int hour, int minute) {
+        LocalDateTime start = date.atTime(hour, minute);
+        return slots.stream().filter(slot -> slot.getStartDateTime().equals(start)).findFirst().orElseThrow();
+    }
+
+    private List<LocalTime> startTimes(List<AppointmentSlot> slots) {
+        return slots.stream().map(slot -> slot.getStartDateTime().toLocalTime()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
+import com.healthfirst.repository.ProviderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InsurancePlanIndexTest {
+
+    @Mock
+    private ProviderRepository providerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private InsurancePlanIndex insuranceIndex;
+
+    private UUID first;
+    private UUID second;
+    private UUID third;
+
+    @BeforeEach
+    void setUp() {
+        first = UUID.randomUUID();
+        second = UUID.randomUUID();
+        third = UUID.randomUUID();
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(providerRepository.findActiveInsurancePlans()).thenReturn(List.of(
+                new Object[]{first, "Blue Cross"},
+                new Object[]{first, "Aetna"},
+                new Object[]{second, " blue  CROSS "},
+                new Object[]{third, "Cigna"}));
+    }
+
+    @Test
+    void testNormalize_IgnoresCaseAndSpacing() {
+        // Act & Assert
+        assertEquals("blue cross", InsurancePlanIndex.normalize("  Blue \t Cross "));
+        assertEquals("", InsurancePlanIndex.normalize(null));
+    }
+
+    @Test
+    void testFindAcceptingProviders_MatchesAnyPlanAndBuildsOnFirstUse() {
+        // Act
+        Set<UUID> blueCross = insuranceIndex.findAcceptingProviders(List.of("BLUE CROSS"), null);
+        Set<UUID> either = insuranceIndex.findAcceptingProviders(List.of("aetna", "cigna"), null);
+
+        // Assert
+        assertEquals(Set.of(first, second), blueCross);
+        assertEquals(Set.of(first, third), either);
+        assertEquals(Set.of(), insuranceIndex.findAcceptingProviders(List.of("Kaiser"), null));
+        assertEquals(3, insuranceIndex.getPlanCount());
+        verify(providerRepository, times(1)).findActiveInsurancePlans();
+    }
+
+    @Test
+    void testFindAcceptingProviders_IntersectsWithCandidates() {
+        // Arrange
+        insuranceIndex.rebuild();
+
+        // Act
+        Set<UUID> accepting = insuranceIndex.findAcceptingProviders(List.of("Blue Cross"),
+                List.of(second, third, UUID.randomUUID()));
+
+        // Assert
+        assertEquals(Set.of(second), accepting);
+    }
+
+    @Test
+    void testOnInsuranceChanged_ReplacesTheProvidersPlans() {
+        // Arrange
+        insuranceIndex.rebuild();
+        UUID newcomer = UUID.randomUUID();
+
+        // Act
+        insuranceIndex.onInsuranceChanged(new ProviderInsuranceChangedEvent(first, Set.of("Cigna")));
+        insuranceIndex.onInsuranceChanged(new ProviderInsuranceChangedEvent(newcomer, Set.of("Humana")));
+
+        // Assert
+        assertEquals(Set.of(second), insuranceIndex.findAcceptingProviders(List.of("Blue Cross"), null));
+        assertEquals(Set.of(), insuranceIndex.findAcceptingProviders(List.of("Aetna"), null));
+        assertEquals(Set.of(first, third), insuranceIndex.findAcceptingProviders(List.of("Cigna"), null));
+        assertEquals(Set.of(newcomer), insuranceIndex.findAcceptingProviders(List.of("humana"), null));
+    }
+}
@@ -0,0 +1,116 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationTrigramIndexTest {
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Mock
+    private AppointmentSlotRepository slotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private LocationTrigramIndex locationIndex;
+
+    private UUID providerId;
+
+    @BeforeEach
+    void setUp() {
+        providerId = UUID.randomUUID();
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(availabilityRepository.findDistinctActiveLocations(any()))
+                .thenReturn(List.of("Main Clinic", "North Office", "Clinic North Annex"));
+        lenient().when(slotRepository.findDistinctOpenSlotLocations(any()))
+                .thenReturn(List.of("Main Clinic", "Downtown Hospital"));
+    }
+
+    @Test
+    void testResolve_EmptyUntilBuilt() {
+        // Act & Assert
+        assertTrue(locationIndex.resolve("clinic").isEmpty());
+        assertTrue(locationIndex.suggest("clinic", 5).isEmpty());
+        assertFalse(locationIndex.isWarm());
+    }
+
+    @Test
+    void testResolve_MatchesSubstringsIgnoringCase() {
+        // Arrange
+        locationIndex.rebuild();
+
+        // Act & Assert
+        assertEquals(4, locationIndex.getLocationCount());
+        assertEquals(Set.of("Main Clinic", "Clinic North Annex"), locationIndex.resolve("CLINIC").orElseThrow());
+        assertEquals(Set.of("North Office", "Clinic North Annex"), locationIndex.resolve("north").orElseThrow());
+        // Every trigram occurs but not as one substring
+        assertEquals(Set.of(), locationIndex.resolve("north clinic").orElseThrow());
+        assertEquals(Set.of(), locationIndex.resolve("airport").orElseThrow());
+        // Shorter than a trigram
+        assertEquals(Set.of("Downtown Hospital"), locationIndex.resolve("wn").orElseThrow());
+    }
+
+    @Test
+    void testSuggest_PrefixMatchesFirst() {
+        // Arrange
+        locationIndex.rebuild();
+
+        // Act
+        List<String> suggestions = locationIndex.suggest("clin", 10);
+        List<String> limited = locationIndex.suggest("o", 2);
+
+        // Assert
+        assertEquals(List.of("Clinic North Annex", "Main Clinic"), suggestions);
+        assertEquals(List.of("North Office", "Downtown Hospital"), limited);
+    }
+
+    @Test
+    void testOnAvailabilityChanged_AddsNewLocations() {
+        // Arrange
+        locationIndex.rebuild();
+        when(availabilityRepository.findDistinctActiveLocationsByProviderId(eq(providerId), any()))
+                .thenReturn(List.of("Main Clinic", "Riverside Clinic"));
+
+        // Act
+        locationIndex.onAvailabilityChanged(AvailabilityChangedEvent.forAllDates(providerId));
+
+        // Assert
+        assertEquals(5, locationIndex.getLocationCount());
+        assertEquals(Set.of("Main Clinic", "Clinic North Annex", "Riverside Clinic"),
+                locationIndex.resolve("clinic").orElseThrow());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_FailedLoadDropsTheIndex() {
+        // Arrange
+        locationIndex.rebuild();
+        when(availabilityRepository.findDistinctActiveLocationsByProviderId(eq(providerId), any()))
+                .thenThrow(new IllegalStateException("Connection reset"));
+
+        // Act - does not throw into the committed caller
+        locationIndex.onAvailabilityChanged(AvailabilityChangedEvent.forAllDates(providerId));
+
+        // Assert - a new location could be missing, so filters scan until the next rebuild
+        assertFalse(locationIndex.isWarm());
+        assertTrue(locationIndex.resolve("clinic").isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.AvailabilityResponse;
+import com.healthfirst.dto.AvailabilitySearchRequest;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.repository.AppointmentSlotSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultiProviderSlotSearchTest {
+
+    @Mock
+    private AppointmentSlotSearchRepository slotSearchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MultiProviderSlotSearch multiProviderSearch;
+
+    private UUID first;
+    private UUID second;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        first = UUID.randomUUID();
+        second = UUID.randomUUID();
+        day = LocalDate.now().plusDays(2);
+        ReflectionTestUtils.setField(multiProviderSearch, "searchExecutor", new SyncTaskExecutor());
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void testSupports_OnlyMultipleDistinctProviders() {
+        // Arrange
+        AvailabilitySearchRequest none = request();
+        AvailabilitySearchRequest one = request();
+        one.setProviderIds(List.of(first, first));
+        AvailabilitySearchRequest two = request();
+        two.setProviderIds(List.of(first, second));
+
+        // Act & Assert
+        assertFalse(multiProviderSearch.supports(none));
+        assertFalse(multiProviderSearch.supports(one));
+        assertTrue(multiProviderSearch.supports(two));
+    }
+
+    @Test
+    void testSearch_MergesProviderStreamsInOrderUpToTheLimit() {
+        // Arrange
+        AvailabilitySearchRequest request = request();
+        request.setProviderIds(List.of(first, second));
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(first), any(), any(), any(), any(), eq(3)))
+                .thenReturn(List.of(slot(9, null), slot(11, null), slot(13, null)));
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(second), any(), any(), any(), any(), eq(3)))
+                .thenReturn(List.of(slot(10, null), slot(12, null)));
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> result = multiProviderSearch.search(request,
+                day.atStartOfDay(), day.atTime(23, 59, 59), null, 3);
+
+        // Assert
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0), day.atTime(11, 0)),
+                result.stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testSearch_MergesPriceSortedStreams() {
+        // Arrange - unpriced slots stay last
+        AvailabilitySearchRequest request = request();
+        request.setProviderIds(List.of(first, second));
+        request.setSortBy("price");
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(first), any(), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(slot(9, "40.00"), slot(8, null)));
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(second), any(), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(slot(10, "20.00"), slot(11, "60.00")));
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> result = multiProviderSearch.search(request,
+                day.atStartOfDay(), day.atTime(23, 59, 59), null, 10);
+
+        // Assert
+        assertEquals(List.of(day.atTime(10, 0), day.atTime(9, 0), day.atTime(11, 0), day.atTime(8, 0)),
+                result.stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList());
+    }
+
+    @Test
+    void testSearch_SaturatedPoolRunsQueriesOnTheCallingThread() {
+        // Arrange
+        AvailabilitySearchRequest request = request();
+        request.setProviderIds(List.of(first, second));
+        ReflectionTestUtils.setField(multiProviderSearch, "searchExecutor", (TaskExecutor) task -> {
+            throw new TaskRejectedException("queue full");
+        });
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(first), any(), any(), any(), any(), eq(3)))
+                .thenReturn(List.of(slot(9, null)));
+        when(slotSearchRepository.searchOpenSlotsForProvider(eq(second), any(), any(), any(), any(), eq(3)))
+                .thenReturn(List.of(slot(10, null)));
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> result = multiProviderSearch.search(request,
+                day.atStartOfDay(), day.atTime(23, 59, 59), null, 3);
+
+        // Assert
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(10, 0)),
+                result.stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testSearch_ProviderQueryFailureFailsTheSearch() {
+        // Arrange
+        AvailabilitySearchRequest request = request();
+        request.setProviderIds(List.of(first, second));
+        when(slotSearchRepository.searchOpenSlotsForProvider(any(), any(), any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> multiProviderSearch.search(request,
+                day.atStartOfDay(), day.atTime(23, 59, 59), null, 3));
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private AvailabilitySearchRequest request() {
+        return new AvailabilitySearchRequest(day, day);
+    }
+
+    private AvailabilityResponse.AppointmentSlotData slot(int hour, String price) {
+        AvailabilityResponse.AppointmentSlotData slot = new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                day.atTime(hour, 0), day.atTime(hour, 30), AppointmentType.CONSULTATION, false, true);
+        slot.setPrice(price != null ? new BigDecimal(price) : null);
+        return slot;
+    }
+}
@@ -4,18 +4,29 @@ import com.healthfirst.dto.*;
 import com.healthfirst.entity.*;
 import com.healthfirst.enums.*;
 import com.healthfirst.repository.*;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,6 +44,57 @@ class ProviderAvailabilityServiceTest {
     @Mock
     private ProviderRepository providerRepository;
 
+    @Mock
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @Spy
+    private AppointmentSlotGenerator slotGenerator = new AppointmentSlotGenerator();
+
+    @Mock
+    private VirtualSlotService virtualSlotService;
+
+    @Spy
+    private SlotMaterializationService slotMaterializationService = new SlotMaterializationService();
+
+    @Mock
+    private IncrementalSlotRegenerator slotRegenerator;
+
+    @Mock
+    private ProviderOccupancyTimeline occupancyTimeline;
+
+    @Mock
+    private RecurringOverlapValidator overlapValidator;
+
+    @Mock
+    private AvailabilitySearchIndex searchIndex;
+
+    @Mock
+    private AppointmentSlotSearchRepository slotSearchRepository;
+
+    @Mock
+    private MultiProviderSlotSearch multiProviderSearch;
+
+    @Mock
+    private AvailabilitySearchCache searchCache;
+
+    @Mock
+    private LocationTrigramIndex locationIndex;
+
+    @Mock
+    private ProviderGeoIndex geoIndex;
+
+    @Mock
+    private InsurancePlanIndex insuranceIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private ProviderAvailabilityService availabilityService;
 
@@ -43,6 +105,7 @@ class ProviderAvailabilityServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(slotGenerator, "gridEngine", new SlotGridEngine());
         // Setup test provider
         testProvider = new Provider();
         testProvider.setId(UUID.randomUUID());
@@ -82,6 +145,76 @@ class ProviderAvailabilityServiceTest {
         testUpdateRequest = new UpdateAvailabilityRequest();
         testUpdateRequest.setPrice(new BigDecimal("120.00"));
         testUpdateRequest.setDescription("Updated availability");
+
+        // The occupancy timeline answers from the overlap query, as it does for non-resident providers
+        lenient().when(occupancyTimeline.hasOverlap(any(), any(), any(), any())).thenAnswer(invocation ->
+                !availabilityRepository.findOverlappingSlots(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2), invocation.getArgument(3)).isEmpty());
+
+        // Searches open their own read-only transactions
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void testCreateAvailability_VirtualMode_NoSlotsWritten() {
+        // Arrange
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(availabilityRepository.saveAll(anyList())).thenReturn(List.of(testAvailability));
+
+        // Act
+        AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        verifyNoInteractions(slotBatchWriter);
+        verifyNoInteractions(slotGenerator);
+    }
+
+    @Test
+    void testCreateAvailability_BeyondBookingWindow_SlotsDeferred() {
+        // Arrange
+        testCreateRequest.setAvailabilityDate(LocalDate.now().plusDays(90));
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(availabilityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        verify(availabilityRepository).saveAll(argThat(instances -> {
+            ProviderAvailability instance = ((List<ProviderAvailability>) instances).get(0);
+            return Boolean.FALSE.equals(instance.getSlotsMaterialized());
+        }));
+        verifyNoInteractions(slotBatchWriter);
+    }
+
+    @Test
+    void testSearchAvailableSlots_VirtualMode_DerivesFromAvailability() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest();
+        searchRequest.setStartDate(LocalDate.now().plusDays(1));
+        searchRequest.setEndDate(LocalDate.now().plusDays(2));
+        searchRequest.setProviderIds(List.of(testProvider.getId()));
+
+        AppointmentSlot derived = slotGenerator.generate(testAvailability).get(0);
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.findByProviderIdsAndDateRange(anyList(), any(), any()))
+                .thenReturn(List.of(testAvailability));
+        when(virtualSlotService.deriveOpenSlots(eq(List.of(testAvailability)), any(), any()))
+                .thenReturn(List.of(derived));
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> results = availabilityService.searchAvailableSlots(searchRequest).getSlots();
+
+        // Assert
+        assertEquals(1, results.size());
+        assertEquals(testAvailability.getId(), results.get(0).getProviderAvailabilityId());
+        verify(virtualSlotService).deriveOpenSlots(eq(List.of(testAvailability)), any(), any());
+        verify(slotRepository, never()).findAvailableSlotsByProvidersAndTimeRange(any(), any(), any());
     }
 
     @Test
@@ -90,7 +223,6 @@ class ProviderAvailabilityServiceTest {
         when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
         when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
         when(availabilityRepository.saveAll(anyList())).thenReturn(List.of(testAvailability));
-        when(slotRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
         // Act
         AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
@@ -104,7 +236,7 @@ class ProviderAvailabilityServiceTest {
         verify(providerRepository).findById(testProvider.getId());
         verify(availabilityRepository).findOverlappingSlots(any(), any(), any(), any());
         verify(availabilityRepository).saveAll(anyList());
-        verify(slotRepository).saveAll(anyList());
+        verify(slotBatchWriter).insertAll(any(Iterator.class));
     }
 
     @Test
@@ -207,12 +339,11 @@ class ProviderAvailabilityServiceTest {
         testCreateRequest.setRecurrenceEndDate(LocalDate.now().plusDays(7));
         
         when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
-        when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(overlapValidator.findConflictingDates(any(), anyList(), any(), any())).thenReturn(Collections.emptyList());
         when(availabilityRepository.saveAll(anyList())).thenAnswer(invocation -> {
             List<ProviderAvailability> availabilities = invocation.getArgument(0);
             return availabilities;
         });
-        when(slotRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
         // Act
         AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
@@ -225,6 +356,84 @@ class ProviderAvailabilityServiceTest {
             list instanceof List && ((List<?>) list).size() == 7));
     }
 
+    @Test
+    void testCreateAvailability_RecurringDaily_SlotsWrittenInOneBatchPass() {
+        // Arrange
+        testCreateRequest.setRecurrencePattern(RecurrencePattern.DAILY);
+        testCreateRequest.setRecurrenceEndDate(LocalDate.now().plusDays(7));
+
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(overlapValidator.findConflictingDates(any(), anyList(), any(), any())).thenReturn(Collections.emptyList());
+        when(availabilityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<AppointmentSlot> written = new ArrayList<>();
+        when(slotBatchWriter.insertAll(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<AppointmentSlot> slots = invocation.getArgument(0);
+            slots.forEachRemaining(written::add);
+            return written.size();
+        });
+
+        // Act
+        AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
+
+        // Assert - 7 instances of 9:00-17:00 in 30 minute slots, handed to the writer once
+        assertTrue(response.isSuccess());
+        assertEquals(7 * 16, written.size());
+        verify(slotBatchWriter, times(1)).insertAll(any(Iterator.class));
+        verify(availabilityRepository).flush();
+        verifyNoMoreInteractions(slotRepository);
+    }
+
+    @Test
+    void testCreateAvailability_RecurringDaily_OnlyBookingWindowMaterialized() {
+        // Arrange - 60 daily instances, advanceBookingDays 30 + 7 day margin
+        testCreateRequest.setRecurrencePattern(RecurrencePattern.DAILY);
+        testCreateRequest.setRecurrenceEndDate(LocalDate.now().plusDays(60));
+
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(overlapValidator.findConflictingDates(any(), anyList(), any(), any())).thenReturn(Collections.emptyList());
+        when(availabilityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<AppointmentSlot> written = new ArrayList<>();
+        when(slotBatchWriter.insertAll(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<AppointmentSlot> slots = invocation.getArgument(0);
+            slots.forEachRemaining(written::add);
+            return written.size();
+        });
+
+        // Act
+        AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
+
+        // Assert - days 1..37 get slots now, the rest wait for the nightly materializer
+        assertTrue(response.isSuccess());
+        assertEquals(37 * 16, written.size());
+        assertTrue(written.stream().noneMatch(slot ->
+                slot.getStartDateTime().toLocalDate().isAfter(LocalDate.now().plusDays(37))));
+    }
+
+    @Test
+    void testCreateAvailability_RecurringDaily_ReportsAllConflictingDates() {
+        // Arrange
+        testCreateRequest.setRecurrencePattern(RecurrencePattern.DAILY);
+        testCreateRequest.setRecurrenceEndDate(LocalDate.now().plusDays(30));
+        List<LocalDate> conflicts = List.of(LocalDate.now().plusDays(4), LocalDate.now().plusDays(19));
+
+        when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
+        when(overlapValidator.findConflictingDates(eq(testProvider.getId()), anyList(), eq(LocalTime.of(9, 0)), eq(LocalTime.of(17, 0))))
+                .thenReturn(conflicts);
+
+        // Act
+        AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
+
+        // Assert - one batched check over all 30 dates, nothing saved
+        assertFalse(response.isSuccess());
+        assertEquals("OVERLAP_ERROR", response.getErrorCode());
+        assertEquals(conflicts, response.getConflictingDates());
+        verify(overlapValidator).findConflictingDates(any(), argThat(dates -> dates.size() == 30), any(), any());
+        verify(availabilityRepository, never()).findOverlappingSlots(any(), any(), any(), any());
+        verify(availabilityRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void testGetProviderAvailability_Success() {
         // Arrange
@@ -270,7 +479,6 @@ class ProviderAvailabilityServiceTest {
     void testUpdateAvailability_Success() {
         // Arrange
         when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
-        when(slotRepository.findSlotsByProviderAvailability(testAvailability.getId())).thenReturn(Collections.emptyList());
         when(availabilityRepository.save(testAvailability)).thenReturn(testAvailability);
 
         // Act
@@ -285,6 +493,7 @@ class ProviderAvailabilityServiceTest {
 
         verify(availabilityRepository).findById(testAvailability.getId());
         verify(availabilityRepository).save(testAvailability);
+        verifyNoInteractions(slotRegenerator);
     }
 
     @Test
@@ -326,35 +535,75 @@ class ProviderAvailabilityServiceTest {
     }
 
     @Test
-    void testUpdateAvailability_HasBookedSlots() {
-        // Arrange
-        testUpdateRequest.setStartTime(LocalTime.of(10, 0)); // Try to change time
-        
-        AppointmentSlot bookedSlot = new AppointmentSlot();
-        bookedSlot.setIsBooked(true);
-        
+    void testUpdateAvailability_HasBookedSlots_RegeneratesIncrementally() {
+        // Arrange - changing hours is allowed; the regenerator leaves booked slots untouched
+        testUpdateRequest.setStartTime(LocalTime.of(10, 0));
+
         when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
-        when(slotRepository.findSlotsByProviderAvailability(testAvailability.getId())).thenReturn(List.of(bookedSlot));
+        when(availabilityRepository.save(testAvailability)).thenReturn(testAvailability);
 
         // Act
         AvailabilityResponse response = availabilityService.updateAvailability(
                 testProvider.getId(), testAvailability.getId(), testUpdateRequest);
 
         // Assert
-        assertFalse(response.isSuccess());
-        assertTrue(response.getMessage().contains("Cannot modify time settings when there are booked appointments"));
-        assertEquals("BOOKED_SLOTS_ERROR", response.getErrorCode());
+        assertTrue(response.isSuccess());
+        assertEquals(LocalTime.of(10, 0), testAvailability.getStartTime());
+        assertTrue(testAvailability.getSlotsMaterialized());
 
-        verify(availabilityRepository).findById(testAvailability.getId());
-        verify(slotRepository).findSlotsByProviderAvailability(testAvailability.getId());
+        verify(slotRegenerator).regenerate(testAvailability);
+        verify(slotRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void testUpdateAvailability_DateOnlyMoveRegeneratesSlots() {
+        // Arrange - same hours on another day: every slot start changes
+        LocalDate previousDate = testAvailability.getAvailabilityDate();
+        UpdateAvailabilityRequest moveRequest = new UpdateAvailabilityRequest();
+        moveRequest.setAvailabilityDate(previousDate.plusDays(1));
+
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+        when(availabilityRepository.save(testAvailability)).thenReturn(testAvailability);
+
+        // Act
+        AvailabilityResponse response = availabilityService.updateAvailability(
+                testProvider.getId(), testAvailability.getId(), moveRequest);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertTrue(moveRequest.hasTimeChanges());
+        assertEquals(previousDate.plusDays(1), testAvailability.getAvailabilityDate());
+        verify(slotRegenerator).regenerate(testAvailability);
+    }
+
+    @Test
+    void testUpdateAvailability_DateMoveWithBookedSlotsIsRejected() {
+        // Arrange
+        LocalDate previousDate = testAvailability.getAvailabilityDate();
+        testAvailability.setBookedCount(1);
+        UpdateAvailabilityRequest moveRequest = new UpdateAvailabilityRequest();
+        moveRequest.setAvailabilityDate(previousDate.plusDays(1));
+
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+
+        // Act
+        AvailabilityResponse response = availabilityService.updateAvailability(
+                testProvider.getId(), testAvailability.getId(), moveRequest);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertEquals("VALIDATION_ERROR", response.getErrorCode());
+        assertTrue(response.getMessage().contains("Cannot move availability with booked appointments"));
+        assertEquals(previousDate, testAvailability.getAvailabilityDate());
         verify(availabilityRepository, never()).save(any());
+        verifyNoInteractions(slotRegenerator);
     }
 
     @Test
     void testDeleteAvailability_Success() {
         // Arrange
         when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
-        when(slotRepository.findSlotsByProviderAvailability(testAvailability.getId())).thenReturn(Collections.emptyList());
+        when(availabilityRepository.deleteIfNoSlots(testAvailability.getId())).thenReturn(1);
 
         // Act
         AvailabilityResponse response = availabilityService.deleteAvailability(
@@ -365,19 +614,16 @@ class ProviderAvailabilityServiceTest {
         assertEquals("Availability deleted successfully", response.getMessage());
 
         verify(availabilityRepository).findById(testAvailability.getId());
-        verify(slotRepository).findSlotsByProviderAvailability(testAvailability.getId());
-        verify(slotRepository).deleteAll(Collections.emptyList());
-        verify(availabilityRepository).delete(testAvailability);
+        verify(slotRepository).deleteUnbookedSlotsByAvailabilityId(testAvailability.getId());
+        verify(availabilityRepository).deleteIfNoSlots(testAvailability.getId());
+        verify(slotRepository, never()).findSlotsByProviderAvailability(any());
     }
 
     @Test
     void testDeleteAvailability_HasBookedSlots() {
         // Arrange
-        AppointmentSlot bookedSlot = new AppointmentSlot();
-        bookedSlot.setIsBooked(true);
-        
         when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
-        when(slotRepository.findSlotsByProviderAvailability(testAvailability.getId())).thenReturn(List.of(bookedSlot));
+        testAvailability.setBookedCount(1);
 
         // Act
         AvailabilityResponse response = availabilityService.deleteAvailability(
@@ -389,8 +635,110 @@ class ProviderAvailabilityServiceTest {
         assertEquals("BOOKED_SLOTS_ERROR", response.getErrorCode());
 
         verify(availabilityRepository).findById(testAvailability.getId());
-        verify(slotRepository).findSlotsByProviderAvailability(testAvailability.getId());
-        verify(availabilityRepository, never()).delete(any());
+        verifyNoInteractions(slotRepository);
+        verify(availabilityRepository, never()).deleteIfNoSlots(any());
+    }
+
+    @Test
+    void testDeleteAvailability_WholeSeriesKeepsBookedInstances() {
+        // Arrange
+        UUID seriesId = UUID.randomUUID();
+        LocalDate seriesStart = LocalDate.now().plusDays(1);
+        testAvailability.setRecurrenceSeriesId(seriesId);
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+        when(availabilityRepository.findSeriesStartDate(seriesId)).thenReturn(seriesStart);
+        when(slotRepository.deleteUnbookedSeriesSlots(seriesId, seriesStart)).thenReturn(159);
+        when(availabilityRepository.deleteSeriesInstancesWithoutSlots(seriesId, seriesStart)).thenReturn(9);
+        when(availabilityRepository.deactivateSeriesInstances(seriesId, seriesStart)).thenReturn(1);
+
+        // Act
+        AvailabilityResponse response = availabilityService.deleteAvailability(
+                testProvider.getId(), testAvailability.getId(), true, "Provider request");
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertTrue(response.getMessage().contains("Deleted 9 availability instance(s)"));
+        assertTrue(response.getMessage().contains("1 instance(s) with booked appointments were kept"));
+        verify(slotRepository, never()).findSlotsByProviderAvailability(any());
+    }
+
+    @Test
+    void testDeleteAvailability_ThisAndFollowingStartsAtInstance() {
+        // Arrange
+        UUID seriesId = UUID.randomUUID();
+        testAvailability.setRecurrenceSeriesId(seriesId);
+        LocalDate fromDate = testAvailability.getAvailabilityDate();
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+        when(availabilityRepository.deleteSeriesInstancesWithoutSlots(seriesId, fromDate)).thenReturn(4);
+
+        // Act
+        AvailabilityResponse response = availabilityService.deleteAvailability(
+                testProvider.getId(), testAvailability.getId(), RecurrenceScope.THIS_AND_FOLLOWING, null);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertEquals("Deleted 4 availability instance(s)", response.getMessage());
+        verify(slotRepository).deleteUnbookedSeriesSlots(seriesId, fromDate);
+        verify(availabilityRepository).deactivateSeriesInstances(seriesId, fromDate);
+        verify(availabilityRepository, never()).findSeriesStartDate(any());
+    }
+
+    @Test
+    void testUpdateAvailability_SeriesTimeChangeRegeneratesUnbookedInstances() {
+        // Arrange
+        UUID seriesId = UUID.randomUUID();
+        LocalDate seriesStart = LocalDate.now().plusDays(1);
+        testAvailability.setRecurrenceSeriesId(seriesId);
+        testUpdateRequest.setEndTime(LocalTime.of(12, 0));
+        testUpdateRequest.setUpdateRecurring(true);
+
+        ProviderAvailability retimed = new ProviderAvailability(testProvider, seriesStart.plusDays(1),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), 30, AppointmentType.CONSULTATION, "UTC");
+        retimed.setId(UUID.randomUUID());
+
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+        when(availabilityRepository.findSeriesStartDate(seriesId)).thenReturn(seriesStart);
+        when(availabilityRepository.updateSeriesDetails(eq(seriesId), eq(seriesStart), eq(new BigDecimal("120.00")),
+                isNull(), eq("Updated availability"), isNull(), isNull(), isNull())).thenReturn(10);
+        when(availabilityRepository.findSeriesInstancesAwaitingSlots(seriesId, seriesStart)).thenReturn(List.of(retimed));
+        when(availabilityRepository.countSeriesInstancesWithBookedSlots(seriesId, seriesStart)).thenReturn(1L);
+
+        // Act
+        AvailabilityResponse response = availabilityService.updateAvailability(
+                testProvider.getId(), testAvailability.getId(), testUpdateRequest);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertTrue(response.getMessage().contains("Updated 10 availability instance(s)"));
+        assertTrue(response.getMessage().contains("skipped 1 instance(s) with booked appointments"));
+        verify(slotRepository).updateUnbookedSeriesSlotDetails(seriesId, seriesStart, new BigDecimal("120.00"), null, null);
+        verify(availabilityRepository).updateUnbookedSeriesTimes(seriesId, seriesStart, null, LocalTime.of(12, 0), null, null, null);
+        verify(slotRepository).deleteUnbookedSlotsOfPendingSeriesInstances(seriesId, seriesStart);
+        verify(slotBatchWriter).insertAll(any(Iterator.class));
+        assertTrue(retimed.getSlotsMaterialized());
+        verify(availabilityRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateAvailability_SeriesDateOnlyUpdateChangesNothing() {
+        // Arrange
+        testAvailability.setRecurrenceSeriesId(UUID.randomUUID());
+        UpdateAvailabilityRequest moveRequest = new UpdateAvailabilityRequest();
+        moveRequest.setAvailabilityDate(testAvailability.getAvailabilityDate().plusDays(1));
+        moveRequest.setUpdateRecurring(true);
+
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+
+        // Act
+        AvailabilityResponse response = availabilityService.updateAvailability(
+                testProvider.getId(), testAvailability.getId(), moveRequest);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertEquals("VALIDATION_ERROR", response.getErrorCode());
+        verify(availabilityRepository).findById(testAvailability.getId());
+        verifyNoMoreInteractions(availabilityRepository);
+        verifyNoInteractions(slotRepository, slotBatchWriter, eventPublisher);
     }
 
     @Test
@@ -401,29 +749,278 @@ class ProviderAvailabilityServiceTest {
         searchRequest.setSpecialization("Cardiology");
         searchRequest.setMaxResults(10);
 
-        AppointmentSlot availableSlot = new AppointmentSlot();
-        availableSlot.setId(UUID.randomUUID());
-        availableSlot.setProvider(testProvider);
-        availableSlot.setStartDateTime(LocalDateTime.now().plusDays(1).withHour(10));
-        availableSlot.setEndDateTime(LocalDateTime.now().plusDays(1).withHour(11));
-        availableSlot.setAppointmentType(AppointmentType.CONSULTATION);
-        availableSlot.setIsBooked(false);
-        availableSlot.setIsActive(true);
+        AvailabilityResponse.AppointmentSlotData availableSlot = new AvailabilityResponse.AppointmentSlotData(
+                UUID.randomUUID(), LocalDateTime.now().plusDays(1).withHour(10), LocalDateTime.now().plusDays(1).withHour(11),
+                AppointmentType.CONSULTATION, false, true);
 
-        when(slotRepository.findAvailableSlotsByProvidersAndTimeRange(any(), any(), any()))
+        when(slotSearchRepository.searchOpenSlots(eq(searchRequest), any(), any(), isNull(), anyInt()))
                 .thenReturn(List.of(availableSlot));
 
         // Act
-        List<AvailabilityResponse.AppointmentSlotData> result = 
-                availabilityService.searchAvailableSlots(searchRequest);
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(availableSlot.getId(), result.get(0).getId());
-        assertFalse(result.get(0).getIsBooked());
+        assertEquals(1, result.getSlots().size());
+        assertEquals(availableSlot.getId(), result.getSlots().get(0).getId());
+        assertFalse(result.getSlots().get(0).getIsBooked());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+        verify(slotSearchRepository).searchOpenSlots(searchRequest,
+                LocalDate.now().plusDays(1).atStartOfDay(), LocalDate.now().plusDays(7).atTime(23, 59, 59), null, 11);
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    void testSearchAvailableSlots_AnsweredFromIndex() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        AvailabilityResponse.AppointmentSlotData indexedSlot = new AvailabilityResponse.AppointmentSlotData(
+                UUID.randomUUID(), LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusMinutes(30),
+                AppointmentType.CONSULTATION, false, true);
+        when(searchIndex.search(eq(searchRequest), isNull(), anyInt())).thenReturn(Optional.of(List.of(indexedSlot)));
+
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> result = availabilityService.searchAvailableSlots(searchRequest).getSlots();
+
+        // Assert
+        assertEquals(List.of(indexedSlot), result);
+        verifyNoInteractions(slotSearchRepository, slotRepository);
+    }
+
+    @Test
+    void testSearchAvailableSlots_AnsweredFromCache() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        AvailabilitySearchResult cached = new AvailabilitySearchResult(List.of(), false, null);
+        when(searchCache.get(searchRequest)).thenReturn(cached);
 
-        verify(slotRepository).findAvailableSlotsByProvidersAndTimeRange(any(), any(), any());
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertSame(cached, result);
+        verifyNoInteractions(searchIndex, slotSearchRepository);
+        verify(searchCache, never()).put(any(), anyLong(), any());
+    }
+
+    @Test
+    void testSearchAvailableSlots_CachesWithTheGenerationTakenBeforeSearching() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        when(searchCache.generation()).thenReturn(7L);
+        when(slotSearchRepository.searchOpenSlots(any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        InOrder inOrder = inOrder(searchCache, slotSearchRepository);
+        inOrder.verify(searchCache).generation();
+        inOrder.verify(slotSearchRepository).searchOpenSlots(any(), any(), any(), any(), anyInt());
+        inOrder.verify(searchCache).put(searchRequest, 7L, result);
+    }
+
+    @Test
+    void testSearchFacets_AggregatesInTheDatabaseWhenTheIndexCannotAnswer() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setMaxResults(1);
+        when(searchCache.generation()).thenReturn(3L);
+        doAnswer(invocation -> {
+            AvailabilitySearchFacets facets = invocation.getArgument(3);
+            facets.add("Cardiology", AppointmentType.CONSULTATION, "Main Clinic", new BigDecimal("100.00"), 40);
+            facets.add("Cardiology", AppointmentType.FOLLOW_UP, "Main Clinic", new BigDecimal("60.00"), 25);
+            return null;
+        }).when(slotSearchRepository).aggregateFacets(eq(searchRequest), any(), any(), any());
+
+        // Act
+        AvailabilitySearchFacets facets = availabilityService.searchFacets(searchRequest);
+
+        // Assert - counts cover all 65 matches, not the one-slot page
+        assertEquals(65, facets.getTotalCount());
+        assertEquals(65, facets.getSpecializations().get(0).getCount());
+        assertEquals("CONSULTATION", facets.getAppointmentTypes().get(0).getValue());
+        verify(searchIndex).collectFacets(eq(searchRequest), any());
+        verify(searchCache).putFacets(searchRequest, 3L, facets);
+    }
+
+    @Test
+    void testSearchAvailableSlots_SeveralProvidersAreMerged() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setProviderIds(List.of(testProvider.getId(), UUID.randomUUID()));
+        AvailabilityResponse.AppointmentSlotData merged = new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusMinutes(30),
+                AppointmentType.CONSULTATION, false, true);
+        when(multiProviderSearch.supports(searchRequest)).thenReturn(true);
+        when(multiProviderSearch.search(eq(searchRequest), any(), any(), isNull(), eq(51))).thenReturn(List.of(merged));
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertEquals(List.of(merged), result.getSlots());
+        verifyNoInteractions(slotSearchRepository);
+    }
+
+    @Test
+    void testSearchAvailableSlots_FullPageReturnsCursorForTheNextPage() {
+        // Arrange - one row more than maxResults comes back
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setMaxResults(2);
+        List<AvailabilityResponse.AppointmentSlotData> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                    LocalDate.now().plusDays(1).atTime(9 + i, 0), LocalDate.now().plusDays(1).atTime(9 + i, 30),
+                    AppointmentType.CONSULTATION, false, true));
+        }
+        when(slotSearchRepository.searchOpenSlots(any(), any(), any(), any(), eq(3))).thenReturn(rows);
+
+        // Act
+        AvailabilitySearchResult firstPage = availabilityService.searchAvailableSlots(searchRequest);
+        searchRequest.setCursor(firstPage.getNextCursor());
+        availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert - the cursor points at the last slot shown, not the extra row
+        assertEquals(2, firstPage.getSlots().size());
+        assertTrue(firstPage.isHasMore());
+        verify(slotSearchRepository).searchOpenSlots(any(), any(), any(), argThat(cursor -> cursor != null
+                && cursor.getId().equals(rows.get(1).getId())
+                && cursor.getStartDateTime().equals(rows.get(1).getStartDateTime())), eq(3));
+    }
+
+    @Test
+    void testSearchAvailableSlots_CursorForAnotherSortIsRejected() {
+        // Arrange
+        AvailabilitySearchRequest timeSorted = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        AvailabilityResponse.AppointmentSlotData last = new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusMinutes(30),
+                AppointmentType.CONSULTATION, false, true);
+        AvailabilitySearchRequest priceSorted = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        priceSorted.setSortBy("price");
+        priceSorted.setCursor(AvailabilitySearchCursor.after(timeSorted, last).encode());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.searchAvailableSlots(priceSorted));
+        verifyNoInteractions(slotSearchRepository);
+    }
+
+    @Test
+    void testSearchAvailableSlots_DistanceSortPagesThroughProvidersNearestFirst() {
+        // Arrange - two providers share a clinic 1.2 km away, a third is 4.5 km away
+        UUID sameClinicA = UUID.randomUUID();
+        UUID sameClinicB = UUID.randomUUID();
+        UUID farther = UUID.randomUUID();
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setProximityLocation("40.7128,-74.0060");
+        searchRequest.setMaxDistanceKm(10);
+        searchRequest.setSortBy("distance");
+        searchRequest.setMaxResults(2);
+        when(geoIndex.findWithin(any(), eq(10.0))).thenReturn(List.of(
+                new ProviderGeoIndex.NearbyProvider(sameClinicA, 1.2),
+                new ProviderGeoIndex.NearbyProvider(sameClinicB, 1.2),
+                new ProviderGeoIndex.NearbyProvider(farther, 4.5)));
+        AvailabilityResponse.AppointmentSlotData nearSlot = slotOf(sameClinicB, 14);
+        AvailabilityResponse.AppointmentSlotData farSlot = slotOf(farther, 9);
+        AvailabilityResponse.AppointmentSlotData laterFarSlot = slotOf(farther, 10);
+        when(slotSearchRepository.searchOpenSlotsByDistance(any(), any(), any(), any(), isNull(), eq(3)))
+                .thenReturn(List.of(nearSlot, farSlot, laterFarSlot));
+        when(slotSearchRepository.searchOpenSlotsByDistance(any(), any(), any(), any(), notNull(), eq(3)))
+                .thenReturn(List.of(laterFarSlot));
+
+        // Act
+        AvailabilitySearchResult firstPage = availabilityService.searchAvailableSlots(searchRequest);
+        searchRequest.setCursor(firstPage.getNextCursor());
+        AvailabilitySearchResult secondPage = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert - one ranked query per page; the nearer clinic comes first even though its slot starts later
+        assertEquals(List.of(nearSlot, farSlot), firstPage.getSlots());
+        assertEquals(List.of(1.2, 4.5), firstPage.getSlots().stream()
+                .map(AvailabilityResponse.AppointmentSlotData::getDistanceKm).toList());
+        assertTrue(firstPage.isHasMore());
+        assertEquals(List.of(laterFarSlot), secondPage.getSlots());
+        verify(slotSearchRepository).searchOpenSlotsByDistance(any(),
+                eq(Map.of(sameClinicA, 1.2, sameClinicB, 1.2, farther, 4.5)), any(), any(), isNull(), eq(3));
+        // The second page leaves out the nearer providers and resumes after the cursor
+        verify(slotSearchRepository).searchOpenSlotsByDistance(argThat(request -> request != null
+                && request.getProviderIds().equals(List.of(farther))), eq(Map.of(farther, 4.5)), any(), any(),
+                argThat(cursor -> cursor != null && cursor.isByDistance() && cursor.getId().equals(farSlot.getId())), eq(3));
+        verify(slotSearchRepository, never()).searchOpenSlots(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testSearchAvailableSlots_NoProviderWithinTheRadius() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setProximityLocation("40.7128,-74.0060");
+        when(geoIndex.findWithin(any(), eq(25.0))).thenReturn(List.of());
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertTrue(result.getSlots().isEmpty());
+        verifyNoInteractions(slotSearchRepository, searchIndex);
+    }
+
+    @Test
+    void testSearchAvailableSlots_InsuranceFilterNarrowsProvidersBeforeReadingSlots() {
+        // Arrange
+        UUID accepting = UUID.randomUUID();
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setAcceptedInsurance(List.of("Blue Cross"));
+        AvailabilityResponse.AppointmentSlotData slot = slotOf(accepting, 10);
+        when(insuranceIndex.findAcceptingProviders(List.of("Blue Cross"), null))
+                .thenReturn(new LinkedHashSet<>(List.of(accepting)));
+        when(slotSearchRepository.searchOpenSlots(argThat(request -> request != null
+                && request.getProviderIds().equals(List.of(accepting)) && request.getAcceptedInsurance() == null),
+                any(), any(), any(), anyInt())).thenReturn(List.of(slot));
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertEquals(List.of(slot), result.getSlots());
+    }
+
+    @Test
+    void testSearchAvailableSlots_NoProviderAcceptsTheInsurance() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setAcceptedInsurance(List.of("Unknown Plan"));
+        when(insuranceIndex.findAcceptingProviders(any(), isNull())).thenReturn(Set.of());
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertTrue(result.getSlots().isEmpty());
+        verifyNoInteractions(slotSearchRepository, searchIndex);
+    }
+
+    @Test
+    void testSearchAvailableSlots_DistanceSortRequiresAProximityLocation() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setSortBy("distance");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.searchAvailableSlots(searchRequest));
+        verifyNoInteractions(geoIndex, slotSearchRepository);
     }
 
     @Test
@@ -440,64 +1037,260 @@ class ProviderAvailabilityServiceTest {
     }
 
     @Test
-    void testSearchAvailableSlots_ByAppointmentType() {
-        // Arrange
+    void testSearchAvailableSlots_VirtualMode_AppliesPriceAndDurationFilters() {
+        // Arrange - the availability's slots are 30 minutes long
         AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
-                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
-        searchRequest.setAppointmentType(AppointmentType.CONSULTATION);
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+        searchRequest.setMinSlotDurationMinutes(45);
 
-        AppointmentSlot consultationSlot = new AppointmentSlot();
-        consultationSlot.setId(UUID.randomUUID());
-        consultationSlot.setProvider(testProvider);
-        consultationSlot.setAppointmentType(AppointmentType.CONSULTATION);
-        consultationSlot.setIsBooked(false);
-        consultationSlot.setIsActive(true);
+        AppointmentSlot derived = slotGenerator.generate(testAvailability).get(0);
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.streamActiveByDateRange(any(), any(), any())).thenReturn(Stream.of(testAvailability));
+        when(virtualSlotService.deriveOpenSlots(anyList(), any(), any())).thenReturn(List.of(derived));
 
-        when(slotRepository.findAvailableSlotsByTypeAndTimeRange(eq(AppointmentType.CONSULTATION), any(), any()))
-                .thenReturn(List.of(consultationSlot));
+        // Act
+        List<AvailabilityResponse.AppointmentSlotData> result = availabilityService.searchAvailableSlots(searchRequest).getSlots();
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(slotSearchRepository);
+    }
+
+    @Test
+    void testSearchAvailableSlots_VirtualMode_TimeOfDayIsOnTheProvidersClock() {
+        // Arrange - 09:00-17:00 in New York is 13:00 or 14:00 UTC onwards
+        testAvailability.setTimezone("America/New_York");
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+        searchRequest.setPreferredStartTime(LocalTime.of(9, 0));
+        searchRequest.setPreferredEndTime(LocalTime.of(9, 30));
+
+        List<AppointmentSlot> derived = slotGenerator.generate(testAvailability);
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.streamActiveByDateRange(any(), any(), any())).thenReturn(Stream.of(testAvailability));
+        when(virtualSlotService.deriveOpenSlots(anyList(), any(), any())).thenReturn(derived);
 
         // Act
-        List<AvailabilityResponse.AppointmentSlotData> result = 
-                availabilityService.searchAvailableSlots(searchRequest);
+        List<AvailabilityResponse.AppointmentSlotData> result = availabilityService.searchAvailableSlots(searchRequest).getSlots();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(AppointmentType.CONSULTATION, result.get(0).getAppointmentType());
+        assertEquals(List.of(derived.get(0).getStartDateTime(), derived.get(1).getStartDateTime()),
+                result.stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList());
+        assertEquals(9 * 60 + 30, derived.get(1).getLocalStartMinute());
+        assertNotEquals(9, derived.get(0).getStartDateTime().getHour());
+    }
+
+    @Test
+    void testSearchAvailableSlots_VirtualMode_GeneralSearchStopsOnceThePageIsSettled() {
+        // Arrange - 16 slots a day; two pages' worth are decided within the first two days
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
+        searchRequest.setMaxResults(2);
+
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.streamActiveByDateRange(any(), any(), eq(
+                Sort.by(Sort.Direction.ASC, "availabilityDate", "startTime"))))
+                .thenReturn(Stream.of(window(1), window(2), window(4), window(6)));
+        when(virtualSlotService.deriveOpenSlots(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<AppointmentSlot> slots = new ArrayList<>();
+            for (ProviderAvailability availability : (List<ProviderAvailability>) invocation.getArgument(0)) {
+                for (AppointmentSlot slot : slotGenerator.generate(availability)) {
+                    slot.setId(VirtualSlotService.virtualSlotId(availability.getId(), slot.getStartDateTime()));
+                    slots.add(slot);
+                }
+            }
+            return slots;
+        });
+
+        // Act
+        AvailabilitySearchResult result = availabilityService.searchAvailableSlots(searchRequest);
+
+        // Assert
+        assertEquals(List.of(LocalDate.now().plusDays(1).atTime(9, 0), LocalDate.now().plusDays(1).atTime(9, 30)),
+                result.getSlots().stream().map(AvailabilityResponse.AppointmentSlotData::getStartDateTime).toList());
+        assertTrue(result.isHasMore());
+        verify(virtualSlotService, times(2)).deriveOpenSlots(anyList(), any(), any());
+        verify(availabilityRepository, never()).findActiveByDateRange(any(), any());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testFindNextAvailableSlots_IndexAnswersFirstAndTheDatabaseTheRest() {
+        // Arrange
+        UUID indexed = UUID.randomUUID();
+        UUID beyondHorizon = UUID.randomUUID();
+        UUID withoutSlots = UUID.randomUUID();
+        AvailabilityResponse.AppointmentSlotData indexedSlot = slotOf(indexed, 9);
+        AvailabilityResponse.AppointmentSlotData storedSlot = slotOf(beyondHorizon, 11);
+
+        when(searchIndex.findEarliest(List.of(indexed, beyondHorizon, withoutSlots)))
+                .thenReturn(Optional.of(Map.of(indexed, indexedSlot)));
+        when(slotSearchRepository.findEarliestOpenSlots(Set.of(beyondHorizon, withoutSlots)))
+                .thenReturn(List.of(storedSlot, slotOf(beyondHorizon, 11)));
 
-        verify(slotRepository).findAvailableSlotsByTypeAndTimeRange(eq(AppointmentType.CONSULTATION), any(), any());
+        // Act
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> next = availabilityService.findNextAvailableSlots(
+                List.of(indexed, beyondHorizon, withoutSlots, indexed), null);
+
+        // Assert - every provider once, in request order; ties keep the first row
+        assertEquals(List.of(indexed, beyondHorizon, withoutSlots), new ArrayList<>(next.keySet()));
+        assertSame(indexedSlot, next.get(indexed));
+        assertSame(storedSlot, next.get(beyondHorizon));
+        assertNull(next.get(withoutSlots));
+    }
+
+    @Test
+    void testFindNextAvailableSlots_BySpecialization() {
+        // Arrange
+        when(providerRepository.findActiveIdsBySpecialization("Cardiology")).thenReturn(List.of(testProvider.getId()));
+        when(searchIndex.findEarliest(List.of(testProvider.getId()))).thenReturn(Optional.empty());
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.findByProviderIdsAndDateRange(any(), any(), any())).thenReturn(List.of(window(2)));
+        when(virtualSlotService.deriveOpenSlots(anyList(), any(), any())).thenAnswer(invocation ->
+                slotGenerator.generate((ProviderAvailability) ((List<?>) invocation.getArgument(0)).get(0)));
+
+        // Act
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> next =
+                availabilityService.findNextAvailableSlots(null, " Cardiology ");
+
+        // Assert - settled within the first scan step
+        assertEquals(LocalDate.now().plusDays(2).atTime(9, 0), next.get(testProvider.getId()).getStartDateTime());
+        verify(availabilityRepository, times(1)).findByProviderIdsAndDateRange(any(), any(), any());
+        verify(slotSearchRepository, never()).findEarliestOpenSlots(any());
+    }
+
+    @Test
+    void testFindNextAvailableSlots_LargeSpecializationIsLookedUpInChunks() {
+        // Arrange - three providers with a limit of two
+        ReflectionTestUtils.setField(availabilityService, "maxNextAvailableProviders", 2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(providerRepository.findActiveIdsBySpecialization("Cardiology")).thenReturn(List.of(first, second, third));
+        when(searchIndex.findEarliest(any())).thenReturn(Optional.empty());
+        when(slotSearchRepository.findEarliestOpenSlots(Set.of(first, second))).thenReturn(List.of(slotOf(second, 9)));
+        when(slotSearchRepository.findEarliestOpenSlots(Set.of(third))).thenReturn(List.of(slotOf(third, 11)));
+
+        // Act
+        Map<UUID, AvailabilityResponse.AppointmentSlotData> next =
+                availabilityService.findNextAvailableSlots(null, "Cardiology");
+
+        // Assert - every provider answered, in directory order
+        assertEquals(List.of(first, second, third), new ArrayList<>(next.keySet()));
+        assertNull(next.get(first));
+        assertEquals(9, next.get(second).getStartDateTime().getHour());
+        assertEquals(11, next.get(third).getStartDateTime().getHour());
+        verify(searchIndex).findEarliest(List.of(first, second));
+        verify(searchIndex).findEarliest(List.of(third));
+    }
+
+    @Test
+    void testFindNextAvailableSlots_TooManyListedProviders() {
+        // Arrange
+        ReflectionTestUtils.setField(availabilityService, "maxNextAvailableProviders", 2);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.findNextAvailableSlots(
+                List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()), null));
+        verifyNoInteractions(searchIndex, slotSearchRepository);
+    }
+
+    @Test
+    void testFindNextAvailableSlots_RequiresProvidersOrASpecialization() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.findNextAvailableSlots(List.of(), " "));
     }
 
     @Test
-    void testSearchAvailableSlots_ByPriceRange() {
+    void testExportAvailableSlots_StreamsEveryMatchByStartTime() {
         // Arrange
         AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
-                LocalDate.now().plusDays(1), LocalDate.now().plusDays(7));
-        searchRequest.setMinPrice(new BigDecimal("50.00"));
-        searchRequest.setMaxPrice(new BigDecimal("150.00"));
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(30));
+        searchRequest.setSortBy("price");
+        searchRequest.setAscending(false);
+        searchRequest.setMaxResults(10);
+        doAnswer(invocation -> {
+            Consumer<AvailabilityResponse.AppointmentSlotData> sink = invocation.getArgument(4);
+            sink.accept(slotOf(testProvider.getId(), 9));
+            sink.accept(slotOf(testProvider.getId(), 10));
+            return null;
+        }).when(slotSearchRepository).streamOpenSlots(any(), any(), any(), anyInt(), any());
+        List<AvailabilityResponse.AppointmentSlotData> written = new ArrayList<>();
+
+        // Act
+        long exported = availabilityService.exportAvailableSlots(searchRequest, written::add);
+
+        // Assert - no page limit, no cache, and the request's own sort is left alone
+        assertEquals(2, exported);
+        assertEquals(2, written.size());
+        ArgumentCaptor<AvailabilitySearchRequest> streamed = ArgumentCaptor.forClass(AvailabilitySearchRequest.class);
+        verify(slotSearchRepository).streamOpenSlots(streamed.capture(), any(), any(), eq(500), any());
+        assertEquals("startTime", streamed.getValue().getSortBy());
+        assertTrue(streamed.getValue().getAscending());
+        assertEquals("price", searchRequest.getSortBy());
+        verifyNoInteractions(searchCache, searchIndex);
+    }
+
+    @Test
+    void testValidateExport_RejectsRangesBeyondTheLimit() {
+        // Arrange
+        AvailabilitySearchRequest searchRequest = new AvailabilitySearchRequest(
+                LocalDate.now(), LocalDate.now().plusDays(366));
 
-        AppointmentSlot priceFilteredSlot = new AppointmentSlot();
-        priceFilteredSlot.setId(UUID.randomUUID());
-        priceFilteredSlot.setProvider(testProvider);
-        priceFilteredSlot.setPrice(new BigDecimal("100.00"));
-        priceFilteredSlot.setIsBooked(false);
-        priceFilteredSlot.setIsActive(true);
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.validateExport(searchRequest));
+        searchRequest.setEndDate(LocalDate.now().plusDays(365));
+        assertDoesNotThrow(() -> availabilityService.validateExport(searchRequest));
+    }
 
-        when(slotRepository.findAvailableSlotsByPriceRange(
-                eq(new BigDecimal("50.00")), eq(new BigDecimal("150.00")), any(), any()))
-                .thenReturn(List.of(priceFilteredSlot));
+    @Test
+    void testTryStartExport_CapsConcurrentExports() {
+        // Act & Assert - two permits by default, returned as exports finish
+        assertTrue(availabilityService.tryStartExport());
+        assertTrue(availabilityService.tryStartExport());
+        assertFalse(availabilityService.tryStartExport());
+        availabilityService.finishExport();
+        assertTrue(availabilityService.tryStartExport());
+    }
+
+    @Test
+    void testFindCommonFreeWindows_RanksFromOneQueryOfAllProviders() {
+        // Arrange - both providers free 09:00-10:00 and 11:00-11:30
+        UUID other = UUID.randomUUID();
+        doAnswer(invocation -> {
+            Consumer<AvailabilityResponse.AppointmentSlotData> sink = invocation.getArgument(4);
+            sink.accept(slotOf(testProvider.getId(), 9));
+            sink.accept(slotOf(other, 9));
+            AvailabilityResponse.AppointmentSlotData nine30 = slotOf(testProvider.getId(), 9);
+            nine30.setStartDateTime(nine30.getStartDateTime().plusMinutes(30));
+            nine30.setEndDateTime(nine30.getEndDateTime().plusMinutes(30));
+            sink.accept(nine30);
+            AvailabilityResponse.AppointmentSlotData otherNine30 = slotOf(other, 9);
+            otherNine30.setStartDateTime(nine30.getStartDateTime());
+            otherNine30.setEndDateTime(nine30.getEndDateTime());
+            sink.accept(otherNine30);
+            sink.accept(slotOf(testProvider.getId(), 11));
+            sink.accept(slotOf(other, 11));
+            return null;
+        }).when(slotSearchRepository).streamOpenSlots(any(), any(), any(), anyInt(), any());
 
         // Act
-        List<AvailabilityResponse.AppointmentSlotData> result = 
-                availabilityService.searchAvailableSlots(searchRequest);
+        List<CommonFreeWindow> longest = availabilityService.findCommonFreeWindows(List.of(testProvider.getId(), other),
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(1), 30, "longest", 1);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(new BigDecimal("100.00"), result.get(0).getPrice());
+        assertEquals(1, longest.size());
+        assertEquals(60, longest.get(0).getDurationMinutes());
+        ArgumentCaptor<AvailabilitySearchRequest> queried = ArgumentCaptor.forClass(AvailabilitySearchRequest.class);
+        verify(slotSearchRepository, times(1)).streamOpenSlots(queried.capture(), any(), any(), anyInt(), any());
+        assertEquals(List.of(testProvider.getId(), other), queried.getValue().getProviderIds());
+    }
 
-        verify(slotRepository).findAvailableSlotsByPriceRange(
-                eq(new BigDecimal("50.00")), eq(new BigDecimal("150.00")), any(), any());
+    @Test
+    void testFindCommonFreeWindows_RequiresSeveralProviders() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.findCommonFreeWindows(
+                List.of(testProvider.getId(), testProvider.getId()), LocalDate.now(), LocalDate.now(), 30, "earliest", 10));
     }
 
     @Test
@@ -510,14 +1303,13 @@ class ProviderAvailabilityServiceTest {
         when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
         when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
         when(availabilityRepository.saveAll(anyList())).thenReturn(List.of(testAvailability));
-        when(slotRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
         // Act
         AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
 
         // Assert
         assertTrue(response.isSuccess());
-        verify(slotRepository).saveAll(anyList()); // Verify slots were generated
+        verify(slotBatchWriter).insertAll(any(Iterator.class)); // Verify slots were generated
     }
 
     @Test
@@ -529,14 +1321,13 @@ class ProviderAvailabilityServiceTest {
         when(providerRepository.findById(testProvider.getId())).thenReturn(Optional.of(testProvider));
         when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
         when(availabilityRepository.saveAll(anyList())).thenReturn(List.of(testAvailability));
-        when(slotRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
         // Act
         AvailabilityResponse response = availabilityService.createAvailability(testProvider.getId(), testCreateRequest);
 
         // Assert
         assertTrue(response.isSuccess());
-        verify(slotRepository).saveAll(anyList());
+        verify(slotBatchWriter).insertAll(any(Iterator.class));
     }
 
     @Test
@@ -556,4 +1347,19 @@ class ProviderAvailabilityServiceTest {
         assertFalse(response.isSuccess());
         assertEquals("OVERLAP_ERROR", response.getErrorCode());
     }
-} 
\ No newline at end of file
+
+    private ProviderAvailability window(int daysAhead) {
+        ProviderAvailability availability = new ProviderAvailability(testProvider, LocalDate.now().plusDays(daysAhead),
+                LocalTime.of(9, 0), LocalTime.of(17, 0), 30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        return availability;
+    }
+
+    private AvailabilityResponse.AppointmentSlotData slotOf(UUID providerId, int hour) {
+        AvailabilityResponse.AppointmentSlotData slot = new AvailabilityResponse.AppointmentSlotData(UUID.randomUUID(),
+                LocalDate.now().plusDays(1).atTime(hour, 0), LocalDate.now().plusDays(1).atTime(hour, 30),
+                AppointmentType.CONSULTATION, false, true);
+        slot.setProviderId(providerId);
+        return slot;
+    }
+}
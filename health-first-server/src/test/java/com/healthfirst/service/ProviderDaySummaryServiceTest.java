@@ -0,0 +1,214 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.AppointmentSlot;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.ProviderAvailability;
+import com.healthfirst.entity.ProviderDaySummary;
+import com.healthfirst.enums.AppointmentType;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.event.SlotBookedEvent;
+import com.healthfirst.repository.AppointmentSlotRepository;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import com.healthfirst.repository.ProviderDaySummaryRepository;
+import com.healthfirst.repository.ProviderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderDaySummaryServiceTest {
+
+    @Mock
+    private ProviderDaySummaryRepository daySummaryRepository;
+
+    @Mock
+    private AppointmentSlotRepository slotRepository;
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Mock
+    private ProviderRepository providerRepository;
+
+    @Mock
+    private VirtualSlotService virtualSlotService;
+
+    @InjectMocks
+    private ProviderDaySummaryService daySummaryService;
+
+    private Provider provider;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        provider = new Provider();
+        provider.setId(UUID.randomUUID());
+        day = LocalDate.now().plusDays(2);
+    }
+
+    @Test
+    void testOnAvailabilityChanged_ReplacesTheChangedDays() {
+        // Arrange - the second day has no slots left
+        LocalDate emptied = day.plusDays(1);
+        when(slotRepository.summarizeDays(provider.getId(), List.of(day, emptied))).thenReturn(List.<Object[]>of(
+                new Object[]{day, 3L, 1L, day.atTime(9, 0), day.atTime(11, 0)}));
+
+        // Act
+        daySummaryService.onAvailabilityChanged(AvailabilityChangedEvent.forDates(provider.getId(), List.of(emptied, day)));
+
+        // Assert
+        verify(daySummaryRepository).deleteByProviderIdAndDates(provider.getId(), List.of(day, emptied));
+        List<ProviderDaySummary> saved = savedSummaries();
+        assertEquals(1, saved.size());
+        assertEquals(day, saved.get(0).getSummaryDate());
+        assertEquals(3, saved.get(0).getOpenCount());
+        assertEquals(1, saved.get(0).getBookedCount());
+        assertEquals(day.atTime(9, 0), saved.get(0).getFirstOpenStart());
+        assertEquals(day.atTime(11, 0), saved.get(0).getLastOpenStart());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_AllDatesRebuildsTheProvider() {
+        // Arrange
+        when(slotRepository.summarizeAllDays(provider.getId())).thenReturn(List.of());
+
+        // Act
+        daySummaryService.onAvailabilityChanged(AvailabilityChangedEvent.forAllDates(provider.getId()));
+
+        // Assert
+        verify(daySummaryRepository).deleteByProviderId(provider.getId());
+        verify(daySummaryRepository, never()).deleteByProviderIdAndDates(any(), any());
+        assertTrue(savedSummaries().isEmpty());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_VirtualModeCountsDerivedSlots() {
+        // Arrange - a virtual grid of three slots, the middle one booked
+        ProviderAvailability availability = new ProviderAvailability(provider, day,
+                LocalTime.of(9, 0), LocalTime.of(10, 30), 30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.findByProviderIdAndDateRangeAndIsActive(provider.getId(), day, day))
+                .thenReturn(List.of(availability));
+        when(virtualSlotService.deriveSlots(List.of(availability))).thenReturn(Map.of(availability.getId(), List.of(
+                slot(availability, day.atTime(9, 0), false),
+                slot(availability, day.atTime(9, 30), true),
+                slot(availability, day.atTime(10, 0), false))));
+
+        // Act
+        daySummaryService.onAvailabilityChanged(AvailabilityChangedEvent.forDates(provider.getId(), List.of(day)));
+
+        // Assert
+        List<ProviderDaySummary> saved = savedSummaries();
+        assertEquals(1, saved.size());
+        assertEquals(2, saved.get(0).getOpenCount());
+        assertEquals(1, saved.get(0).getBookedCount());
+        assertEquals(day.atTime(9, 0), saved.get(0).getFirstOpenStart());
+        assertEquals(day.atTime(10, 0), saved.get(0).getLastOpenStart());
+        verify(slotRepository, never()).summarizeDays(any(), any());
+    }
+
+    @Test
+    void testOnSlotBooked_CountsTheBookingInPlace() {
+        // Arrange
+        ProviderAvailability availability = new ProviderAvailability(provider, day,
+                LocalTime.of(9, 0), LocalTime.of(10, 30), 30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        when(availabilityRepository.findById(availability.getId())).thenReturn(Optional.of(availability));
+
+        // Act
+        daySummaryService.onSlotBooked(new SlotBookedEvent(provider.getId(), availability.getId(), day.atTime(9, 30)));
+
+        // Assert - one atomic update of the availability's day, no recount
+        verify(daySummaryRepository).countBooking(provider.getId(), day);
+        verify(daySummaryRepository, never()).deleteByProviderIdAndDates(any(), any());
+        verify(daySummaryRepository, never()).saveAll(any());
+        verify(virtualSlotService, never()).deriveSlots(any());
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    void testOnSlotBooked_BookingTheFirstOpenSlotMovesTheSpanForward() {
+        // Arrange - virtual mode, the 09:00 slot has just been booked
+        ProviderAvailability availability = new ProviderAvailability(provider, day,
+                LocalTime.of(9, 0), LocalTime.of(10, 30), 30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        when(availabilityRepository.findById(availability.getId())).thenReturn(Optional.of(availability));
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+        when(availabilityRepository.findByProviderIdAndDateRangeAndIsActive(provider.getId(), day, day))
+                .thenReturn(List.of(availability));
+        when(virtualSlotService.deriveSlots(List.of(availability))).thenReturn(Map.of(availability.getId(), List.of(
+                slot(availability, day.atTime(9, 0), true),
+                slot(availability, day.atTime(9, 30), false),
+                slot(availability, day.atTime(10, 0), false))));
+
+        // Act
+        daySummaryService.onSlotBooked(new SlotBookedEvent(provider.getId(), availability.getId(), day.atTime(9, 0)));
+
+        // Assert - counted in place with the first open start moved to the next slot
+        verify(daySummaryRepository).countDerivedBooking(provider.getId(), day, day.atTime(9, 30), day.atTime(10, 0));
+        verify(daySummaryRepository, never()).countBooking(any(), any());
+        verify(daySummaryRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testGetMonth_ReadsOnlyTheSummaries() {
+        // Arrange
+        YearMonth month = YearMonth.of(2026, 2);
+        when(providerRepository.existsById(provider.getId())).thenReturn(true);
+        when(daySummaryRepository.findByProviderIdAndSummaryDateBetweenOrderBySummaryDate(
+                provider.getId(), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28)))
+                .thenReturn(List.of(new ProviderDaySummary(provider.getId(), LocalDate.of(2026, 2, 3))));
+
+        // Act
+        List<ProviderDaySummary> days = daySummaryService.getMonth(provider.getId(), month);
+
+        // Assert
+        assertEquals(1, days.size());
+        verifyNoInteractions(slotRepository, availabilityRepository);
+    }
+
+    @Test
+    void testGetMonth_UnknownProvider() {
+        // Arrange
+        when(providerRepository.existsById(provider.getId())).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> daySummaryService.getMonth(provider.getId(), YearMonth.of(2026, 2)));
+    }
+
+    // ========== TEST HELPERS ==========
+
+    @SuppressWarnings("unchecked")
+    private List<ProviderDaySummary> savedSummaries() {
+        ArgumentCaptor<Collection<ProviderDaySummary>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(daySummaryRepository).saveAll(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private AppointmentSlot slot(ProviderAvailability availability, LocalDateTime start, boolean booked) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setProviderAvailability(availability);
+        slot.setProvider(provider);
+        slot.setStartDateTime(start);
+        slot.setEndDateTime(start.plusMinutes(30));
+        slot.setIsBooked(booked);
+        slot.setIsActive(true);
+        return slot;
+    }
+}
@@ -0,0 +1,105 @@
+package com.healthfirst.service;
+
+import com.healthfirst.dto.GeoPoint;
+import com.healthfirst.entity.Provider;
+import com.healthfirst.entity.embedded.ClinicAddress;
+import com.healthfirst.repository.ProviderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderGeoIndexTest {
+
+    @Mock
+    private ProviderRepository providerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ProviderGeoIndex geoIndex;
+
+    private final List<Provider> providers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(providerRepository.findActiveWithCoordinates()).thenReturn(providers);
+    }
+
+    @Test
+    void testFindWithin_RefinesGridCandidatesByExactDistance() {
+        // Arrange - lower Manhattan, Brooklyn, Newark and Philadelphia
+        Provider manhattan = provider(40.7128, -74.0060);
+        Provider brooklyn = provider(40.6782, -73.9442);
+        Provider newark = provider(40.7357, -74.1724);
+        provider(39.9526, -75.1652);
+        geoIndex.rebuild();
+
+        // Act
+        List<ProviderGeoIndex.NearbyProvider> nearby = geoIndex.findWithin(new GeoPoint(40.7128, -74.0060), 10);
+
+        // Assert - Newark is in a neighbouring cell but about 14 km away
+        assertEquals(List.of(manhattan.getId(), brooklyn.getId()), ids(nearby));
+        assertEquals(0.0, nearby.get(0).getDistanceKm());
+        assertEquals(6.4, nearby.get(1).getDistanceKm(), 0.2);
+        assertEquals(3, ids(geoIndex.findWithin(new GeoPoint(40.7128, -74.0060), 20)).size());
+        assertEquals(4, geoIndex.getIndexedProviderCount());
+    }
+
+    @Test
+    void testFindWithin_WrapsAcrossTheAntimeridian() {
+        // Arrange - either side of 180 degrees in Fiji
+        Provider east = provider(-17.0, 179.95);
+        Provider west = provider(-17.0, -179.95);
+        geoIndex.rebuild();
+
+        // Act
+        List<ProviderGeoIndex.NearbyProvider> nearby = geoIndex.findWithin(new GeoPoint(-17.0, 179.99), 20);
+
+        // Assert
+        assertEquals(Set.of(east.getId(), west.getId()), new HashSet<>(ids(nearby)));
+    }
+
+    @Test
+    void testFindWithin_BuildsOnFirstUse() {
+        // Arrange
+        Provider only = provider(51.5074, -0.1278);
+
+        // Act
+        List<ProviderGeoIndex.NearbyProvider> nearby = geoIndex.findWithin(new GeoPoint(51.5, -0.12), 5);
+
+        // Assert
+        assertEquals(List.of(only.getId()), ids(nearby));
+        verify(providerRepository, times(1)).findActiveWithCoordinates();
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private Provider provider(double latitude, double longitude) {
+        ClinicAddress address = new ClinicAddress("1 Main St", "City", "ST", "12345");
+        address.setLatitude(latitude);
+        address.setLongitude(longitude);
+        Provider provider = new Provider();
+        provider.setId(UUID.randomUUID());
+        provider.setClinicAddress(address);
+        providers.add(provider);
+        return provider;
+    }
+
+    private List<UUID> ids(List<ProviderGeoIndex.NearbyProvider> nearby) {
+        return nearby.stream().map(ProviderGeoIndex.NearbyProvider::getProviderId).toList();
+    }
+}
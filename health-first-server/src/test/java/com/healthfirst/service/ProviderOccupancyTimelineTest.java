@@ -0,0 +1,153 @@
+package com.healthfirst.service;
+
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderOccupancyTimelineTest {
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @InjectMocks
+    private ProviderOccupancyTimeline occupancyTimeline;
+
+    private UUID providerId;
+    private LocalDate date;
+    private final List<Object[]> storedWindows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        providerId = UUID.randomUUID();
+        date = LocalDate.now().plusDays(3);
+        storedWindows.add(window(date, LocalTime.of(10, 2), LocalTime.of(12, 0)));
+        storedWindows.add(window(date.plusDays(1), LocalTime.of(8, 0), LocalTime.of(9, 0)));
+
+        lenient().when(availabilityRepository.findActiveWindows(eq(providerId), any(), any())).thenAnswer(invocation -> {
+            LocalDate from = invocation.getArgument(1);
+            LocalDate to = invocation.getArgument(2);
+            return storedWindows.stream()
+                    .filter(row -> !((LocalDate) row[0]).isBefore(from) && !((LocalDate) row[0]).isAfter(to))
+                    .toList();
+        });
+    }
+
+    @Test
+    void testHasOverlap_AnsweredFromBitmapAfterOneLoad() {
+        // Act & Assert - fully covered buckets, a shared edge bucket either way, adjacency and another day
+        assertTrue(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(11, 0)));
+        assertTrue(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(10, 3)));
+        assertFalse(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(10, 2)));
+        assertFalse(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(12, 0), LocalTime.of(13, 0)));
+        assertTrue(occupancyTimeline.hasOverlap(providerId, date.plusDays(1), LocalTime.of(8, 30), LocalTime.of(8, 45)));
+        assertFalse(occupancyTimeline.hasOverlap(providerId, date.plusDays(2), LocalTime.of(8, 0), LocalTime.of(9, 0)));
+
+        verify(availabilityRepository, times(1)).findActiveWindows(eq(providerId), any(), any());
+        verify(availabilityRepository, never()).findOverlappingSlots(any(), any(), any(), any());
+        assertEquals(6, occupancyTimeline.getTimelineHits());
+        assertEquals(1, occupancyTimeline.getResidentProviderCount());
+        assertTrue(occupancyTimeline.getResidentBytes() > 0);
+    }
+
+    @Test
+    void testOnAvailabilityChanged_RefreshesChangedDays() {
+        // Arrange
+        assertFalse(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(14, 0), LocalTime.of(15, 0)));
+        long bytesBefore = occupancyTimeline.getResidentBytes();
+
+        // Act - a window is added on the date and the next day's window is removed
+        storedWindows.add(window(date, LocalTime.of(14, 30), LocalTime.of(16, 0)));
+        storedWindows.remove(1);
+        occupancyTimeline.onAvailabilityChanged(AvailabilityChangedEvent.forDates(providerId, List.of(date, date.plusDays(1))));
+
+        // Assert
+        assertTrue(occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(14, 0), LocalTime.of(15, 0)));
+        assertFalse(occupancyTimeline.hasOverlap(providerId, date.plusDays(1), LocalTime.of(8, 0), LocalTime.of(9, 0)));
+        assertTrue(occupancyTimeline.getResidentBytes() < bytesBefore);
+        verify(availabilityRepository, never()).findOverlappingSlots(any(), any(), any(), any());
+    }
+
+    @Test
+    void testOnAvailabilityChanged_AllDatesEvictsProvider() {
+        // Arrange
+        occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        // Act
+        occupancyTimeline.onAvailabilityChanged(AvailabilityChangedEvent.forAllDates(providerId));
+
+        // Assert - evicted, and reloaded on the next check
+        assertEquals(0, occupancyTimeline.getResidentProviderCount());
+        assertEquals(0, occupancyTimeline.getResidentBytes());
+        occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(10, 0));
+        verify(availabilityRepository, times(2)).findActiveWindows(eq(providerId), any(), any());
+    }
+
+    @Test
+    void testHasOverlap_PastDateFallsBackToDatabase() {
+        // Arrange
+        LocalDate pastDate = LocalDate.now().minusDays(10);
+        when(availabilityRepository.findOverlappingSlots(providerId, pastDate, LocalTime.of(9, 0), LocalTime.of(10, 0)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        boolean overlap = occupancyTimeline.hasOverlap(providerId, pastDate, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        // Assert
+        assertFalse(overlap);
+        assertEquals(1, occupancyTimeline.getDatabaseFallbacks());
+        verify(availabilityRepository, never()).findActiveWindows(any(), any(), any());
+    }
+
+    @Test
+    void testHasOverlap_OverMemoryBudgetFallsBackToDatabase() {
+        // Arrange
+        ReflectionTestUtils.setField(occupancyTimeline, "maxBytes", 64L);
+        when(availabilityRepository.findOverlappingSlots(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        // Act
+        occupancyTimeline.hasOverlap(providerId, date, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        // Assert
+        assertEquals(0, occupancyTimeline.getResidentProviderCount());
+        assertEquals(1, occupancyTimeline.getDatabaseFallbacks());
+    }
+
+    @Test
+    void testHasOverlap_FailedLoadFallsBackToDatabase() {
+        // Arrange
+        UUID otherProviderId = UUID.randomUUID();
+        when(availabilityRepository.findActiveWindows(eq(otherProviderId), any(), any()))
+                .thenThrow(new IllegalStateException("Connection reset"));
+        when(availabilityRepository.findOverlappingSlots(otherProviderId, date, LocalTime.of(9, 0), LocalTime.of(10, 0)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        boolean overlap = occupancyTimeline.hasOverlap(otherProviderId, date, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        // Assert
+        assertFalse(overlap);
+        assertEquals(0, occupancyTimeline.getResidentProviderCount());
+        assertEquals(1, occupancyTimeline.getDatabaseFallbacks());
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private Object[] window(LocalDate day, LocalTime start, LocalTime end) {
+        return new Object[] {day, start, end};
+    }
+}
@@ -4,6 +4,7 @@ import com.healthfirst.dto.ProviderRegistrationRequest;
 import com.healthfirst.dto.ProviderRegistrationResponse;
 import com.healthfirst.entity.Provider;
 import com.healthfirst.entity.embedded.ClinicAddress;
+import com.healthfirst.event.ProviderInsuranceChangedEvent;
 import com.healthfirst.repository.ProviderRepository;
 import com.healthfirst.util.PasswordUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,8 +13,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +41,9 @@ class ProviderServiceTest {
     @Mock
     private PasswordUtil passwordUtil;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProviderService providerService;
 
@@ -180,4 +188,35 @@ class ProviderServiceTest {
         assertTrue(specializations.contains("Cardiology"));
         verify(validationService).getValidSpecializations();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testUpdateInsurancePlans_DropsDuplicatesAndPublishes() {
+        // Arrange
+        savedProvider.getAcceptedInsurancePlans().add("Old Plan");
+        when(providerRepository.findById(savedProvider.getId())).thenReturn(Optional.of(savedProvider));
+        when(validationService.sanitizeInput(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Set<String> accepted = providerService.updateInsurancePlans(savedProvider.getId(),
+            List.of("Blue Cross", " blue  cross", "Aetna"));
+
+        // Assert
+        assertEquals(List.of("Blue Cross", "Aetna"), List.copyOf(accepted));
+        assertEquals(Set.of("Blue Cross", "Aetna"), savedProvider.getAcceptedInsurancePlans());
+        verify(providerRepository).save(savedProvider);
+        verify(eventPublisher).publishEvent(any(ProviderInsuranceChangedEvent.class));
+    }
+
+    @Test
+    void testUpdateInsurancePlans_RejectsBlankNames() {
+        // Arrange
+        when(providerRepository.findById(savedProvider.getId())).thenReturn(Optional.of(savedProvider));
+        when(validationService.sanitizeInput(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> providerService.updateInsurancePlans(savedProvider.getId(), List.of("Aetna", "  ")));
+        verify(providerRepository, never()).save(any(Provider.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
@@ -0,0 +1,96 @@
+package com.healthfirst.service;
+
+import com.healthfirst.repository.ProviderAvailabilityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecurringOverlapValidatorTest {
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @InjectMocks
+    private RecurringOverlapValidator overlapValidator;
+
+    @Test
+    void testFindConflictingDates_ReturnsEveryConflictWithOneQuery() {
+        // Arrange - 90 daily dates, existing windows on three of them
+        UUID providerId = UUID.randomUUID();
+        LocalDate first = LocalDate.now().plusDays(1);
+        List<LocalDate> dates = first.datesUntil(first.plusDays(90)).collect(Collectors.toList());
+        when(availabilityRepository.findActiveWindows(providerId, first, first.plusDays(89))).thenReturn(List.of(
+                window(first.plusDays(2), LocalTime.of(8, 0), LocalTime.of(9, 30)),    // overlaps 09:00-17:00
+                window(first.plusDays(10), LocalTime.of(17, 0), LocalTime.of(19, 0)),  // adjacent only
+                window(first.plusDays(45), LocalTime.of(12, 0), LocalTime.of(12, 30)), // inside
+                window(first.plusDays(89), LocalTime.of(16, 59), LocalTime.of(18, 0))  // last date, one minute
+        ));
+
+        // Act
+        List<LocalDate> conflicts = overlapValidator.findConflictingDates(
+                providerId, dates, LocalTime.of(9, 0), LocalTime.of(17, 0));
+
+        // Assert
+        assertEquals(List.of(first.plusDays(2), first.plusDays(45), first.plusDays(89)), conflicts);
+        verify(availabilityRepository, times(1)).findActiveWindows(any(), any(), any());
+        verify(availabilityRepository, never()).findOverlappingSlots(any(), any(), any(), any());
+    }
+
+    @Test
+    void testFindConflictingDates_NoDates() {
+        // Act
+        List<LocalDate> conflicts = overlapValidator.findConflictingDates(
+                UUID.randomUUID(), List.of(), LocalTime.of(9, 0), LocalTime.of(17, 0));
+
+        // Assert
+        assertTrue(conflicts.isEmpty());
+        verifyNoInteractions(availabilityRepository);
+    }
+
+    @Test
+    void testIntervalTree_MatchesBruteForce() {
+        // Arrange - random windows over a week, including nested and overlapping ones
+        Random random = new Random(42);
+        LocalDate first = LocalDate.of(2026, 1, 5);
+        List<Object[]> windows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(24 * 60 - 1);
+            int end = start + 1 + random.nextInt(Math.min(240, 24 * 60 - 1 - start) + 1);
+            windows.add(window(first.plusDays(random.nextInt(7)), LocalTime.ofSecondOfDay(start * 60L),
+                    LocalTime.ofSecondOfDay(Math.min(end, 24 * 60 - 1) * 60L)));
+        }
+        RecurringOverlapValidator.IntervalTree tree = RecurringOverlapValidator.IntervalTree.of(windows);
+
+        for (int i = 0; i < 2000; i++) {
+            long day = first.plusDays(random.nextInt(7)).toEpochDay() * 86400;
+            long start = day + random.nextInt(24 * 60) * 60L;
+            long end = start + (1 + random.nextInt(120)) * 60L;
+
+            // Act & Assert
+            boolean expected = windows.stream().anyMatch(row -> {
+                long rowDay = ((LocalDate) row[0]).toEpochDay() * 86400;
+                return rowDay + ((LocalTime) row[1]).toSecondOfDay() < end
+                        && rowDay + ((LocalTime) row[2]).toSecondOfDay() > start;
+            });
+            assertEquals(expected, tree.overlaps(start, end));
+        }
+    }
+
+    // ========== TEST HELPERS ==========
+
+    private Object[] window(LocalDate date, LocalTime start, LocalTime end) {
+        return new Object[] {date, start, end};
+    }
+}
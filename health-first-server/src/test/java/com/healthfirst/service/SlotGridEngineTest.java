@@ -0,0 +1,145 @@
+package com.healthfirst.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotGridEngineTest {
+
+    private final SlotGridEngine engine = new SlotGridEngine();
+
+    @Test
+    void testGenerate_MatchesZonedDateTimeLoopAcrossTransitions() {
+        // Arrange - windows around the 01:00-03:00 transition hours, in zones with and without DST
+        List<LocalDate> dates = LocalDate.of(2026, 1, 1).datesUntil(LocalDate.of(2028, 1, 1)).collect(Collectors.toList());
+        String[] zones = {"UTC", "America/New_York", "Europe/London", "Australia/Lord_Howe", "Asia/Kolkata"};
+        LocalTime[][] windows = {
+                {LocalTime.of(9, 0), LocalTime.of(17, 0)},
+                {LocalTime.of(0, 30), LocalTime.of(4, 0)},
+                {LocalTime.of(2, 15), LocalTime.of(2, 45)}
+        };
+
+        for (String zone : zones) {
+            for (LocalTime[] window : windows) {
+                SlotGridEngine.Template template = new SlotGridEngine.Template(window[0], window[1], 30, 10, zone);
+
+                // Act
+                SlotGridEngine.SlotGrid grid = engine.generate(template, dates);
+
+                // Assert
+                for (int d = 0; d < dates.size(); d++) {
+                    List<LocalDateTime> expected = referenceStarts(dates.get(d), window[0], window[1], 30, 10, zone);
+                    List<LocalDateTime> actual = new ArrayList<>();
+                    for (int i = grid.firstIndexOfDate(d); i < grid.endIndexOfDate(d); i++) {
+                        actual.add(SlotGridEngine.SlotGrid.toUtcDateTime(grid.startMinute(i)));
+                    }
+                    assertEquals(expected, actual, zone + " " + dates.get(d) + " " + window[0]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGenerate_DstGapShiftsWindowStartForward() {
+        // Arrange - 02:30 does not exist in New York on 2026-03-08, it becomes 03:30 EDT (07:30 UTC)
+        SlotGridEngine.Template template = new SlotGridEngine.Template(
+                LocalTime.of(2, 30), LocalTime.of(5, 0), 30, 0, "America/New_York");
+
+        // Act
+        SlotGridEngine.SlotGrid grid = engine.generate(template, LocalDate.of(2026, 3, 8));
+
+        // Assert - 07:30 to 09:00 UTC
+        assertEquals(3, grid.size());
+        assertEquals(LocalDateTime.of(2026, 3, 8, 7, 30), SlotGridEngine.SlotGrid.toUtcDateTime(grid.startMinute(0)));
+        assertEquals(LocalDateTime.of(2026, 3, 8, 9, 0), SlotGridEngine.SlotGrid.toUtcDateTime(grid.endMinute(2)));
+        assertEquals(SlotGridEngine.ZoneTimeline.LocalTimeKind.GAP, engine.timeline("America/New_York", 2026)
+                .classify(localEpochMinute(LocalDateTime.of(2026, 3, 8, 2, 30))));
+    }
+
+    @Test
+    void testGenerate_DstOverlapUsesEarlierOffsetAndKeepsExtraHour() {
+        // Arrange - 01:00-03:00 on 2026-11-01 in New York lasts three hours, 01:00 is taken as EDT
+        SlotGridEngine.Template template = new SlotGridEngine.Template(
+                LocalTime.of(1, 0), LocalTime.of(3, 0), 60, 0, "America/New_York");
+
+        // Act
+        SlotGridEngine.SlotGrid grid = engine.generate(template, LocalDate.of(2026, 11, 1));
+
+        // Assert - 05:00 to 08:00 UTC
+        assertEquals(3, grid.size());
+        assertEquals(LocalDateTime.of(2026, 11, 1, 5, 0), SlotGridEngine.SlotGrid.toUtcDateTime(grid.startMinute(0)));
+        assertEquals(SlotGridEngine.ZoneTimeline.LocalTimeKind.OVERLAP, engine.timeline("America/New_York", 2026)
+                .classify(localEpochMinute(LocalDateTime.of(2026, 11, 1, 1, 30))));
+        assertEquals(SlotGridEngine.ZoneTimeline.LocalTimeKind.NORMAL, engine.timeline("America/New_York", 2026)
+                .classify(localEpochMinute(LocalDateTime.of(2026, 11, 1, 2, 0))));
+    }
+
+    @Test
+    void testTimeline_ExtendsForLaterYears() {
+        // Arrange
+        engine.timeline("Europe/Berlin", 2026);
+
+        // Act
+        SlotGridEngine.SlotGrid grid = engine.generate(new SlotGridEngine.Template(
+                LocalTime.of(9, 0), LocalTime.of(10, 0), 30, 0, "Europe/Berlin"), LocalDate.of(2040, 7, 1));
+
+        // Assert - CEST in July
+        assertEquals(LocalDateTime.of(2040, 7, 1, 7, 0), SlotGridEngine.SlotGrid.toUtcDateTime(grid.startMinute(0)));
+    }
+
+    @Test
+    void testTimeline_ToLocalEpochMinuteMatchesZonedDateTime() {
+        // Arrange - every 10 minutes through a year, in zones with and without DST
+        String[] zones = {"UTC", "America/New_York", "Australia/Lord_Howe", "Asia/Kolkata"};
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+        for (String zone : zones) {
+            SlotGridEngine.ZoneTimeline timeline = engine.timeline(zone, 2026);
+            for (LocalDateTime utc = from; utc.getYear() == 2026; utc = utc.plusMinutes(10)) {
+                // Act
+                long local = timeline.toLocalEpochMinute(utc.toEpochSecond(ZoneOffset.UTC) / 60);
+
+                // Assert
+                LocalDateTime expected = utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.of(zone)).toLocalDateTime();
+                assertEquals(expected.toLocalDate(), SlotGridEngine.SlotGrid.toLocalDate(local), zone + " " + utc);
+                assertEquals(expected.toLocalTime().toSecondOfDay() / 60, SlotGridEngine.SlotGrid.toMinuteOfDay(local),
+                        zone + " " + utc);
+            }
+        }
+    }
+
+    // ========== TEST HELPERS ==========
+
+    /**
+     * The original ZonedDateTime based generation loop
+     */
+    private List<LocalDateTime> referenceStarts(LocalDate date, LocalTime start, LocalTime end,
+                                                int duration, int buffer, String zone) {
+        ZoneId timezone = ZoneId.of(zone);
+        LocalDateTime current = LocalDateTime.of(date, start).atZone(timezone)
+                .withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        LocalDateTime endUtc = LocalDateTime.of(date, end).atZone(timezone)
+                .withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+
+        List<LocalDateTime> starts = new ArrayList<>();
+        while (!current.plus(duration, ChronoUnit.MINUTES).isAfter(endUtc)) {
+            starts.add(current);
+            current = current.plus(duration + buffer, ChronoUnit.MINUTES);
+        }
+        return starts;
+    }
+
+    private long localEpochMinute(LocalDateTime local) {
+        return local.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
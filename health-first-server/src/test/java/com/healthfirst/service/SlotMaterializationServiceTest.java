@@ -0,0 +1,169 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.*;
+import com.healthfirst.enums.*;
+import com.healthfirst.event.AvailabilityChangedEvent;
+import com.healthfirst.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotMaterializationServiceTest {
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Spy
+    private AppointmentSlotGenerator slotGenerator = new AppointmentSlotGenerator();
+
+    @Mock
+    private AppointmentSlotBatchWriter slotBatchWriter;
+
+    @Mock
+    private VirtualSlotService virtualSlotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private SlotMaterializationService materializationService;
+
+    private Provider testProvider;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(slotGenerator, "gridEngine", new SlotGridEngine());
+        testProvider = new Provider();
+        testProvider.setId(UUID.randomUUID());
+        today = LocalDate.now();
+    }
+
+    @Test
+    void testIsWithinHorizon() {
+        // advanceBookingDays 30 + default margin of 7 days
+        assertTrue(materializationService.isWithinHorizon(availabilityOn(today.plusDays(37)), today));
+        assertFalse(materializationService.isWithinHorizon(availabilityOn(today.plusDays(38)), today));
+    }
+
+    @Test
+    void testMaterializePending_ChunksUntilExhausted() {
+        // Arrange
+        ReflectionTestUtils.setField(materializationService, "chunkSize", 2);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        List<ProviderAvailability> firstChunk = List.of(availabilityOn(today.plusDays(36)), availabilityOn(today.plusDays(37)));
+        List<ProviderAvailability> secondChunk = List.of(availabilityOn(today.plusDays(37)));
+        when(availabilityRepository.findPendingSlotMaterialization(
+                eq(today), eq(today.plusDays(7)), any(), any(), any(Pageable.class)))
+                .thenReturn(firstChunk, secondChunk);
+
+        List<AppointmentSlot> written = new ArrayList<>();
+        when(slotBatchWriter.insertAll(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<AppointmentSlot> slots = invocation.getArgument(0);
+            slots.forEachRemaining(written::add);
+            return written.size();
+        });
+
+        // Act
+        int materialized = materializationService.materializePending(today);
+
+        // Assert - a short chunk ends the run, every chunk commits separately
+        assertEquals(3, materialized);
+        assertEquals(3 * 16, written.size());
+        assertTrue(firstChunk.stream().allMatch(ProviderAvailability::getSlotsMaterialized));
+        assertTrue(secondChunk.get(0).getSlotsMaterialized());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(2)).publishEvent(any(AvailabilityChangedEvent.class));
+    }
+
+    @Test
+    void testMaterializePending_SkipsFailingInstanceAndContinues() {
+        // Arrange
+        ReflectionTestUtils.setField(materializationService, "chunkSize", 2);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        ProviderAvailability failing = availabilityOn(today.plusDays(36));
+        ProviderAvailability healthy = availabilityOn(today.plusDays(37));
+        ProviderAvailability later = availabilityOn(today.plusDays(37));
+        doThrow(new IllegalStateException("Invalid timezone")).when(slotGenerator).generate(failing);
+
+        List<ProviderAvailability> firstChunk = List.of(failing, healthy);
+        when(availabilityRepository.findPendingSlotMaterialization(
+                eq(today), eq(today.plusDays(7)), any(), any(), any(Pageable.class)))
+                .thenReturn(firstChunk, firstChunk, List.of(later));
+        when(availabilityRepository.findById(failing.getId())).thenReturn(Optional.of(failing));
+        when(availabilityRepository.findById(healthy.getId())).thenReturn(Optional.of(healthy));
+        when(slotBatchWriter.insertAll(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<AppointmentSlot> slots = invocation.getArgument(0);
+            slots.forEachRemaining(slot -> { });
+            return 0;
+        });
+
+        // Act
+        int materialized = materializationService.materializePending(today);
+
+        // Assert - the failing instance stays pending and the next chunk pages past it
+        assertEquals(2, materialized);
+        assertFalse(failing.getSlotsMaterialized());
+        assertTrue(healthy.getSlotsMaterialized());
+        assertTrue(later.getSlotsMaterialized());
+        verify(availabilityRepository).findPendingSlotMaterialization(
+                eq(today), eq(today.plusDays(7)), eq(healthy.getBookableFromDate()), eq(healthy.getId()),
+                any(Pageable.class));
+    }
+
+    @Test
+    void testMaterializePending_NothingPending() {
+        // Arrange
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(availabilityRepository.findPendingSlotMaterialization(any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertEquals(0, materializationService.materializePending(today));
+        verifyNoInteractions(slotBatchWriter);
+    }
+
+    @Test
+    void testExtendHorizon_SkippedInVirtualMode() {
+        // Arrange
+        when(virtualSlotService.isVirtualMode()).thenReturn(true);
+
+        // Act
+        materializationService.extendHorizon();
+
+        // Assert
+        verifyNoInteractions(availabilityRepository, slotBatchWriter, transactionManager);
+    }
+
+    private ProviderAvailability availabilityOn(LocalDate date) {
+        ProviderAvailability availability = new ProviderAvailability(
+                testProvider, date, LocalTime.of(9, 0), LocalTime.of(17, 0),
+                30, AppointmentType.CONSULTATION, "UTC");
+        availability.setId(UUID.randomUUID());
+        availability.updateBookableFromDate();
+        return availability;
+    }
+}
@@ -0,0 +1,52 @@
+package com.healthfirst.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKCollectorTest {
+
+    @Test
+    void testOffer_KeepsTheFirstKInOrder() {
+        // Arrange
+        TopKCollector<Integer> collector = new TopKCollector<>(3, Comparator.naturalOrder());
+
+        // Act
+        for (int value : new int[] {7, 3, 9, 1, 8, 3, 5}) {
+            collector.offer(value);
+        }
+
+        // Assert
+        assertTrue(collector.isFull());
+        assertEquals(3, collector.last());
+        assertEquals(List.of(1, 3, 3), collector.toList());
+    }
+
+    @Test
+    void testOffer_RejectsItemsThatCannotImproveAFullPage() {
+        // Arrange
+        TopKCollector<Integer> collector = new TopKCollector<>(2, Comparator.reverseOrder());
+        collector.offer(4);
+        collector.offer(6);
+
+        // Act & Assert
+        assertFalse(collector.offer(4));
+        assertFalse(collector.offer(2));
+        assertTrue(collector.offer(5));
+        assertEquals(List.of(6, 5), collector.toList());
+    }
+
+    @Test
+    void testOffer_ZeroLimitKeepsNothing() {
+        // Arrange
+        TopKCollector<Integer> collector = new TopKCollector<>(0, Comparator.naturalOrder());
+
+        // Act & Assert
+        assertFalse(collector.offer(1));
+        assertTrue(collector.isFull());
+        assertTrue(collector.toList().isEmpty());
+    }
+}
@@ -0,0 +1,148 @@
+package com.healthfirst.service;
+
+import com.healthfirst.entity.*;
+import com.healthfirst.enums.*;
+import com.healthfirst.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VirtualSlotServiceTest {
+
+    @Mock
+    private AppointmentSlotRepository slotRepository;
+
+    @Mock
+    private ProviderAvailabilityRepository availabilityRepository;
+
+    @Spy
+    private AppointmentSlotGenerator slotGenerator = new AppointmentSlotGenerator();
+
+    @InjectMocks
+    private VirtualSlotService virtualSlotService;
+
+    private Provider testProvider;
+    private ProviderAvailability testAvailability;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(slotGenerator, "gridEngine", new SlotGridEngine());
+        ReflectionTestUtils.setField(virtualSlotService, "slotMode", SlotMode.VIRTUAL);
+
+        testProvider = new Provider();
+        testProvider.setId(UUID.randomUUID());
+        testProvider.setIsActive(true);
+
+        testAvailability = new ProviderAvailability(
+                testProvider,
+                LocalDate.now().plusDays(1),
+                LocalTime.of(9, 0),
+                LocalTime.of(17, 0),
+                30,
+                AppointmentType.CONSULTATION,
+                "UTC"
+        );
+        testAvailability.setId(UUID.randomUUID());
+        testAvailability.setPrice(new BigDecimal("100.00"));
+        testAvailability.setLocation("Main Clinic");
+    }
+
+    @Test
+    void testDeriveSlots_FullGridWithStableIds() {
+        // Arrange
+        when(slotRepository.findAllSlotsByProviderAvailabilityIds(List.of(testAvailability.getId())))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        List<AppointmentSlot> slots = virtualSlotService.deriveSlots(List.of(testAvailability))
+                .get(testAvailability.getId());
+
+        // Assert
+        assertEquals(16, slots.size());
+        AppointmentSlot first = slots.get(0);
+        assertEquals(testAvailability.getAvailabilityDate().atTime(9, 0), first.getStartDateTime());
+        assertEquals(VirtualSlotService.virtualSlotId(testAvailability.getId(), first.getStartDateTime()), first.getId());
+        assertTrue(slots.stream().allMatch(AppointmentSlot::isAvailable));
+    }
+
+    @Test
+    void testDeriveOpenSlots_PersistedBookingOverlaysGrid() {
+        // Arrange
+        LocalDateTime bookedStart = testAvailability.getAvailabilityDate().atTime(10, 0);
+        AppointmentSlot booked = new AppointmentSlot(testAvailability, testProvider,
+                bookedStart, bookedStart.plusMinutes(30), AppointmentType.CONSULTATION);
+        booked.setId(UUID.randomUUID());
+        booked.setIsBooked(true);
+        when(slotRepository.findAllSlotsByProviderAvailabilityIds(anyList())).thenReturn(List.of(booked));
+
+        LocalDateTime from = testAvailability.getAvailabilityDate().atStartOfDay();
+
+        // Act
+        List<AppointmentSlot> open = virtualSlotService.deriveOpenSlots(
+                List.of(testAvailability), from, from.plusDays(1));
+
+        // Assert
+        assertEquals(15, open.size());
+        assertTrue(open.stream().noneMatch(slot -> slot.getStartDateTime().equals(bookedStart)));
+        verify(slotRepository, times(1)).findAllSlotsByProviderAvailabilityIds(anyList());
+    }
+
+    @Test
+    void testResolveForBooking_OnGrid() {
+        // Arrange
+        LocalDateTime start = testAvailability.getAvailabilityDate().atTime(9, 30);
+        when(slotRepository.findByProviderAvailabilityAndStartDateTime(testAvailability.getId(), start))
+                .thenReturn(Optional.empty());
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+
+        // Act
+        Optional<AppointmentSlot> slot = virtualSlotService.resolveForBooking(testAvailability.getId(), start);
+
+        // Assert
+        assertTrue(slot.isPresent());
+        assertNull(slot.get().getId());
+        assertEquals(start.plusMinutes(30), slot.get().getEndDateTime());
+        assertSame(testAvailability, slot.get().getProviderAvailability());
+    }
+
+    @Test
+    void testResolveForBooking_OffGrid() {
+        // Arrange
+        LocalDateTime start = testAvailability.getAvailabilityDate().atTime(9, 10);
+        when(slotRepository.findByProviderAvailabilityAndStartDateTime(testAvailability.getId(), start))
+                .thenReturn(Optional.empty());
+        when(availabilityRepository.findById(testAvailability.getId())).thenReturn(Optional.of(testAvailability));
+
+        // Act & Assert
+        assertTrue(virtualSlotService.resolveForBooking(testAvailability.getId(), start).isEmpty());
+    }
+
+    @Test
+    void testResolveForBooking_MaterializedModeUsesPersistedOnly() {
+        // Arrange
+        ReflectionTestUtils.setField(virtualSlotService, "slotMode", SlotMode.MATERIALIZED);
+        LocalDateTime start = testAvailability.getAvailabilityDate().atTime(9, 30);
+        when(slotRepository.findByProviderAvailabilityAndStartDateTime(testAvailability.getId(), start))
+                .thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertTrue(virtualSlotService.resolveForBooking(testAvailability.getId(), start).isEmpty());
+        verifyNoInteractions(availabilityRepository);
+    }
+}